@@ -0,0 +1,108 @@
+package com.dong.judge.benchmark;
+
+import com.dong.judge.util.OutputChecker;
+import com.dong.judge.util.OutputCheckers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 输出比较基准测试
+ * <p>
+ * 对比原有的 normalizeOutput 规范化后比较与单次扫描的输出检查器。
+ * 用户输出使用 \r\n 换行并带有行尾空格，与预期输出在规范化后一致。
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Djmh.args="OutputCheckerBenchmark -prof gc"
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputCheckerBenchmark {
+
+    /**
+     * 输出大小（KB）
+     */
+    @Param({"64", "1024", "8192"})
+    public int sizeKb;
+
+    private String expected;
+    private String actual;
+    private final OutputChecker floating = OutputCheckers.floating(1e-6);
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder expectedBuilder = new StringBuilder(sizeKb * 1024);
+        StringBuilder actualBuilder = new StringBuilder(sizeKb * 1024 + sizeKb * 64);
+        while (expectedBuilder.length() < sizeKb * 1024) {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                if (i > 0) {
+                    line.append(' ');
+                }
+                line.append(random.nextInt(1_000_000)).append('.').append(random.nextInt(1000));
+            }
+            expectedBuilder.append(line).append('\n');
+            actualBuilder.append(line).append("  \r\n");
+        }
+        expected = expectedBuilder.toString();
+        actual = actualBuilder.toString();
+    }
+
+    @Benchmark
+    public boolean legacyNormalize() {
+        return normalizeOutput(actual).equals(normalizeOutput(expected));
+    }
+
+    @Benchmark
+    public boolean line() {
+        return OutputCheckers.LINE.check(expected, actual);
+    }
+
+    @Benchmark
+    public boolean token() {
+        return OutputCheckers.TOKEN.check(expected, actual);
+    }
+
+    @Benchmark
+    public boolean floatingPoint() {
+        return floating.check(expected, actual);
+    }
+
+    /**
+     * 原 CodeServiceImpl.normalizeOutput 的实现
+     */
+    private static String normalizeOutput(String output) {
+        if (output == null) {
+            return "";
+        }
+        String normalized = output.replace("\r\n", "\n");
+        normalized = normalized.trim();
+        if (normalized.contains("\n")) {
+            String[] lines = normalized.split("\n");
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < lines.length; i++) {
+                sb.append(lines[i].trim());
+                if (i < lines.length - 1) {
+                    sb.append("\n");
+                }
+            }
+            normalized = sb.toString();
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,141 @@
+package com.dong.judge.benchmark;
+
+import com.dong.judge.model.enums.DifficultyLevel;
+import com.dong.judge.model.pojo.judge.Problem;
+import com.dong.judge.service.impl.ProblemServiceImpl;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 题目分页基准测试
+ * <p>
+ * 在 50k 道题目上对比原有的全量加载后在内存中分页、数据库分页（skip/limit）和游标分页。
+ * 需要可用的 MongoDB，默认使用本机的 judge_benchmark 数据库，运行结束后删除测试集合。
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Djmh.args="ProblemPageBenchmark -jvmArgsAppend -Dmongo.uri=mongodb://host:27017/judge_benchmark"
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProblemPageBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final String[] TAGS = {"dp", "greedy", "graph", "math", "string", "tree", "sort", "search"};
+
+    @Param({"50000"})
+    public int problemCount;
+
+    /**
+     * 页码（从1开始）
+     */
+    @Param({"1", "100", "2000"})
+    public int page;
+
+    private MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+    private ProblemServiceImpl problemService;
+    private String cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String uri = System.getProperty("mongo.uri", "mongodb://localhost:27017/judge_benchmark");
+        mongoClient = MongoClients.create(uri);
+        mongoTemplate = new MongoTemplate(mongoClient, uri.substring(uri.lastIndexOf('/') + 1));
+        mongoTemplate.dropCollection(Problem.class);
+
+        IndexOperations indexOps = mongoTemplate.indexOps(Problem.class);
+        IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(Problem.class)
+                .forEach(indexOps::ensureIndex);
+
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Problem> batch = new ArrayList<>();
+        for (int i = 0; i < problemCount; i++) {
+            int difficulty = random.nextInt(8) + 1;
+            batch.add(Problem.builder()
+                    .problemId(String.valueOf(i + 1))
+                    .title("Problem " + i + " " + TAGS[random.nextInt(TAGS.length)])
+                    .difficulty(difficulty)
+                    .difficultyLevel(DifficultyLevel.getByLevel(difficulty))
+                    .tags(List.of(TAGS[random.nextInt(TAGS.length)], TAGS[random.nextInt(TAGS.length)]))
+                    .content("x".repeat(2000))
+                    .createdAt(base.plusSeconds(i))
+                    .updatedAt(base.plusSeconds(i))
+                    .build());
+            if (batch.size() == 1000) {
+                mongoTemplate.insert(batch, Problem.class);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            mongoTemplate.insert(batch, Problem.class);
+        }
+
+        problemService = new ProblemServiceImpl();
+        ReflectionTestUtils.setField(problemService, "mongoTemplate", mongoTemplate);
+
+        // 游标取上一页最后一道题目，与按页码跳过的位置一致
+        if (page > 1) {
+            Query query = new Query().with(Sort.by(Sort.Direction.DESC, "createdAt", "id"))
+                    .skip((long) (page - 1) * PAGE_SIZE - 1).limit(1);
+            cursor = mongoTemplate.findOne(query, Problem.class).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongoTemplate.dropCollection(Problem.class);
+        mongoClient.close();
+    }
+
+    @Benchmark
+    public Object legacyInMemory() {
+        List<Problem> all = mongoTemplate.findAll(Problem.class);
+        int start = (page - 1) * PAGE_SIZE;
+        int end = Math.min(start + PAGE_SIZE, all.size());
+        return new PageImpl<>(start < end ? all.subList(start, end) : List.of(),
+                PageRequest.of(page - 1, PAGE_SIZE), all.size());
+    }
+
+    @Benchmark
+    public Object offset() {
+        PageRequest pageRequest = PageRequest.of(page - 1, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "createdAt"));
+        return problemService.searchProblemsWithConditions(pageRequest, null, null, null, false);
+    }
+
+    @Benchmark
+    public Object keyset() {
+        return problemService.searchProblemsAfter(cursor, PAGE_SIZE, null, null, null, false);
+    }
+}
@@ -0,0 +1,70 @@
+package com.dong.judge.benchmark;
+
+import com.dong.judge.model.dto.code.TestCaseResult;
+import com.dong.judge.model.dto.code.TestCaseSetResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 评测结果统计基准测试
+ * <p>
+ * 每次评测结束都会调用 {@link TestCaseSetResult#calculateStatistics()}，其中约每 10 个用例有 1 个未通过。
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Djmh.args="TestCaseSetResultBenchmark"
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TestCaseSetResultBenchmark {
+
+    /**
+     * 测试用例数
+     */
+    @Param({"10", "100", "1000"})
+    public int caseCount;
+
+    private TestCaseSetResult result;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<TestCaseResult> results = new ArrayList<>(caseCount);
+        for (int i = 0; i < caseCount; i++) {
+            long time = 1_000_000L + random.nextInt(50_000_000);
+            long memory = 1_048_576L + random.nextInt(64 * 1_048_576);
+            results.add(TestCaseResult.builder()
+                    .id((long) i + 1)
+                    .status(random.nextInt(10) == 0 ? "Wrong Answer" : "Accepted")
+                    .time(time)
+                    .timeInMs(time / 1_000_000.0)
+                    .memory(memory)
+                    .memoryInMB(memory / 1_048_576.0)
+                    .runTime(time + random.nextInt(1_000_000))
+                    .build());
+        }
+        result = TestCaseSetResult.builder().testCaseResults(results).build();
+    }
+
+    @Benchmark
+    public TestCaseSetResult calculateStatistics() {
+        result.calculateStatistics();
+        return result;
+    }
+}
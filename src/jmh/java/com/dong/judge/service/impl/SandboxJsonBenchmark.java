@@ -0,0 +1,126 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.SandboxConfig;
+import com.dong.judge.model.dto.sandbox.RunRequest;
+import com.dong.judge.model.vo.sandbox.RunResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 沙箱请求构建与响应解析基准测试
+ * <p>
+ * 覆盖编译请求体、合并运行请求体的构建和序列化，以及 /run 响应反序列化并解析为 {@link RunResult}。
+ * 不发起网络请求，只衡量评测路径上的 Jackson 开销。
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Djmh.args="SandboxJsonBenchmark -prof gc"
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SandboxJsonBenchmark {
+
+    /**
+     * 单次 /run 请求合并的测试用例数
+     */
+    @Param({"1", "20"})
+    public int caseCount;
+
+    /**
+     * 每个测试用例的输入和输出大小（KB）
+     */
+    @Param({"1", "64"})
+    public int sizeKb;
+
+    private ObjectMapper objectMapper;
+    private SandboxServiceImpl sandboxService;
+    private SandboxConfig.LanguageConfig cpp;
+    private String code;
+    private List<RunRequest> runRequests;
+    private List<SandboxConfig.LanguageConfig> runConfigs;
+    private byte[] runResponse;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        SandboxConfig sandboxConfig = StubGoJudgeServer.sandboxConfig("http://127.0.0.1:5050");
+        cpp = sandboxConfig.getLanguageConfig("cpp");
+
+        sandboxService = new SandboxServiceImpl();
+        ReflectionTestUtils.setField(sandboxService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(sandboxService, "sandboxConfig", sandboxConfig);
+
+        Random random = new Random(42);
+        code = "#include <bits/stdc++.h>\nint main() { long long a, b; std::cin >> a >> b; std::cout << a + b; }\n"
+                + "// padding\n".repeat(200);
+        runRequests = new ArrayList<>();
+        ArrayNode response = objectMapper.createArrayNode();
+        for (int i = 0; i < caseCount; i++) {
+            String data = randomNumbers(random, sizeKb * 1024);
+            runRequests.add(RunRequest.builder()
+                    .language("cpp")
+                    .fileId("compiled-main")
+                    .input(data)
+                    .build());
+            ObjectNode result = response.addObject();
+            result.put("status", i % 7 == 6 ? "Time Limit Exceeded" : "Accepted");
+            result.put("exitStatus", 0);
+            result.put("time", 1_200_000L + i);
+            result.put("memory", 3_145_728L);
+            result.put("runTime", 1_500_000L + i);
+            result.putObject("files").put("stdout", data).put("stderr", "");
+        }
+        runConfigs = Collections.nCopies(caseCount, cpp);
+        runResponse = objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] buildCompileRequest() throws Exception {
+        return objectMapper.writeValueAsBytes(sandboxService.buildCompileRequestBody(code, cpp));
+    }
+
+    @Benchmark
+    public byte[] buildRunRequest() throws Exception {
+        return objectMapper.writeValueAsBytes(sandboxService.buildRunRequestBody(runRequests, runConfigs, Map.of()));
+    }
+
+    @Benchmark
+    public void parseRunResponse(Blackhole blackhole) throws Exception {
+        JsonNode response = objectMapper.readTree(runResponse);
+        for (JsonNode result : response) {
+            blackhole.consume(sandboxService.parseRunResult(result));
+        }
+    }
+
+    private static String randomNumbers(Random random, int size) {
+        StringBuilder builder = new StringBuilder(size + 16);
+        for (int i = 1; builder.length() < size; i++) {
+            builder.append(random.nextInt(1_000_000)).append(i % 10 == 0 ? '\n' : ' ');
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,133 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.SandboxConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内的 go-judge 桩服务
+ * <p>
+ * 按 go-judge 的 /run 协议返回结果：带 copyOutCached 的命令视为编译，返回产物文件ID；
+ * 其余命令把标准输入原样作为标准输出返回。每个请求在响应前等待固定延迟，模拟沙箱执行耗时。
+ * </p>
+ */
+class StubGoJudgeServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ObjectMapper objectMapper;
+    private final long latencyMillis;
+    private final AtomicLong fileSequence = new AtomicLong();
+
+    StubGoJudgeServer(ObjectMapper objectMapper, long latencyMillis) throws IOException {
+        this.objectMapper = objectMapper;
+        this.latencyMillis = latencyMillis;
+        // 响应头和响应体分开写出，不关闭 Nagle 算法时每个请求会多出约 40ms 的延迟确认等待
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/run", this::handleRun);
+        server.createContext("/file", this::handleFile);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    /**
+     * 基准测试使用的语言配置：编译型的 cpp 和解释型的 python
+     */
+    static SandboxConfig sandboxConfig(String url) {
+        SandboxConfig sandboxConfig = new SandboxConfig();
+
+        SandboxConfig.LanguageConfig cpp = new SandboxConfig.LanguageConfig();
+        cpp.setSourceFile("main.cpp");
+        cpp.setCompileOutFile("main");
+        cpp.setCompileCommand(List.of("g++", "-O2", "-Wall", "main.cpp", "-o", "main"));
+        cpp.setRunCommand(List.of("./main"));
+        cpp.setCpuLimit(1_000_000_000L);
+        sandboxConfig.getLanguages().put("cpp", cpp);
+
+        SandboxConfig.LanguageConfig python = new SandboxConfig.LanguageConfig();
+        python.setSourceFile("main.py");
+        python.setCompileOutFile("");
+        python.setRunCommand(List.of("python3", "main.py"));
+        python.setCpuLimit(1_000_000_000L);
+        python.setNeedCompile(false);
+        sandboxConfig.getLanguages().put("python", python);
+
+        SandboxConfig.Node node = new SandboxConfig.Node();
+        node.setUrl(url);
+        sandboxConfig.getNodes().add(node);
+        sandboxConfig.initLanguageAliasMap();
+        return sandboxConfig;
+    }
+
+    private void handleRun(HttpExchange exchange) throws IOException {
+        JsonNode request;
+        try (InputStream body = exchange.getRequestBody()) {
+            request = objectMapper.readTree(body);
+        }
+        ArrayNode response = objectMapper.createArrayNode();
+        for (JsonNode cmd : request.path("cmd")) {
+            ObjectNode result = response.addObject();
+            result.put("status", "Accepted");
+            result.put("exitStatus", 0);
+            result.put("time", 1_200_000L);
+            result.put("memory", 3_145_728L);
+            result.put("runTime", 1_500_000L);
+            ObjectNode files = result.putObject("files");
+            files.put("stderr", "");
+            if (cmd.has("copyOutCached")) {
+                files.put("stdout", "");
+                result.putObject("fileIds")
+                        .put(cmd.path("copyOutCached").path(0).asText(), "stub-" + fileSequence.incrementAndGet());
+            } else {
+                files.put("stdout", cmd.path("files").path(0).path("content").asText());
+            }
+        }
+        pause();
+        respond(exchange, 200, objectMapper.writeValueAsBytes(response));
+    }
+
+    private void handleFile(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().close();
+        respond(exchange, 200, new byte[0]);
+    }
+
+    private void pause() {
+        if (latencyMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.JudgeConfig;
+import com.dong.judge.config.SandboxConfig;
+import com.dong.judge.config.SandboxHttpConfig;
+import com.dong.judge.dao.repository.SubmissionRepository;
+import com.dong.judge.model.dto.code.CodeSubmitRequest;
+import com.dong.judge.model.dto.code.TestCase;
+import com.dong.judge.model.dto.code.TestCaseResult;
+import com.dong.judge.model.dto.code.TestCaseSetResult;
+import com.dong.judge.model.enums.JudgePolicy;
+import com.dong.judge.model.pojo.judge.Problem;
+import com.dong.judge.model.pojo.judge.TestGroup;
+import com.dong.judge.service.JudgeProgressService;
+import com.dong.judge.service.JudgeQueue;
+import com.dong.judge.service.ProblemService;
+import com.dong.judge.service.RankingService;
+import com.dong.judge.service.TestDataStore;
+import com.dong.judge.service.TestGroupService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.io.CloseMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * 端到端提交评测基准测试
+ * <p>
+ * 使用真实的 {@link CodeServiceImpl}、{@link SandboxServiceImpl} 和 HTTP 客户端，沙箱替换为进程内的
+ * {@link StubGoJudgeServer}，每个请求按 latencyMs 延迟响应；题目、测试数据和提交记录的存储使用桩对象。
+ * latencyMs=0 时结果反映评测路径自身的开销，非 0 时反映沙箱往返次数和批量合并的效果。
+ * 运行：mvn -Pbenchmark test-compile exec:exec -Djmh.args="SubmitCodeBenchmark -p latencyMs=0,5"
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubmitCodeBenchmark {
+
+    /**
+     * 沙箱每个请求的模拟延迟（毫秒）
+     */
+    @Param({"0", "5"})
+    public long latencyMs;
+
+    @Param({"cpp", "python"})
+    public String language;
+
+    /**
+     * 测试用例数
+     */
+    @Param({"20"})
+    public int caseCount;
+
+    /**
+     * 是否使用异步HTTP客户端运行测试用例
+     */
+    @Param({"false", "true"})
+    public boolean async;
+
+    private StubGoJudgeServer server;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private SandboxServiceImpl sandboxService;
+    private CodeServiceImpl codeService;
+    private CodeSubmitRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        server = new StubGoJudgeServer(objectMapper, latencyMs);
+
+        SandboxConfig sandboxConfig = StubGoJudgeServer.sandboxConfig(server.url());
+        sandboxConfig.getHttp().setAsyncEnabled(async);
+        // 关闭编译缓存和运行结果缓存，每次提交都真实编译和运行
+        sandboxConfig.getCompileCache().setEnabled(false);
+        sandboxConfig.getResultCache().setEnabled(false);
+
+        SandboxHttpConfig httpConfig = new SandboxHttpConfig();
+        connectionManager = httpConfig.sandboxConnectionManager(sandboxConfig);
+        httpClient = httpConfig.sandboxClassicHttpClient(connectionManager, sandboxConfig);
+        SandboxHttpClient sandboxHttpClient = new SandboxHttpClient(httpConfig.restTemplate(httpClient),
+                httpConfig.sandboxAsyncHttpClient(sandboxConfig), objectMapper, meterRegistry, sandboxConfig);
+        TestDataStore testDataStore = stub(TestDataStore.class);
+        JudgeMetrics judgeMetrics = new JudgeMetrics(meterRegistry, sandboxConfig);
+
+        sandboxService = new SandboxServiceImpl();
+        ReflectionTestUtils.setField(sandboxService, "sandboxHttpClient", sandboxHttpClient);
+        ReflectionTestUtils.setField(sandboxService, "nodeBalancer",
+                new SandboxNodeBalancer(sandboxConfig, sandboxHttpClient, meterRegistry, ""));
+        ReflectionTestUtils.setField(sandboxService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(sandboxService, "sandboxConfig", sandboxConfig);
+        ReflectionTestUtils.setField(sandboxService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(sandboxService, "fileCache",
+                new SandboxFileCache(sandboxHttpClient, testDataStore, sandboxConfig, meterRegistry));
+        ReflectionTestUtils.setField(sandboxService, "testDataStore", testDataStore);
+        ReflectionTestUtils.setField(sandboxService, "judgeMetrics", judgeMetrics);
+        sandboxService.initCaches();
+
+        // 桩服务把输入原样输出，预期输出与输入相同，所有用例都通过
+        List<TestCase> testCases = new ArrayList<>();
+        List<TestCaseResult> expected = new ArrayList<>();
+        for (long id = 1; id <= caseCount; id++) {
+            String data = id + " " + (id * 7) + "\n";
+            testCases.add(TestCase.builder().id(id).input(data).build());
+            expected.add(TestCaseResult.builder().id(id).stdout(data).build());
+        }
+        TestGroup testGroup = TestGroup.builder().id("group-1").testCases(testCases).testCaseResults(expected).build();
+        Problem problem = Problem.builder().id("problem-1").title("A+B").testGroupId("group-1").build();
+
+        ProblemService problemService = stub(ProblemService.class);
+        when(problemService.getProblemById("problem-1")).thenReturn(problem);
+        TestGroupService testGroupService = stub(TestGroupService.class);
+        when(testGroupService.getTestGroupById("group-1")).thenReturn(testGroup);
+        SubmissionRepository submissionRepository = stub(SubmissionRepository.class);
+        when(submissionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        JudgeConfig judgeConfig = new JudgeConfig();
+        judgeConfig.setPolicy(JudgePolicy.RUN_ALL);
+        codeService = new CodeServiceImpl(sandboxService, problemService, testGroupService, submissionRepository,
+                sandboxConfig, stub(JudgeQueue.class), judgeConfig, new JudgeScheduler(judgeConfig, meterRegistry),
+                testDataStore, stub(ProblemStatisticsWriter.class), stub(RankingService.class),
+                stub(JudgeProgressService.class), judgeMetrics);
+
+        request = new CodeSubmitRequest();
+        request.setProblemId("problem-1");
+        request.setLanguage(language);
+        request.setCode("cpp".equals(language)
+                ? "#include <iostream>\nint main() { std::string s; while (std::getline(std::cin, s)) std::cout << s << '\\n'; }\n"
+                : "import sys\nsys.stdout.write(sys.stdin.read())\n");
+
+        TestCaseSetResult result = codeService.submitCode(request, "user-1");
+        if (!result.isAllPassed()) {
+            throw new IllegalStateException("桩沙箱评测未通过: " + result.getFirstFailedTestCase());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sandboxService.clearCompileCache();
+        server.close();
+        httpClient.close(CloseMode.IMMEDIATE);
+        connectionManager.close();
+    }
+
+    @Benchmark
+    public TestCaseSetResult submitCode() {
+        return codeService.submitCode(request, "user-1");
+    }
+
+    /**
+     * 只响应桩设定的调用，不记录调用历史，避免长时间运行时内存持续增长
+     */
+    private static <T> T stub(Class<T> type) {
+        return mock(type, withSettings().stubOnly());
+    }
+}
@@ -0,0 +1,214 @@
+package com.dong.judge.config;
+
+import com.dong.judge.model.enums.JudgePolicy;
+import com.dong.judge.model.enums.OutputCheckMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 评测配置
+ * <p>
+ * 对应配置文件中 judge 前缀下的配置项
+ * </p>
+ */
+@Configuration
+@ConfigurationProperties(prefix = "judge")
+@Data
+public class JudgeConfig {
+
+    private Queue queue = new Queue();
+
+    private Worker worker = new Worker();
+
+    private Scheduler scheduler = new Scheduler();
+
+    private Checker checker = new Checker();
+
+    private TestData testData = new TestData();
+
+    private Statistics statistics = new Statistics();
+
+    private Ranking ranking = new Ranking();
+
+    private Progress progress = new Progress();
+
+    private Rejudge rejudge = new Rejudge();
+
+    /**
+     * 全局评测策略，题目未单独配置时使用
+     */
+    private JudgePolicy policy = JudgePolicy.RUN_ALL;
+
+    @Data
+    public static class Queue {
+        /**
+         * 队列实现：memory（内存队列，用于测试和单机调试）或 mongo（持久化队列）
+         */
+        private String type = "memory";
+
+        /**
+         * 队列最大长度，超过后新的提交将被拒绝
+         */
+        private int capacity = 1000;
+
+        /**
+         * 队列已满时的等待时间，为0时立即拒绝（返回429）
+         */
+        private Duration offerTimeout = Duration.ZERO;
+
+        /**
+         * 持久化队列中任务被领取后的超时时间，超时未确认的任务会重新入队
+         */
+        private Duration claimTimeout = Duration.ofMinutes(10);
+
+        /**
+         * 检查超时未确认任务的间隔
+         */
+        private Duration recoverInterval = Duration.ofMinutes(1);
+
+        /**
+         * 持久化队列为空时的轮询间隔
+         */
+        private Duration pollInterval = Duration.ofMillis(200);
+    }
+
+    @Data
+    public static class Scheduler {
+        /**
+         * 全局最多同时在沙箱中执行的测试用例数，建议设为所有沙箱节点CPU核数之和
+         */
+        private int maxInFlight = 16;
+
+        /**
+         * 各优先级通道的调度权重，通道之间按权重轮流获得执行名额
+         */
+        private int interactiveWeight = 8;
+        private int normalWeight = 4;
+        private int bulkWeight = 1;
+
+        /**
+         * 名额不足的请求最多被其他通道中较小的请求越过的时间，超过后暂停分配直到它获得名额
+         */
+        private Duration agingTimeout = Duration.ofSeconds(2);
+    }
+
+    @Data
+    public static class Checker {
+        /**
+         * 默认输出比较方式，题目未单独配置时使用
+         */
+        private OutputCheckMode mode = OutputCheckMode.LINE;
+
+        /**
+         * 浮点误差比较的默认允许误差（绝对误差或相对误差）
+         */
+        private double floatEpsilon = 1e-6;
+    }
+
+    @Data
+    public static class TestData {
+        /**
+         * 超过该长度（字符数）的测试输入和预期输出存入测试数据存储，测试集文档中只保留摘要
+         */
+        private int inlineThreshold = 4096;
+
+        /**
+         * 内存中缓存的测试数据上限（按 UTF-8 编码后的字节数计）
+         */
+        private DataSize cacheSize = DataSize.ofMegabytes(64);
+    }
+
+    @Data
+    public static class Statistics {
+        /**
+         * 是否在内存中合并题目统计计数并定期批量写入，关闭时每次提交立即写入
+         */
+        private boolean coalesce = false;
+
+        /**
+         * 合并写入的间隔
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class Ranking {
+        /**
+         * 排行榜存储实现：redis（Redis 有序集合）或 memory（内存，仅用于单实例部署）
+         */
+        private String store = "redis";
+
+        /**
+         * Redis 键前缀
+         */
+        private String keyPrefix = "judge:ranking";
+
+        /**
+         * 单次查询返回的最大条目数
+         */
+        private int maxLimit = 100;
+    }
+
+    @Data
+    public static class Progress {
+        /**
+         * 是否通过 Redis 频道把进度事件转发给其他实例，单实例部署时可以关闭
+         */
+        private boolean broadcast = true;
+
+        /**
+         * 进度事件的 Redis 频道
+         */
+        private String channel = "judge:progress";
+
+        /**
+         * 订阅连接的超时时间
+         */
+        private Duration timeout = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Rejudge {
+        /**
+         * 单个重测任务同时评测的提交数
+         */
+        private int concurrency = 2;
+
+        /**
+         * 每秒最多开始评测的提交数，为0时不限制
+         */
+        private double rate = 5;
+
+        /**
+         * 每批读取的提交数，每批评测完成后批量写入结果并保存进度
+         */
+        private int batchSize = 50;
+
+        /**
+         * 评测队列中待评测的提交超过该数量时暂停重测，为0时不暂停
+         */
+        private int pauseQueueSize = 100;
+
+        /**
+         * 运行中的任务超过该时间没有保存进度，视为所在实例已退出，由其他实例接管
+         */
+        private Duration leaseTimeout = Duration.ofMinutes(2);
+
+        /**
+         * 检查待接管任务的间隔
+         */
+        private Duration pollInterval = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Worker {
+        /**
+         * 评测工作线程数量
+         */
+        private int poolSize = 4;
+    }
+}
@@ -0,0 +1,40 @@
+package com.dong.judge.config;
+
+import com.dong.judge.service.JudgeQueue;
+import com.dong.judge.service.impl.InMemoryJudgeQueue;
+import com.dong.judge.service.impl.MongoJudgeQueue;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * 评测队列配置类
+ * <p>
+ * 根据配置属性动态选择使用哪个评测队列实现
+ * </p>
+ */
+@Configuration
+public class JudgeQueueConfig {
+
+    /**
+     * 内存评测队列
+     * 当judge.queue.type为memory或未配置时使用
+     */
+    @Bean
+    @ConditionalOnProperty(name = "judge.queue.type", havingValue = "memory", matchIfMissing = true)
+    public JudgeQueue inMemoryJudgeQueue(JudgeConfig judgeConfig) {
+        return new InMemoryJudgeQueue(judgeConfig.getQueue().getCapacity());
+    }
+
+    /**
+     * MongoDB持久化评测队列
+     * 当judge.queue.type为mongo时使用
+     */
+    @Bean
+    @ConditionalOnProperty(name = "judge.queue.type", havingValue = "mongo")
+    public JudgeQueue mongoJudgeQueue(JudgeConfig judgeConfig, MongoTemplate mongoTemplate) {
+        JudgeConfig.Queue queue = judgeConfig.getQueue();
+        return new MongoJudgeQueue(mongoTemplate, queue.getCapacity(), queue.getClaimTimeout(), queue.getPollInterval());
+    }
+}
@@ -0,0 +1,44 @@
+package com.dong.judge.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 题目缓存配置
+ * <p>
+ * 对应配置文件中 problem.cache 前缀下的配置项
+ * </p>
+ */
+@Configuration
+@ConfigurationProperties(prefix = "problem.cache")
+@Data
+public class ProblemCacheConfig {
+
+    /**
+     * 是否启用题目缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 按ID缓存的题目数量上限
+     */
+    private int maxProblems = 2000;
+
+    /**
+     * 缓存的题目列表分页数量上限
+     */
+    private int maxPages = 500;
+
+    /**
+     * 缓存过期时间，提交统计计数不会使缓存失效，最多滞后该时间
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+
+    /**
+     * 多实例之间广播缓存失效消息的 Redis 频道
+     */
+    private String channel = "judge:problem:changed";
+}
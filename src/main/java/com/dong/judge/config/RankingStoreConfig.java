@@ -0,0 +1,39 @@
+package com.dong.judge.config;
+
+import com.dong.judge.service.RankingStore;
+import com.dong.judge.service.impl.InMemoryRankingStore;
+import com.dong.judge.service.impl.RedisRankingStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 排行榜存储配置类
+ * <p>
+ * 根据配置属性选择排行榜存储实现
+ * </p>
+ */
+@Configuration
+public class RankingStoreConfig {
+
+    /**
+     * Redis 有序集合排行榜
+     * 当judge.ranking.store为redis或未配置时使用
+     */
+    @Bean
+    @ConditionalOnProperty(name = "judge.ranking.store", havingValue = "redis", matchIfMissing = true)
+    public RankingStore redisRankingStore(StringRedisTemplate redisTemplate, JudgeConfig judgeConfig) {
+        return new RedisRankingStore(redisTemplate, judgeConfig.getRanking().getKeyPrefix());
+    }
+
+    /**
+     * 内存排行榜
+     * 当judge.ranking.store为memory时使用
+     */
+    @Bean
+    @ConditionalOnProperty(name = "judge.ranking.store", havingValue = "memory")
+    public RankingStore inMemoryRankingStore() {
+        return new InMemoryRankingStore();
+    }
+}
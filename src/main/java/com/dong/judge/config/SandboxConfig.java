@@ -2,10 +2,11 @@ package com.dong.judge.config;
 
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,15 +18,27 @@ import jakarta.annotation.PostConstruct;
 public class SandboxConfig {
 
     private Map<String, LanguageConfig> languages = new HashMap<>();
+
+    private CompileCache compileCache = new CompileCache();
+
+    private ResultCache resultCache = new ResultCache();
+
+    private Run run = new Run();
+
+    private Preload preload = new Preload();
+
+    private Http http = new Http();
+
+    /**
+     * 沙箱节点列表，为空时使用 sandbox.api.url 作为唯一节点
+     */
+    private List<Node> nodes = new ArrayList<>();
+
+    private Balancer balancer = new Balancer();
     
     // 语言别名映射表，存储所有语言标识符和别名到标准语言标识符的映射
     private final Map<String, String> normalizedLanguageMap = new HashMap<>();
 
-    @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
-    }
-    
     /**
      * 初始化语言别名映射
      * 直接在代码中硬编码添加语言别名，避免配置文件解析问题
@@ -83,6 +96,23 @@ public class SandboxConfig {
         }
     }
     
+    /**
+     * 获取语言的标准标识符
+     *
+     * @param language 语言标识符或别名
+     * @return 标准语言标识符，如果不支持则返回null
+     */
+    public String normalizeLanguage(String language) {
+        if (language == null) {
+            return null;
+        }
+        String normalizedLang = normalizedLanguageMap.get(language.toLowerCase());
+        if (normalizedLang != null) {
+            return normalizedLang;
+        }
+        return languages.containsKey(language) ? language : null;
+    }
+
     /**
      * 根据语言标识符或别名获取标准语言配置
      * 
@@ -104,6 +134,180 @@ public class SandboxConfig {
         return languages.get(language);
     }
 
+    /**
+     * 根据各语言的CPU时间限制推导沙箱请求的读超时
+     * <p>
+     * 读超时 = 最大cpuLimit × 倍数 + 余量，保证正常的编译和批量运行不会被误判超时，
+     * 同时沙箱卡死时请求线程能及时释放
+     * </p>
+     *
+     * @return 读超时
+     */
+    public Duration resolveReadTimeout() {
+        long maxCpuLimit = languages.values().stream()
+                .mapToLong(LanguageConfig::getCpuLimit)
+                .max()
+                .orElse(new LanguageConfig().getCpuLimit());
+        long cpuNanos = (long) (maxCpuLimit * http.getReadTimeoutCpuMultiplier());
+        return Duration.ofNanos(cpuNanos).plus(http.getReadTimeoutMargin());
+    }
+
+    @Data
+    public static class CompileCache {
+        /**
+         * 是否启用编译产物缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 最多缓存的编译产物数量，超出后按最久未使用淘汰
+         */
+        private int maxEntries = 500;
+
+        /**
+         * 编译产物的存活时间，过期后从沙箱中删除
+         */
+        private Duration ttl = Duration.ofMinutes(30);
+    }
+
+    @Data
+    public static class ResultCache {
+        /**
+         * 是否启用运行结果缓存：相同程序在相同输入和资源限制下的运行结果直接复用
+         */
+        private boolean enabled = true;
+
+        /**
+         * 最多缓存的运行结果数量
+         */
+        private int maxEntries = 10000;
+
+        /**
+         * 缓存的输出总大小上限，与条目数上限任一超出时按最久未使用淘汰
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+
+        /**
+         * 运行结果的存活时间
+         */
+        private Duration ttl = Duration.ofMinutes(30);
+
+        /**
+         * 是否不缓存时间超限和沙箱内部错误，这类结果受机器负载影响，重新运行可能不同
+         */
+        private boolean skipUnstable = true;
+
+        /**
+         * 是否使用 Redis 作为二级缓存，在多个实例之间共享运行结果
+         */
+        private boolean redisEnabled = false;
+
+        /**
+         * Redis 二级缓存的键前缀
+         */
+        private String keyPrefix = "judge:run-result:";
+    }
+
+    @Data
+    public static class Run {
+        /**
+         * 单次 /run 请求最多合并的测试用例数量
+         */
+        private int batchSize = 20;
+    }
+
+    @Data
+    public static class Preload {
+        /**
+         * 是否将存储在测试数据库中的输入预先上传到沙箱，运行时通过 fileId 引用
+         */
+        private boolean enabled = true;
+
+        /**
+         * 所有节点合计最多保留的预上传文件数，超出后按最久未使用从沙箱中删除
+         */
+        private int maxEntries = 2000;
+    }
+
+    @Data
+    public static class Http {
+        /**
+         * 连接池最大连接数
+         */
+        private int maxTotalConnections = 200;
+
+        /**
+         * 每个沙箱节点的最大连接数
+         */
+        private int maxConnectionsPerRoute = 100;
+
+        /**
+         * 建立连接超时
+         */
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        /**
+         * 从连接池获取连接的等待超时，连接池耗尽时快速失败
+         */
+        private Duration connectionRequestTimeout = Duration.ofSeconds(5);
+
+        /**
+         * 读超时相对于最大cpuLimit的倍数
+         */
+        private double readTimeoutCpuMultiplier = 3.0;
+
+        /**
+         * 读超时在cpuLimit之外的固定余量
+         */
+        private Duration readTimeoutMargin = Duration.ofSeconds(10);
+
+        /**
+         * 空闲连接保活时间，服务端未声明Keep-Alive时使用
+         */
+        private Duration keepAlive = Duration.ofSeconds(30);
+
+        /**
+         * 是否使用异步HTTP客户端批量运行测试用例
+         */
+        private boolean asyncEnabled = false;
+    }
+
+    @Data
+    public static class Node {
+        /**
+         * 节点地址，如 http://sandbox-1:5050
+         */
+        private String url;
+
+        /**
+         * 权重，权重越大分配的请求越多
+         */
+        private int weight = 1;
+    }
+
+    @Data
+    public static class Balancer {
+        /**
+         * 健康检查（/version）间隔
+         */
+        private Duration probeInterval = Duration.ofSeconds(10);
+
+        /**
+         * 健康检查超时
+         */
+        private Duration probeTimeout = Duration.ofSeconds(2);
+
+        /**
+         * 连续失败多少次后将节点移出轮换
+         */
+        private int failureThreshold = 3;
+
+        /**
+         * 因错误被移出轮换的持续时间
+         */
+        private Duration ejectDuration = Duration.ofSeconds(30);
+    }
+
     @Data
     public static class LanguageConfig {
         private String sourceFile;
@@ -114,5 +318,22 @@ public class SandboxConfig {
         private long memoryLimit = 256 * 1024 * 1024; // 256MB
         private int procLimit = 50;
         private boolean needCompile = true;
+
+        /**
+         * 批量运行命令，为空时该语言不支持批量运行。运行时追加用例数、每个用例的CPU时间限制和输出限制，
+         * 运行令牌从标准输入传入。批量运行只在题目开启时使用，结果不可信，见 BatchedRunner
+         */
+        private List<String> batchRunCommand;
+
+        /**
+         * 批量运行器源文件在类路径中的位置，以原文件名放入沙箱工作目录
+         */
+        private String batchRunner;
+
+        /**
+         * 批量运行器启动和用例之外的CPU时间余量（纳秒），如 Java 源文件启动器编译运行器、JIT 和 GC 的时间。
+         * 这部分时间不计入各用例，核对沙箱统计的CPU时间时扣除，并计入运行器的CPU时间限制
+         */
+        private long batchStartupCpu;
     }
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+package com.dong.judge.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * 沙箱HTTP客户端配置类
+ * <p>
+ * 同步调用使用带连接池的 Apache HttpClient，异步调用使用 JDK HttpClient，
+ * 两者的连接/读超时都由 {@link SandboxConfig.Http} 和语言的 cpuLimit 推导
+ * </p>
+ */
+@Slf4j
+@Configuration
+public class SandboxHttpConfig {
+
+    /**
+     * 沙箱连接池
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager sandboxConnectionManager(SandboxConfig sandboxConfig) {
+        SandboxConfig.Http http = sandboxConfig.getHttp();
+        Duration readTimeout = sandboxConfig.resolveReadTimeout();
+        log.info("沙箱HTTP连接池: maxTotal={}, maxPerRoute={}, connectTimeout={}, readTimeout={}",
+                http.getMaxTotalConnections(), http.getMaxConnectionsPerRoute(), http.getConnectTimeout(), readTimeout);
+
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(http.getMaxTotalConnections())
+                .setMaxConnPerRoute(http.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(http.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+    }
+
+    /**
+     * 沙箱同步HTTP客户端
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient sandboxClassicHttpClient(PoolingHttpClientConnectionManager sandboxConnectionManager,
+                                                        SandboxConfig sandboxConfig) {
+        SandboxConfig.Http http = sandboxConfig.getHttp();
+        TimeValue keepAlive = TimeValue.of(http.getKeepAlive());
+        return HttpClients.custom()
+                .setConnectionManager(sandboxConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(http.getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(sandboxConfig.resolveReadTimeout()))
+                        .build())
+                // 服务端声明了Keep-Alive时以其为准，否则使用配置的保活时间
+                .setKeepAliveStrategy((response, context) -> {
+                    TimeValue declared = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return TimeValue.isPositive(declared) && declared.compareTo(keepAlive) < 0 ? declared : keepAlive;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAlive)
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient sandboxClassicHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(sandboxClassicHttpClient));
+    }
+
+    /**
+     * 沙箱异步HTTP客户端，等待响应期间不占用线程
+     */
+    @Bean
+    public HttpClient sandboxAsyncHttpClient(SandboxConfig sandboxConfig) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(sandboxConfig.getHttp().getConnectTimeout())
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    /**
+     * 连接池饱和度指标：httpcomponents.httpclient.pool.*{httpclient=sandbox}
+     */
+    @Bean
+    public MeterBinder sandboxConnectionPoolMetrics(PoolingHttpClientConnectionManager sandboxConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(sandboxConnectionManager, "sandbox");
+    }
+}
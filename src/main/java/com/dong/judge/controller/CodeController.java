@@ -1,16 +1,22 @@
 package com.dong.judge.controller;
 
 import cn.dev33.satoken.stp.StpUtil;
+import com.dong.judge.exception.JudgeQueueFullException;
 import com.dong.judge.model.dto.code.*;
 import com.dong.judge.model.enums.ExecutionStatus;
+import com.dong.judge.model.enums.RankingMetric;
 import com.dong.judge.model.pojo.judge.Problem;
 import com.dong.judge.model.pojo.judge.SubmissionStatistics;
 import com.dong.judge.model.pojo.judge.UserCodeDraft;
 import com.dong.judge.model.pojo.judge.Submission;
 import com.dong.judge.model.vo.Result;
+import com.dong.judge.model.vo.judge.RankingEntry;
+import com.dong.judge.model.vo.judge.SubmissionSummary;
 import com.dong.judge.service.CodeService;
+import com.dong.judge.service.JudgeProgressService;
 import com.dong.judge.service.ProblemService;
 import com.dong.judge.service.ProblemStatisticsService;
+import com.dong.judge.service.RankingService;
 import com.dong.judge.service.UserCodeDraftService;
 import com.dong.judge.service.SubmissionService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -18,10 +24,14 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * 代码运行
@@ -41,6 +51,8 @@ public class CodeController {
     private final ProblemStatisticsService problemStatisticsService;
     private final ProblemService problemService;
     private final SubmissionService submissionService;
+    private final RankingService rankingService;
+    private final JudgeProgressService judgeProgressService;
 
     @PostMapping("/submit")
     @Operation(summary = "提交代码", description = "运行代码并返回测试用例执行结果")
@@ -55,6 +67,8 @@ public class CodeController {
         try {
             TestCaseSetResult result = codeService.submitCode(request, userId);
 
+            // 失败时只返回第一个失败的用例，需在清空用例结果前取出
+            TestCaseResult failedTestCase = result.getFirstFailedTestCase();
             result.setTestCaseResults(null);
             // 构建响应对象
             CodeSubmitResponse response = CodeSubmitResponse.builder()
@@ -75,19 +89,10 @@ public class CodeController {
                 );
             }
             
-            TestCaseResult failedTestCase = result.getFirstFailedTestCase();
             if (failedTestCase != null) {
-                TestCaseSetResult simplifiedResult = TestCaseSetResult.builder()
-                        .id(result.getId())
-                        .name(result.getName())
-                        .description(result.getDescription())
+                // 保留得分和子任务结果，子任务题目部分通过时仍能看到部分分
+                TestCaseSetResult simplifiedResult = result.toBuilder()
                         .testCaseResults(List.of(failedTestCase))
-                        .totalCount(result.getTotalCount())
-                        .passedCount(result.getPassedCount())
-                        .avgTime(result.getAvgTime())
-                        .avgTimeInMs(result.getAvgTimeInMs())
-                        .avgMemory(result.getAvgMemory())
-                        .avgMemoryInMB(result.getAvgMemoryInMB())
                         .build();
                 
                 response.setTestCaseSetResult(simplifiedResult);
@@ -110,14 +115,58 @@ public class CodeController {
         }
     }
 
+    @PostMapping("/submit/async")
+    @Operation(summary = "异步提交代码", description = "提交代码进入评测队列并立即返回提交ID，评测结果通过提交详情查询，或订阅评测进度")
+    public Result<CodeSubmitResponse> submitCodeAsync(@RequestBody @Valid CodeSubmitRequest request) {
+        log.info("收到异步代码提交请求: problemId={}, language={}", request.getProblemId(), request.getLanguage());
+
+        String userId = null;
+        if (StpUtil.isLogin()) {
+            userId = StpUtil.getLoginIdAsString();
+        }
+
+        try {
+            String submissionId = codeService.submitCodeAsync(request, userId);
+            CodeSubmitResponse response = CodeSubmitResponse.builder()
+                    .submissionId(submissionId)
+                    .build();
+            return Result.success("提交成功，等待评测", response);
+        } catch (JudgeQueueFullException e) {
+            log.warn("评测队列已满，拒绝提交: problemId={}", request.getProblemId());
+            return Result.error(429, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            log.error("代码提交参数错误", e);
+            return Result.badRequest(e.getMessage());
+        } catch (Exception e) {
+            log.error("代码提交异常", e);
+            return Result.error("代码提交失败: " + e.getMessage());
+        }
+    }
+
+    @GetMapping(value = "/submission/{submissionId}/progress", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "订阅评测进度", description = "通过 Server-Sent Events 推送异步提交的评测进度："
+            + "COMPILING（开始编译）、CASE（每个测试用例完成）、FINISHED（评测完成，随后关闭连接）")
+    public ResponseEntity<SseEmitter> subscribeProgress(@PathVariable String submissionId) {
+        try {
+            return ResponseEntity.ok(judgeProgressService.subscribe(submissionId));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @PostMapping("/run")
     @Operation(summary = "运行代码", description = "提交代码并返回测试用例执行结果")
     public Result<TestCaseSetResult> runCode(@RequestBody @Valid CodeRunRequest request) {
         log.info("收到代码运行请求: language={}", request.getLanguage());
+
+        String userId = null;
+        if (StpUtil.isLogin()) {
+            userId = StpUtil.getLoginIdAsString();
+        }
         
         try {
             // 执行代码并返回结果
-            TestCaseSetResult result = codeService.runCode(request);
+            TestCaseSetResult result = codeService.runCode(request, userId);
             
             // 检查测试用例结果中是否有非ACCEPTED状态
             if (result.getTestCaseResults() != null && !result.getTestCaseResults().isEmpty()) {
@@ -183,28 +232,30 @@ public class CodeController {
 
     @GetMapping("/statistics/{problemId}")
     @Operation(summary = "获取提交统计", description = "获取用户的提交统计信息")
-    public Result<List<Submission>> getSubmissionStatistics(@PathVariable String problemId) {
+    public Result<List<SubmissionSummary>> getSubmissionStatistics(@PathVariable String problemId) {
         if (!StpUtil.isLogin()) {
             return Result.error(401, "请先登录");
         }
         
         String userId = StpUtil.getLoginIdAsString();
-        List<Submission> submissions = submissionService.getUserSubmissions(userId, problemId);
+        List<SubmissionSummary> submissions = submissionService.getUserSubmissions(userId, problemId);
         
         return Result.success("获取提交统计成功", submissions);
     }
 
     @GetMapping("/statistics/time-ranking/{problemId}")
     @Operation(summary = "获取时间排名", description = "获取题目的执行时间排名")
-    public Result<List<Submission>> getTimeRanking(@PathVariable String problemId) {
-        List<Submission> ranking = submissionService.getProblemTimeRanking(problemId);
+    public Result<List<RankingEntry>> getTimeRanking(@PathVariable String problemId,
+                                                     @RequestParam(defaultValue = "50") int limit) {
+        List<RankingEntry> ranking = rankingService.getTop(problemId, RankingMetric.TIME, limit);
         return Result.success("获取时间排名成功", ranking);
     }
 
     @GetMapping("/statistics/memory-ranking/{problemId}")
     @Operation(summary = "获取内存排名", description = "获取题目的内存使用排名")
-    public Result<List<Submission>> getMemoryRanking(@PathVariable String problemId) {
-        List<Submission> ranking = submissionService.getProblemMemoryRanking(problemId);
+    public Result<List<RankingEntry>> getMemoryRanking(@PathVariable String problemId,
+                                                       @RequestParam(defaultValue = "50") int limit) {
+        List<RankingEntry> ranking = rankingService.getTop(problemId, RankingMetric.MEMORY, limit);
         return Result.success("获取内存排名成功", ranking);
     }
 
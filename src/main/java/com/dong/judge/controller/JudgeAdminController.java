@@ -0,0 +1,83 @@
+package com.dong.judge.controller;
+
+import cn.dev33.satoken.annotation.SaCheckRole;
+import cn.dev33.satoken.stp.StpUtil;
+import com.dong.judge.model.dto.code.RejudgeRequest;
+import com.dong.judge.model.pojo.judge.RejudgeJob;
+import com.dong.judge.model.vo.Result;
+import com.dong.judge.model.vo.judge.JudgeSchedulerStatus;
+import com.dong.judge.service.RejudgeService;
+import com.dong.judge.service.impl.JudgeScheduler;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 评测管理
+ * <p>
+ * 提供评测调度状态查询、批量重测等管理接口
+ * </p>
+ */
+@Slf4j
+@RestController
+@RequestMapping("/judge/admin")
+@RequiredArgsConstructor
+@Tag(name = "评测管理", description = "评测调度与运维相关接口")
+public class JudgeAdminController {
+
+    private final JudgeScheduler judgeScheduler;
+    private final RejudgeService rejudgeService;
+
+    @GetMapping("/scheduler")
+    @Operation(summary = "评测调度状态", description = "查询全局并发执行数、各通道排队数以及各用户占用比例（需要管理员权限）")
+    @SaCheckRole("ROLE_ADMIN")
+    public Result<JudgeSchedulerStatus> getSchedulerStatus() {
+        return Result.success(judgeScheduler.getStatus());
+    }
+
+    @PostMapping("/rejudge")
+    @Operation(summary = "创建重测任务", description = "按题目、提交ID或提交时间范围在后台重新评测已完成的提交（需要管理员权限）")
+    @SaCheckRole("ROLE_ADMIN")
+    public Result<RejudgeJob> createRejudgeJob(@RequestBody RejudgeRequest request) {
+        try {
+            return Result.success(rejudgeService.createJob(request, StpUtil.getLoginIdAsString()));
+        } catch (IllegalArgumentException e) {
+            return Result.badRequest(e.getMessage());
+        }
+    }
+
+    @GetMapping("/rejudge")
+    @Operation(summary = "重测任务列表", description = "查询最近创建的重测任务（需要管理员权限）")
+    @SaCheckRole("ROLE_ADMIN")
+    public Result<List<RejudgeJob>> listRejudgeJobs(
+            @Parameter(description = "数量") @RequestParam(defaultValue = "20") int limit) {
+        return Result.success(rejudgeService.listJobs(limit));
+    }
+
+    @GetMapping("/rejudge/{jobId}")
+    @Operation(summary = "重测任务进度", description = "查询重测任务的状态、已处理数和结果变化数（需要管理员权限）")
+    @SaCheckRole("ROLE_ADMIN")
+    public Result<RejudgeJob> getRejudgeJob(@PathVariable String jobId) {
+        RejudgeJob job = rejudgeService.getJob(jobId);
+        return job != null ? Result.success(job) : Result.notFound();
+    }
+
+    @PostMapping("/rejudge/{jobId}/cancel")
+    @Operation(summary = "取消重测任务", description = "停止重测，已重测的提交保留新结果（需要管理员权限）")
+    @SaCheckRole("ROLE_ADMIN")
+    public Result<RejudgeJob> cancelRejudgeJob(@PathVariable String jobId) {
+        RejudgeJob job = rejudgeService.cancelJob(jobId);
+        return job != null ? Result.success(job) : Result.badRequest("重测任务不存在或已结束");
+    }
+}
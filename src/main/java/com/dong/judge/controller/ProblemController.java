@@ -1,5 +1,6 @@
 package com.dong.judge.controller;
 
+import cn.dev33.satoken.annotation.SaCheckRole;
 import com.dong.judge.dao.repository.ProblemRepository;
 import com.dong.judge.model.dto.code.TestCase;
 import com.dong.judge.model.dto.code.TestCaseResult;
@@ -12,6 +13,7 @@ import com.dong.judge.model.pojo.judge.TestGroup;
 import com.dong.judge.model.vo.PageResult;
 import com.dong.judge.model.vo.Result;
 import com.dong.judge.service.ProblemService;
+import com.dong.judge.service.TestDataStore;
 import com.dong.judge.service.TestGroupService;
 import com.dong.judge.util.UserUtil;
 import io.swagger.v3.oas.annotations.Operation;
@@ -22,7 +24,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.ArrayList;
@@ -47,6 +51,9 @@ public class ProblemController {
     @Autowired
     private ProblemRepository problemRepository;
 
+    @Autowired
+    private TestDataStore testDataStore;
+
     /**
      * 创建题目
      *
@@ -154,19 +161,33 @@ public class ProblemController {
     public Result<PageResult<ProblemDTO>> getProblemsPage(
             @RequestBody @Valid ProblemQueryDTO queryDTO) {
         try {
+            boolean textSearch = Boolean.TRUE.equals(queryDTO.getTextSearch());
+
+            // 传入游标时按游标翻页，深度翻页不需要跳过前面的记录
+            if (StringUtils.hasText(queryDTO.getCursor())) {
+                Slice<Problem> problemSlice = problemService.searchProblemsAfter(queryDTO.getCursor(), queryDTO.getPageSize(),
+                        queryDTO.getDifficulty(), queryDTO.getKeyword(), queryDTO.getTags(), textSearch);
+                List<ProblemDTO> problemDTOs = problemSlice.getContent().stream()
+                        .map(ProblemDTO::fromProblem)
+                        .collect(Collectors.toList());
+                return Result.success(PageResult.fromSlice(problemSlice, problemDTOs, nextCursor(problemSlice)));
+            }
+
             // 创建分页请求（Spring Data页码从0开始，需要减1）
             PageRequest pageRequest = PageRequest.of(queryDTO.getPageNum() - 1, queryDTO.getPageSize(), Sort.by(Sort.Direction.DESC, "createdAt"));
             
             // 查询分页数据（使用多条件查询）
-            Page<Problem> problemPage = problemService.searchProblemsWithConditions(pageRequest, queryDTO.getDifficulty(), queryDTO.getKeyword(), queryDTO.getTags());
+            Page<Problem> problemPage = problemService.searchProblemsWithConditions(pageRequest, queryDTO.getDifficulty(),
+                    queryDTO.getKeyword(), queryDTO.getTags(), textSearch);
             
             // 转换为DTO
             List<ProblemDTO> problemDTOs = problemPage.getContent().stream()
                     .map(ProblemDTO::fromProblem)
                     .collect(Collectors.toList());
             
-            // 创建分页结果
+            // 创建分页结果，附带游标以便后续改用游标翻页
             PageResult<ProblemDTO> pageResult = PageResult.fromPage(problemPage, problemDTOs);
+            pageResult.setNextCursor(nextCursor(problemPage));
             return Result.success(pageResult);
         } catch (Exception e) {
             log.error("分页获取题目列表失败", e);
@@ -174,6 +195,17 @@ public class ProblemController {
         }
     }
 
+    /**
+     * 取当前页最后一道题目的ID作为下一页游标
+     */
+    private String nextCursor(Slice<Problem> slice) {
+        if (!slice.hasNext() || !slice.hasContent()) {
+            return null;
+        }
+        List<Problem> content = slice.getContent();
+        return content.get(content.size() - 1).getId();
+    }
+
     /**
      * 删除题目
      *
@@ -290,6 +322,24 @@ public class ProblemController {
             return Result.error("获取所有标签失败: " + e.getMessage());
         }
     }
+
+    /**
+     * 重建标签计数
+     *
+     * @return 标签数量
+     */
+    @PostMapping("/tags/rebuild")
+    @Operation(summary = "重建标签计数", description = "从全部题目重新统计各标签出现次数，用于修复计数偏差（需要管理员权限）")
+    @SaCheckRole("ROLE_ADMIN")
+    public Result<Integer> rebuildTags() {
+        try {
+            int tagCount = problemService.rebuildTags();
+            return Result.success("重建标签计数成功", tagCount);
+        } catch (Exception e) {
+            log.error("重建标签计数失败", e);
+            return Result.error("重建标签计数失败: " + e.getMessage());
+        }
+    }
     
     /**
      * 获取题目的测试用例
@@ -330,15 +380,17 @@ public class ProblemController {
                 TestCase testCase = testGroup.getTestCases().get(i);
                 String expectedOutput = "";
                 
-                // 如果有对应的测试结果，获取预期输出
+                // 如果有对应的测试结果，获取预期输出，较大的预期输出从测试数据存储读取
                 if (testCaseResults != null && !testCaseResults.isEmpty() && i < testCaseResults.size()) {
-                    expectedOutput = testCaseResults.get(i).getStdout();
+                    expectedOutput = testCaseResults.get(i).getStdout() != null || testCase.getOutputHash() == null
+                            ? testCaseResults.get(i).getStdout() : testDataStore.get(testCase.getOutputHash());
                 }
                 
-                // 创建DTO并添加到列表
+                // 创建DTO并添加到列表，较大的输入从测试数据存储读取
                 TestCaseDTO testCaseDTO = TestCaseDTO.builder()
                         .id(testCase.getId())
-                        .input(testCase.getInput())
+                        .input(testCase.getInput() != null || testCase.getInputHash() == null
+                                ? testCase.getInput() : testDataStore.get(testCase.getInputHash()))
                         .expectedOutput(expectedOutput)
                         .build();
                 
@@ -388,7 +440,6 @@ public class ProblemController {
                     .timeExceededCount(problem.getTimeExceededCount())
                     .compileErrorCount(problem.getCompileErrorCount())
                     .memoryExceededCount(problem.getMemoryExceededCount())
-                    .acceptedRate(problem.getAcceptedRate())
                     .build();
             
             return Result.success("获取题目统计数据成功", statistics);
@@ -1,9 +1,15 @@
 package com.dong.judge.controller;
 
+import cn.dev33.satoken.annotation.SaCheckRole;
 import cn.dev33.satoken.stp.StpUtil;
+import com.dong.judge.model.enums.CountMode;
+import com.dong.judge.model.enums.RankingMetric;
 import com.dong.judge.model.pojo.judge.Submission;
 import com.dong.judge.model.vo.PageResult;
 import com.dong.judge.model.vo.Result;
+import com.dong.judge.model.vo.judge.RankingEntry;
+import com.dong.judge.model.vo.judge.SubmissionSummary;
+import com.dong.judge.service.RankingService;
 import com.dong.judge.service.SubmissionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,10 +20,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * 提交记录控制器
@@ -33,6 +43,17 @@ import java.util.List;
 public class RecordController {
     
     private final SubmissionService submissionService;
+    private final RankingService rankingService;
+
+    /**
+     * 分页接口允许的排序字段
+     */
+    private static final Set<String> SORTABLE_FIELDS = Set.of("submissionTime", "executionTime", "memoryUsed");
+
+    /**
+     * 只有在指定题目时才能使用的排序字段，对应 Submission 上以题目ID开头的索引
+     */
+    private static final Set<String> PROBLEM_SORT_FIELDS = Set.of("executionTime", "memoryUsed");
     
     /**
      * 获取用户的提交记录
@@ -41,12 +62,12 @@ public class RecordController {
      * @return 提交记录列表
      */
     @GetMapping("/user")
-    @Operation(summary = "获取用户提交记录", description = "获取当前登录用户对指定题目的提交记录列表")
+    @Operation(summary = "获取用户提交记录", description = "获取当前登录用户对指定题目的提交记录列表，不包含代码，详情通过提交ID获取")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "成功获取提交记录"),
             @ApiResponse(responseCode = "401", description = "用户未登录")
     })
-    public Result<List<Submission>> getUserSubmissions(
+    public Result<List<SubmissionSummary>> getUserSubmissions(
             @Parameter(description = "题目ID") @RequestParam(required = false) String problemId) {
         // 检查用户是否登录
         if (!StpUtil.isLogin()) {
@@ -55,7 +76,7 @@ public class RecordController {
         
         String userId = (String) StpUtil.getLoginId();
         try {
-            List<Submission> submissions = submissionService.getUserSubmissions(userId, problemId);
+            List<SubmissionSummary> submissions = submissionService.getUserSubmissions(userId, problemId);
             return Result.success(submissions);
         } catch (Exception e) {
             log.error("获取用户提交记录失败", e);
@@ -93,18 +114,19 @@ public class RecordController {
      * 获取题目执行时间排行榜
      *
      * @param problemId 题目ID
+     * @param limit 数量
      * @return 排行榜列表
      */
     @GetMapping("/ranking/time")
-    @Operation(summary = "获取题目执行时间排行榜", description = "获取指定题目的执行时间排行榜")
+    @Operation(summary = "获取题目执行时间排行榜", description = "获取指定题目的执行时间排行榜，每个用户只保留最好成绩")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "成功获取排行榜")
     })
-    public Result<List<Submission>> getTimeRanking(
-            @Parameter(description = "题目ID") @RequestParam String problemId) {
+    public Result<List<RankingEntry>> getTimeRanking(
+            @Parameter(description = "题目ID") @RequestParam String problemId,
+            @Parameter(description = "数量") @RequestParam(defaultValue = "50") int limit) {
         try {
-            List<Submission> rankings = submissionService.getProblemTimeRanking(problemId);
-            return Result.success(rankings);
+            return Result.success(rankingService.getTop(problemId, RankingMetric.TIME, limit));
         } catch (Exception e) {
             log.error("获取题目执行时间排行榜失败", e);
             return Result.error(500, "获取排行榜失败: " + e.getMessage());
@@ -115,24 +137,75 @@ public class RecordController {
      * 获取题目内存使用排行榜
      *
      * @param problemId 题目ID
+     * @param limit 数量
      * @return 排行榜列表
      */
     @GetMapping("/ranking/memory")
-    @Operation(summary = "获取题目内存使用排行榜", description = "获取指定题目的内存使用排行榜")
+    @Operation(summary = "获取题目内存使用排行榜", description = "获取指定题目的内存使用排行榜，每个用户只保留最好成绩")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "成功获取排行榜")
     })
-    public Result<List<Submission>> getMemoryRanking(
-            @Parameter(description = "题目ID") @RequestParam String problemId) {
+    public Result<List<RankingEntry>> getMemoryRanking(
+            @Parameter(description = "题目ID") @RequestParam String problemId,
+            @Parameter(description = "数量") @RequestParam(defaultValue = "50") int limit) {
         try {
-            List<Submission> rankings = submissionService.getProblemMemoryRanking(problemId);
-            return Result.success(rankings);
+            return Result.success(rankingService.getTop(problemId, RankingMetric.MEMORY, limit));
         } catch (Exception e) {
             log.error("获取题目内存使用排行榜失败", e);
             return Result.error(500, "获取排行榜失败: " + e.getMessage());
         }
     }
     
+    /**
+     * 获取当前用户在题目排行榜中的排名
+     *
+     * @param problemId 题目ID
+     * @param metric 排名指标
+     * @return 排行榜条目，没有通过的提交时为null
+     */
+    @GetMapping("/ranking/mine")
+    @Operation(summary = "获取我的排名", description = "获取当前用户在指定题目排行榜中的排名")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "成功获取排名"),
+            @ApiResponse(responseCode = "401", description = "用户未登录")
+    })
+    public Result<RankingEntry> getMyRanking(
+            @Parameter(description = "题目ID") @RequestParam String problemId,
+            @Parameter(description = "排名指标") @RequestParam(defaultValue = "TIME") RankingMetric metric) {
+        if (!StpUtil.isLogin()) {
+            return Result.error(401, "请先登录");
+        }
+        try {
+            return Result.success(rankingService.getRank(problemId, metric, StpUtil.getLoginIdAsString()));
+        } catch (Exception e) {
+            log.error("获取我的排名失败", e);
+            return Result.error(500, "获取排名失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 从提交记录重建题目排行榜
+     *
+     * @param problemId 题目ID
+     * @return 操作结果
+     */
+    @PostMapping("/ranking/rebuild")
+    @SaCheckRole("ROLE_ADMIN")
+    @Operation(summary = "重建题目排行榜", description = "从提交记录重新计算指定题目的排行榜")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "重建成功")
+    })
+    public Result<Void> rebuildRanking(
+            @Parameter(description = "题目ID") @RequestParam String problemId) {
+        try {
+            rankingService.rebuild(problemId);
+            return Result.success("重建排行榜成功", null);
+        } catch (Exception e) {
+            log.error("重建题目排行榜失败", e);
+            return Result.error(500, "重建排行榜失败: " + e.getMessage());
+        }
+    }
+    
     /**
      * 分页获取所有用户的提交记录
      *
@@ -144,33 +217,75 @@ public class RecordController {
      * @param language 编程语言（可选）
      * @param sortBy 排序字段（可选，默认为提交时间）
      * @param sortDirection 排序方向（可选，默认为降序）
+     * @param cursor 游标（可选，上一页返回的 nextCursor）
+     * @param count 总数统计方式（可选，默认无筛选条件时估算）
      * @return 分页提交记录
      */
     @GetMapping("/page")
-    @Operation(summary = "分页获取所有提交记录", description = "分页获取所有用户的提交记录，支持多种查询条件和排序方式")
+    @Operation(summary = "分页获取所有提交记录", description = "分页获取所有用户的提交记录，支持多种查询条件和排序方式；"
+            + "按提交时间降序时可以传入游标翻页，深度翻页不需要跳过前面的记录")
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "成功获取提交记录")
+            @ApiResponse(responseCode = "200", description = "成功获取提交记录"),
+            @ApiResponse(responseCode = "400", description = "排序字段不支持、按执行时间或内存排序时未指定题目或游标与排序方式不匹配")
     })
-    public Result<PageResult<Submission>> getAllSubmissionsPage(
+    public Result<PageResult<SubmissionSummary>> getAllSubmissionsPage(
             @Parameter(description = "页码（从0开始）") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int size,
             @Parameter(description = "题目ID") @RequestParam(required = false) String problemId,
             @Parameter(description = "用户ID") @RequestParam(required = false) String userId,
             @Parameter(description = "提交状态") @RequestParam(required = false) String status,
             @Parameter(description = "编程语言") @RequestParam(required = false) String language,
-            @Parameter(description = "排序字段") @RequestParam(defaultValue = "submittedAt") String sortBy,
-            @Parameter(description = "排序方向") @RequestParam(defaultValue = "desc") String sortDirection) {
+            @Parameter(description = "排序字段（submissionTime、executionTime、memoryUsed），按执行时间或内存排序时必须指定题目ID") @RequestParam(defaultValue = "submissionTime") String sortBy,
+            @Parameter(description = "排序方向") @RequestParam(defaultValue = "desc") String sortDirection,
+            @Parameter(description = "游标，上一页返回的 nextCursor；传入时按游标翻页，忽略页码") @RequestParam(required = false) String cursor,
+            @Parameter(description = "总数统计方式") @RequestParam(defaultValue = "ESTIMATED") CountMode count) {
+        if (!SORTABLE_FIELDS.contains(sortBy)) {
+            return Result.error(400, "不支持的排序字段: " + sortBy);
+        }
+        if (PROBLEM_SORT_FIELDS.contains(sortBy) && !StringUtils.hasText(problemId)) {
+            return Result.error(400, "按" + sortBy + "排序时必须指定题目ID");
+        }
+        Sort.Direction direction = sortDirection.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
         try {
-            Sort sort = Sort.by(sortDirection.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC, sortBy);
-            PageRequest pageRequest = PageRequest.of(page, size, sort);
-            
-            Page<Submission> submissionPage = submissionService.getAllSubmissionsPage(pageRequest, problemId, userId, status, language);
-            PageResult<Submission> pageResult = PageResult.fromPage(submissionPage, submissionPage.getContent());
-            
+            // 传入游标时按游标翻页，只支持默认的提交时间降序
+            if (cursor != null) {
+                if (!"submissionTime".equals(sortBy) || direction != Sort.Direction.DESC) {
+                    return Result.error(400, "游标翻页只支持按提交时间降序");
+                }
+                Slice<SubmissionSummary> slice = submissionService.getSubmissionsAfter(cursor, size, problemId, userId, status, language);
+                return Result.success(PageResult.fromSlice(slice, slice.getContent(), nextCursor(slice)));
+            }
+
+            PageRequest pageRequest = PageRequest.of(page, size, Sort.by(direction, sortBy));
+            Slice<SubmissionSummary> submissionSlice = submissionService.getAllSubmissionsPage(pageRequest, problemId, userId, status,
+                    language, count);
+            PageResult<SubmissionSummary> pageResult;
+            if (submissionSlice instanceof Page<SubmissionSummary> submissionPage) {
+                pageResult = PageResult.fromPage(submissionPage, submissionPage.getContent());
+            } else {
+                pageResult = PageResult.fromSlice(submissionSlice, submissionSlice.getContent(), null);
+                pageResult.setHasPrevious(submissionSlice.hasPrevious());
+            }
+            if (direction == Sort.Direction.DESC && "submissionTime".equals(sortBy)) {
+                pageResult.setNextCursor(nextCursor(submissionSlice));
+            }
             return Result.success(pageResult);
+        } catch (NoSuchElementException e) {
+            return Result.error(400, e.getMessage());
         } catch (Exception e) {
             log.error("分页获取提交记录失败", e);
             return Result.error(500, "获取提交记录失败: " + e.getMessage());
         }
     }
+
+    /**
+     * 取当前页最后一条提交记录的ID作为下一页游标
+     */
+    private String nextCursor(Slice<SubmissionSummary> slice) {
+        if (!slice.hasNext() || !slice.hasContent()) {
+            return null;
+        }
+        List<SubmissionSummary> content = slice.getContent();
+        return content.get(content.size() - 1).getId();
+    }
 }
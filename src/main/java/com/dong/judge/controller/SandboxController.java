@@ -1,9 +1,12 @@
 package com.dong.judge.controller;
 
 
+import cn.dev33.satoken.stp.StpUtil;
 import com.dong.judge.model.dto.sandbox.CodeExecuteRequest;
+import com.dong.judge.model.enums.JudgeLane;
 import com.dong.judge.model.vo.Result;
 import com.dong.judge.service.SandboxService;
+import com.dong.judge.service.impl.JudgeScheduler;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -23,12 +26,19 @@ import org.springframework.web.bind.annotation.*;
 public class SandboxController {
 
     private final SandboxService sandboxService;
+    private final JudgeScheduler judgeScheduler;
 
     @PostMapping("/execute")
     @Operation(summary = "执行代码", description = "在安全的沙箱环境中执行用户提交的代码")
     public Result<?> executeCode(@RequestBody @Valid CodeExecuteRequest request) {
         log.info("收到代码执行请求: language={},内容:{}", request.getLanguage(), request.getCode());
-        return Result.success(sandboxService.executeCode(request));
+        String userId = StpUtil.isLogin() ? StpUtil.getLoginIdAsString() : null;
+        try (JudgeScheduler.Permit ignored = judgeScheduler.acquire(userId, JudgeLane.INTERACTIVE, 1)) {
+            return Result.success(sandboxService.executeCode(request));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.error("代码执行被中断");
+        }
     }
 
 }
\ No newline at end of file
@@ -50,6 +50,8 @@ public class TestGroupController {
         try {
             TestGroupResult result = testGroupService.createTestGroup(testGroup, userId);
             return Result.success("测试集创建成功", result);
+        } catch (IllegalArgumentException e) {
+            return Result.badRequest("创建测试集失败: " + e.getMessage());
         } catch (Exception e) {
             log.error("创建测试集失败", e);
             return Result.error("创建测试集失败: " + e.getMessage());
@@ -75,6 +77,8 @@ public class TestGroupController {
             testGroup.setId(id);
             TestGroupResult result = testGroupService.updateTestGroup(testGroup, userId);
             return Result.success("测试集更新成功", result);
+        } catch (IllegalArgumentException e) {
+            return Result.badRequest("更新测试集失败: " + e.getMessage());
         } catch (Exception e) {
             log.error("更新测试集失败", e);
             return Result.error("更新测试集失败: " + e.getMessage());
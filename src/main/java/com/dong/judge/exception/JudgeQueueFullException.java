@@ -0,0 +1,14 @@
+package com.dong.judge.exception;
+
+/**
+ * 评测队列已满异常
+ * <p>
+ * 评测队列达到容量上限且等待超时时抛出，接口层对应返回429
+ * </p>
+ */
+public class JudgeQueueFullException extends RuntimeException {
+
+    public JudgeQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,35 @@
+package com.dong.judge.model.dto.code;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 批量重测请求
+ * <p>
+ * 各筛选条件同时生效，至少需要指定一个
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "批量重测请求")
+public class RejudgeRequest {
+    @Schema(description = "题目ID")
+    private String problemId;
+
+    @Schema(description = "提交ID列表")
+    private List<String> submissionIds;
+
+    @Schema(description = "提交时间下限（包含）", example = "2026-01-01T00:00:00")
+    private LocalDateTime startTime;
+
+    @Schema(description = "提交时间上限（不包含）", example = "2026-01-02T00:00:00")
+    private LocalDateTime endTime;
+}
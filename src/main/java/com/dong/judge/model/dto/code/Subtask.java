@@ -0,0 +1,35 @@
+package com.dong.judge.model.dto.code;
+
+import com.dong.judge.model.enums.SubtaskScoring;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "子任务")
+public class Subtask {
+    @Schema(description = "子任务ID", example = "1")
+    private Integer id;
+
+    @Schema(description = "子任务名称", example = "n ≤ 1000")
+    private String name;
+
+    @Schema(description = "分值", example = "30")
+    private Integer score;
+
+    @Schema(description = "计分方式，默认全部通过得分", example = "MIN")
+    private SubtaskScoring scoring;
+
+    @Schema(description = "包含的测试用例ID，一个测试用例可以属于多个子任务")
+    private List<Long> caseIds;
+
+    @Schema(description = "依赖的子任务ID，依赖的子任务未得满分时本子任务不执行、不得分")
+    private List<Integer> dependencies;
+}
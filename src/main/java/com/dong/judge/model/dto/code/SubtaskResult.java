@@ -0,0 +1,35 @@
+package com.dong.judge.model.dto.code;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "子任务评测结果")
+public class SubtaskResult {
+    @Schema(description = "子任务ID", example = "1")
+    private Integer id;
+
+    @Schema(description = "子任务名称", example = "n ≤ 1000")
+    private String name;
+
+    @Schema(description = "状态：全部通过为Accepted，依赖未满足为Skipped，否则为首个未通过用例的状态", example = "Wrong Answer")
+    private String status;
+
+    @Schema(description = "得分", example = "0")
+    private int score;
+
+    @Schema(description = "分值", example = "30")
+    private int maxScore;
+
+    @Schema(description = "通过测试用例数", example = "3")
+    private int passedCount;
+
+    @Schema(description = "总测试用例数", example = "5")
+    private int totalCount;
+}
@@ -23,4 +23,16 @@ public class TestCase {
     
     @Schema(description = "测试用例预期输出", example = "3")
     private String output;
+
+    @Schema(description = "输入数据在测试数据存储中的SHA-256摘要，较大的输入不在测试集中内联保存")
+    private String inputHash;
+
+    @Schema(description = "输入数据长度（字符数）", example = "1048576")
+    private Integer inputSize;
+
+    @Schema(description = "输入数据的SHA-256摘要，参考代码和语言不变时摘要相同的测试用例复用上次的执行结果")
+    private String contentHash;
+
+    @Schema(description = "预期输出在测试数据存储中的SHA-256摘要")
+    private String outputHash;
 }
\ No newline at end of file
@@ -60,4 +60,7 @@ public class TestCaseResult {
     
     @Schema(description = "标准输出", example = "3\n")
     private String stdout;
+
+    @Schema(description = "特殊评测程序给出的信息", example = "ok 3 numbers")
+    private String checkerMessage;
 }
\ No newline at end of file
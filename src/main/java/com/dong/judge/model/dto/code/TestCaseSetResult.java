@@ -13,7 +13,7 @@ import java.util.List;
  * 测试集合执行结果
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Schema(description = "测试集合执行结果")
@@ -32,6 +32,15 @@ public class TestCaseSetResult {
     
     @Schema(description = "测试用例结果列表")
     private List<TestCaseResult> testCaseResults;
+
+    @Schema(description = "子任务结果列表，测试集没有子任务时为空")
+    private List<SubtaskResult> subtaskResults;
+
+    @Schema(description = "得分，测试集没有子任务时为空", example = "60")
+    private Integer score;
+
+    @Schema(description = "满分，测试集没有子任务时为空", example = "100")
+    private Integer totalScore;
     
     @Schema(description = "总测试用例数", example = "5")
     private int totalCount;
@@ -127,7 +136,8 @@ public class TestCaseSetResult {
         }
         
         return testCaseResults.stream()
-                .filter(result -> !ExecutionStatus.ACCEPTED.getCode().equals(result.getStatus()))
+                .filter(result -> !ExecutionStatus.ACCEPTED.getCode().equals(result.getStatus())
+                        && !ExecutionStatus.SKIPPED.getCode().equals(result.getStatus()))
                 .findFirst()
                 .orElse(null);
     }
@@ -175,9 +185,13 @@ public class TestCaseSetResult {
                 .mapToLong(result -> result.getRunTime() != null ? result.getRunTime() : 0)
                 .sum();
         
-        avgTime = totalCount > 0 ? totalTime / totalCount : 0;
-        avgMemory = totalCount > 0 ? totalMemory / totalCount : 0;
-        avgRunTime = totalCount > 0 ? totalRunTime / totalCount : 0;
+        // 未执行的测试用例不参与平均值计算
+        long executedCount = testCaseResults.stream()
+                .filter(result -> !ExecutionStatus.SKIPPED.getCode().equals(result.getStatus()))
+                .count();
+        avgTime = executedCount > 0 ? totalTime / executedCount : 0;
+        avgMemory = executedCount > 0 ? totalMemory / executedCount : 0;
+        avgRunTime = executedCount > 0 ? totalRunTime / executedCount : 0;
         
         // 转换为毫秒和MB的单位
         totalTimeInMs = totalTime != null ? totalTime / 1_000_000.0 : 0.0;
@@ -32,4 +32,10 @@ public class ProblemQueryDTO {
     
     @Schema(description = "标签列表")
     private List<String> tags;
+
+    @Schema(description = "按单词全文检索标题（使用文本索引），默认按标题子串匹配")
+    private Boolean textSearch;
+
+    @Schema(description = "游标，上一页返回的 nextCursor；传入时按游标翻页，忽略页码")
+    private String cursor;
 }
\ No newline at end of file
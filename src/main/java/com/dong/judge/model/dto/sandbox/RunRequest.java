@@ -5,6 +5,9 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * 代码运行请求
  * <p>
@@ -12,7 +15,7 @@ import lombok.NoArgsConstructor;
  * </p>
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class RunRequest {
@@ -31,8 +34,29 @@ public class RunRequest {
      */
     private String input;
 
+    /**
+     * 输入数据在测试数据存储中的摘要，input 为空时使用
+     */
+    private String inputHash;
+
     /**
      * 文件ID（编译型语言使用已编译的文件）
      */
     private String fileId;
+
+    /**
+     * 追加到运行命令后的参数
+     */
+    private List<String> args;
+
+    /**
+     * 额外放入工作目录的文件，文件名 -> 内容
+     */
+    private Map<String, String> files;
+
+    /**
+     * 是否允许与同一批中运行相同程序的请求合并到一个进程中运行，所用语言未配置批量运行时忽略。
+     * 合并运行的用例之间没有进程隔离，见 BatchedRunner
+     */
+    private boolean batched;
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.dong.judge.model.enums;
+
+import lombok.Getter;
+
+/**
+ * 分页总数统计方式
+ */
+@Getter
+public enum CountMode {
+    /**
+     * 按查询条件精确统计
+     */
+    EXACT("精确统计"),
+
+    /**
+     * 没有筛选条件时使用集合元数据估算总数，有筛选条件时精确统计
+     */
+    ESTIMATED("估算"),
+
+    /**
+     * 不统计总数，只返回是否有下一页
+     */
+    NONE("不统计");
+
+    private final String description;
+
+    CountMode(String description) {
+        this.description = description;
+    }
+}
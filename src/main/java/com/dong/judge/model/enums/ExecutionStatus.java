@@ -8,6 +8,8 @@ import lombok.Getter;
 @Getter
 public enum ExecutionStatus {
     
+    PENDING("Pending", "等待评测", 202),
+    JUDGING("Judging", "评测中", 202),
     ACCEPTED("Accepted", "执行成功", 200),
     COMPILE_ERROR("Compile Error", "编译错误", 400),
     WRONG_ANSWER("Wrong Answer", "答案错误", 400),
@@ -18,7 +20,8 @@ public enum ExecutionStatus {
     NONZERO_EXIT_STATUS("Nonzero Exit Status", "程序异常退出", 400),
     SIGNALLED("Signalled", "程序被信号终止", 400),
     INTERNAL_ERROR("Internal Error", "内部错误", 500),
-    SYSTEM_ERROR("System Error", "系统错误", 500);
+    SYSTEM_ERROR("System Error", "系统错误", 500),
+    SKIPPED("Skipped", "未执行", 200);
 
     /**
      * 状态代码
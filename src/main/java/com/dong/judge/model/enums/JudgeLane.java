@@ -0,0 +1,33 @@
+package com.dong.judge.model.enums;
+
+import lombok.Getter;
+
+/**
+ * 评测调度优先级通道
+ * <p>
+ * 按声明顺序优先级从高到低
+ * </p>
+ */
+@Getter
+public enum JudgeLane {
+    /**
+     * 交互式运行，如 /code/run 和沙箱直接执行
+     */
+    INTERACTIVE("交互运行"),
+
+    /**
+     * 普通提交评测
+     */
+    NORMAL("提交评测"),
+
+    /**
+     * 批量重测等后台任务
+     */
+    BULK("批量任务");
+
+    private final String description;
+
+    JudgeLane(String description) {
+        this.description = description;
+    }
+}
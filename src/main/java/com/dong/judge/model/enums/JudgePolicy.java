@@ -0,0 +1,25 @@
+package com.dong.judge.model.enums;
+
+import lombok.Getter;
+
+/**
+ * 评测策略枚举
+ */
+@Getter
+public enum JudgePolicy {
+    /**
+     * 遇到第一个未通过的测试用例即停止，其余用例标记为未执行
+     */
+    STOP_ON_FIRST_FAILURE("遇错即停"),
+
+    /**
+     * 执行全部测试用例
+     */
+    RUN_ALL("全部执行");
+
+    private final String description;
+
+    JudgePolicy(String description) {
+        this.description = description;
+    }
+}
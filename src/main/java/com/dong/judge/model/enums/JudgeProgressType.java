@@ -0,0 +1,30 @@
+package com.dong.judge.model.enums;
+
+import lombok.Getter;
+
+/**
+ * 评测进度事件类型
+ */
+@Getter
+public enum JudgeProgressType {
+    /**
+     * 开始编译
+     */
+    COMPILING("编译中"),
+
+    /**
+     * 一个测试用例执行完成
+     */
+    CASE("用例完成"),
+
+    /**
+     * 评测结束，提交记录已保存
+     */
+    FINISHED("评测完成");
+
+    private final String description;
+
+    JudgeProgressType(String description) {
+        this.description = description;
+    }
+}
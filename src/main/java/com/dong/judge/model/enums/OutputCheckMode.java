@@ -0,0 +1,40 @@
+package com.dong.judge.model.enums;
+
+import lombok.Getter;
+
+/**
+ * 输出比较方式枚举
+ */
+@Getter
+public enum OutputCheckMode {
+    /**
+     * 逐字符完全一致
+     */
+    EXACT("完全一致"),
+
+    /**
+     * 逐行比较，忽略每行首尾空白、换行符差异以及输出首尾的空行
+     */
+    LINE("逐行比较"),
+
+    /**
+     * 按空白分隔的记号逐个比较，忽略空白的数量和种类
+     */
+    TOKEN("逐记号比较"),
+
+    /**
+     * 按记号比较，两个记号均为数字时允许误差
+     */
+    FLOAT("浮点误差比较"),
+
+    /**
+     * 由题目提供的特殊评测程序判定，适用于存在多个正确答案的题目
+     */
+    SPECIAL("特殊评测");
+
+    private final String description;
+
+    OutputCheckMode(String description) {
+        this.description = description;
+    }
+}
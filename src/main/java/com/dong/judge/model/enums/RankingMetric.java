@@ -0,0 +1,34 @@
+package com.dong.judge.model.enums;
+
+import lombok.Getter;
+
+/**
+ * 排行榜指标
+ * <p>
+ * 数值越小排名越靠前
+ * </p>
+ */
+@Getter
+public enum RankingMetric {
+    /**
+     * 执行时间
+     */
+    TIME("executionTime", "执行时间"),
+
+    /**
+     * 内存使用
+     */
+    MEMORY("memoryUsed", "内存使用");
+
+    /**
+     * 提交记录中对应的字段
+     */
+    private final String field;
+
+    private final String description;
+
+    RankingMetric(String field, String description) {
+        this.field = field;
+        this.description = description;
+    }
+}
@@ -0,0 +1,42 @@
+package com.dong.judge.model.enums;
+
+import lombok.Getter;
+
+/**
+ * 重测任务状态
+ */
+@Getter
+public enum RejudgeStatus {
+    /**
+     * 正在重测，实例退出后由其他实例（或重启后的本实例）从进度点继续
+     */
+    RUNNING("重测中"),
+
+    /**
+     * 所有提交已重测完成
+     */
+    COMPLETED("已完成"),
+
+    /**
+     * 管理员取消
+     */
+    CANCELLED("已取消"),
+
+    /**
+     * 读取提交或写入结果时出错而终止
+     */
+    FAILED("失败");
+
+    private final String description;
+
+    RejudgeStatus(String description) {
+        this.description = description;
+    }
+
+    /**
+     * 是否已结束，结束的任务不会再被接管
+     */
+    public boolean isFinished() {
+        return this != RUNNING;
+    }
+}
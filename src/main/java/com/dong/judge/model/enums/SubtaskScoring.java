@@ -0,0 +1,25 @@
+package com.dong.judge.model.enums;
+
+import lombok.Getter;
+
+/**
+ * 子任务计分方式
+ */
+@Getter
+public enum SubtaskScoring {
+    /**
+     * 全部测试用例通过才得分，任一用例未通过后子任务的其余用例不再执行
+     */
+    MIN("全部通过得分"),
+
+    /**
+     * 按通过的测试用例比例得分，所有用例都会执行
+     */
+    SUM("按比例得分");
+
+    private final String description;
+
+    SubtaskScoring(String description) {
+        this.description = description;
+    }
+}
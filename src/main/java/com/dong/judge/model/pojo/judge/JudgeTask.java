@@ -0,0 +1,48 @@
+package com.dong.judge.model.pojo.judge;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * 评测队列任务
+ * <p>
+ * 持久化评测队列中的一项，评测完成后删除
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "judge_queue")
+@CompoundIndexes({
+        @CompoundIndex(name = "claimed_enqueued_idx", def = "{claimedAt: 1, enqueuedAt: 1}")
+})
+public class JudgeTask {
+    @Id
+    private String id;
+
+    /**
+     * 提交ID
+     */
+    @Indexed(unique = true)
+    private String submissionId;
+
+    /**
+     * 入队时间
+     */
+    private LocalDateTime enqueuedAt;
+
+    /**
+     * 领取时间，为空表示尚未被工作线程领取
+     */
+    private LocalDateTime claimedAt;
+}
@@ -1,12 +1,17 @@
 package com.dong.judge.model.pojo.judge;
 
 import com.dong.judge.model.enums.DifficultyLevel;
+import com.dong.judge.model.enums.JudgePolicy;
+import com.dong.judge.model.enums.OutputCheckMode;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -19,7 +24,12 @@ import java.util.List;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Document(collection = "problems")
+@Document(collection = "problems", language = "none")
+@CompoundIndexes({
+        @CompoundIndex(name = "created_idx", def = "{createdAt: -1, _id: -1}"),
+        @CompoundIndex(name = "difficulty_created_idx", def = "{difficultyLevel: 1, createdAt: -1, _id: -1}"),
+        @CompoundIndex(name = "tags_created_idx", def = "{tags: 1, createdAt: -1, _id: -1}")
+})
 @Schema(description = "题目")
 public class Problem {
     @Id
@@ -30,6 +40,7 @@ public class Problem {
     private String problemId;
     
     @Schema(description = "题目标题")
+    @TextIndexed
     private String title;
     
     @Schema(description = "难度级别数值", example = "5")
@@ -46,7 +57,26 @@ public class Problem {
     
     @Schema(description = "测试集ID")
     private String testGroupId;
-    
+
+    @Schema(description = "评测策略，为空时使用全局配置")
+    private JudgePolicy judgePolicy;
+
+    @Schema(description = "输出比较方式，为空时使用全局配置")
+    private OutputCheckMode outputCheckMode;
+
+    @Schema(description = "浮点误差比较的允许误差，为空时使用全局配置")
+    private Double floatEpsilon;
+
+    @Schema(description = "特殊评测程序源代码，输出比较方式为 SPECIAL 时使用")
+    private String checkerCode;
+
+    @Schema(description = "特殊评测程序语言", example = "cpp")
+    private String checkerLanguage;
+
+    @Schema(description = "是否批量运行：同一批测试用例在一个进程中依次运行，省去每个用例的解释器或虚拟机启动，仅对配置了批量运行的语言生效。"
+            + "程序可以在用例之间保留状态，结果只经过核对而没有进程隔离，不应对比赛等不可信的提交开启")
+    private Boolean batchedRun;
+
     @Schema(description = "创建者ID")
     private String creatorId;
     
@@ -80,7 +110,18 @@ public class Problem {
     @Builder.Default
     private Integer memoryExceededCount = 0;
     
+    /**
+     * 通过百分比，保留两位小数
+     * <p>
+     * 根据计数在读取时计算，不单独存储，避免与按 $inc 累加的计数不一致。
+     * </p>
+     */
     @Schema(description = "通过百分比")
-    @Builder.Default
-    private Double acceptedRate = 0.0;
+    public Double getAcceptedRate() {
+        if (submissionCount == null || submissionCount <= 0 || acceptedCount == null) {
+            return 0.0;
+        }
+        double acceptedRate = (double) acceptedCount / submissionCount * 100;
+        return Math.round(acceptedRate * 100) / 100.0;
+    }
 }
\ No newline at end of file
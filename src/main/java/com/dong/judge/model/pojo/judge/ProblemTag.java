@@ -0,0 +1,37 @@
+package com.dong.judge.model.pojo.judge;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * 标签计数
+ * <p>
+ * 每个标签在所有题目中出现的次数，随题目的创建、更新和删除增量维护
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "problem_tags")
+@CompoundIndexes({
+        @CompoundIndex(name = "count_tag_idx", def = "{count: -1, _id: 1}")
+})
+public class ProblemTag {
+    /**
+     * 标签
+     */
+    @Id
+    private String tag;
+
+    /**
+     * 包含该标签的题目数量
+     */
+    private long count;
+}
@@ -0,0 +1,114 @@
+package com.dong.judge.model.pojo.judge;
+
+import com.dong.judge.model.enums.RejudgeStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 批量重测任务
+ * <p>
+ * 按提交ID升序重测符合条件的提交，每批完成后保存最后一个提交ID作为进度点，重启后从进度点之后继续
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "rejudge_jobs")
+@CompoundIndexes({
+        @CompoundIndex(name = "status_heartbeat_idx", def = "{status: 1, heartbeatAt: 1}"),
+        @CompoundIndex(name = "created_idx", def = "{createdAt: -1}")
+})
+public class RejudgeJob {
+    @Id
+    private String id;
+
+    /**
+     * 目标题目ID，为空表示不按题目筛选
+     */
+    private String problemId;
+
+    /**
+     * 目标提交ID，为空表示不按提交ID筛选
+     */
+    private List<String> submissionIds;
+
+    /**
+     * 提交时间下限（包含）
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 提交时间上限（不包含）
+     */
+    private LocalDateTime endTime;
+
+    /**
+     * 任务状态
+     */
+    private RejudgeStatus status;
+
+    /**
+     * 已处理的最后一个提交ID，恢复时从该提交之后继续
+     */
+    private String lastSubmissionId;
+
+    /**
+     * 创建任务时符合条件的提交数
+     */
+    private Long total;
+
+    /**
+     * 已处理的提交数
+     */
+    private Long processed;
+
+    /**
+     * 评测结果发生变化的提交数
+     */
+    private Long changed;
+
+    /**
+     * 评测异常而保留原结果的提交数
+     */
+    private Long failed;
+
+    /**
+     * 任务终止时的错误信息
+     */
+    private String error;
+
+    /**
+     * 创建任务的管理员ID
+     */
+    private String createdBy;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+
+    /**
+     * 执行任务的实例标识
+     */
+    private String owner;
+
+    /**
+     * 执行任务的实例最近一次续约的时间，超时未更新时由其他实例接管
+     */
+    private LocalDateTime heartbeatAt;
+
+    /**
+     * 结束时间
+     */
+    private LocalDateTime finishedAt;
+}
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -14,6 +16,15 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "submissions")
+@CompoundIndexes({
+        @CompoundIndex(name = "problem_status_user_idx", def = "{problemId: 1, status: 1, userId: 1}"),
+        @CompoundIndex(name = "time_idx", def = "{submissionTime: -1, _id: -1}"),
+        @CompoundIndex(name = "user_problem_time_idx", def = "{userId: 1, problemId: 1, submissionTime: -1, _id: -1}"),
+        @CompoundIndex(name = "problem_status_time_idx", def = "{problemId: 1, status: 1, submissionTime: -1, _id: -1}"),
+        @CompoundIndex(name = "status_time_idx", def = "{status: 1, submissionTime: -1, _id: -1}"),
+        @CompoundIndex(name = "problem_execution_time_idx", def = "{problemId: 1, executionTime: 1, _id: 1}"),
+        @CompoundIndex(name = "problem_memory_idx", def = "{problemId: 1, memoryUsed: 1, _id: 1}")
+})
 public class Submission {
     @Id
     private String id;
@@ -103,4 +114,9 @@ public class Submission {
      * 通过率
      */
     private String passRatio;
+
+    /**
+     * 子任务得分，题目没有子任务时为空
+     */
+    private Integer score;
 }
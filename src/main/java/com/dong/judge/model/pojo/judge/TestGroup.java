@@ -1,5 +1,6 @@
 package com.dong.judge.model.pojo.judge;
 
+import com.dong.judge.model.dto.code.Subtask;
 import com.dong.judge.model.dto.code.TestCase;
 import com.dong.judge.model.dto.code.TestCaseResult;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -12,6 +13,7 @@ import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 测试集实体类
@@ -35,6 +37,9 @@ public class TestGroup {
     
     @Schema(description = "测试用例列表")
     private List<TestCase> testCases;
+
+    @Schema(description = "子任务列表，为空时按测试用例通过数评测，不计分")
+    private List<Subtask> subtasks;
     
     @Schema(description = "创建者ID")
     private String creatorId;
@@ -77,4 +82,7 @@ public class TestGroup {
     
     @Schema(description = "是否全部通过", example = "false")
     private boolean allPassed;
+
+    @Schema(description = "各测试用例作为首个失败用例的次数，键为测试用例ID")
+    private Map<String, Long> caseFailureCounts;
 }
\ No newline at end of file
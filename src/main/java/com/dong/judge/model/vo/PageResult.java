@@ -4,6 +4,7 @@ import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
@@ -47,6 +48,11 @@ public class PageResult<T> {
      * 是否有上一页
      */
     private boolean hasPrevious;
+
+    /**
+     * 下一页的游标，没有下一页时为null
+     */
+    private String nextCursor;
     
     /**
      * 从Spring Data的Page对象创建PageResult
@@ -68,4 +74,26 @@ public class PageResult<T> {
         return result;
     }
 
-}
\ No newline at end of file
+    /**
+     * 从游标分页结果创建PageResult，游标分页不统计总数，total 和 totalPages 为-1
+     *
+     * @param slice      Spring Data分片对象
+     * @param list       当前页数据列表
+     * @param nextCursor 下一页的游标
+     * @param <T>        数据类型
+     * @return 分页结果对象
+     */
+    public static <T> PageResult<T> fromSlice(Slice<?> slice, List<T> list, String nextCursor) {
+        PageResult<T> result = new PageResult<>();
+        result.setTotal(-1);
+        result.setTotalPages(-1);
+        result.setPageNum(slice.getNumber() + 1);
+        result.setPageSize(slice.getSize());
+        result.setList(list);
+        result.setHasNext(slice.hasNext());
+        result.setHasPrevious(true);
+        result.setNextCursor(nextCursor);
+        return result;
+    }
+
+}
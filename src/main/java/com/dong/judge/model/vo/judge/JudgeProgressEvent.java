@@ -0,0 +1,56 @@
+package com.dong.judge.model.vo.judge;
+
+import com.dong.judge.model.enums.JudgeProgressType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 评测进度事件
+ * <p>
+ * 用例完成事件按完成先后推送，completedCount 为已完成的用例数，不保证与用例顺序一致
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "评测进度事件")
+public class JudgeProgressEvent {
+    @Schema(description = "提交ID")
+    private String submissionId;
+
+    @Schema(description = "事件类型")
+    private JudgeProgressType type;
+
+    @Schema(description = "已完成的测试用例数")
+    private Integer completedCount;
+
+    @Schema(description = "测试用例总数")
+    private Integer totalCount;
+
+    @Schema(description = "完成的测试用例ID")
+    private Long caseId;
+
+    @Schema(description = "用例状态或最终状态", example = "Accepted")
+    private String status;
+
+    @Schema(description = "用例执行时间（毫秒）")
+    private Double timeInMs;
+
+    @Schema(description = "用例内存使用（MB）")
+    private Double memoryInMB;
+
+    @Schema(description = "通过的测试用例数，评测完成时返回")
+    private Integer passedCount;
+
+    @Schema(description = "执行时间（毫秒），评测完成时返回")
+    private Long executionTime;
+
+    @Schema(description = "内存使用（MB），评测完成时返回")
+    private Long memoryUsed;
+}
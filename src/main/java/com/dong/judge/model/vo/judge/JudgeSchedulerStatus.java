@@ -0,0 +1,55 @@
+package com.dong.judge.model.vo.judge;
+
+import com.dong.judge.model.enums.JudgeLane;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 评测调度器状态
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "评测调度器状态")
+public class JudgeSchedulerStatus {
+    @Schema(description = "最大并发执行数", example = "16")
+    private int maxInFlight;
+
+    @Schema(description = "当前并发执行数", example = "12")
+    private int inFlight;
+
+    @Schema(description = "各通道排队的请求数")
+    private Map<JudgeLane, Integer> queued;
+
+    @Schema(description = "各租户占用情况")
+    private List<TenantShare> tenants;
+
+    /**
+     * 租户占用情况
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "租户占用情况")
+    public static class TenantShare {
+        @Schema(description = "租户（用户ID）")
+        private String tenant;
+
+        @Schema(description = "占用的并发执行数", example = "4")
+        private int inFlight;
+
+        @Schema(description = "排队的请求数", example = "2")
+        private int queued;
+
+        @Schema(description = "占用并发执行数的比例", example = "0.25")
+        private double share;
+    }
+}
@@ -0,0 +1,26 @@
+package com.dong.judge.model.vo.judge;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 排行榜条目
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "排行榜条目")
+public class RankingEntry {
+    @Schema(description = "排名，从1开始", example = "1")
+    private long rank;
+
+    @Schema(description = "用户ID")
+    private String userId;
+
+    @Schema(description = "该用户通过提交中的最好成绩（执行时间或内存使用）", example = "12")
+    private long value;
+}
@@ -0,0 +1,74 @@
+package com.dong.judge.model.vo.judge;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 提交记录摘要
+ * <p>
+ * 用于列表展示，不包含代码、错误用例输入输出和编译错误信息，这些字段只通过提交详情接口返回。
+ * 查询时按本类的字段做投影，只从数据库读取需要的字段。
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "提交记录摘要")
+public class SubmissionSummary {
+
+    /**
+     * 投影读取的字段，与本类的属性一一对应
+     */
+    public static final String[] FIELDS = {
+            "id", "userId", "problemId", "problemNumber", "problemTitle", "language", "submissionTime",
+            "status", "passedCount", "totalCount", "executionTime", "memoryUsed", "passRatio", "score"
+    };
+
+    @Schema(description = "提交ID")
+    private String id;
+
+    @Schema(description = "用户ID")
+    private String userId;
+
+    @Schema(description = "题目ID")
+    private String problemId;
+
+    @Schema(description = "题目编号")
+    private String problemNumber;
+
+    @Schema(description = "题目标题")
+    private String problemTitle;
+
+    @Schema(description = "编程语言", example = "java")
+    private String language;
+
+    @Schema(description = "提交时间")
+    private LocalDateTime submissionTime;
+
+    @Schema(description = "提交状态", example = "Accepted")
+    private String status;
+
+    @Schema(description = "通过测试用例数")
+    private Integer passedCount;
+
+    @Schema(description = "总测试用例数")
+    private Integer totalCount;
+
+    @Schema(description = "执行时间（毫秒）")
+    private Long executionTime;
+
+    @Schema(description = "内存使用（MB）")
+    private Long memoryUsed;
+
+    @Schema(description = "通过率", example = "10/10")
+    private String passRatio;
+
+    @Schema(description = "子任务得分，题目没有子任务时为空", example = "60")
+    private Integer score;
+}
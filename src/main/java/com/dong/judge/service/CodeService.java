@@ -3,6 +3,7 @@ package com.dong.judge.service;
 import com.dong.judge.model.dto.code.CodeRunRequest;
 import com.dong.judge.model.dto.code.CodeSubmitRequest;
 import com.dong.judge.model.dto.code.TestCaseSetResult;
+import com.dong.judge.model.pojo.judge.Submission;
 import jakarta.validation.Valid;
 
 /**
@@ -17,9 +18,44 @@ public interface CodeService {
      * 运行代码并执行测试用例
      * 
      * @param request 代码运行请求
+     * @param userId 用户ID，未登录时为null
      * @return 测试用例执行结果集
      */
-    TestCaseSetResult runCode(@Valid CodeRunRequest request);
+    TestCaseSetResult runCode(@Valid CodeRunRequest request, String userId);
 
     TestCaseSetResult submitCode(@Valid CodeSubmitRequest request, String userId);
-}
\ No newline at end of file
+
+    /**
+     * 异步提交代码
+     * <p>
+     * 保存状态为 Pending 的提交记录并加入评测队列后立即返回，评测结果通过提交记录查询
+     * </p>
+     *
+     * @param request 代码提交请求
+     * @param userId 用户ID
+     * @return 提交ID
+     * @throws com.dong.judge.exception.JudgeQueueFullException 评测队列已满
+     */
+    String submitCodeAsync(@Valid CodeSubmitRequest request, String userId);
+
+    /**
+     * 评测队列中的提交
+     * <p>
+     * 由评测工作线程调用，评测完成后更新提交记录和题目统计数据
+     * </p>
+     *
+     * @param submissionId 提交ID
+     */
+    void judgeSubmission(String submissionId);
+
+    /**
+     * 重新评测已完成的提交
+     * <p>
+     * 使用批量任务通道评测，新结果写入传入的提交记录；不保存提交记录，也不更新题目统计和排行榜，由调用方批量写入
+     * </p>
+     *
+     * @param submission 提交记录
+     * @return 评测结果
+     */
+    TestCaseSetResult rejudge(Submission submission);
+}
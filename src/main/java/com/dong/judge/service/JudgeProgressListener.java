@@ -0,0 +1,34 @@
+package com.dong.judge.service;
+
+import com.dong.judge.model.dto.code.TestCaseResult;
+
+/**
+ * 评测进度回调
+ * <p>
+ * 在沙箱结果返回的线程上调用，实现不能阻塞，也不能抛出异常
+ * </p>
+ */
+public interface JudgeProgressListener {
+
+    /**
+     * 不推送进度
+     */
+    JudgeProgressListener NONE = new JudgeProgressListener() {
+    };
+
+    /**
+     * 开始编译
+     *
+     * @param totalCount 测试用例总数
+     */
+    default void compiling(int totalCount) {
+    }
+
+    /**
+     * 一个测试用例完成判定
+     *
+     * @param result 用例结果
+     */
+    default void caseFinished(TestCaseResult result) {
+    }
+}
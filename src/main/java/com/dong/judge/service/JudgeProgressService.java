@@ -0,0 +1,37 @@
+package com.dong.judge.service;
+
+import com.dong.judge.model.pojo.judge.Submission;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 评测进度推送服务
+ * <p>
+ * 通过 Server-Sent Events 推送异步提交的评测进度，评测可以在任意实例上进行
+ * </p>
+ */
+public interface JudgeProgressService {
+
+    /**
+     * 订阅提交的评测进度，已评测完成的提交立即推送完成事件并结束
+     *
+     * @param submissionId 提交ID
+     * @return 事件流
+     * @throws java.util.NoSuchElementException 提交不存在
+     */
+    SseEmitter subscribe(String submissionId);
+
+    /**
+     * 创建评测一次提交时使用的进度回调
+     *
+     * @param submissionId 提交ID
+     * @return 进度回调
+     */
+    JudgeProgressListener listener(String submissionId);
+
+    /**
+     * 提交记录保存后推送完成事件
+     *
+     * @param submission 已评测的提交记录
+     */
+    void finished(Submission submission);
+}
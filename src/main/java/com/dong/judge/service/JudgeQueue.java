@@ -0,0 +1,57 @@
+package com.dong.judge.service;
+
+import java.time.Duration;
+
+/**
+ * 评测队列
+ * <p>
+ * 保存等待评测的提交ID，由评测工作线程池消费
+ * </p>
+ */
+public interface JudgeQueue {
+
+    /**
+     * 提交ID入队
+     *
+     * @param submissionId 提交ID
+     * @param timeout 队列已满时的最长等待时间
+     * @return 是否入队成功，队列已满且等待超时返回false
+     */
+    boolean offer(String submissionId, Duration timeout);
+
+    /**
+     * 取出一个待评测的提交ID
+     *
+     * @param timeout 最长等待时间
+     * @return 提交ID，等待超时返回null
+     * @throws InterruptedException 等待过程中线程被中断
+     */
+    String take(Duration timeout) throws InterruptedException;
+
+    /**
+     * 确认提交已评测完成，从队列中移除
+     *
+     * @param submissionId 提交ID
+     */
+    void ack(String submissionId);
+
+    /**
+     * 当前排队数量
+     *
+     * @return 排队数量
+     */
+    int size();
+
+    /**
+     * 队列容量
+     *
+     * @return 队列容量
+     */
+    int capacity();
+
+    /**
+     * 恢复上次异常退出时未确认的任务
+     */
+    default void recover() {
+    }
+}
@@ -3,6 +3,7 @@ package com.dong.judge.service;
 import com.dong.judge.model.pojo.judge.Problem;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
@@ -87,6 +88,13 @@ public interface ProblemService {
      * @return 标签列表
      */
     List<String> getAllTags();
+
+    /**
+     * 从全部题目重新统计标签计数
+     *
+     * @return 标签数量
+     */
+    int rebuildTags();
     
     /**
      * 获取所有题目列表
@@ -110,7 +118,26 @@ public interface ProblemService {
      * @param difficulty 难度类型（简单、中等、困难），可为null
      * @param keyword 搜索关键词，可为null
      * @param tags 标签列表，可为null
+     * @param textSearch 是否按单词全文检索标题，否则按子串匹配
      * @return 分页题目列表
      */
-    Page<Problem> searchProblemsWithConditions(PageRequest pageRequest, String difficulty, String keyword, List<String> tags);
+    Page<Problem> searchProblemsWithConditions(PageRequest pageRequest, String difficulty, String keyword, List<String> tags,
+                                               boolean textSearch);
+
+    /**
+     * 多条件查询题目并按游标分页
+     * <p>
+     * 按创建时间和ID降序排列，从游标指向的题目之后开始读取，翻页深度不影响查询开销
+     * </p>
+     *
+     * @param cursor 上一页最后一道题目的ID，为null时从第一页开始
+     * @param pageSize 每页大小
+     * @param difficulty 难度类型（简单、中等、困难），可为null
+     * @param keyword 搜索关键词，可为null
+     * @param tags 标签列表，可为null
+     * @param textSearch 是否按单词全文检索标题，否则按子串匹配
+     * @return 当前页题目
+     */
+    Slice<Problem> searchProblemsAfter(String cursor, int pageSize, String difficulty, String keyword, List<String> tags,
+                                       boolean textSearch);
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.dong.judge.service;
+
+import java.util.List;
+
+/**
+ * 标签计数服务接口
+ * <p>
+ * 维护每个标签在所有题目中出现的次数，题目变更时按标签差异增量更新
+ * </p>
+ */
+public interface ProblemTagService {
+
+    /**
+     * 按题目标签的变化更新计数
+     *
+     * @param before 变更前的标签，新建题目时为null
+     * @param after  变更后的标签，删除题目时为null
+     */
+    void applyChange(List<String> before, List<String> after);
+
+    /**
+     * 获取所有标签，按出现次数降序排列
+     *
+     * @return 标签列表
+     */
+    List<String> listTags();
+
+    /**
+     * 从全部题目重新统计标签计数，用于修复增量更新产生的偏差
+     *
+     * @return 标签数量
+     */
+    int rebuild();
+}
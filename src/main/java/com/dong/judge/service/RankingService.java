@@ -0,0 +1,50 @@
+package com.dong.judge.service;
+
+import com.dong.judge.model.enums.RankingMetric;
+import com.dong.judge.model.pojo.judge.Submission;
+import com.dong.judge.model.vo.judge.RankingEntry;
+
+import java.util.List;
+
+/**
+ * 排行榜服务接口
+ * <p>
+ * 每道题目按执行时间和内存使用分别排名，每个用户只保留通过提交中的最好成绩
+ * </p>
+ */
+public interface RankingService {
+
+    /**
+     * 评测完成后记录提交成绩，只有通过的提交会进入排行榜
+     *
+     * @param submission 已评测的提交记录
+     */
+    void record(Submission submission);
+
+    /**
+     * 获取前N名
+     *
+     * @param problemId 题目ID
+     * @param metric    指标
+     * @param limit     数量，超过上限时按上限返回
+     * @return 排行榜条目
+     */
+    List<RankingEntry> getTop(String problemId, RankingMetric metric, int limit);
+
+    /**
+     * 获取用户的排名
+     *
+     * @param problemId 题目ID
+     * @param metric    指标
+     * @param userId    用户ID
+     * @return 排行榜条目，用户没有通过的提交时返回null
+     */
+    RankingEntry getRank(String problemId, RankingMetric metric, String userId);
+
+    /**
+     * 从提交记录重建题目的排行榜
+     *
+     * @param problemId 题目ID
+     */
+    void rebuild(String problemId);
+}
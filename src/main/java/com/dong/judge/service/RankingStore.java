@@ -0,0 +1,63 @@
+package com.dong.judge.service;
+
+import com.dong.judge.model.enums.RankingMetric;
+import com.dong.judge.model.vo.judge.RankingEntry;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 排行榜存储接口
+ * <p>
+ * 每道题目每个指标一个有序集合，成员为用户ID，分数为该用户的最好成绩（越小越好）
+ * </p>
+ */
+public interface RankingStore {
+
+    /**
+     * 记录一次成绩，只有比已有成绩更好时才更新
+     *
+     * @param metric    指标
+     * @param problemId 题目ID
+     * @param userId    用户ID
+     * @param value     成绩
+     * @return 是否更新了成绩
+     */
+    boolean offer(RankingMetric metric, String problemId, String userId, long value);
+
+    /**
+     * 获取前N名
+     *
+     * @param metric    指标
+     * @param problemId 题目ID
+     * @param limit     数量
+     * @return 排行榜条目，按排名升序
+     */
+    List<RankingEntry> top(RankingMetric metric, String problemId, int limit);
+
+    /**
+     * 获取用户的排名
+     *
+     * @param metric    指标
+     * @param problemId 题目ID
+     * @param userId    用户ID
+     * @return 排行榜条目，用户没有成绩时返回null
+     */
+    RankingEntry rankOf(RankingMetric metric, String problemId, String userId);
+
+    /**
+     * 用完整的成绩整体替换题目的排行榜，并标记为已初始化
+     *
+     * @param problemId 题目ID
+     * @param scores    各指标下用户ID到最好成绩的映射
+     */
+    void replace(String problemId, Map<RankingMetric, Map<String, Long>> scores);
+
+    /**
+     * 题目的排行榜是否已经从提交记录初始化
+     *
+     * @param problemId 题目ID
+     * @return 是否已初始化
+     */
+    boolean isInitialized(String problemId);
+}
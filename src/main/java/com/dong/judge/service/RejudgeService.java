@@ -0,0 +1,50 @@
+package com.dong.judge.service;
+
+import com.dong.judge.model.dto.code.RejudgeRequest;
+import com.dong.judge.model.pojo.judge.RejudgeJob;
+
+import java.util.List;
+
+/**
+ * 批量重测服务
+ * <p>
+ * 按题目、提交ID或提交时间范围重新评测已完成的提交，在后台按并发数和速率限制执行，
+ * 进度保存在任务文档中，实例重启后从进度点继续
+ * </p>
+ */
+public interface RejudgeService {
+
+    /**
+     * 创建重测任务并立即开始执行
+     *
+     * @param request 重测条件
+     * @param userId  创建任务的管理员ID
+     * @return 重测任务
+     * @throws IllegalArgumentException 没有指定任何重测条件或时间范围无效
+     */
+    RejudgeJob createJob(RejudgeRequest request, String userId);
+
+    /**
+     * 查询重测任务
+     *
+     * @param jobId 任务ID
+     * @return 重测任务，不存在时返回null
+     */
+    RejudgeJob getJob(String jobId);
+
+    /**
+     * 查询最近创建的重测任务
+     *
+     * @param limit 数量
+     * @return 按创建时间倒序排列的重测任务
+     */
+    List<RejudgeJob> listJobs(int limit);
+
+    /**
+     * 取消重测任务，已重测的提交保留新结果
+     *
+     * @param jobId 任务ID
+     * @return 取消后的任务，任务不存在或已结束时返回null
+     */
+    RejudgeJob cancelJob(String jobId);
+}
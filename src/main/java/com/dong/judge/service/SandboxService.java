@@ -7,6 +7,9 @@ import com.dong.judge.model.vo.sandbox.CodeExecuteResult;
 import com.dong.judge.model.vo.sandbox.CompileResult;
 import com.dong.judge.model.vo.sandbox.RunResult;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 代码沙箱服务
  *
@@ -37,6 +40,28 @@ public interface SandboxService {
      */
     RunResult runCode(RunRequest request);
 
+    /**
+     * 批量运行代码
+     * <p>
+     * 将多个运行请求按配置的批大小合并为少量 /run 调用，沙箱内并行执行
+     * </p>
+     *
+     * @param requests 运行请求列表
+     * @return 与请求顺序一致的运行结果列表
+     */
+    List<RunResult> runBatch(List<RunRequest> requests);
+
+    /**
+     * 异步批量运行代码
+     * <p>
+     * 与 {@link #runBatch(List)} 相同的分块方式，各块并发发送，等待沙箱响应期间不占用调用线程
+     * </p>
+     *
+     * @param requests 运行请求列表
+     * @return 与请求顺序一致的运行结果列表
+     */
+    CompletableFuture<List<RunResult>> runBatchAsync(List<RunRequest> requests);
+
     /**
      * 删除文件
      * @param fileId 文件ID
@@ -1,9 +1,11 @@
 package com.dong.judge.service;
 
 import com.dong.judge.model.dto.code.TestCaseSetResult;
+import com.dong.judge.model.enums.CountMode;
 import com.dong.judge.model.pojo.judge.Submission;
-import org.springframework.data.domain.Page;
+import com.dong.judge.model.vo.judge.SubmissionSummary;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
@@ -20,26 +22,12 @@ public interface SubmissionService {
     Submission saveSubmission(String userId, String problemId, String code, String language, TestCaseSetResult result);
     
     /**
-     * 获取用户的提交记录
+     * 获取用户的提交记录摘要，按提交时间降序排列
      * @param userId 用户ID
-     * @param problemId 题目ID
-     * @return 提交记录列表
-     */
-    List<Submission> getUserSubmissions(String userId, String problemId);
-    
-    /**
-     * 获取题目的执行时间排名
-     * @param problemId 题目ID
-     * @return 提交记录列表（按执行时间升序）
-     */
-    List<Submission> getProblemTimeRanking(String problemId);
-    
-    /**
-     * 获取题目的内存使用排名
-     * @param problemId 题目ID
-     * @return 提交记录列表（按内存使用升序）
+     * @param problemId 题目ID（可选）
+     * @return 提交记录摘要列表，不包含代码和错误用例详情
      */
-    List<Submission> getProblemMemoryRanking(String problemId);
+    List<SubmissionSummary> getUserSubmissions(String userId, String problemId);
     
     /**
      * 根据提交ID获取提交详情
@@ -49,13 +37,28 @@ public interface SubmissionService {
     Submission getSubmissionById(String submissionId);
     
     /**
-     * 分页获取所有用户的提交记录
+     * 分页获取所有用户的提交记录摘要，按排序字段和ID降序排列
      * @param pageRequest 分页请求参数
      * @param problemId 题目ID（可选）
      * @param userId 用户ID（可选）
      * @param status 提交状态（可选）
      * @param language 编程语言（可选）
-     * @return 分页提交记录
+     * @param countMode 总数统计方式，不统计时返回的不是 {@link org.springframework.data.domain.Page}
+     * @return 分页提交记录摘要，不包含代码和错误用例详情
+     */
+    Slice<SubmissionSummary> getAllSubmissionsPage(PageRequest pageRequest, String problemId, String userId, String status,
+                                                   String language, CountMode countMode);
+
+    /**
+     * 按游标获取提交记录摘要，按提交时间和ID降序排列，不统计总数
+     * @param cursor 上一页最后一条提交记录的ID，为空时从第一条开始
+     * @param pageSize 每页大小
+     * @param problemId 题目ID（可选）
+     * @param userId 用户ID（可选）
+     * @param status 提交状态（可选）
+     * @param language 编程语言（可选）
+     * @return 提交记录摘要分片
      */
-    Page<Submission> getAllSubmissionsPage(PageRequest pageRequest, String problemId, String userId, String status, String language);
+    Slice<SubmissionSummary> getSubmissionsAfter(String cursor, int pageSize, String problemId, String userId, String status,
+                                                 String language);
 }
\ No newline at end of file
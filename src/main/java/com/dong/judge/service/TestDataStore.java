@@ -0,0 +1,27 @@
+package com.dong.judge.service;
+
+/**
+ * 测试数据存储服务接口
+ * <p>
+ * 以内容的SHA-256为键存储测试输入和预期输出，相同内容只保存一份
+ * </p>
+ */
+public interface TestDataStore {
+
+    /**
+     * 保存测试数据
+     *
+     * @param content 数据内容
+     * @return 内容的SHA-256摘要，作为后续读取的键
+     */
+    String put(String content);
+
+    /**
+     * 读取测试数据
+     *
+     * @param hash 内容摘要
+     * @return 数据内容
+     * @throws IllegalStateException 数据不存在时
+     */
+    String get(String hash);
+}
@@ -61,4 +61,12 @@ public interface TestGroupService {
      * @return 测试集列表
      */
     List<TestGroup> searchTestGroups(String userId, String keyword);
+
+    /**
+     * 记录测试用例作为首个失败用例的次数，用于评测时优先执行常失败的用例
+     *
+     * @param testGroupId 测试集ID
+     * @param testCaseId 测试用例ID
+     */
+    void recordTestCaseFailure(String testGroupId, Long testCaseId);
 }
\ No newline at end of file
@@ -0,0 +1,274 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.SandboxConfig;
+import com.dong.judge.model.dto.sandbox.RunRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 批量运行
+ * <p>
+ * 将同一块中运行相同程序的请求合并为沙箱中的一条命令：语言配置的批量运行器只启动一次解释器或虚拟机，
+ * 每个用例运行前把 case{i}.in、case{i}.out 和 case{i}.err 放到文件描述符 0、1、2 上，每个用例结束后在私有描述符上
+ * 写一行以制表符分隔的结果（运行令牌、下标、状态、退出码、CPU时间、内存、墙钟时间）。运行器没有报告结果的用例
+ * （如程序调用了退出、运行器超时后退出或被沙箱终止）由调用方逐个重新运行。
+ * </p>
+ * <p>
+ * 程序与运行器在同一进程中，可以伪造结果行后直接退出，也可以在用例之间保留状态，因此批量运行的结果不可信，
+ * 只应对题目显式开启。结果按以下规则核对，不符时整批结果作废、逐个重新运行：
+ * 结果行必须带有本次随机生成的运行令牌（经标准输入传给运行器，不出现在命令行和文件中）；
+ * 同一用例不能有多行结果；报告为通过的用例CPU时间不能超过限制；
+ * 沙箱统计的运行器总CPU时间不能超过各用例CPU时间之和，加上语言配置的启动余量和一个用例的限制。
+ * </p>
+ */
+@Slf4j
+public class BatchedRunner {
+
+    /**
+     * 每个用例的标准输出和标准错误限制，与单个用例运行时一致
+     */
+    static final int OUTPUT_LIMIT = 10240;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 沙箱请求的读超时，运行器依次运行所有用例，整批必须在读超时内完成
+     */
+    private final Duration readTimeout;
+
+    /**
+     * 类路径位置 -> 运行器源代码，读取失败的位置保存为空
+     */
+    private final Map<String, Optional<String>> runnerSources = new ConcurrentHashMap<>();
+
+    public BatchedRunner(ObjectMapper objectMapper, Duration readTimeout) {
+        this.objectMapper = objectMapper;
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * 一次批量运行最多的用例数：运行器的CPU时间限制（用例数加一倍的单个用例限制再加启动余量）不超过读超时，
+     * 否则一批耗时较长但都通过的用例会在客户端超时，整块改为逐个运行
+     *
+     * @param langConfig 语言配置
+     * @return 最多的用例数，小于2时该语言不批量运行
+     */
+    public int maxCases(SandboxConfig.LanguageConfig langConfig) {
+        long budget = readTimeout.toNanos() - langConfig.getBatchStartupCpu();
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, budget / Math.max(1, langConfig.getCpuLimit()) - 1));
+    }
+
+    /**
+     * 一块请求能否合并运行：至少两个、不超过 {@link #maxCases} 个请求都允许批量运行、使用配置了批量运行器的
+     * 同一语言并运行同一程序，且都没有命令行参数和额外文件
+     *
+     * @param requests    运行请求
+     * @param langConfigs 与请求对齐的语言配置
+     */
+    public boolean accepts(List<RunRequest> requests, List<SandboxConfig.LanguageConfig> langConfigs) {
+        if (requests.size() < 2) {
+            return false;
+        }
+        RunRequest first = requests.get(0);
+        SandboxConfig.LanguageConfig langConfig = langConfigs.get(0);
+        if (langConfig == null || langConfig.getBatchRunCommand() == null || langConfig.getBatchRunCommand().isEmpty()
+                || requests.size() > maxCases(langConfig) || runnerSource(langConfig) == null) {
+            return false;
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            RunRequest request = requests.get(i);
+            if (!request.isBatched() || langConfigs.get(i) != langConfig
+                    || request.getArgs() != null || request.getFiles() != null
+                    || !Objects.equals(request.getFileId(), first.getFileId())
+                    || (first.getFileId() == null && !Objects.equals(request.getCode(), first.getCode()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 生成一次批量运行的运行令牌
+     */
+    public static String newToken() {
+        byte[] token = new byte[16];
+        RANDOM.nextBytes(token);
+        return HexFormat.of().formatHex(token);
+    }
+
+    /**
+     * 构建批量运行的 /run 请求体
+     * <p>
+     * 运行器的CPU时间限制为用例数加一倍的单个用例限制再加启动余量，每个用例的限制由运行器自行检查
+     * </p>
+     *
+     * @param requests      已通过 {@link #accepts} 检查的运行请求
+     * @param langConfig    语言配置
+     * @param token         运行令牌，见 {@link #newToken}
+     * @param preloaded     测试数据摘要 -> 节点上的文件ID
+     * @param inputResolver 内联传输的输入内容
+     */
+    public ObjectNode buildRequestBody(List<RunRequest> requests, SandboxConfig.LanguageConfig langConfig, String token,
+                                       Map<String, String> preloaded, Function<RunRequest, String> inputResolver) {
+        ObjectNode requestBody = objectMapper.createObjectNode();
+        ObjectNode cmd = requestBody.putArray("cmd").addObject();
+
+        // 运行器命令，追加用例数、每个用例的CPU时间限制和输出限制
+        ArrayNode args = cmd.putArray("args");
+        langConfig.getBatchRunCommand().forEach(args::add);
+        args.add(String.valueOf(requests.size()));
+        args.add(String.valueOf(langConfig.getCpuLimit()));
+        args.add(String.valueOf(OUTPUT_LIMIT));
+
+        cmd.putArray("env").add("PATH=/usr/bin:/bin");
+
+        // 标准输入是运行令牌，标准输出是每个用例一行的结果
+        ArrayNode files = cmd.putArray("files");
+        files.addObject().put("content", token + "\n");
+        files.addObject().put("name", "stdout").put("max", Math.max(OUTPUT_LIMIT, requests.size() * 128));
+        files.addObject().put("name", "stderr").put("max", OUTPUT_LIMIT);
+
+        cmd.put("cpuLimit", langConfig.getCpuLimit() * (requests.size() + 1) + langConfig.getBatchStartupCpu());
+        cmd.put("memoryLimit", langConfig.getMemoryLimit());
+        cmd.put("procLimit", langConfig.getProcLimit());
+
+        // 程序、运行器和各用例的输入
+        ObjectNode copyIn = cmd.putObject("copyIn");
+        RunRequest first = requests.get(0);
+        if (first.getFileId() != null) {
+            copyIn.putObject(langConfig.getCompileOutFile()).put("fileId", first.getFileId());
+        } else {
+            copyIn.putObject(langConfig.getSourceFile()).put("content", first.getCode());
+        }
+        copyIn.putObject(runnerFileName(langConfig)).put("content", runnerSource(langConfig));
+
+        ArrayNode copyOut = cmd.putArray("copyOut");
+        copyOut.add("stdout");
+        copyOut.add("stderr");
+        for (int i = 0; i < requests.size(); i++) {
+            RunRequest request = requests.get(i);
+            String inputFileId = request.getInputHash() != null ? preloaded.get(request.getInputHash()) : null;
+            if (inputFileId != null) {
+                copyIn.putObject("case" + i + ".in").put("fileId", inputFileId);
+            } else {
+                copyIn.putObject("case" + i + ".in").put("content", inputResolver.apply(request));
+            }
+            // 运行器提前退出时后续用例没有输出文件
+            copyOut.add("case" + i + ".out?");
+            copyOut.add("case" + i + ".err?");
+        }
+        return requestBody;
+    }
+
+    /**
+     * 将运行器的结果拆分为各用例的 go-judge 命令结果
+     *
+     * @param runResponse /run 的响应，为null时所有用例都没有结果
+     * @param count       用例数
+     * @param token       构建请求时使用的运行令牌
+     * @param langConfig  语言配置，提供每个用例的CPU时间限制和启动余量
+     * @return 与请求顺序一致的命令结果，运行器没有报告结果或结果未通过核对的用例为null
+     */
+    public List<JsonNode> split(JsonNode runResponse, int count, String token, SandboxConfig.LanguageConfig langConfig) {
+        long cpuLimit = langConfig.getCpuLimit();
+        List<JsonNode> results = new ArrayList<>(Collections.nCopies(count, null));
+        if (runResponse == null || !runResponse.isArray() || runResponse.isEmpty()) {
+            return results;
+        }
+        JsonNode runner = runResponse.get(0);
+        JsonNode files = runner.path("files");
+        long reportedTime = 0;
+        for (String line : files.path("stdout").asText().split("\n")) {
+            String[] fields = line.split("\t");
+            if (fields.length != 7 || !fields[0].equals(token)) {
+                // 没有运行令牌的行不是运行器写的
+                continue;
+            }
+            try {
+                int index = Integer.parseInt(fields[1]);
+                if (index < 0 || index >= count) {
+                    continue;
+                }
+                ObjectNode result = objectMapper.createObjectNode();
+                result.put("status", fields[2]);
+                result.put("exitStatus", Integer.parseInt(fields[3]));
+                result.put("time", Long.parseLong(fields[4]));
+                result.put("memory", Long.parseLong(fields[5]));
+                result.put("runTime", Long.parseLong(fields[6]));
+                ObjectNode caseFiles = result.putObject("files");
+                caseFiles.put("stdout", files.path("case" + index + ".out").asText());
+                caseFiles.put("stderr", files.path("case" + index + ".err").asText());
+                if (results.get(index) != null
+                        || ("Accepted".equals(fields[2]) && result.get("time").asLong() > cpuLimit)) {
+                    return distrust(runner, count, "结果行重复或通过的用例超过时间限制");
+                }
+                results.set(index, result);
+                reportedTime += result.get("time").asLong();
+            } catch (NumberFormatException e) {
+                return distrust(runner, count, "结果行格式错误");
+            }
+        }
+
+        long reported = results.stream().filter(Objects::nonNull).count();
+        long allowance = langConfig.getBatchStartupCpu() + cpuLimit;
+        if (reported > 0 && (!runner.path("time").canConvertToLong() || runner.path("time").asLong() > reportedTime + allowance)) {
+            return distrust(runner, count, "沙箱统计的CPU时间超过报告的用例时间之和");
+        }
+        if (reported < count) {
+            log.debug("批量运行器提前结束: status={}, reported={}/{}, stderr={}",
+                    runner.path("status").asText(), reported, count, files.path("stderr").asText());
+        }
+        return results;
+    }
+
+    /**
+     * 结果未通过核对，整批用例逐个重新运行
+     */
+    private List<JsonNode> distrust(JsonNode runner, int count, String reason) {
+        log.warn("批量运行结果未通过核对，逐个重新运行: reason={}, status={}, time={}, count={}",
+                reason, runner.path("status").asText(), runner.path("time").asText(), count);
+        return new ArrayList<>(Collections.nCopies(count, null));
+    }
+
+    /**
+     * 运行器源代码，读取失败时返回null，该语言不再批量运行
+     */
+    private String runnerSource(SandboxConfig.LanguageConfig langConfig) {
+        if (langConfig.getBatchRunner() == null) {
+            return null;
+        }
+        return runnerSources.computeIfAbsent(langConfig.getBatchRunner(), location -> {
+            try (InputStream in = new ClassPathResource(location).getInputStream()) {
+                return Optional.of(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                log.error("读取批量运行器失败: {}", location, e);
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
+    private static String runnerFileName(SandboxConfig.LanguageConfig langConfig) {
+        String location = langConfig.getBatchRunner();
+        return location.substring(location.lastIndexOf('/') + 1);
+    }
+}
@@ -0,0 +1,239 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.ProblemCacheConfig;
+import com.dong.judge.model.pojo.judge.Problem;
+import com.dong.judge.service.ProblemService;
+import com.dong.judge.util.ExpiringLruCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 带缓存的题目服务
+ * <p>
+ * 在 {@link ProblemServiceImpl} 之上缓存题目详情、标签列表和题目列表分页，创建、更新、删除题目时使本地缓存失效，
+ * 并通过 Redis 频道通知其他实例。缓存中的题目对象不对外暴露，每次读取都返回副本，调用方修改返回值不影响缓存。
+ * 提交统计计数直接写入数据库，不触发失效，缓存中的计数最多滞后 TTL。
+ * </p>
+ */
+@Slf4j
+@Primary
+@Service
+@ConditionalOnProperty(prefix = "problem.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CachingProblemService implements ProblemService, MessageListener {
+
+    /**
+     * 失效消息中表示全部题目的ID
+     */
+    static final String ALL = "*";
+
+    private static final String TAGS_KEY = "tags";
+
+    /**
+     * 分页缓存键
+     */
+    private record PageKey(PageRequest pageRequest, String difficulty, String keyword, List<String> tags,
+                           boolean textSearch) {
+    }
+
+    /**
+     * 游标分页缓存键
+     */
+    private record CursorKey(String cursor, int pageSize, String difficulty, String keyword, List<String> tags,
+                             boolean textSearch) {
+    }
+
+    private final ProblemServiceImpl delegate;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final String channel;
+
+    /**
+     * 本实例标识，用于忽略自己发出的失效消息
+     */
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final ExpiringLruCache<String, Problem> problems;
+    private final ExpiringLruCache<String, List<String>> tags;
+    private final ExpiringLruCache<PageKey, Page<Problem>> pages;
+    private final ExpiringLruCache<CursorKey, Slice<Problem>> cursorPages;
+
+    public CachingProblemService(ProblemServiceImpl delegate,
+                                 ProblemCacheConfig cacheConfig,
+                                 StringRedisTemplate redisTemplate,
+                                 RedisMessageListenerContainer listenerContainer,
+                                 MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.channel = cacheConfig.getChannel();
+        this.problems = new ExpiringLruCache<>("problem.by-id", cacheConfig.getMaxProblems(), cacheConfig.getTtl(), meterRegistry);
+        this.tags = new ExpiringLruCache<>("problem.tags", 1, cacheConfig.getTtl(), meterRegistry);
+        this.pages = new ExpiringLruCache<>("problem.pages", cacheConfig.getMaxPages(), cacheConfig.getTtl(), meterRegistry);
+        this.cursorPages = new ExpiringLruCache<>("problem.cursor-pages", cacheConfig.getMaxPages(), cacheConfig.getTtl(),
+                meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+    }
+
+    @Override
+    public Problem createProblem(Problem problem, String userId) {
+        Problem created = delegate.createProblem(problem, userId);
+        changed(created.getId());
+        return created;
+    }
+
+    @Override
+    public Problem updateProblem(Problem problem, String userId) {
+        Problem updated = delegate.updateProblem(problem, userId);
+        changed(updated.getId());
+        return updated;
+    }
+
+    @Override
+    public boolean deleteProblem(String id, String userId) {
+        boolean deleted = delegate.deleteProblem(id, userId);
+        changed(id);
+        return deleted;
+    }
+
+    @Override
+    public Problem getProblemById(String id) {
+        return copy(problems.get(id, delegate::getProblemById));
+    }
+
+    @Override
+    public List<String> getAllTags() {
+        return tags.get(TAGS_KEY, key -> List.copyOf(delegate.getAllTags()));
+    }
+
+    @Override
+    public int rebuildTags() {
+        int tagCount = delegate.rebuildTags();
+        changed(ALL);
+        return tagCount;
+    }
+
+    @Override
+    public Page<Problem> searchProblemsWithConditions(PageRequest pageRequest, String difficulty, String keyword, List<String> tags,
+                                                      boolean textSearch) {
+        PageKey key = new PageKey(pageRequest, difficulty, keyword, tags != null ? List.copyOf(tags) : null, textSearch);
+        return pages.get(key, k -> delegate.searchProblemsWithConditions(pageRequest, difficulty, keyword, k.tags(), textSearch))
+                .map(CachingProblemService::copy);
+    }
+
+    @Override
+    public Slice<Problem> searchProblemsAfter(String cursor, int pageSize, String difficulty, String keyword, List<String> tags,
+                                              boolean textSearch) {
+        CursorKey key = new CursorKey(cursor, pageSize, difficulty, keyword, tags != null ? List.copyOf(tags) : null, textSearch);
+        return cursorPages.get(key, k -> delegate.searchProblemsAfter(cursor, pageSize, difficulty, keyword, k.tags(), textSearch))
+                .map(CachingProblemService::copy);
+    }
+
+    @Override
+    public List<Problem> getUserProblems(String userId) {
+        return delegate.getUserProblems(userId);
+    }
+
+    @Override
+    public List<Problem> searchProblems(String userId, String keyword) {
+        return delegate.searchProblems(userId, keyword);
+    }
+
+    @Override
+    public List<Problem> getProblemsByDifficulty(String userId, Integer level) {
+        return delegate.getProblemsByDifficulty(userId, level);
+    }
+
+    @Override
+    public List<Problem> getProblemsByTag(String userId, String tag) {
+        return delegate.getProblemsByTag(userId, tag);
+    }
+
+    @Override
+    public List<Problem> getAllProblems() {
+        return delegate.getAllProblems();
+    }
+
+    @Override
+    public Page<Problem> getAllProblemsPage(PageRequest pageRequest) {
+        return delegate.getAllProblemsPage(pageRequest);
+    }
+
+    /**
+     * 接收其他实例发出的失效消息
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('|');
+        if (separator < 0 || body.substring(0, separator).equals(instanceId)) {
+            return;
+        }
+        invalidate(body.substring(separator + 1));
+    }
+
+    /**
+     * 使本地缓存失效
+     *
+     * @param problemId 题目ID，为 {@link #ALL} 时清空所有题目
+     */
+    void invalidate(String problemId) {
+        if (ALL.equals(problemId)) {
+            problems.invalidateAll();
+        } else {
+            problems.invalidate(problemId);
+        }
+        tags.invalidateAll();
+        pages.invalidateAll();
+        cursorPages.invalidateAll();
+    }
+
+    /**
+     * 复制缓存中的题目，标签列表一并复制
+     */
+    private static Problem copy(Problem cached) {
+        if (cached == null) {
+            return null;
+        }
+        Problem problem = new Problem();
+        BeanUtils.copyProperties(cached, problem);
+        if (cached.getTags() != null) {
+            problem.setTags(new ArrayList<>(cached.getTags()));
+        }
+        return problem;
+    }
+
+    /**
+     * 题目发生变化：使本地缓存失效并通知其他实例
+     */
+    private void changed(String problemId) {
+        String id = problemId != null ? problemId : ALL;
+        invalidate(id);
+        try {
+            redisTemplate.convertAndSend(channel, instanceId + "|" + id);
+        } catch (Exception e) {
+            log.warn("广播题目缓存失效消息失败: problemId={}", id, e);
+        }
+    }
+}
@@ -1,19 +1,31 @@
 package com.dong.judge.service.impl;
 
+import com.dong.judge.config.JudgeConfig;
 import com.dong.judge.config.SandboxConfig;
+import com.dong.judge.exception.JudgeQueueFullException;
 import com.dong.judge.model.dto.code.*;
 import com.dong.judge.model.dto.sandbox.CompileRequest;
 import com.dong.judge.model.dto.sandbox.RunRequest;
 import com.dong.judge.model.enums.ExecutionStatus;
+import com.dong.judge.model.enums.JudgeLane;
+import com.dong.judge.model.enums.JudgePolicy;
+import com.dong.judge.model.enums.OutputCheckMode;
+import com.dong.judge.model.enums.StatusEnum;
 import com.dong.judge.model.pojo.judge.Problem;
 import com.dong.judge.model.pojo.judge.Submission;
 import com.dong.judge.model.pojo.judge.TestGroup;
 import com.dong.judge.model.vo.sandbox.CompileResult;
 import com.dong.judge.model.vo.sandbox.RunResult;
 import com.dong.judge.service.CodeService;
+import com.dong.judge.service.JudgeProgressListener;
+import com.dong.judge.service.JudgeProgressService;
+import com.dong.judge.service.JudgeQueue;
 import com.dong.judge.service.ProblemService;
+import com.dong.judge.service.RankingService;
 import com.dong.judge.service.SandboxService;
+import com.dong.judge.service.TestDataStore;
 import com.dong.judge.service.TestGroupService;
+import com.dong.judge.util.OutputChecker;
 import com.dong.judge.dao.repository.SubmissionRepository;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -22,10 +34,13 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -39,14 +54,29 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class CodeServiceImpl implements CodeService {
 
+    /**
+     * 特殊评测程序工作目录中的输入、选手输出和预期输出文件
+     */
+    private static final String CHECKER_INPUT_FILE = "input.txt";
+    private static final String CHECKER_OUTPUT_FILE = "output.txt";
+    private static final String CHECKER_ANSWER_FILE = "answer.txt";
+
     private final SandboxService sandboxService;
     private final ProblemService problemService;
     private final TestGroupService testGroupService;
     private final SubmissionRepository submissionRepository;
     private final SandboxConfig sandboxConfig;
+    private final JudgeQueue judgeQueue;
+    private final JudgeConfig judgeConfig;
+    private final JudgeScheduler judgeScheduler;
+    private final TestDataStore testDataStore;
+    private final ProblemStatisticsWriter problemStatisticsWriter;
+    private final RankingService rankingService;
+    private final JudgeProgressService judgeProgressService;
+    private final JudgeMetrics judgeMetrics;
 
     @Override
-    public TestCaseSetResult runCode(CodeRunRequest request) {
+    public TestCaseSetResult runCode(CodeRunRequest request, String userId) {
         log.info("运行代码: language={}", request.getLanguage());
 
         // 1. 判断语言是否支持
@@ -67,13 +97,19 @@ public class CodeServiceImpl implements CodeService {
                 .build();
 
         // 4. 编译代码(如果需要)
-        CompilationResult compilationResult = compileIfNeeded(langConfig, request.getCode(), request.getLanguage());
+        CompilationResult compilationResult = compileIfNeeded(langConfig, request.getCode(), request.getLanguage(),
+                userId, JudgeLane.INTERACTIVE);
         if (compilationResult.hasError()) {
             return createCompileErrorResult(testCaseSet, compilationResult.error());
         }
 
-        // 5. 执行代码
-        TestCaseResult testCaseResult = executeTestCase(request.getCode(),request.getLanguage(), testCase, compilationResult.fileId());
+        // 5. 执行代码，完成后归还编译产物
+        TestCaseResult testCaseResult;
+        try {
+            testCaseResult = executeTestCase(request.getCode(),request.getLanguage(), testCase, compilationResult.fileId(), userId);
+        } finally {
+            sandboxService.deleteFile(compilationResult.fileId());
+        }
 
         // 6. 构建并返回结果集
         TestCaseSetResult result = TestCaseSetResult.builder()
@@ -92,6 +128,121 @@ public class CodeServiceImpl implements CodeService {
 
     @Override
     public TestCaseSetResult submitCode(CodeSubmitRequest request, String userId) {
+        // 1. 评测代码
+        TestCaseSetResult result = judge(request, userId, JudgeLane.NORMAL, JudgeProgressListener.NONE);
+
+        // 2. 保存提交记录并获取提交ID
+        Submission submission = saveSubmission(request, userId, result);
+        if (submission != null) {
+            result.setSubmissionId(submission.getId()); // 设置提交ID
+        }
+
+        return result;
+    }
+
+    @Override
+    public String submitCodeAsync(CodeSubmitRequest request, String userId) {
+        // 1. 校验题目和语言，无效提交不进入队列
+        Problem problem = problemService.getProblemById(request.getProblemId());
+        if (problem == null) {
+            throw new IllegalArgumentException("题目不存在: " + request.getProblemId());
+        }
+        validateLanguage(request.getLanguage());
+
+        // 2. 保存待评测的提交记录
+        Submission submission = submissionRepository.save(Submission.builder()
+                .userId(userId)
+                .problemId(request.getProblemId())
+                .problemNumber(problem.getProblemId())
+                .problemTitle(problem.getTitle())
+                .code(request.getCode())
+                .language(request.getLanguage())
+                .status(ExecutionStatus.PENDING.getCode())
+                .submissionTime(LocalDateTime.now())
+                .build());
+
+        // 3. 加入评测队列，队列已满时撤销提交
+        if (!judgeQueue.offer(submission.getId(), judgeConfig.getQueue().getOfferTimeout())) {
+            submissionRepository.deleteById(submission.getId());
+            throw new JudgeQueueFullException("评测队列已满，请稍后再试");
+        }
+
+        log.info("提交已加入评测队列: submissionId={}, queueSize={}", submission.getId(), judgeQueue.size());
+        return submission.getId();
+    }
+
+    @Override
+    public void judgeSubmission(String submissionId) {
+        Submission submission = submissionRepository.findById(submissionId).orElse(null);
+        if (submission == null) {
+            log.warn("待评测的提交不存在: {}", submissionId);
+            return;
+        }
+
+        // 重复投递的任务只评测一次
+        if (!ExecutionStatus.PENDING.getCode().equals(submission.getStatus())) {
+            log.warn("提交不是待评测状态，跳过: submissionId={}, status={}", submissionId, submission.getStatus());
+            return;
+        }
+
+        submission.setStatus(ExecutionStatus.JUDGING.getCode());
+        submissionRepository.save(submission);
+
+        CodeSubmitRequest request = CodeSubmitRequest.builder()
+                .code(submission.getCode())
+                .language(submission.getLanguage())
+                .problemId(submission.getProblemId())
+                .build();
+
+        TestCaseSetResult result;
+        try {
+            result = judge(request, submission.getUserId(), JudgeLane.NORMAL, judgeProgressService.listener(submissionId));
+        } catch (Exception e) {
+            log.error("评测提交异常: {}", submissionId, e);
+            submission.setStatus(ExecutionStatus.SYSTEM_ERROR.getCode());
+            submissionRepository.save(submission);
+            judgeProgressService.finished(submission);
+            return;
+        }
+
+        applyResult(submission, result);
+        judgeMetrics.timePhase("save", () -> submissionRepository.save(submission));
+        judgeProgressService.finished(submission);
+        problemStatisticsWriter.record(submission.getProblemId(), result);
+        rankingService.record(submission);
+    }
+
+    @Override
+    public TestCaseSetResult rejudge(Submission submission) {
+        CodeSubmitRequest request = CodeSubmitRequest.builder()
+                .code(submission.getCode())
+                .language(submission.getLanguage())
+                .problemId(submission.getProblemId())
+                .build();
+        TestCaseSetResult result = judge(request, submission.getUserId(), JudgeLane.BULK, JudgeProgressListener.NONE);
+        applyResult(submission, result);
+        return result;
+    }
+
+    /**
+     * 评测代码：编译并执行题目的所有测试用例
+     *
+     * @param request 代码提交请求
+     * @param tenant 调度租户（用户ID）
+     * @param lane 调度优先级通道
+     * @param progress 评测进度回调
+     * @return 测试用例执行结果集
+     */
+    private TestCaseSetResult judge(CodeSubmitRequest request, String tenant, JudgeLane lane, JudgeProgressListener progress) {
+        TestCaseSetResult result = judgeMetrics.timeJudge(() -> compileAndRun(request, tenant, lane, progress));
+        judgeMetrics.recordVerdict(request.getLanguage(), determineStatus(result), result);
+        return result;
+    }
+
+    /**
+     * 获取题目和测试集，编译并执行所有测试用例
+     */
+    private TestCaseSetResult compileAndRun(CodeSubmitRequest request, String tenant, JudgeLane lane, JudgeProgressListener progress) {
         // 1. 获取题目信息
         Problem problem = problemService.getProblemById(request.getProblemId());
         if (problem == null) {
@@ -134,7 +285,11 @@ public class CodeServiceImpl implements CodeService {
                     TestCase enrichedTestCase = TestCase.builder()
                             .id(testCase.getId())
                             .input(testCase.getInput())
-                            .output(expectedResult.getStdout()) // 使用标准输出作为预期输出
+                            .inputHash(testCase.getInputHash())
+                            .inputSize(testCase.getInputSize())
+                            .output(expectedResult.getStdout() != null || testCase.getOutputHash() == null
+                                    ? expectedResult.getStdout() // 使用标准输出作为预期输出
+                                    : testDataStore.get(testCase.getOutputHash()))
                             .build();
                     
                     enrichedTestCases.add(enrichedTestCase);
@@ -150,23 +305,44 @@ public class CodeServiceImpl implements CodeService {
         
         testCaseSet.setTestCases(testCases);
 
-        // 4. 验证语言并编译
+        // 4. 验证语言
         SandboxConfig.LanguageConfig langConfig = validateLanguage(request.getLanguage());
-        CompilationResult compilationResult = compileIfNeeded(langConfig, request.getCode(), request.getLanguage());
 
-        if (compilationResult.hasError()) {
-            TestCaseSetResult result = createCompileErrorResult(testCaseSet, compilationResult.error());
-            Submission submission = saveSubmission(request, userId, result);
-            if (submission != null) {
-                result.setSubmissionId(submission.getId()); // 设置提交ID
-            }
-            return result;
+        // 5. 准备结果判定方式，特殊评测题目需要先编译评测程序
+        ResultChecker checker = prepareResultChecker(problem, tenant, lane);
+        if (checker.error() != null) {
+            return createSystemErrorResult(testCaseSet, checker.error());
         }
 
-        // 5. 使用虚拟线程并发执行测试用例
-        List<TestCaseResult> testCaseResults = executeAllTestCases(request, testCaseSet, compilationResult.fileId());
+        // 6. 编译并执行测试用例，完成后归还编译产物。有子任务时按子任务依赖执行，否则按评测策略执行
+        JudgePolicy policy = problem.getJudgePolicy() != null ? problem.getJudgePolicy() : judgeConfig.getPolicy();
+        SubtaskPlan subtaskPlan = SubtaskPlan.of(testGroup.getSubtasks(), testCases);
+        boolean batchedRun = Boolean.TRUE.equals(problem.getBatchedRun());
+        CompilationResult compilationResult;
+        List<TestCaseResult> testCaseResults;
+        try {
+            progress.compiling(testCases.size());
+            compilationResult = compileIfNeeded(langConfig, request.getCode(), request.getLanguage(), tenant, lane);
+            if (compilationResult.hasError()) {
+                return createCompileErrorResult(testCaseSet, compilationResult.error());
+            }
 
-        // 6. 构建结果集
+            try {
+                if (subtaskPlan != null) {
+                    testCaseResults = executeBySubtasks(request, testCases, subtaskPlan, testGroup.getCaseFailureCounts(), compilationResult.fileId(), batchedRun, checker, tenant, lane, progress);
+                } else if (policy == JudgePolicy.STOP_ON_FIRST_FAILURE) {
+                    testCaseResults = executeUntilFirstFailure(request, testCases, testGroup.getCaseFailureCounts(), compilationResult.fileId(), batchedRun, checker, tenant, lane, progress);
+                } else {
+                    testCaseResults = executeAllTestCases(request, testCases, compilationResult.fileId(), batchedRun, checker, tenant, lane, progress);
+                }
+            } finally {
+                sandboxService.deleteFile(compilationResult.fileId());
+            }
+        } finally {
+            sandboxService.deleteFile(checker.fileId());
+        }
+
+        // 7. 构建结果集
         TestCaseSetResult result = TestCaseSetResult.builder()
                 .id(testCaseSet.getId())
                 .name(testCaseSet.getName())
@@ -175,13 +351,16 @@ public class CodeServiceImpl implements CodeService {
                 .compileError(compilationResult.error())
                 .build();
 
-        // 计算统计信息
+        // 计算统计信息和子任务得分
         result.calculateStatistics();
+        if (subtaskPlan != null) {
+            applySubtaskScores(result, subtaskPlan);
+        }
 
-        // 7. 保存提交记录并获取提交ID
-        Submission submission = saveSubmission(request, userId, result);
-        if (submission != null) {
-            result.setSubmissionId(submission.getId()); // 设置提交ID
+        // 8. 记录首个失败用例，后续评测优先执行
+        TestCaseResult failedTestCase = result.getFirstFailedTestCase();
+        if (failedTestCase != null) {
+            testGroupService.recordTestCaseFailure(testGroup.getId(), failedTestCase.getId());
         }
 
         return result;
@@ -201,12 +380,13 @@ public class CodeServiceImpl implements CodeService {
     /**
      * 如果需要则编译代码
      */
-    private CompilationResult compileIfNeeded(SandboxConfig.LanguageConfig langConfig, String code, String language) {
+    private CompilationResult compileIfNeeded(SandboxConfig.LanguageConfig langConfig, String code, String language,
+                                              String tenant, JudgeLane lane) {
         if (!langConfig.isNeedCompile()) {
             return new CompilationResult(null, null);
         }
 
-        try {
+        try (JudgeScheduler.Permit ignored = judgeScheduler.acquire(tenant, lane, 1)) {
             CompileRequest compileRequest = CompileRequest.builder()
                     .code(code)
                     .language(language)
@@ -219,6 +399,9 @@ public class CodeServiceImpl implements CodeService {
             }
 
             return new CompilationResult(compileResult.getFileId(), null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new CompilationResult(null, "编译被中断");
         } catch (Exception e) {
             log.error("编译代码失败", e);
             return new CompilationResult(null, "编译服务异常: " + e.getMessage());
@@ -233,86 +416,364 @@ public class CodeServiceImpl implements CodeService {
             }
 
         }
+
+    /**
+     * 结果判定方式
+     *
+     * @param outputChecker 输出检查器，特殊评测时用于未交给评测程序的用例
+     * @param language 特殊评测程序语言，非特殊评测时为null
+     * @param code 特殊评测程序源代码
+     * @param fileId 特殊评测程序的编译产物，解释型语言为null
+     * @param error 准备评测程序时的错误信息
+     */
+    private record ResultChecker(OutputChecker outputChecker, String language, String code, String fileId, String error) {
+
+        boolean isSpecial() {
+            return language != null;
+        }
+    }
+
+    /**
+     * 准备题目的结果判定方式
+     * <p>
+     * 特殊评测程序通过沙箱服务编译，相同源码的编译产物由编译缓存复用，使用完毕后需归还 fileId
+     * </p>
+     */
+    private ResultChecker prepareResultChecker(Problem problem, String tenant, JudgeLane lane) {
+        OutputChecker outputChecker = resolveOutputChecker(problem);
+        OutputCheckMode mode = problem.getOutputCheckMode() != null ? problem.getOutputCheckMode() : judgeConfig.getChecker().getMode();
+        if (mode != OutputCheckMode.SPECIAL) {
+            return new ResultChecker(outputChecker, null, null, null, null);
+        }
+        if (problem.getCheckerCode() == null || problem.getCheckerCode().isBlank()) {
+            return new ResultChecker(outputChecker, null, null, null, "题目未配置特殊评测程序");
+        }
+
+        SandboxConfig.LanguageConfig langConfig = sandboxConfig.getLanguageConfig(problem.getCheckerLanguage());
+        if (langConfig == null) {
+            return new ResultChecker(outputChecker, null, null, null, "不支持的特殊评测程序语言: " + problem.getCheckerLanguage());
+        }
+        CompilationResult compilationResult = compileIfNeeded(langConfig, problem.getCheckerCode(),
+                problem.getCheckerLanguage(), tenant, lane);
+        if (compilationResult.hasError()) {
+            log.error("特殊评测程序编译失败: problemId={}, error={}", problem.getId(), compilationResult.error());
+            return new ResultChecker(outputChecker, null, null, null, "特殊评测程序编译失败: " + compilationResult.error());
+        }
+        return new ResultChecker(outputChecker, problem.getCheckerLanguage(), problem.getCheckerCode(),
+                compilationResult.fileId(), null);
+    }
+
+    /**
+     * 构建特殊评测程序的运行请求
+     * <p>
+     * 评测程序以 input.txt output.txt answer.txt 三个参数运行，分别为输入、选手输出和预期输出
+     * </p>
+     */
+    private RunRequest buildCheckerRunRequest(ResultChecker checker, TestCase testCase, RunResult runResult) {
+        Map<String, String> files = new LinkedHashMap<>();
+        files.put(CHECKER_INPUT_FILE, testCase.getInput() != null || testCase.getInputHash() == null
+                ? testCase.getInput() : testDataStore.get(testCase.getInputHash()));
+        files.put(CHECKER_OUTPUT_FILE, runResult.getStdout());
+        files.put(CHECKER_ANSWER_FILE, testCase.getOutput());
+        return RunRequest.builder()
+                .code(checker.code())
+                .language(checker.language())
+                .fileId(checker.fileId())
+                .args(List.of(CHECKER_INPUT_FILE, CHECKER_OUTPUT_FILE, CHECKER_ANSWER_FILE))
+                .files(files)
+                .build();
+    }
+
     /**
      * 执行所有测试用例
+     * <p>
+     * 测试用例按批大小分组，每组合并为一次沙箱调用，各组异步并发执行，每组完成时推送进度
+     * </p>
+     */
+    private List<TestCaseResult> executeAllTestCases(CodeSubmitRequest request, List<TestCase> testCases, String fileId,
+                                                     boolean batchedRun, ResultChecker checker, String tenant, JudgeLane lane,
+                                                     JudgeProgressListener progress) {
+        int batchSize = batchSize();
+        List<TestCaseResult> testCaseResults = new ArrayList<>(testCases.size());
+        List<List<TestCase>> batches = new ArrayList<>();
+        List<CompletableFuture<List<TestCaseResult>>> futures = new ArrayList<>();
+
+        // 按批提交测试用例执行任务
+        for (int start = 0; start < testCases.size(); start += batchSize) {
+            List<TestCase> batch = testCases.subList(start, Math.min(start + batchSize, testCases.size()));
+            batches.add(batch);
+            CompletableFuture<List<TestCaseResult>> future =
+                    executeTestCaseBatch(request.getCode(), request.getLanguage(), batch, fileId, batchedRun, checker, tenant, lane);
+            future.thenAccept(results -> results.forEach(progress::caseFinished));
+            futures.add(future);
+        }
+
+        // 按顺序收集所有执行结果
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                testCaseResults.addAll(futures.get(i).join());
+            } catch (Exception e) {
+                log.error("执行测试用例失败", e);
+                for (TestCase testCase : batches.get(i)) {
+                    testCaseResults.add(createErrorTestCaseResult(testCase, "执行异常: " + e.getMessage()));
+                }
+            }
+        }
+
+        return testCaseResults;
+    }
+
+    /**
+     * 执行测试用例直到第一个未通过的用例
+     * <p>
+     * 历史上常失败、输入较小的用例先执行；批大小从1开始逐批翻倍直到配置的批大小，
+     * 出现未通过的用例后不再发送后续批次，剩余用例标记为未执行。结果按原始顺序返回。
+     * </p>
+     */
+    private List<TestCaseResult> executeUntilFirstFailure(CodeSubmitRequest request, List<TestCase> testCases,
+                                                          Map<String, Long> failureCounts, String fileId,
+                                                          boolean batchedRun, ResultChecker checker, String tenant, JudgeLane lane,
+                                                          JudgeProgressListener progress) {
+        Map<TestCase, TestCaseResult> resultMap = new IdentityHashMap<>();
+        executeUntilFailure(request, orderTestCases(testCases, failureCounts), fileId, batchedRun, checker, tenant, lane, progress, resultMap);
+        return testCases.stream()
+                .map(testCase -> resultMap.computeIfAbsent(testCase, this::createSkippedTestCaseResult))
+                .toList();
+    }
+
+    /**
+     * 按给定顺序以逐批翻倍的批大小执行测试用例，出现未通过的用例后不再发送后续批次
+     *
+     * @param resultMap 执行结果，未执行的用例没有结果
      */
-    private List<TestCaseResult> executeAllTestCases(CodeSubmitRequest request, TestCaseSet testCaseSet, String fileId) {
-        List<TestCaseResult> testCaseResults = new ArrayList<>();
+    private void executeUntilFailure(CodeSubmitRequest request, List<TestCase> ordered, String fileId,
+                                     boolean batchedRun, ResultChecker checker, String tenant, JudgeLane lane,
+                                     JudgeProgressListener progress, Map<TestCase, TestCaseResult> resultMap) {
+        int maxBatchSize = batchSize();
+        int batchSize = 1;
+        for (int start = 0; start < ordered.size(); start += batchSize, batchSize = Math.min(batchSize * 2, maxBatchSize)) {
+            List<TestCase> batch = ordered.subList(start, Math.min(start + batchSize, ordered.size()));
+
+            List<TestCaseResult> batchResults;
+            try {
+                batchResults = executeTestCaseBatch(request.getCode(), request.getLanguage(), batch, fileId, batchedRun, checker, tenant, lane).join();
+            } catch (Exception e) {
+                log.error("执行测试用例失败", e);
+                batchResults = batch.stream()
+                        .map(testCase -> createErrorTestCaseResult(testCase, "执行异常: " + e.getMessage()))
+                        .toList();
+            }
+
+            boolean failed = false;
+            for (int i = 0; i < batch.size(); i++) {
+                TestCaseResult testCaseResult = batchResults.get(i);
+                resultMap.put(batch.get(i), testCaseResult);
+                progress.caseFinished(testCaseResult);
+                if (!ExecutionStatus.ACCEPTED.getCode().equals(testCaseResult.getStatus())) {
+                    failed = true;
+                }
+            }
+            if (failed) {
+                return;
+            }
+        }
+    }
 
-        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
-            List<Future<TestCaseResult>> futures = new ArrayList<>();
+    /**
+     * 按子任务执行测试用例
+     * <p>
+     * 子任务按依赖顺序执行，依赖未得满分的子任务不执行。全部通过才得分的子任务按遇错即停的方式执行，
+     * 出现未通过的用例后跳过其余用例；按比例得分的子任务执行全部用例。属于多个子任务的用例只执行一次。
+     * 未执行的用例标记为未执行，结果按原始顺序返回。
+     * </p>
+     */
+    private List<TestCaseResult> executeBySubtasks(CodeSubmitRequest request, List<TestCase> testCases, SubtaskPlan plan,
+                                                   Map<String, Long> failureCounts, String fileId,
+                                                   boolean batchedRun, ResultChecker checker, String tenant, JudgeLane lane,
+                                                   JudgeProgressListener progress) {
+        Map<Long, TestCase> casesById = new LinkedHashMap<>();
+        testCases.forEach(testCase -> casesById.put(testCase.getId(), testCase));
+        Map<Long, TestCaseResult> results = new HashMap<>();
 
-            // 提交所有测试用例执行任务
-            for (TestCase testCase : testCaseSet.getTestCases()) {
-                futures.add(executor.submit(() -> executeTestCase(request.getCode(),request.getLanguage(), testCase, fileId)));
+        for (Subtask subtask : plan.order()) {
+            if (!plan.isReady(subtask, results) || (SubtaskPlan.isMin(subtask) && plan.isFailed(subtask, results))) {
+                continue;
+            }
+            List<TestCase> pending = subtask.getCaseIds().stream()
+                    .filter(caseId -> !results.containsKey(caseId))
+                    .distinct()
+                    .map(casesById::get)
+                    .toList();
+            if (pending.isEmpty()) {
+                continue;
             }
 
-            // 收集所有执行结果
-            for (Future<TestCaseResult> future : futures) {
-                try {
-                    testCaseResults.add(future.get());
-                } catch (Exception e) {
-                    log.error("执行测试用例失败", e);
-                    testCaseResults.add(createErrorTestCaseResult(testCaseSet.getTestCases().getFirst(), "执行异常: " + e.getMessage()));
+            if (SubtaskPlan.isMin(subtask)) {
+                Map<TestCase, TestCaseResult> resultMap = new IdentityHashMap<>();
+                executeUntilFailure(request, orderTestCases(pending, failureCounts), fileId, batchedRun, checker, tenant, lane, progress, resultMap);
+                resultMap.forEach((testCase, result) -> results.put(testCase.getId(), result));
+            } else {
+                List<TestCaseResult> pendingResults = executeAllTestCases(request, pending, fileId, batchedRun, checker, tenant, lane, progress);
+                for (int i = 0; i < pending.size(); i++) {
+                    results.put(pending.get(i).getId(), pendingResults.get(i));
                 }
             }
         }
 
-        return testCaseResults;
+        return testCases.stream()
+                .map(testCase -> results.computeIfAbsent(testCase.getId(), id -> createSkippedTestCaseResult(testCase)))
+                .toList();
+    }
+
+    /**
+     * 根据测试用例结果计算子任务得分
+     */
+    private void applySubtaskScores(TestCaseSetResult result, SubtaskPlan plan) {
+        Map<Long, TestCaseResult> results = new HashMap<>();
+        result.getTestCaseResults().forEach(testCaseResult -> results.put(testCaseResult.getId(), testCaseResult));
+        List<SubtaskResult> subtaskResults = plan.score(results);
+        result.setSubtaskResults(subtaskResults);
+        result.setScore(subtaskResults.stream().mapToInt(SubtaskResult::getScore).sum());
+        result.setTotalScore(subtaskResults.stream().mapToInt(SubtaskResult::getMaxScore).sum());
+    }
+
+    /**
+     * 每批测试用例数：不超过沙箱批大小，也不超过调度器的名额上限，避免一批用例占满所有名额
+     */
+    private int batchSize() {
+        return Math.max(1, Math.min(sandboxConfig.getRun().getBatchSize(), judgeScheduler.getMaxInFlight()));
+    }
+
+    /**
+     * 测试用例执行顺序：历史失败次数多的优先，其次输入较小的优先
+     */
+    private List<TestCase> orderTestCases(List<TestCase> testCases, Map<String, Long> failureCounts) {
+        Map<String, Long> counts = failureCounts != null ? failureCounts : Map.of();
+        return testCases.stream()
+                .sorted(Comparator
+                        .comparingLong((TestCase testCase) -> -counts.getOrDefault(String.valueOf(testCase.getId()), 0L))
+                        .thenComparingInt(this::inputLength))
+                .toList();
+    }
+
+    private int inputLength(TestCase testCase) {
+        if (testCase.getInput() != null) {
+            return testCase.getInput().length();
+        }
+        return testCase.getInputSize() != null ? testCase.getInputSize() : 0;
+    }
+
+    /**
+     * 批量执行一组测试用例
+     * <p>
+     * 先向全局调度器申请与用例数相同的执行名额，沙箱返回并完成结果判定后归还
+     * </p>
+     */
+    private CompletableFuture<List<TestCaseResult>> executeTestCaseBatch(String code, String language, List<TestCase> batch,
+                                                                         String fileId, boolean batchedRun,
+                                                                         ResultChecker checker,
+                                                                         String tenant, JudgeLane lane) {
+        List<RunRequest> runRequests = batch.stream()
+                .map(testCase -> buildRunRequest(code, language, testCase, fileId, batchedRun))
+                .toList();
+
+        return judgeScheduler.acquireAsync(tenant, lane, batch.size()).thenCompose(permit -> {
+            try {
+                return sandboxService.runBatchAsync(runRequests)
+                        .thenCompose(runResults -> checkBatch(batch, runResults, checker))
+                        .whenComplete((results, e) -> permit.close());
+            } catch (RuntimeException e) {
+                permit.close();
+                throw e;
+            }
+        });
     }
 
+    /**
+     * 判定一组测试用例的运行结果
+     * <p>
+     * 特殊评测题目将正常结束的用例合并为一次批量调用交给评测程序判定，其余题目直接比较输出
+     * </p>
+     */
+    private CompletableFuture<List<TestCaseResult>> checkBatch(List<TestCase> batch, List<RunResult> runResults,
+                                                               ResultChecker checker) {
+        List<Integer> checkedIndices = new ArrayList<>();
+        List<RunRequest> checkerRequests = new ArrayList<>();
+        if (checker.isSpecial()) {
+            for (int i = 0; i < batch.size(); i++) {
+                if (runResults.get(i).isSuccess()) {
+                    checkedIndices.add(i);
+                    checkerRequests.add(buildCheckerRunRequest(checker, batch.get(i), runResults.get(i)));
+                }
+            }
+        }
+
+        CompletableFuture<List<RunResult>> checkerFuture = checkerRequests.isEmpty()
+                ? CompletableFuture.completedFuture(List.of())
+                : sandboxService.runBatchAsync(checkerRequests);
+        return checkerFuture.thenApply(checkerResults -> {
+            RunResult[] checkerResultArray = new RunResult[batch.size()];
+            for (int k = 0; k < checkedIndices.size(); k++) {
+                checkerResultArray[checkedIndices.get(k)] = checkerResults.get(k);
+            }
+
+            List<TestCaseResult> results = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                results.add(checkerResultArray[i] != null
+                        ? buildSpecialJudgeResult(batch.get(i), runResults.get(i), checkerResultArray[i])
+                        : buildTestCaseResult(batch.get(i), runResults.get(i), checker.outputChecker()));
+            }
+            return results;
+        });
+    }
 
     /**
      * 执行单个测试用例
      */
-    private TestCaseResult executeTestCase(String code, String language, TestCase testCase, String fileId) {
-        try {
-            // 构建运行请求
-            RunRequest runRequest = RunRequest.builder()
-                    .code(code)
-                    .language(language)
-                    .input(testCase.getInput())
-                    .fileId(fileId)
-                    .build();
+    private TestCaseResult executeTestCase(String code, String language, TestCase testCase, String fileId, String tenant) {
+        try (JudgeScheduler.Permit ignored = judgeScheduler.acquire(tenant, JudgeLane.INTERACTIVE, 1)) {
+            RunResult runResult = sandboxService.runCode(buildRunRequest(code, language, testCase, fileId, false));
+            return buildTestCaseResult(testCase, runResult, resolveOutputChecker(null));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return createErrorTestCaseResult(testCase, "执行被中断");
+        } catch (Exception e) {
+            log.error("执行测试用例失败: {}", testCase.getId(), e);
+            return createErrorTestCaseResult(testCase, "执行异常: " + e.getMessage());
+        }
+    }
 
-            // 执行代码
-            RunResult runResult = sandboxService.runCode(runRequest);
+    /**
+     * 构建测试用例的运行请求
+     *
+     * @param batchedRun 是否允许沙箱将同一批用例合并到一个进程中运行
+     */
+    private RunRequest buildRunRequest(String code, String language, TestCase testCase, String fileId,
+                                       boolean batchedRun) {
+        return RunRequest.builder()
+                .code(code)
+                .language(language)
+                .input(testCase.getInput())
+                .inputHash(testCase.getInputHash())
+                .fileId(fileId)
+                .batched(batchedRun)
+                .build();
+    }
 
+    /**
+     * 根据沙箱运行结果判定测试用例结果
+     */
+    private TestCaseResult buildTestCaseResult(TestCase testCase, RunResult runResult, OutputChecker checker) {
+        try {
             // 检查运行结果是否有错误
             if (!runResult.isSuccess()) {
-                // 如果运行失败，直接返回错误结果
-                return TestCaseResult.builder()
-                        .id(testCase.getId())
-                        .status(runResult.getStatus())
-                        .time(0L)
-                        .timeInMs(0.0)
-                        .memory(0L)
-                        .memoryInMB(0.0)
-                        .runTime(0L)
-                        .input(testCase.getInput())
-                        .expectedOutput(testCase.getOutput())
-                        .stdout(runResult.getErrorMessage())
-                        .build();
+                return createRunFailedTestCaseResult(testCase, runResult);
             }
 
-            // 计算单位转换
-            // 纳秒转毫秒 (1毫秒 = 1000000纳秒)
-            long time = runResult.getTime();
-            Double timeInMs = time / 1000000.0;
-            // 字节转MB (1MB = 1024*1024字节)
-            long memory = runResult.getMemory();
-            Double memoryInMB = memory / (1024.0 * 1024.0);
-            
-            // 获取用户输出和预期输出，进行规范化比较
-            String userOutput = normalizeOutput(runResult.getStdout());
-            String expectedOutput = testCase.getOutput() != null ? normalizeOutput(testCase.getOutput()) : "";
-            
             // 判断输出是否与预期输出相符
             String status;
-            String displayOutput = runResult.getStdout();
-            
             if (testCase.getOutput() != null && !testCase.getOutput().isEmpty()) {
-                if (!userOutput.equals(expectedOutput)) {
+                if (!checker.check(testCase.getOutput(), runResult.getStdout())) {
                     status = ExecutionStatus.WRONG_ANSWER.getCode();
                 } else {
                     status = ExecutionStatus.ACCEPTED.getCode();
@@ -321,20 +782,8 @@ public class CodeServiceImpl implements CodeService {
                 // 如果没有预期输出，则使用沙盒返回的状态
                 status = runResult.getStatus();
             }
-            
-            // 构建测试用例结果，添加单位转换字段
-            return TestCaseResult.builder()
-                    .id(testCase.getId())
-                    .status(status)
-                    .time(time)
-                    .timeInMs(timeInMs)
-                    .memory(memory)
-                    .memoryInMB(memoryInMB)
-                    .runTime(runResult.getRunTime())
-                    .input(testCase.getInput())
-                    .expectedOutput(testCase.getOutput())
-                    .stdout(displayOutput)
-                    .build();
+
+            return buildTestCaseResult(testCase, runResult, status);
         } catch (Exception e) {
             log.error("执行测试用例失败: {}", testCase.getId(), e);
             return createErrorTestCaseResult(testCase, "执行异常: " + e.getMessage());
@@ -342,33 +791,83 @@ public class CodeServiceImpl implements CodeService {
     }
 
     /**
-     * 规范化输出字符串，用于比较用户输出和预期输出
+     * 根据评测程序的运行结果判定测试用例结果
+     * <p>
+     * 评测程序正常退出为通过，非0退出为答案错误，其余情况（超时、被信号终止等）视为系统错误
+     * </p>
      */
-    private String normalizeOutput(String output) {
-        if (output == null) {
-            return "";
-        }
-        
-        // 1. 统一换行符（Windows \r\n -> \n）
-        String normalized = output.replace("\r\n", "\n");
-        
-        // 2. 移除末尾空白字符
-        normalized = normalized.trim();
-        
-        // 3. 规范化每行的空白字符（移除每行末尾的空白）
-        if (normalized.contains("\n")) {
-            String[] lines = normalized.split("\n");
-            StringBuilder sb = new StringBuilder();
-            for (int i = 0; i < lines.length; i++) {
-                sb.append(lines[i].trim());
-                if (i < lines.length - 1) {
-                    sb.append("\n");
-                }
-            }
-            normalized = sb.toString();
+    private TestCaseResult buildSpecialJudgeResult(TestCase testCase, RunResult runResult, RunResult checkerResult) {
+        String status;
+        if (StatusEnum.ACCEPTED.getValue().equals(checkerResult.getStatus()) && checkerResult.getExitStatus() == 0) {
+            status = ExecutionStatus.ACCEPTED.getCode();
+        } else if (StatusEnum.NONZERO_EXIT_STATUS.getValue().equals(checkerResult.getStatus())) {
+            status = ExecutionStatus.WRONG_ANSWER.getCode();
+        } else {
+            log.warn("特殊评测程序运行失败: testCaseId={}, status={}, stderr={}",
+                    testCase.getId(), checkerResult.getStatus(), checkerResult.getStderr());
+            status = ExecutionStatus.SYSTEM_ERROR.getCode();
         }
-        
-        return normalized;
+
+        TestCaseResult result = buildTestCaseResult(testCase, runResult, status);
+        String message = checkerResult.getStderr() != null && !checkerResult.getStderr().isBlank()
+                ? checkerResult.getStderr() : checkerResult.getStdout();
+        result.setCheckerMessage(message != null ? message.strip() : null);
+        return result;
+    }
+
+    /**
+     * 使用已判定的状态构建测试用例结果，并进行单位转换
+     */
+    private TestCaseResult buildTestCaseResult(TestCase testCase, RunResult runResult, String status) {
+        // 纳秒转毫秒 (1毫秒 = 1000000纳秒)
+        long time = runResult.getTime();
+        Double timeInMs = time / 1000000.0;
+        // 字节转MB (1MB = 1024*1024字节)
+        long memory = runResult.getMemory();
+        Double memoryInMB = memory / (1024.0 * 1024.0);
+
+        return TestCaseResult.builder()
+                .id(testCase.getId())
+                .status(status)
+                .time(time)
+                .timeInMs(timeInMs)
+                .memory(memory)
+                .memoryInMB(memoryInMB)
+                .runTime(runResult.getRunTime())
+                .input(testCase.getInput())
+                .expectedOutput(testCase.getOutput())
+                .stdout(runResult.getStdout())
+                .build();
+    }
+
+    /**
+     * 运行失败的测试用例结果，直接使用沙箱返回的状态
+     */
+    private TestCaseResult createRunFailedTestCaseResult(TestCase testCase, RunResult runResult) {
+        return TestCaseResult.builder()
+                .id(testCase.getId())
+                .status(runResult.getStatus())
+                .time(0L)
+                .timeInMs(0.0)
+                .memory(0L)
+                .memoryInMB(0.0)
+                .runTime(0L)
+                .input(testCase.getInput())
+                .expectedOutput(testCase.getOutput())
+                .stdout(runResult.getErrorMessage())
+                .build();
+    }
+
+    /**
+     * 获取题目的输出检查器，题目未配置的项使用全局配置
+     */
+    private OutputChecker resolveOutputChecker(Problem problem) {
+        JudgeConfig.Checker config = judgeConfig.getChecker();
+        OutputCheckMode mode = problem != null && problem.getOutputCheckMode() != null
+                ? problem.getOutputCheckMode() : config.getMode();
+        double epsilon = problem != null && problem.getFloatEpsilon() != null
+                ? problem.getFloatEpsilon() : config.getFloatEpsilon();
+        return OutputChecker.of(mode, epsilon);
     }
 
     /**
@@ -402,6 +901,53 @@ public class CodeServiceImpl implements CodeService {
         return result;
     }
 
+    /**
+     * 创建系统错误的结果集，用于评测程序不可用等与提交代码无关的错误
+     */
+    private TestCaseSetResult createSystemErrorResult(TestCaseSet testCaseSet, String errorMessage) {
+        List<TestCaseResult> testCaseResults = testCaseSet.getTestCases().stream()
+                .map(testCase -> TestCaseResult.builder()
+                        .id(testCase.getId())
+                        .status(ExecutionStatus.SYSTEM_ERROR.getCode())
+                        .time(0L)
+                        .timeInMs(0.0)
+                        .memory(0L)
+                        .memoryInMB(0.0)
+                        .runTime(0L)
+                        .input(testCase.getInput())
+                        .expectedOutput(testCase.getOutput())
+                        .stdout("System Error: " + errorMessage)
+                        .build())
+                .collect(Collectors.toList());
+
+        TestCaseSetResult result = TestCaseSetResult.builder()
+                .id(testCaseSet.getId())
+                .name(testCaseSet.getName())
+                .description(testCaseSet.getDescription())
+                .testCaseResults(testCaseResults)
+                .build();
+
+        result.calculateStatistics();
+        return result;
+    }
+
+    /**
+     * 创建未执行的测试用例结果
+     */
+    private TestCaseResult createSkippedTestCaseResult(TestCase testCase) {
+        return TestCaseResult.builder()
+                .id(testCase.getId())
+                .status(ExecutionStatus.SKIPPED.getCode())
+                .time(0L)
+                .timeInMs(0.0)
+                .memory(0L)
+                .memoryInMB(0.0)
+                .runTime(0L)
+                .input(testCase.getInput())
+                .expectedOutput(testCase.getOutput())
+                .build();
+    }
+
     /**
      * 创建错误的测试用例结果
      */
@@ -435,44 +981,59 @@ public class CodeServiceImpl implements CodeService {
                 throw new IllegalArgumentException("题目不存在: " + request.getProblemId());
             }
 
-            // 确定提交状态和构建提交记录
-            String status = determineStatus(result);
-            TestCaseResult failedTestCase = result.getFirstFailedTestCase();
-
-            Submission.SubmissionBuilder builder = Submission.builder()
+            Submission submission = Submission.builder()
                     .userId(userId)
                     .problemId(request.getProblemId())
                     .problemNumber(problem.getProblemId())
                     .problemTitle(problem.getTitle())
                     .code(request.getCode())
                     .language(request.getLanguage())
-                    .status(status)
-                    .passedCount(result.getPassedCount())
-                    .totalCount(result.getTotalCount())
-                    .executionTime(result.getAvgTime() != null ? result.getAvgTime() : 0)
-                    .memoryUsed(result.getAvgMemory() != null ? result.getAvgMemory() : 0)
-                    .compileError(result.getCompileError())
-                    .submissionTime(LocalDateTime.now());
-
-            // 如果有失败的测试用例，添加相关信息
-            if (failedTestCase != null) {
-                builder.firstInput(failedTestCase.getInput())
-                       .firstExpectedOutput(failedTestCase.getExpectedOutput())
-                       .firstOutput(failedTestCase.getStdout());
-            }
+                    .submissionTime(LocalDateTime.now())
+                    .build();
+            applyResult(submission, result);
 
-            Submission submission = submissionRepository.save(builder.build());
+            Submission saved = judgeMetrics.timePhase("save", () -> submissionRepository.save(submission));
 
             // 更新题目统计数据
-            updateProblemStatistics(request.getProblemId(), result);
+            problemStatisticsWriter.record(request.getProblemId(), result);
+            rankingService.record(saved);
 
-            return submission;
+            return saved;
         } catch (Exception e) {
             log.error("保存提交记录失败", e);
             return null;
         }
     }
 
+    /**
+     * 将评测结果写入提交记录
+     *
+     * @param submission 提交记录
+     * @param result 测试结果
+     */
+    private void applyResult(Submission submission, TestCaseSetResult result) {
+        submission.setStatus(determineStatus(result));
+        submission.setPassedCount(result.getPassedCount());
+        submission.setTotalCount(result.getTotalCount());
+        submission.setExecutionTime(result.getAvgTime() != null ? result.getAvgTime() : 0);
+        submission.setMemoryUsed(result.getAvgMemory() != null ? result.getAvgMemory() : 0);
+        submission.setCompileError(result.getCompileError());
+        submission.setScore(result.getScore());
+
+        // 如果有失败的测试用例，添加相关信息
+        TestCaseResult failedTestCase = result.getFirstFailedTestCase();
+        if (failedTestCase != null) {
+            submission.setFirstInput(failedTestCase.getInput());
+            submission.setFirstExpectedOutput(failedTestCase.getExpectedOutput());
+            submission.setFirstOutput(failedTestCase.getStdout());
+        } else {
+            // 重测后通过的提交清除原来的错误用例
+            submission.setFirstInput(null);
+            submission.setFirstExpectedOutput(null);
+            submission.setFirstOutput(null);
+        }
+    }
+
     /**
      * 确定提交状态
      *
@@ -497,74 +1058,4 @@ public class CodeServiceImpl implements CodeService {
                     : ExecutionStatus.WRONG_ANSWER.getCode();
         }
     }
-    
-    /**
-     * 更新题目统计数据
-     */
-    private void updateProblemStatistics(String problemId, TestCaseSetResult result) {
-        try {
-            // 1. 获取题目信息
-            Problem problem = problemService.getProblemById(problemId);
-            if (problem == null) {
-                log.error("更新题目统计数据失败：题目不存在 {}", problemId);
-                return;
-            }
-            
-            // 2. 更新提交总数
-            problem.setSubmissionCount(problem.getSubmissionCount() + 1);
-            
-            // 3. 根据提交结果更新相应计数
-            if (result.getCompileError() != null && !result.getCompileError().isEmpty()) {
-                // 编译错误
-                problem.setCompileErrorCount(problem.getCompileErrorCount() + 1);
-            } else if (result.isAllPassed()) {
-                // 全部通过
-                problem.setAcceptedCount(problem.getAcceptedCount() + 1);
-            } else {
-                // 统计具体的错误类型
-                boolean hasTimeExceeded = false;
-                boolean hasMemoryExceeded = false;
-                boolean hasWrongAnswer = false;
-                
-                for (TestCaseResult testResult : result.getTestCaseResults()) {
-                    String status = testResult.getStatus();
-                    if (ExecutionStatus.TIME_LIMIT_EXCEEDED.getCode().equals(status)) {
-                        hasTimeExceeded = true;
-                        break;
-                    } else if (ExecutionStatus.MEMORY_LIMIT_EXCEEDED.getCode().equals(status)) {
-                        hasMemoryExceeded = true;
-                        break;
-                    } else if (!ExecutionStatus.ACCEPTED.getCode().equals(status)) {
-                        hasWrongAnswer = true;
-                        // 不立即break，因为时间超限和内存超限优先级更高
-                    }
-                }
-                
-                // 按优先级更新统计数据：时间超限 > 内存超限 > 其他错误
-                if (hasTimeExceeded) {
-                    problem.setTimeExceededCount(problem.getTimeExceededCount() + 1);
-                } else if (hasMemoryExceeded) {
-                    problem.setMemoryExceededCount(problem.getMemoryExceededCount() + 1);
-                } else if (hasWrongAnswer) {
-                    problem.setWrongAnswerCount(problem.getWrongAnswerCount() + 1);
-                }
-            }
-            
-            // 4. 重新计算通过率
-            if (problem.getSubmissionCount() > 0) {
-                double acceptedRate = (double) problem.getAcceptedCount() / problem.getSubmissionCount() * 100;
-                problem.setAcceptedRate(Math.round(acceptedRate * 100) / 100.0); // 保留两位小数
-            }
-            
-            // 5. 更新题目
-            problem.setUpdatedAt(LocalDateTime.now());
-            problemService.updateProblem(problem, problem.getCreatorId());
-            
-            log.info("更新题目统计数据成功: problemId={}, submissionCount={}, acceptedRate={}", 
-                    problemId, problem.getSubmissionCount(), problem.getAcceptedRate());
-        } catch (Exception e) {
-            log.error("更新题目统计数据失败", e);
-        }
-    }
 }
-
@@ -0,0 +1,304 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.SandboxConfig;
+import com.dong.judge.util.HashUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 编译产物缓存
+ * <p>
+ * 以（语言编译配置, 源代码SHA-256）为键缓存 go-judge 中已编译文件的 fileId。
+ * 每次命中都会增加引用计数，调用方用完后通过 {@link #release(String)} 归还；
+ * 只有引用计数为0的产物才会在 LRU/TTL 淘汰时从沙箱中删除。
+ * </p>
+ */
+@Slf4j
+public class CompileArtifactCache {
+
+    /**
+     * 缓存键
+     *
+     * @param language 语言编译配置摘要
+     * @param sourceHash 源代码SHA-256
+     */
+    public record Key(String language, String sourceHash) {
+
+        public static Key of(SandboxConfig.LanguageConfig langConfig, String code) {
+            String language = String.join(" ", langConfig.getCompileCommand()) + "|" + langConfig.getCompileOutFile();
+            return new Key(language, HashUtil.sha256Hex(code));
+        }
+    }
+
+    private static final class Entry {
+        private final Key key;
+        private final String fileId;
+        private final long createdAt;
+        private int refCount;
+        private boolean retired;
+
+        private Entry(Key key, String fileId, long createdAt) {
+            this.key = key;
+            this.fileId = fileId;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Consumer<String> deleter;
+    private final Clock clock;
+
+    /**
+     * 按访问顺序排列，最久未使用的在最前
+     */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 所有仍被追踪的产物（含已淘汰但仍被引用的）
+     */
+    private final Map<String, Entry> byFileId = new HashMap<>();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter evictionCounter;
+
+    public CompileArtifactCache(int maxEntries, Duration ttl, Consumer<String> deleter, MeterRegistry meterRegistry) {
+        this(maxEntries, ttl, deleter, meterRegistry, Clock.systemUTC());
+    }
+
+    CompileArtifactCache(int maxEntries, Duration ttl, Consumer<String> deleter, MeterRegistry meterRegistry, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.deleter = deleter;
+        this.clock = clock;
+        this.hitCounter = Counter.builder("sandbox.compile.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder("sandbox.compile.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.evictionCounter = Counter.builder("sandbox.compile.cache.evictions").register(meterRegistry);
+        Gauge.builder("sandbox.compile.cache.size", this, CompileArtifactCache::size).register(meterRegistry);
+    }
+
+    /**
+     * 查询并占用缓存的编译产物
+     *
+     * @param key 缓存键
+     * @return 命中时返回 fileId（引用计数已加1），未命中返回null
+     */
+    public String acquire(Key key) {
+        List<String> toDelete;
+        String fileId = null;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && isExpired(entry)) {
+                retire(entry);
+                entry = null;
+            }
+            if (entry != null) {
+                entry.refCount++;
+                fileId = entry.fileId;
+            }
+            toDelete = collectEvictable();
+        }
+        (fileId != null ? hitCounter : missCounter).increment();
+        deleteAll(toDelete);
+        return fileId;
+    }
+
+    /**
+     * 放入新编译的产物并占用
+     * <p>
+     * 若并发编译导致同一键已存在产物，则占用已有产物并删除新产物
+     * </p>
+     *
+     * @param key 缓存键
+     * @param fileId 新编译产物的 fileId
+     * @return 调用方应使用的 fileId（引用计数已加1）
+     */
+    public String put(Key key, String fileId) {
+        List<String> toDelete;
+        String result;
+        synchronized (this) {
+            Entry existing = entries.get(key);
+            if (existing != null && !isExpired(existing)) {
+                existing.refCount++;
+                result = existing.fileId;
+                toDelete = collectEvictable();
+                toDelete.add(fileId);
+            } else {
+                if (existing != null) {
+                    retire(existing);
+                }
+                Entry entry = new Entry(key, fileId, clock.millis());
+                entry.refCount = 1;
+                entries.put(key, entry);
+                byFileId.put(fileId, entry);
+                result = fileId;
+                toDelete = collectEvictable();
+            }
+        }
+        deleteAll(toDelete);
+        return result;
+    }
+
+    /**
+     * 归还编译产物
+     *
+     * @param fileId 文件ID
+     * @return 该文件是否由缓存管理；返回false时调用方应自行删除文件
+     */
+    public boolean release(String fileId) {
+        List<String> toDelete;
+        synchronized (this) {
+            Entry entry = byFileId.get(fileId);
+            if (entry == null) {
+                return false;
+            }
+            if (entry.refCount > 0) {
+                entry.refCount--;
+            }
+            toDelete = collectEvictable();
+        }
+        deleteAll(toDelete);
+        return true;
+    }
+
+    /**
+     * 归还并淘汰编译产物
+     * <p>
+     * 产物所在的沙箱节点不可用时调用，后续相同源代码会重新编译
+     * </p>
+     *
+     * @param fileId 文件ID
+     */
+    public void discard(String fileId) {
+        List<String> toDelete;
+        synchronized (this) {
+            Entry entry = byFileId.get(fileId);
+            if (entry == null) {
+                return;
+            }
+            if (entry.refCount > 0) {
+                entry.refCount--;
+            }
+            retire(entry);
+            toDelete = collectEvictable();
+        }
+        deleteAll(toDelete);
+    }
+
+    /**
+     * 淘汰编译产物但不归还引用
+     * <p>
+     * 运行时发现产物已不在沙箱中（如沙箱重启后节点恢复健康）时调用，后续相同源代码会重新编译；
+     * 仍持有该产物的调用方照常归还，引用归零后再删除
+     * </p>
+     *
+     * @param fileId 文件ID
+     * @return 该文件是否由缓存管理
+     */
+    public synchronized boolean invalidate(String fileId) {
+        Entry entry = byFileId.get(fileId);
+        if (entry == null) {
+            return false;
+        }
+        retire(entry);
+        return true;
+    }
+
+    /**
+     * 当前缓存的产物数量
+     *
+     * @return 产物数量
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 删除所有未被引用的产物，用于应用关闭时清理沙箱
+     */
+    public void clear() {
+        List<String> toDelete = new ArrayList<>();
+        synchronized (this) {
+            for (Entry entry : new ArrayList<>(entries.values())) {
+                retire(entry);
+            }
+            Iterator<Entry> it = byFileId.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.refCount == 0) {
+                    it.remove();
+                    toDelete.add(entry.fileId);
+                }
+            }
+        }
+        deleteAll(toDelete);
+    }
+
+    private boolean isExpired(Entry entry) {
+        return ttlMillis > 0 && clock.millis() - entry.createdAt > ttlMillis;
+    }
+
+    /**
+     * 将产物移出可命中集合，引用归零后再删除
+     */
+    private void retire(Entry entry) {
+        entries.remove(entry.key, entry);
+        entry.retired = true;
+    }
+
+    /**
+     * 收集需要从沙箱中删除的产物，必须在持有锁时调用
+     */
+    private List<String> collectEvictable() {
+        List<String> toDelete = new ArrayList<>();
+
+        // 1. 过期或超出容量的产物移出可命中集合（按最久未使用顺序）
+        Iterator<Entry> it = entries.values().iterator();
+        int overflow = entries.size() - maxEntries;
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (isExpired(entry) || (overflow > 0 && entry.refCount == 0)) {
+                it.remove();
+                entry.retired = true;
+                if (overflow > 0) {
+                    overflow--;
+                }
+            }
+        }
+
+        // 2. 已淘汰且无人引用的产物可以删除
+        Iterator<Entry> retiredIt = byFileId.values().iterator();
+        while (retiredIt.hasNext()) {
+            Entry entry = retiredIt.next();
+            if (entry.retired && entry.refCount == 0) {
+                retiredIt.remove();
+                toDelete.add(entry.fileId);
+            }
+        }
+        return toDelete;
+    }
+
+    private void deleteAll(List<String> fileIds) {
+        for (String fileId : fileIds) {
+            evictionCounter.increment();
+            try {
+                deleter.accept(fileId);
+            } catch (Exception e) {
+                log.error("删除淘汰的编译产物失败: {}", fileId, e);
+            }
+        }
+    }
+}
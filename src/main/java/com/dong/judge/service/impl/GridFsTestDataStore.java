@@ -0,0 +1,143 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.JudgeConfig;
+import com.dong.judge.service.TestDataStore;
+import com.dong.judge.util.HashUtil;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Query.query;
+import static org.springframework.data.mongodb.gridfs.GridFsCriteria.whereFilename;
+
+/**
+ * 基于 GridFS 的测试数据存储
+ * <p>
+ * 数据保存在独立的 test_data 存储桶中，文件名为内容的SHA-256。
+ * 最近读取的数据按 UTF-8 编码后的总字节数上限缓存在内存中，避免每次评测都访问数据库。
+ * </p>
+ */
+@Slf4j
+@Service
+public class GridFsTestDataStore implements TestDataStore {
+
+    private static final String BUCKET = "test_data";
+
+    private final GridFsTemplate gridFsTemplate;
+    private final long cacheCapacity;
+
+    /**
+     * 按访问顺序排列，最久未使用的在最前
+     */
+    private final LinkedHashMap<String, CachedData> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public GridFsTestDataStore(MongoDatabaseFactory mongoDatabaseFactory,
+                               MongoConverter mongoConverter,
+                               JudgeConfig judgeConfig,
+                               MeterRegistry meterRegistry) {
+        this(new GridFsTemplate(mongoDatabaseFactory, mongoConverter, BUCKET),
+                judgeConfig.getTestData().getCacheSize().toBytes(), meterRegistry);
+    }
+
+    GridFsTestDataStore(GridFsTemplate gridFsTemplate, long cacheCapacity, MeterRegistry meterRegistry) {
+        this.gridFsTemplate = gridFsTemplate;
+        this.cacheCapacity = cacheCapacity;
+        this.hitCounter = Counter.builder("judge.test-data.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder("judge.test-data.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("judge.test-data.cache.size", this, GridFsTestDataStore::cachedBytes)
+                .description("内存中缓存的测试数据字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String put(String content) {
+        String data = content != null ? content : "";
+        String hash = HashUtil.sha256Hex(data);
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        if (gridFsTemplate.findOne(query(whereFilename().is(hash))) == null) {
+            try (InputStream in = new ByteArrayInputStream(bytes)) {
+                gridFsTemplate.store(in, hash);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            log.debug("保存测试数据: hash={}, bytes={}", hash, bytes.length);
+        }
+        cache(hash, data, bytes.length);
+        return hash;
+    }
+
+    @Override
+    public String get(String hash) {
+        synchronized (this) {
+            CachedData cached = cache.get(hash);
+            if (cached != null) {
+                hitCounter.increment();
+                return cached.content();
+            }
+        }
+        missCounter.increment();
+
+        GridFSFile file = gridFsTemplate.findOne(query(whereFilename().is(hash)));
+        if (file == null) {
+            throw new IllegalStateException("测试数据不存在: " + hash);
+        }
+        byte[] bytes;
+        try (InputStream in = gridFsTemplate.getResource(file).getInputStream()) {
+            bytes = in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取测试数据失败: " + hash, e);
+        }
+        String content = new String(bytes, StandardCharsets.UTF_8);
+        cache(hash, content, bytes.length);
+        return content;
+    }
+
+    /**
+     * 缓存测试数据，按 UTF-8 编码后的字节数计入上限
+     *
+     * @param size 内容的字节数
+     */
+    private synchronized void cache(String hash, String content, long size) {
+        if (size > cacheCapacity) {
+            return;
+        }
+        CachedData previous = cache.put(hash, new CachedData(content, size));
+        if (previous != null) {
+            cachedBytes -= previous.size();
+        }
+        cachedBytes += size;
+
+        Iterator<Map.Entry<String, CachedData>> it = cache.entrySet().iterator();
+        while (cachedBytes > cacheCapacity && it.hasNext()) {
+            cachedBytes -= it.next().getValue().size();
+            it.remove();
+        }
+    }
+
+    synchronized long cachedBytes() {
+        return cachedBytes;
+    }
+
+    private record CachedData(String content, long size) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.service.JudgeQueue;
+
+import java.time.Duration;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内存评测队列
+ * <p>
+ * 基于有界阻塞队列实现，进程重启后队列内容丢失，用于测试和单机调试
+ * </p>
+ */
+public class InMemoryJudgeQueue implements JudgeQueue {
+
+    private final LinkedBlockingQueue<String> queue;
+    private final int capacity;
+
+    public InMemoryJudgeQueue(int capacity) {
+        this.capacity = capacity;
+        this.queue = new LinkedBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public boolean offer(String submissionId, Duration timeout) {
+        try {
+            return queue.offer(submissionId, timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public String take(Duration timeout) throws InterruptedException {
+        return queue.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void ack(String submissionId) {
+        // 出队即视为领取，无需额外确认
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+}
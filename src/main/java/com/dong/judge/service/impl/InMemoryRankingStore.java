@@ -0,0 +1,108 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.model.enums.RankingMetric;
+import com.dong.judge.model.vo.judge.RankingEntry;
+import com.dong.judge.service.RankingStore;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存排行榜存储
+ * <p>
+ * 排序规则与 Redis 有序集合一致（成绩升序，相同时按用户ID字典序），用于单实例部署和测试。
+ * 数据不持久化，重启后由提交记录重新初始化。
+ * </p>
+ */
+public class InMemoryRankingStore implements RankingStore {
+
+    private record Score(String userId, long value) {
+    }
+
+    private static final Comparator<Score> ORDER = Comparator.comparingLong(Score::value).thenComparing(Score::userId);
+
+    /**
+     * 单个排行榜，所有操作在自身上同步
+     */
+    private static final class Board {
+        private final Map<String, Long> scores = new HashMap<>();
+        private final TreeSet<Score> ordered = new TreeSet<>(ORDER);
+
+        synchronized boolean offer(String userId, long value) {
+            Long current = scores.get(userId);
+            if (current != null && current <= value) {
+                return false;
+            }
+            if (current != null) {
+                ordered.remove(new Score(userId, current));
+            }
+            scores.put(userId, value);
+            ordered.add(new Score(userId, value));
+            return true;
+        }
+
+        synchronized List<RankingEntry> top(int limit) {
+            List<RankingEntry> entries = new ArrayList<>();
+            for (Score score : ordered) {
+                if (entries.size() >= limit) {
+                    break;
+                }
+                entries.add(new RankingEntry(entries.size() + 1, score.userId(), score.value()));
+            }
+            return entries;
+        }
+
+        synchronized RankingEntry rankOf(String userId) {
+            Long value = scores.get(userId);
+            if (value == null) {
+                return null;
+            }
+            return new RankingEntry(ordered.headSet(new Score(userId, value)).size() + 1, userId, value);
+        }
+    }
+
+    private final Map<String, Board> boards = new ConcurrentHashMap<>();
+    private final Set<String> initialized = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public boolean offer(RankingMetric metric, String problemId, String userId, long value) {
+        return boards.computeIfAbsent(key(metric, problemId), key -> new Board()).offer(userId, value);
+    }
+
+    @Override
+    public List<RankingEntry> top(RankingMetric metric, String problemId, int limit) {
+        Board board = boards.get(key(metric, problemId));
+        return board != null ? board.top(limit) : List.of();
+    }
+
+    @Override
+    public RankingEntry rankOf(RankingMetric metric, String problemId, String userId) {
+        Board board = boards.get(key(metric, problemId));
+        return board != null ? board.rankOf(userId) : null;
+    }
+
+    @Override
+    public void replace(String problemId, Map<RankingMetric, Map<String, Long>> scores) {
+        for (RankingMetric metric : RankingMetric.values()) {
+            Board board = new Board();
+            scores.getOrDefault(metric, Map.of()).forEach(board::offer);
+            boards.put(key(metric, problemId), board);
+        }
+        initialized.add(problemId);
+    }
+
+    @Override
+    public boolean isInitialized(String problemId) {
+        return initialized.contains(problemId);
+    }
+
+    private static String key(RankingMetric metric, String problemId) {
+        return problemId + ":" + metric.name();
+    }
+}
@@ -0,0 +1,167 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.SandboxConfig;
+import com.dong.judge.model.dto.code.TestCaseResult;
+import com.dong.judge.model.dto.code.TestCaseSetResult;
+import com.dong.judge.model.enums.ExecutionStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 评测指标
+ * <p>
+ * 统一记录编译、运行、评测和保存提交记录的耗时以及评测结果计数。标签只使用配置中的标准语言标识符、
+ * {@link ExecutionStatus} 中的状态和固定的结果值，不支持的取值归为 other，保证标签基数有界。
+ * </p>
+ */
+@Component
+public class JudgeMetrics {
+
+    /**
+     * 不在配置或状态枚举中的标签值
+     */
+    static final String OTHER = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final SandboxConfig sandboxConfig;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final DistributionSummary casesPerSubmission;
+
+    public JudgeMetrics(MeterRegistry meterRegistry, SandboxConfig sandboxConfig) {
+        this.meterRegistry = meterRegistry;
+        this.sandboxConfig = sandboxConfig;
+        Gauge.builder("judge.submissions.in-flight", inFlight, AtomicInteger::get)
+                .description("正在评测的提交数")
+                .register(meterRegistry);
+        this.casesPerSubmission = DistributionSummary.builder("judge.submission.cases")
+                .description("每次评测的测试用例数")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录一次编译请求
+     *
+     * @param language 语言标识符或别名
+     * @param outcome  结果：success、compile_error 或 error
+     * @param nanos    耗时（纳秒）
+     */
+    public void recordCompile(String language, String outcome, long nanos) {
+        Timer.builder("judge.sandbox.compile")
+                .description("沙箱编译请求耗时")
+                .tag("language", languageTag(language))
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(Duration.ofNanos(nanos));
+    }
+
+    /**
+     * 记录一次运行请求（一次 /run 调用，可能包含多个测试用例）
+     *
+     * @param language 语言标识符或别名
+     * @param outcome  结果：success 或 error
+     * @param nanos    耗时（纳秒）
+     */
+    public void recordRun(String language, String outcome, long nanos) {
+        Timer.builder("judge.sandbox.run")
+                .description("沙箱运行请求耗时")
+                .tag("language", languageTag(language))
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(Duration.ofNanos(nanos));
+    }
+
+    /**
+     * 统计正在评测的提交数并记录评测耗时
+     *
+     * @param judge 评测过程
+     * @return 评测结果
+     */
+    public TestCaseSetResult timeJudge(Supplier<TestCaseSetResult> judge) {
+        inFlight.incrementAndGet();
+        try {
+            return timePhase("judge", judge);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * 记录评测流程中一个阶段的耗时
+     *
+     * @param phase  阶段：judge（编译和运行）或 save（保存提交记录）
+     * @param action 阶段操作
+     * @return 操作结果
+     */
+    public <T> T timePhase(String phase, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            Timer.builder("judge.submission.phase")
+                    .description("评测流程各阶段耗时")
+                    .tag("phase", phase)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * 记录评测结果：最终结果计数、测试用例数和各用例的执行时间
+     *
+     * @param language 语言标识符或别名
+     * @param verdict  最终结果状态代码
+     * @param result   测试用例执行结果集
+     */
+    public void recordVerdict(String language, String verdict, TestCaseSetResult result) {
+        String languageTag = languageTag(language);
+        Counter.builder("judge.verdicts")
+                .description("评测结果计数")
+                .tag("language", languageTag)
+                .tag("verdict", statusTag(verdict))
+                .register(meterRegistry)
+                .increment();
+        if (result.getTestCaseResults() == null) {
+            return;
+        }
+        casesPerSubmission.record(result.getTestCaseResults().size());
+        for (TestCaseResult testCase : result.getTestCaseResults()) {
+            if (testCase.getTimeInMs() == null) {
+                continue;
+            }
+            DistributionSummary.builder("judge.case.time")
+                    .description("测试用例执行时间")
+                    .baseUnit("milliseconds")
+                    .tag("language", languageTag)
+                    .tag("status", statusTag(testCase.getStatus()))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(testCase.getTimeInMs());
+        }
+    }
+
+    private String languageTag(String language) {
+        String normalized = sandboxConfig.normalizeLanguage(language);
+        return normalized != null ? normalized : OTHER;
+    }
+
+    private static String statusTag(String status) {
+        for (ExecutionStatus executionStatus : ExecutionStatus.values()) {
+            if (executionStatus.getCode().equals(status)) {
+                return executionStatus.getCode();
+            }
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,301 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.JudgeConfig;
+import com.dong.judge.dao.repository.SubmissionRepository;
+import com.dong.judge.model.dto.code.TestCaseResult;
+import com.dong.judge.model.enums.ExecutionStatus;
+import com.dong.judge.model.enums.JudgeProgressType;
+import com.dong.judge.model.pojo.judge.Submission;
+import com.dong.judge.model.vo.judge.JudgeProgressEvent;
+import com.dong.judge.service.JudgeProgressListener;
+import com.dong.judge.service.JudgeProgressService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 评测进度推送服务实现
+ * <p>
+ * 订阅者按提交ID登记在本地，事件先投递给本实例的订阅者，再通过 Redis 频道转发给其他实例。
+ * 每个订阅者有自己的待发送队列，由虚拟线程依次写出，评测线程只负责入队，慢连接不会阻塞评测；
+ * 空闲的订阅者只占用一个异步请求上下文，不占用线程。
+ * </p>
+ */
+@Slf4j
+@Service
+public class JudgeProgressServiceImpl implements JudgeProgressService, MessageListener {
+
+    private final SubmissionRepository submissionRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final JudgeConfig.Progress progressConfig;
+
+    /**
+     * 本实例标识，用于忽略自己发出的事件
+     */
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * 向订阅者写出事件的线程
+     */
+    private final ExecutorService deliveryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * 向 Redis 发布事件的线程，单线程保证同一提交的事件按顺序发布
+     */
+    private final ExecutorService broadcastExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "judge-progress-broadcast");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public JudgeProgressServiceImpl(SubmissionRepository submissionRepository,
+                                    StringRedisTemplate redisTemplate,
+                                    RedisMessageListenerContainer listenerContainer,
+                                    ObjectMapper objectMapper,
+                                    JudgeConfig judgeConfig) {
+        this.submissionRepository = submissionRepository;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.progressConfig = judgeConfig.getProgress();
+    }
+
+    @PostConstruct
+    public void subscribeChannel() {
+        if (progressConfig.isBroadcast()) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(progressConfig.getChannel()));
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        broadcastExecutor.shutdown();
+        deliveryExecutor.shutdown();
+        try {
+            broadcastExecutor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public SseEmitter subscribe(String submissionId) {
+        Subscriber subscriber = new Subscriber(submissionId, newEmitter(progressConfig.getTimeout().toMillis()));
+        subscribers.computeIfAbsent(submissionId, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        subscriber.emitter.onCompletion(() -> remove(subscriber));
+        subscriber.emitter.onTimeout(() -> remove(subscriber));
+        subscriber.emitter.onError(e -> remove(subscriber));
+
+        // 先登记再读取状态，评测在两步之间结束时完成事件也不会丢失
+        Submission submission = submissionRepository.findById(submissionId).orElse(null);
+        if (submission == null) {
+            remove(subscriber);
+            throw new NoSuchElementException("提交记录不存在: " + submissionId);
+        }
+        if (!isJudging(submission)) {
+            subscriber.enqueue(finishedEvent(submission));
+        }
+        return subscriber.emitter;
+    }
+
+    @Override
+    public JudgeProgressListener listener(String submissionId) {
+        return new JudgeProgressListener() {
+            private final AtomicInteger completed = new AtomicInteger();
+            private volatile int total;
+
+            @Override
+            public void compiling(int totalCount) {
+                total = totalCount;
+                publish(JudgeProgressEvent.builder()
+                        .submissionId(submissionId)
+                        .type(JudgeProgressType.COMPILING)
+                        .completedCount(0)
+                        .totalCount(totalCount)
+                        .build());
+            }
+
+            @Override
+            public void caseFinished(TestCaseResult result) {
+                publish(JudgeProgressEvent.builder()
+                        .submissionId(submissionId)
+                        .type(JudgeProgressType.CASE)
+                        .completedCount(completed.incrementAndGet())
+                        .totalCount(total)
+                        .caseId(result.getId())
+                        .status(result.getStatus())
+                        .timeInMs(result.getTimeInMs())
+                        .memoryInMB(result.getMemoryInMB())
+                        .build());
+            }
+        };
+    }
+
+    @Override
+    public void finished(Submission submission) {
+        publish(finishedEvent(submission));
+    }
+
+    /**
+     * 接收其他实例发出的事件
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('|');
+        if (separator < 0 || body.substring(0, separator).equals(instanceId)) {
+            return;
+        }
+        try {
+            deliver(objectMapper.readValue(body.substring(separator + 1), JudgeProgressEvent.class));
+        } catch (Exception e) {
+            log.warn("解析评测进度事件失败: {}", body, e);
+        }
+    }
+
+    /**
+     * 创建事件流，测试中可以替换
+     */
+    SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private void publish(JudgeProgressEvent event) {
+        deliver(event);
+        if (!progressConfig.isBroadcast()) {
+            return;
+        }
+        try {
+            broadcastExecutor.execute(() -> {
+                try {
+                    redisTemplate.convertAndSend(progressConfig.getChannel(),
+                            instanceId + "|" + objectMapper.writeValueAsString(event));
+                } catch (Exception e) {
+                    log.warn("广播评测进度事件失败: submissionId={}, type={}", event.getSubmissionId(), event.getType(), e);
+                }
+            });
+        } catch (Exception e) {
+            log.warn("广播评测进度事件失败: submissionId={}", event.getSubmissionId(), e);
+        }
+    }
+
+    /**
+     * 投递给本实例的订阅者
+     */
+    private void deliver(JudgeProgressEvent event) {
+        Set<Subscriber> targets = subscribers.get(event.getSubmissionId());
+        if (targets != null) {
+            targets.forEach(subscriber -> subscriber.enqueue(event));
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.submissionId, (key, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static boolean isJudging(Submission submission) {
+        return ExecutionStatus.PENDING.getCode().equals(submission.getStatus())
+                || ExecutionStatus.JUDGING.getCode().equals(submission.getStatus());
+    }
+
+    private static JudgeProgressEvent finishedEvent(Submission submission) {
+        return JudgeProgressEvent.builder()
+                .submissionId(submission.getId())
+                .type(JudgeProgressType.FINISHED)
+                .completedCount(submission.getTotalCount())
+                .totalCount(submission.getTotalCount())
+                .status(submission.getStatus())
+                .passedCount(submission.getPassedCount())
+                .executionTime(submission.getExecutionTime())
+                .memoryUsed(submission.getMemoryUsed())
+                .build();
+    }
+
+    /**
+     * 单个订阅连接，事件按入队顺序写出，同一时间最多一个线程在写
+     */
+    private final class Subscriber {
+        private final String submissionId;
+        private final SseEmitter emitter;
+        private final Queue<JudgeProgressEvent> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(String submissionId, SseEmitter emitter) {
+            this.submissionId = submissionId;
+            this.emitter = emitter;
+        }
+
+        void enqueue(JudgeProgressEvent event) {
+            if (closed) {
+                return;
+            }
+            pending.add(event);
+            if (draining.compareAndSet(false, true)) {
+                deliveryExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                JudgeProgressEvent event;
+                while (!closed && (event = pending.poll()) != null) {
+                    send(event);
+                }
+                draining.set(false);
+            } while (!closed && !pending.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        private void send(JudgeProgressEvent event) {
+            try {
+                emitter.send(SseEmitter.event()
+                        .name(event.getType().name())
+                        .data(event, MediaType.APPLICATION_JSON));
+                if (event.getType() == JudgeProgressType.FINISHED) {
+                    close();
+                    emitter.complete();
+                }
+            } catch (Exception e) {
+                // 连接已断开，由容器回调结束事件流
+                log.debug("推送评测进度失败: submissionId={}", submissionId, e);
+                close();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            pending.clear();
+            remove(this);
+        }
+    }
+}
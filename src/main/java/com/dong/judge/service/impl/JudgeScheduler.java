@@ -0,0 +1,411 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.JudgeConfig;
+import com.dong.judge.model.enums.JudgeLane;
+import com.dong.judge.model.vo.judge.JudgeSchedulerStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 全局评测调度器
+ * <p>
+ * 限制整个进程同时在沙箱中执行的测试用例数。等待的请求按优先级通道分组，
+ * 通道之间按权重轮流获得名额；同一通道内按租户（用户）轮询，避免单个大测试集独占沙箱。
+ * 轮到的请求名额不足时，其他通道中放得下的请求可以先执行，不必等待排在前面的大请求；
+ * 请求等待超过老化时间后不再被越过，暂停分配直到它获得名额，避免大请求饿死。
+ * </p>
+ */
+@Slf4j
+@Component
+public class JudgeScheduler {
+
+    /**
+     * 匿名用户的租户标识
+     */
+    public static final String ANONYMOUS_TENANT = "anonymous";
+
+    /**
+     * 执行名额，使用完毕后必须关闭
+     */
+    public final class Permit implements AutoCloseable {
+        @Getter
+        private final String tenant;
+        @Getter
+        private final JudgeLane lane;
+        @Getter
+        private final int permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(String tenant, JudgeLane lane, int permits) {
+            this.tenant = tenant;
+            this.lane = lane;
+            this.permits = permits;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release(this);
+            }
+        }
+    }
+
+    private static final class Ticket {
+        private final String tenant;
+        private final JudgeLane lane;
+        private final int permits;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<Permit> future = new CompletableFuture<>();
+
+        private Ticket(String tenant, JudgeLane lane, int permits) {
+            this.tenant = tenant;
+            this.lane = lane;
+            this.permits = permits;
+        }
+    }
+
+    /**
+     * 单个优先级通道：每个租户一个FIFO队列，租户之间轮询
+     */
+    private static final class LaneQueue {
+        private final Map<String, ArrayDeque<Ticket>> queues = new HashMap<>();
+        private final ArrayDeque<String> tenants = new ArrayDeque<>();
+        private int size;
+        private int credit;
+
+        void add(Ticket ticket) {
+            ArrayDeque<Ticket> queue = queues.computeIfAbsent(ticket.tenant, k -> {
+                tenants.addLast(k);
+                return new ArrayDeque<>();
+            });
+            queue.addLast(ticket);
+            size++;
+        }
+
+        Ticket peek() {
+            String tenant = tenants.peekFirst();
+            return tenant != null ? queues.get(tenant).peekFirst() : null;
+        }
+
+        Ticket poll() {
+            String tenant = tenants.pollFirst();
+            if (tenant == null) {
+                return null;
+            }
+            ArrayDeque<Ticket> queue = queues.get(tenant);
+            Ticket ticket = queue.pollFirst();
+            if (queue.isEmpty()) {
+                queues.remove(tenant);
+            } else {
+                tenants.addLast(tenant);
+            }
+            size--;
+            return ticket;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+
+    private final int maxInFlight;
+    private final long agingNanos;
+    private final Map<JudgeLane, Integer> laneWeights = new EnumMap<>(JudgeLane.class);
+    private final Map<JudgeLane, LaneQueue> lanes = new EnumMap<>(JudgeLane.class);
+    private final Map<String, Integer> tenantInFlight = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private int inFlight;
+
+    private final Map<JudgeLane, Timer> waitTimers = new EnumMap<>(JudgeLane.class);
+    private final Map<JudgeLane, Counter> grantedCounters = new EnumMap<>(JudgeLane.class);
+
+    public JudgeScheduler(JudgeConfig judgeConfig, MeterRegistry meterRegistry) {
+        JudgeConfig.Scheduler config = judgeConfig.getScheduler();
+        this.maxInFlight = Math.max(1, config.getMaxInFlight());
+        this.agingNanos = config.getAgingTimeout().toNanos();
+        laneWeights.put(JudgeLane.INTERACTIVE, Math.max(1, config.getInteractiveWeight()));
+        laneWeights.put(JudgeLane.NORMAL, Math.max(1, config.getNormalWeight()));
+        laneWeights.put(JudgeLane.BULK, Math.max(1, config.getBulkWeight()));
+
+        for (JudgeLane lane : JudgeLane.values()) {
+            LaneQueue queue = new LaneQueue();
+            lanes.put(lane, queue);
+            String laneTag = lane.name().toLowerCase();
+            waitTimers.put(lane, Timer.builder("judge.scheduler.queue.wait")
+                    .description("评测请求等待执行名额的时间")
+                    .tag("lane", laneTag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            grantedCounters.put(lane, Counter.builder("judge.scheduler.granted")
+                    .description("已分配的执行名额数")
+                    .tag("lane", laneTag)
+                    .register(meterRegistry));
+            Gauge.builder("judge.scheduler.queued", this, s -> s.queuedCount(lane))
+                    .description("排队等待的评测请求数")
+                    .tag("lane", laneTag)
+                    .register(meterRegistry);
+        }
+        Gauge.builder("judge.scheduler.in-flight", this, JudgeScheduler::getInFlight)
+                .description("正在沙箱中执行的测试用例数")
+                .register(meterRegistry);
+        Gauge.builder("judge.scheduler.tenants.active", this, s -> s.getStatus().getTenants().size())
+                .description("正在执行或排队的租户数")
+                .register(meterRegistry);
+        Gauge.builder("judge.scheduler.tenant.max-share", this, JudgeScheduler::maxTenantShare)
+                .description("单个租户占用执行名额的最大比例")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 异步申请执行名额
+     *
+     * @param tenant 租户（用户ID），为null时视为匿名用户
+     * @param lane 优先级通道
+     * @param permits 名额数（本次执行的测试用例数），超过上限时按上限计算
+     * @return 获得名额时完成
+     */
+    public CompletableFuture<Permit> acquireAsync(String tenant, JudgeLane lane, int permits) {
+        Ticket ticket = new Ticket(tenant != null ? tenant : ANONYMOUS_TENANT, lane,
+                Math.min(Math.max(1, permits), maxInFlight));
+        List<Ticket> granted;
+        lock.lock();
+        try {
+            lanes.get(lane).add(ticket);
+            granted = dispatch();
+        } finally {
+            lock.unlock();
+        }
+        complete(granted);
+        return ticket.future;
+    }
+
+    /**
+     * 阻塞申请执行名额
+     *
+     * @param tenant 租户（用户ID），为null时视为匿名用户
+     * @param lane 优先级通道
+     * @param permits 名额数
+     * @return 执行名额
+     */
+    public Permit acquire(String tenant, JudgeLane lane, int permits) throws InterruptedException {
+        CompletableFuture<Permit> future = acquireAsync(tenant, lane, permits);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            // 取消失败说明名额已分配，需要归还
+            if (!future.cancel(false)) {
+                future.thenAccept(Permit::close);
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("申请执行名额失败", e.getCause());
+        }
+    }
+
+    /**
+     * 单个请求最多占用的名额数，一批测试用例不应超过该数量
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * 当前正在执行的测试用例数
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 调度器状态及各租户占用情况
+     */
+    public JudgeSchedulerStatus getStatus() {
+        lock.lock();
+        try {
+            Map<JudgeLane, Integer> queued = new EnumMap<>(JudgeLane.class);
+            Map<String, int[]> tenants = new LinkedHashMap<>();
+            tenantInFlight.forEach((tenant, count) -> tenants.computeIfAbsent(tenant, k -> new int[2])[0] = count);
+            for (Map.Entry<JudgeLane, LaneQueue> entry : lanes.entrySet()) {
+                queued.put(entry.getKey(), entry.getValue().size);
+                entry.getValue().queues.forEach((tenant, queue) ->
+                        tenants.computeIfAbsent(tenant, k -> new int[2])[1] += queue.size());
+            }
+
+            List<JudgeSchedulerStatus.TenantShare> shares = new ArrayList<>();
+            tenants.forEach((tenant, counts) -> shares.add(JudgeSchedulerStatus.TenantShare.builder()
+                    .tenant(tenant)
+                    .inFlight(counts[0])
+                    .queued(counts[1])
+                    .share(inFlight > 0 ? (double) counts[0] / inFlight : 0.0)
+                    .build()));
+            shares.sort(Comparator.comparingInt(JudgeSchedulerStatus.TenantShare::getInFlight).reversed());
+
+            return JudgeSchedulerStatus.builder()
+                    .maxInFlight(maxInFlight)
+                    .inFlight(inFlight)
+                    .queued(queued)
+                    .tenants(shares)
+                    .build();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Permit permit) {
+        List<Ticket> granted;
+        lock.lock();
+        try {
+            inFlight -= permit.permits;
+            tenantInFlight.computeIfPresent(permit.tenant, (k, v) -> v > permit.permits ? v - permit.permits : null);
+            granted = dispatch();
+        } finally {
+            lock.unlock();
+        }
+        complete(granted);
+    }
+
+    /**
+     * 在名额允许的范围内依次取出排队的请求，必须在持有锁时调用
+     */
+    private List<Ticket> dispatch() {
+        List<Ticket> granted = new ArrayList<>();
+        long now = System.nanoTime();
+        while (true) {
+            LaneQueue lane = nextLane();
+            if (lane == null) {
+                break;
+            }
+            Ticket ticket = lane.peek();
+            if (ticket.future.isDone()) {
+                // 已取消的请求直接丢弃
+                lane.poll();
+                continue;
+            }
+            if (inFlight + ticket.permits <= maxInFlight) {
+                grant(lane, granted);
+                continue;
+            }
+            // 名额不足时让其他通道中放得下的请求先执行
+            LaneQueue bypass = bypassLane(now);
+            if (bypass == null) {
+                break;
+            }
+            grant(bypass, granted);
+        }
+        return granted;
+    }
+
+    /**
+     * 选择可以越过放不下的请求先执行的通道
+     *
+     * @return 按优先级第一个队首放得下的通道；有放不下的队首已等待超过老化时间，或没有放得下的请求时返回null
+     */
+    private LaneQueue bypassLane(long now) {
+        LaneQueue candidate = null;
+        for (JudgeLane lane : JudgeLane.values()) {
+            LaneQueue queue = lanes.get(lane);
+            Ticket head = queue.peek();
+            while (head != null && head.future.isDone()) {
+                queue.poll();
+                head = queue.peek();
+            }
+            if (head == null) {
+                continue;
+            }
+            if (inFlight + head.permits <= maxInFlight) {
+                if (candidate == null) {
+                    candidate = queue;
+                }
+            } else if (now - head.enqueuedAt >= agingNanos) {
+                return null;
+            }
+        }
+        return candidate;
+    }
+
+    private void grant(LaneQueue lane, List<Ticket> granted) {
+        Ticket ticket = lane.poll();
+        lane.credit--;
+        inFlight += ticket.permits;
+        tenantInFlight.merge(ticket.tenant, ticket.permits, Integer::sum);
+        granted.add(ticket);
+    }
+
+    /**
+     * 选择下一个获得名额的通道：按优先级取仍有权重额度的非空通道，额度用尽后重新发放
+     */
+    private LaneQueue nextLane() {
+        for (int round = 0; round < 2; round++) {
+            for (JudgeLane lane : JudgeLane.values()) {
+                LaneQueue queue = lanes.get(lane);
+                if (!queue.isEmpty() && queue.credit > 0) {
+                    return queue;
+                }
+            }
+            boolean hasWaiting = false;
+            for (JudgeLane lane : JudgeLane.values()) {
+                LaneQueue queue = lanes.get(lane);
+                queue.credit = laneWeights.get(lane);
+                hasWaiting |= !queue.isEmpty();
+            }
+            if (!hasWaiting) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 在锁外完成名额分配，避免回调在持有锁时执行
+     */
+    private void complete(List<Ticket> granted) {
+        for (Ticket ticket : granted) {
+            grantedCounters.get(ticket.lane).increment(ticket.permits);
+            waitTimers.get(ticket.lane).record(Duration.ofNanos(System.nanoTime() - ticket.enqueuedAt));
+            Permit permit = new Permit(ticket.tenant, ticket.lane, ticket.permits);
+            if (!ticket.future.complete(permit)) {
+                permit.close();
+            }
+        }
+    }
+
+    private int queuedCount(JudgeLane lane) {
+        lock.lock();
+        try {
+            return lanes.get(lane).size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double maxTenantShare() {
+        return getStatus().getTenants().stream()
+                .mapToDouble(JudgeSchedulerStatus.TenantShare::getShare)
+                .max()
+                .orElse(0.0);
+    }
+}
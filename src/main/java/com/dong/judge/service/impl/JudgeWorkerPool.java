@@ -0,0 +1,127 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.JudgeConfig;
+import com.dong.judge.service.CodeService;
+import com.dong.judge.service.JudgeQueue;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 评测工作线程池
+ * <p>
+ * 应用启动完成后启动固定数量的工作线程，从评测队列中领取提交并执行评测。
+ * 启动时和运行期间定时恢复超时未确认的任务，其他实例异常退出时遗留的任务也能被重新评测。
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JudgeWorkerPool implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Duration TAKE_TIMEOUT = Duration.ofSeconds(1);
+
+    private final JudgeQueue judgeQueue;
+    private final CodeService codeService;
+    private final JudgeConfig judgeConfig;
+
+    private final AtomicInteger busyWorkers = new AtomicInteger();
+    private volatile boolean running;
+    private ExecutorService workers;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        judgeQueue.recover();
+
+        int poolSize = judgeConfig.getWorker().getPoolSize();
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "judge-worker-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        running = true;
+        for (int i = 0; i < poolSize; i++) {
+            workers.submit(this::workLoop);
+        }
+        log.info("评测工作线程池已启动: poolSize={}, queueCapacity={}", poolSize, judgeQueue.capacity());
+    }
+
+    /**
+     * 定时恢复超时未确认的任务
+     */
+    @Scheduled(fixedDelayString = "${judge.queue.recover-interval:1m}")
+    public void recover() {
+        if (!running) {
+            return;
+        }
+        try {
+            judgeQueue.recover();
+        } catch (Exception e) {
+            log.error("恢复评测队列任务失败", e);
+        }
+    }
+
+    /**
+     * 工作线程主循环
+     */
+    private void workLoop() {
+        while (running) {
+            String submissionId;
+            try {
+                submissionId = judgeQueue.take(TAKE_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("从评测队列领取任务失败", e);
+                continue;
+            }
+
+            if (submissionId == null) {
+                continue;
+            }
+
+            busyWorkers.incrementAndGet();
+            try {
+                codeService.judgeSubmission(submissionId);
+            } catch (Exception e) {
+                log.error("评测提交失败: {}", submissionId, e);
+            } finally {
+                busyWorkers.decrementAndGet();
+                judgeQueue.ack(submissionId);
+            }
+        }
+    }
+
+    /**
+     * 当前正在评测的工作线程数量
+     *
+     * @return 忙碌线程数
+     */
+    public int getBusyWorkers() {
+        return busyWorkers.get();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (workers != null) {
+            workers.shutdown();
+            if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        }
+    }
+}
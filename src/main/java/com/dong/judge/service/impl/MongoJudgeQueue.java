@@ -0,0 +1,140 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.model.enums.ExecutionStatus;
+import com.dong.judge.model.pojo.judge.JudgeTask;
+import com.dong.judge.model.pojo.judge.Submission;
+import com.dong.judge.service.JudgeQueue;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * MongoDB持久化评测队列
+ * <p>
+ * 入队写入 judge_queue 集合，工作线程通过 findAndModify 原子领取任务，
+ * 评测完成后确认删除。领取后超时未确认的任务（如所在进程异常退出）由定时恢复重新入队，
+ * 并将提交从评测中恢复为待评测，重新领取后可以再次评测。
+ * </p>
+ * <p>
+ * 入队后按 _id 复核排在前面的任务数，超出容量的撤销重试，并发入队不会超出容量；
+ * 多个实例之间存在时钟偏差时 ObjectId 的顺序与插入顺序可能不一致，此时容量是软上限。
+ * </p>
+ */
+@Slf4j
+public class MongoJudgeQueue implements JudgeQueue {
+
+    private final MongoTemplate mongoTemplate;
+    private final int capacity;
+    private final Duration claimTimeout;
+    private final Duration pollInterval;
+
+    public MongoJudgeQueue(MongoTemplate mongoTemplate, int capacity, Duration claimTimeout, Duration pollInterval) {
+        this.mongoTemplate = mongoTemplate;
+        this.capacity = capacity;
+        this.claimTimeout = claimTimeout;
+        this.pollInterval = pollInterval;
+    }
+
+    @Override
+    public boolean offer(String submissionId, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            while (true) {
+                if (size() < capacity && insertWithinCapacity(submissionId)) {
+                    return true;
+                }
+                if (System.nanoTime() >= deadline) {
+                    return false;
+                }
+                Thread.sleep(pollInterval.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 插入任务后复核：排在前面的任务已占满容量时撤销插入
+     *
+     * @return 是否入队成功
+     */
+    private boolean insertWithinCapacity(String submissionId) {
+        JudgeTask task = mongoTemplate.insert(JudgeTask.builder()
+                .submissionId(submissionId)
+                .enqueuedAt(LocalDateTime.now())
+                .build());
+        long ahead = mongoTemplate.count(new Query(Criteria.where("_id").lt(new ObjectId(task.getId()))),
+                JudgeTask.class);
+        if (ahead < capacity) {
+            return true;
+        }
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(new ObjectId(task.getId()))), JudgeTask.class);
+        return false;
+    }
+
+    @Override
+    public String take(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            Query query = new Query(Criteria.where("claimedAt").is(null))
+                    .with(Sort.by(Sort.Direction.ASC, "enqueuedAt"));
+            Update update = new Update().set("claimedAt", LocalDateTime.now());
+            JudgeTask task = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().returnNew(true), JudgeTask.class);
+            if (task != null) {
+                return task.getSubmissionId();
+            }
+            if (System.nanoTime() >= deadline) {
+                return null;
+            }
+            Thread.sleep(pollInterval.toMillis());
+        }
+    }
+
+    @Override
+    public void ack(String submissionId) {
+        mongoTemplate.remove(new Query(Criteria.where("submissionId").is(submissionId)), JudgeTask.class);
+    }
+
+    @Override
+    public int size() {
+        return (int) mongoTemplate.count(new Query(), JudgeTask.class);
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public void recover() {
+        LocalDateTime expired = LocalDateTime.now().minus(claimTimeout);
+        List<JudgeTask> tasks = mongoTemplate.find(new Query(Criteria.where("claimedAt").lt(expired)), JudgeTask.class);
+        int count = 0;
+        for (JudgeTask task : tasks) {
+            // 先恢复提交状态再放回队列，避免重新领取时提交仍处于评测中而被跳过
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(task.getSubmissionId())
+                            .and("status").is(ExecutionStatus.JUDGING.getCode())),
+                    new Update().set("status", ExecutionStatus.PENDING.getCode()), Submission.class);
+            // 只放回领取时间未变的任务，其间被其他实例恢复并重新领取的任务不受影响
+            Query claimed = new Query(Criteria.where("_id").is(task.getId()).and("claimedAt").is(task.getClaimedAt()));
+            if (mongoTemplate.updateFirst(claimed, new Update().unset("claimedAt"), JudgeTask.class)
+                    .getModifiedCount() > 0) {
+                count++;
+            }
+        }
+        if (count > 0) {
+            log.warn("重新入队超时未确认的评测任务: {} 个", count);
+        }
+    }
+}
@@ -5,22 +5,35 @@ import com.dong.judge.model.enums.DifficultyLevel;
 import com.dong.judge.model.pojo.judge.Problem;
 import com.dong.judge.model.pojo.judge.TestGroup;
 import com.dong.judge.service.ProblemService;
+import com.dong.judge.service.ProblemTagService;
 import com.dong.judge.service.TestGroupService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
 /**
  * 题目服务实现类
  */
@@ -28,11 +41,22 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ProblemServiceImpl implements ProblemService {
 
+    /**
+     * 创建时间相同的题目按ID排序，保证分页顺序稳定
+     */
+    private static final Sort ID_DESC = Sort.by(Sort.Direction.DESC, "id");
+
     @Autowired
     private ProblemRepository problemRepository;
     
     @Autowired
     private TestGroupService testGroupService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ProblemTagService problemTagService;
     
     @Override
     public Problem createProblem(Problem problem, String userId) {
@@ -64,7 +88,9 @@ public class ProblemServiceImpl implements ProblemService {
         }
         
         // 保存题目
-        return problemRepository.save(problem);
+        Problem saved = problemRepository.save(problem);
+        problemTagService.applyChange(null, saved.getTags());
+        return saved;
     }
 
     @Override
@@ -87,33 +113,59 @@ public class ProblemServiceImpl implements ProblemService {
             }
         }
         
-        // 更新字段
+        // 只写入可编辑的字段，提交计数由 ProblemStatisticsWriter 按 $inc 累加，整篇保存会覆盖期间的累加
+        Update update = new Update().set("updatedAt", LocalDateTime.now());
         if (StringUtils.hasText(problem.getTitle())) {
-            existingProblem.setTitle(problem.getTitle());
+            update.set("title", problem.getTitle());
         }
         
         if (problem.getDifficulty() != null) {
-            existingProblem.setDifficulty(problem.getDifficulty());
-            existingProblem.setDifficultyLevel(DifficultyLevel.getByLevel(problem.getDifficulty()));
+            update.set("difficulty", problem.getDifficulty());
+            update.set("difficultyLevel", DifficultyLevel.getByLevel(problem.getDifficulty()));
         }
         
+        List<String> previousTags = existingProblem.getTags();
         if (problem.getTags() != null) {
-            existingProblem.setTags(problem.getTags());
+            update.set("tags", problem.getTags());
         }
         
         if (StringUtils.hasText(problem.getContent())) {
-            existingProblem.setContent(problem.getContent());
+            update.set("content", problem.getContent());
         }
         
         if (StringUtils.hasText(problem.getTestGroupId())) {
-            existingProblem.setTestGroupId(problem.getTestGroupId());
+            update.set("testGroupId", problem.getTestGroupId());
+        }
+
+        if (problem.getJudgePolicy() != null) {
+            update.set("judgePolicy", problem.getJudgePolicy());
+        }
+
+        if (problem.getOutputCheckMode() != null) {
+            update.set("outputCheckMode", problem.getOutputCheckMode());
+        }
+
+        if (problem.getFloatEpsilon() != null) {
+            update.set("floatEpsilon", problem.getFloatEpsilon());
+        }
+
+        if (StringUtils.hasText(problem.getCheckerCode())) {
+            update.set("checkerCode", problem.getCheckerCode());
+        }
+
+        if (StringUtils.hasText(problem.getCheckerLanguage())) {
+            update.set("checkerLanguage", problem.getCheckerLanguage());
+        }
+
+        if (problem.getBatchedRun() != null) {
+            update.set("batchedRun", problem.getBatchedRun());
         }
-        
-        // 更新时间
-        existingProblem.setUpdatedAt(LocalDateTime.now());
         
         // 保存更新
-        return problemRepository.save(existingProblem);
+        mongoTemplate.updateFirst(Query.query(where("id").is(existingProblem.getId())), update, Problem.class);
+        Problem saved = getProblemById(existingProblem.getId());
+        problemTagService.applyChange(previousTags, saved.getTags());
+        return saved;
     }
 
     @Override
@@ -139,6 +191,7 @@ public class ProblemServiceImpl implements ProblemService {
         
         // 删除题目
         problemRepository.deleteById(id);
+        problemTagService.applyChange(problem.getTags(), null);
         return true;
     }
 
@@ -183,20 +236,13 @@ public class ProblemServiceImpl implements ProblemService {
     
     @Override
     public List<String> getAllTags() {
-        // 获取所有题目
-        List<Problem> allProblems = problemRepository.findAll();
-        
-        // 统计每个标签出现的次数
-        Map<String, Long> tagCountMap = allProblems.stream()
-                .filter(problem -> problem.getTags() != null && !problem.getTags().isEmpty())
-                .flatMap(problem -> problem.getTags().stream())
-                .collect(Collectors.groupingBy(tag -> tag, Collectors.counting()));
-        
-        // 按照标签出现次数降序排序
-        return tagCountMap.entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .map(Map.Entry::getKey)
-                .toList();
+        // 按出现次数降序读取预先统计的标签计数
+        return problemTagService.listTags();
+    }
+
+    @Override
+    public int rebuildTags() {
+        return problemTagService.rebuild();
     }
     
     @Override
@@ -212,65 +258,69 @@ public class ProblemServiceImpl implements ProblemService {
     }
     
     @Override
-    public Page<Problem> searchProblemsWithConditions(PageRequest pageRequest, String difficulty, String keyword, List<String> tags) {
-        // 获取所有题目
-        List<Problem> allProblems = problemRepository.findAll();
-        
-        // 应用过滤条件
-        List<Problem> filteredProblems = allProblems.stream()
-                // 按难度类型过滤（简单、中等、困难）
-                .filter(problem -> {
-                    if (difficulty == null || difficulty.isEmpty()) {
-                        return true; // 不过滤
-                    }
-                    
-                    // 获取题目的难度级别枚举
-                    DifficultyLevel level = problem.getDifficultyLevel();
-                    if (level == null) {
-                        return false;
-                    }
-                    
-                    // 根据难度类型过滤
-                    return level.getDifficulty().equals(difficulty);
-                })
-                // 按关键词过滤（标题）
-                .filter(problem -> {
-                    if (keyword == null || keyword.isEmpty()) {
-                        return true; // 不过滤
-                    }
-                    
-                    return problem.getTitle() != null && 
-                           problem.getTitle().toLowerCase().contains(keyword.toLowerCase());
-                })
-                // 按标签列表过滤
-                .filter(problem -> {
-                    if (tags == null || tags.isEmpty()) {
-                        return true; // 不过滤
-                    }
-                    
-                    // 如果题目没有标签，则不匹配
-                    if (problem.getTags() == null || problem.getTags().isEmpty()) {
-                        return false;
-                    }
-                    
-                    // 检查题目是否包含任一查询标签（OR逻辑）
-                    return tags.stream().anyMatch(tag -> problem.getTags().contains(tag));
-                })
-                .collect(Collectors.toList());
-        
-        // 手动实现分页
-        int start = (int) pageRequest.getOffset();
-        int end = Math.min((start + pageRequest.getPageSize()), filteredProblems.size());
-        
-        // 如果起始位置超出列表大小，返回空列表
-        if (start >= filteredProblems.size()) {
-            return new PageImpl<>(new ArrayList<>(), pageRequest, filteredProblems.size());
+    public Page<Problem> searchProblemsWithConditions(PageRequest pageRequest, String difficulty, String keyword, List<String> tags,
+                                                      boolean textSearch) {
+        Query filter = buildSearchQuery(difficulty, keyword, tags, textSearch);
+        Query query = Query.of(filter).with(pageRequest.withSort(pageRequest.getSort().and(ID_DESC)));
+        List<Problem> content = mongoTemplate.find(query, Problem.class);
+
+        // 第一页不满或已到最后一页时不需要再统计总数
+        return PageableExecutionUtils.getPage(content, pageRequest, () -> mongoTemplate.count(filter, Problem.class));
+    }
+
+    @Override
+    public Slice<Problem> searchProblemsAfter(String cursor, int pageSize, String difficulty, String keyword, List<String> tags,
+                                              boolean textSearch) {
+        Query query = buildSearchQuery(difficulty, keyword, tags, textSearch);
+        if (StringUtils.hasText(cursor)) {
+            Query cursorQuery = new Query(where("id").is(cursor));
+            cursorQuery.fields().include("createdAt");
+            Problem last = mongoTemplate.findOne(cursorQuery, Problem.class);
+            if (last == null) {
+                throw new NoSuchElementException("题目不存在: " + cursor);
+            }
+            query.addCriteria(new Criteria().orOperator(
+                    where("createdAt").lt(last.getCreatedAt()),
+                    where("createdAt").is(last.getCreatedAt()).and("id").lt(last.getId())));
         }
-        
-        // 获取当前页的数据
-        List<Problem> pageContent = filteredProblems.subList(start, end);
-        
-        // 创建分页结果
-        return new PageImpl<>(pageContent, pageRequest, filteredProblems.size());
+        query.with(Sort.by(Sort.Direction.DESC, "createdAt").and(ID_DESC)).limit(pageSize + 1);
+
+        // 多取一条用于判断是否还有下一页
+        List<Problem> content = new ArrayList<>(mongoTemplate.find(query, Problem.class));
+        boolean hasNext = content.size() > pageSize;
+        if (hasNext) {
+            content.remove(pageSize);
+        }
+        return new SliceImpl<>(content, PageRequest.of(0, pageSize), hasNext);
+    }
+
+    /**
+     * 构造题目筛选条件，各条件都可以使用 Problem 上声明的索引
+     */
+    private Query buildSearchQuery(String difficulty, String keyword, List<String> tags, boolean textSearch) {
+        Query query = new Query();
+
+        // 按难度类型过滤（简单、中等、困难）
+        if (StringUtils.hasText(difficulty)) {
+            List<DifficultyLevel> levels = Arrays.stream(DifficultyLevel.values())
+                    .filter(level -> level.getDifficulty().equals(difficulty))
+                    .toList();
+            query.addCriteria(where("difficultyLevel").in(levels));
+        }
+
+        // 按关键词过滤（标题），全文检索按单词匹配，否则按不区分大小写的子串匹配
+        if (StringUtils.hasText(keyword)) {
+            if (textSearch) {
+                query.addCriteria(TextCriteria.forDefaultLanguage().matching(keyword));
+            } else {
+                query.addCriteria(where("title").regex(Pattern.quote(keyword), "i"));
+            }
+        }
+
+        // 按标签列表过滤，包含任一查询标签即匹配（OR逻辑）
+        if (tags != null && !tags.isEmpty()) {
+            query.addCriteria(where("tags").in(tags));
+        }
+        return query;
     }
-}
\ No newline at end of file
+}
@@ -51,20 +51,6 @@ public class ProblemStatisticsServiceImpl implements ProblemStatisticsService {
             }
         }
         
-        // 计算通过率：通过数 / (通过数 + 所有失败数) * 100，只保留整数部分
-        int totalFailedCount = problem.getWrongAnswerCount() + 
-                             problem.getTimeExceededCount() + 
-                             problem.getMemoryExceededCount() + 
-                             problem.getCompileErrorCount();
-        
-        int totalAttempts = problem.getAcceptedCount() + totalFailedCount;
-        if (totalAttempts > 0) {
-            // 直接计算整数百分比，丢弃小数部分
-            problem.setAcceptedRate((double) (problem.getAcceptedCount() * 100 / totalAttempts));
-        } else {
-            problem.setAcceptedRate(0.0);
-        }
-        
         // 保存更新后的题目数据
         return problemRepository.save(problem);
     }
@@ -0,0 +1,210 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.JudgeConfig;
+import com.dong.judge.model.dto.code.TestCaseResult;
+import com.dong.judge.model.dto.code.TestCaseSetResult;
+import com.dong.judge.model.enums.ExecutionStatus;
+import com.dong.judge.model.pojo.judge.Problem;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * 题目提交统计写入器
+ * <p>
+ * 每次提交只对题目文档执行一次 $inc，不读取题目，也不覆盖其他字段，并发提交不会互相覆盖计数。
+ * 通过率由 {@link Problem#getAcceptedRate()} 在读取时根据计数计算。
+ * 开启合并写入后，计数先在内存中累加，按固定间隔批量写入，适合比赛期间的热点题目。
+ * </p>
+ */
+@Slf4j
+@Component
+public class ProblemStatisticsWriter {
+
+    static final String SUBMISSION_COUNT = "submissionCount";
+    static final String ACCEPTED_COUNT = "acceptedCount";
+    static final String WRONG_ANSWER_COUNT = "wrongAnswerCount";
+    static final String TIME_EXCEEDED_COUNT = "timeExceededCount";
+    static final String MEMORY_EXCEEDED_COUNT = "memoryExceededCount";
+    static final String COMPILE_ERROR_COUNT = "compileErrorCount";
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean coalesce;
+
+    /**
+     * 尚未写入的计数增量：题目ID -> (字段 -> 增量)，只在 compute 中修改，保证与 flush 的取出互斥
+     */
+    private final ConcurrentHashMap<String, Map<String, Integer>> pending = new ConcurrentHashMap<>();
+
+    public ProblemStatisticsWriter(MongoTemplate mongoTemplate, JudgeConfig judgeConfig) {
+        this.mongoTemplate = mongoTemplate;
+        this.coalesce = judgeConfig.getStatistics().isCoalesce();
+    }
+
+    /**
+     * 记录一次提交结果
+     *
+     * @param problemId 题目ID
+     * @param result    评测结果
+     */
+    public void record(String problemId, TestCaseSetResult result) {
+        if (problemId == null || result == null) {
+            return;
+        }
+        String counter = counterOf(result);
+        if (coalesce) {
+            pending.compute(problemId, (id, delta) -> {
+                Map<String, Integer> target = delta != null ? delta : new LinkedHashMap<>();
+                target.merge(SUBMISSION_COUNT, 1, Integer::sum);
+                if (counter != null) {
+                    target.merge(counter, 1, Integer::sum);
+                }
+                return target;
+            });
+            return;
+        }
+
+        Update update = new Update().inc(SUBMISSION_COUNT, 1);
+        if (counter != null) {
+            update.inc(counter, 1);
+        }
+        try {
+            UpdateResult updateResult = mongoTemplate.updateFirst(query(where("_id").is(problemId)), update, Problem.class);
+            if (updateResult.getMatchedCount() == 0) {
+                log.warn("更新题目统计数据失败：题目不存在 {}", problemId);
+            }
+        } catch (Exception e) {
+            log.error("更新题目统计数据失败: problemId={}", problemId, e);
+        }
+    }
+
+    /**
+     * 将内存中累积的计数批量写入数据库
+     */
+    @Scheduled(fixedDelayString = "${judge.statistics.flush-interval:1s}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<String, Map<String, Integer>> deltas = new LinkedHashMap<>();
+        for (String problemId : pending.keySet()) {
+            Map<String, Integer> delta = pending.remove(problemId);
+            if (delta != null) {
+                deltas.put(problemId, delta);
+            }
+        }
+        apply(deltas);
+    }
+
+    /**
+     * 批量修正题目的计数，用于重测后把计数从旧结果移到新结果
+     * <p>
+     * 不经过合并写入，调用时立即执行一次批量写入，增量为0的字段不写入
+     * </p>
+     *
+     * @param deltas 题目ID -> (字段 -> 增量)
+     */
+    public void apply(Map<String, Map<String, Integer>> deltas) {
+        List<String> problemIds = new ArrayList<>();
+        List<Update> updates = new ArrayList<>();
+        deltas.forEach((problemId, delta) -> {
+            Update update = new Update();
+            delta.forEach((field, value) -> {
+                if (value != 0) {
+                    update.inc(field, value);
+                }
+            });
+            if (!update.getUpdateObject().isEmpty()) {
+                updates.add(update);
+                problemIds.add(problemId);
+            }
+        });
+        if (problemIds.isEmpty()) {
+            return;
+        }
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Problem.class);
+            for (int i = 0; i < problemIds.size(); i++) {
+                bulk.updateOne(query(where("_id").is(problemIds.get(i))), updates.get(i));
+            }
+            bulk.execute();
+            log.debug("批量写入题目统计数据: {} 道题目", problemIds.size());
+        } catch (Exception e) {
+            log.error("批量写入题目统计数据失败: problemIds={}", problemIds, e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    /**
+     * 根据评测结果确定需要累加的计数字段
+     * <p>
+     * 编译错误 > 全部通过 > 首个时间超限或内存超限 > 其他错误，被跳过的测试用例不参与判断。
+     * </p>
+     *
+     * @return 字段名，没有需要累加的结果计数时返回null
+     */
+    static String counterOf(TestCaseSetResult result) {
+        if (result.getCompileError() != null && !result.getCompileError().isEmpty()) {
+            return COMPILE_ERROR_COUNT;
+        }
+        if (result.isAllPassed()) {
+            return ACCEPTED_COUNT;
+        }
+        boolean hasWrongAnswer = false;
+        if (result.getTestCaseResults() != null) {
+            for (TestCaseResult testResult : result.getTestCaseResults()) {
+                String status = testResult.getStatus();
+                if (ExecutionStatus.SKIPPED.getCode().equals(status)) {
+                    continue;
+                }
+                if (ExecutionStatus.TIME_LIMIT_EXCEEDED.getCode().equals(status)) {
+                    return TIME_EXCEEDED_COUNT;
+                } else if (ExecutionStatus.MEMORY_LIMIT_EXCEEDED.getCode().equals(status)) {
+                    return MEMORY_EXCEEDED_COUNT;
+                } else if (!ExecutionStatus.ACCEPTED.getCode().equals(status)) {
+                    hasWrongAnswer = true;
+                }
+            }
+        }
+        return hasWrongAnswer ? WRONG_ANSWER_COUNT : null;
+    }
+
+    /**
+     * 根据提交记录中保存的状态确定对应的计数字段
+     * <p>
+     * 提交记录只保存首个失败用例的状态，首个失败用例之后仍有时间超限用例时与 {@link #counterOf(TestCaseSetResult)}
+     * 的结果不同。重测时新旧结果都按状态计算，重复重测同一批提交不会改变计数。
+     * </p>
+     *
+     * @return 字段名，状态没有对应的计数（如待评测、系统错误）时返回null
+     */
+    static String counterOfStatus(String status) {
+        ExecutionStatus executionStatus = ExecutionStatus.getByCode(status);
+        return switch (executionStatus) {
+            case COMPILE_ERROR -> COMPILE_ERROR_COUNT;
+            case ACCEPTED -> ACCEPTED_COUNT;
+            case TIME_LIMIT_EXCEEDED -> TIME_EXCEEDED_COUNT;
+            case MEMORY_LIMIT_EXCEEDED -> MEMORY_EXCEEDED_COUNT;
+            case PENDING, JUDGING, SYSTEM_ERROR -> null;
+            default -> WRONG_ANSWER_COUNT;
+        };
+    }
+}
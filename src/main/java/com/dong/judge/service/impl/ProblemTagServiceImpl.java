@@ -0,0 +1,112 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.model.pojo.judge.Problem;
+import com.dong.judge.model.pojo.judge.ProblemTag;
+import com.dong.judge.service.ProblemTagService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.out;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.unwind;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * 标签计数服务实现
+ * <p>
+ * 计数保存在 problem_tags 集合中，题目变更时对变化的标签执行 $inc，读取时按计数索引顺序返回，
+ * 开销只与标签数量有关。计数按标签出现次数统计，与重建时 $unwind/$group 的结果一致。
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProblemTagServiceImpl implements ProblemTagService {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void applyChange(List<String> before, List<String> after) {
+        Map<String, Integer> delta = new LinkedHashMap<>();
+        if (before != null) {
+            before.forEach(tag -> delta.merge(tag, -1, Integer::sum));
+        }
+        if (after != null) {
+            after.forEach(tag -> delta.merge(tag, 1, Integer::sum));
+        }
+        delta.values().removeIf(change -> change == 0);
+        if (delta.isEmpty()) {
+            return;
+        }
+
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProblemTag.class);
+            List<String> decreased = new ArrayList<>();
+            delta.forEach((tag, change) -> {
+                bulk.upsert(query(where("tag").is(tag)), new Update().inc("count", change));
+                if (change < 0) {
+                    decreased.add(tag);
+                }
+            });
+            bulk.execute();
+            if (!decreased.isEmpty()) {
+                mongoTemplate.remove(query(where("tag").in(decreased).and("count").lte(0)), ProblemTag.class);
+            }
+        } catch (Exception e) {
+            // 计数偏差可以通过重建修复，不影响题目本身的保存
+            log.error("更新标签计数失败: delta={}", delta, e);
+        }
+    }
+
+    @Override
+    public List<String> listTags() {
+        Query query = new Query().with(Sort.by(Sort.Direction.DESC, "count").and(Sort.by("tag")));
+        query.fields().include("tag");
+        return mongoTemplate.find(query, ProblemTag.class).stream()
+                .map(ProblemTag::getTag)
+                .toList();
+    }
+
+    @Override
+    public int rebuild() {
+        Aggregation aggregation = newAggregation(
+                unwind("tags"),
+                group("tags").count().as("count"),
+                out(mongoTemplate.getCollectionName(ProblemTag.class)));
+        mongoTemplate.aggregate(aggregation, Problem.class, ProblemTag.class);
+        int tagCount = (int) mongoTemplate.count(new Query(), ProblemTag.class);
+        log.info("重建标签计数完成: {} 个标签", tagCount);
+        return tagCount;
+    }
+
+    /**
+     * 启动时如果还没有标签计数（首次部署或集合被清空），从全部题目统计一次
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            if (mongoTemplate.count(new Query().limit(1), ProblemTag.class) == 0
+                    && mongoTemplate.count(new Query().limit(1), Problem.class) > 0) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.error("初始化标签计数失败", e);
+        }
+    }
+}
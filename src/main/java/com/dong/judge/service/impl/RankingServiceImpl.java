@@ -0,0 +1,109 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.JudgeConfig;
+import com.dong.judge.model.enums.ExecutionStatus;
+import com.dong.judge.model.enums.RankingMetric;
+import com.dong.judge.model.pojo.judge.Submission;
+import com.dong.judge.model.vo.judge.RankingEntry;
+import com.dong.judge.service.RankingService;
+import com.dong.judge.service.RankingStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.group;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * 排行榜服务实现
+ * <p>
+ * 评测完成时把通过提交的成绩写入排行榜存储；题目的排行榜第一次被读取时（或存储被清空后）
+ * 通过对提交记录的聚合一次性初始化，之后只做增量更新。
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RankingServiceImpl implements RankingService {
+
+    private final RankingStore rankingStore;
+    private final MongoTemplate mongoTemplate;
+    private final JudgeConfig judgeConfig;
+
+    @Override
+    public void record(Submission submission) {
+        if (submission == null || submission.getUserId() == null || submission.getProblemId() == null
+                || !ExecutionStatus.ACCEPTED.getCode().equals(submission.getStatus())) {
+            return;
+        }
+        try {
+            if (submission.getExecutionTime() != null) {
+                rankingStore.offer(RankingMetric.TIME, submission.getProblemId(), submission.getUserId(),
+                        submission.getExecutionTime());
+            }
+            if (submission.getMemoryUsed() != null) {
+                rankingStore.offer(RankingMetric.MEMORY, submission.getProblemId(), submission.getUserId(),
+                        submission.getMemoryUsed());
+            }
+        } catch (Exception e) {
+            // 排行榜可以从提交记录重建，不影响评测结果的保存
+            log.error("更新排行榜失败: submissionId={}", submission.getId(), e);
+        }
+    }
+
+    @Override
+    public List<RankingEntry> getTop(String problemId, RankingMetric metric, int limit) {
+        ensureInitialized(problemId);
+        int size = Math.max(1, Math.min(limit, judgeConfig.getRanking().getMaxLimit()));
+        return rankingStore.top(metric, problemId, size);
+    }
+
+    @Override
+    public RankingEntry getRank(String problemId, RankingMetric metric, String userId) {
+        ensureInitialized(problemId);
+        return rankingStore.rankOf(metric, problemId, userId);
+    }
+
+    @Override
+    public void rebuild(String problemId) {
+        Aggregation aggregation = newAggregation(
+                match(where("problemId").is(problemId)
+                        .and("status").is(ExecutionStatus.ACCEPTED.getCode())
+                        .and("userId").ne(null)),
+                group("userId")
+                        .min(RankingMetric.TIME.getField()).as(RankingMetric.TIME.name())
+                        .min(RankingMetric.MEMORY.getField()).as(RankingMetric.MEMORY.name()));
+
+        Map<RankingMetric, Map<String, Long>> scores = new EnumMap<>(RankingMetric.class);
+        for (RankingMetric metric : RankingMetric.values()) {
+            scores.put(metric, new HashMap<>());
+        }
+        for (Document best : mongoTemplate.aggregate(aggregation, Submission.class, Document.class)) {
+            String userId = best.getString("_id");
+            for (RankingMetric metric : RankingMetric.values()) {
+                Number value = best.get(metric.name(), Number.class);
+                if (value != null) {
+                    scores.get(metric).put(userId, value.longValue());
+                }
+            }
+        }
+        rankingStore.replace(problemId, scores);
+        log.info("重建排行榜完成: problemId={}, users={}", problemId, scores.get(RankingMetric.TIME).size());
+    }
+
+    private void ensureInitialized(String problemId) {
+        if (!rankingStore.isInitialized(problemId)) {
+            rebuild(problemId);
+        }
+    }
+}
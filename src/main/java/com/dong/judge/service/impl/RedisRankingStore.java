@@ -0,0 +1,142 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.model.enums.RankingMetric;
+import com.dong.judge.model.vo.judge.RankingEntry;
+import com.dong.judge.service.RankingStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 基于 Redis 有序集合的排行榜存储
+ * <p>
+ * 键为 {前缀}:{题目ID}:{指标}，成员为用户ID，分数为最好成绩。
+ * 成绩更新通过 Lua 脚本原子地比较并保留较小值；前N名和个人排名分别对应 ZRANGE 和 ZRANK，
+ * 复杂度为 O(log n + N) 和 O(log n)。成绩相同时由 Redis 按成员（用户ID）的字节序排列，分数中不编码用户ID。
+ * 成绩与分数之间的转换见 {@link #encode} 和 {@link #decode}。
+ * </p>
+ */
+@Slf4j
+public class RedisRankingStore implements RankingStore {
+
+    /**
+     * 新成绩更小时才写入：KEYS[1] 排行榜，ARGV[1] 用户ID，ARGV[2] 成绩
+     */
+    static final RedisScript<Long> KEEP_MIN_SCRIPT = new DefaultRedisScript<>("""
+            local current = redis.call('ZSCORE', KEYS[1], ARGV[1])
+            if current and tonumber(current) <= tonumber(ARGV[2]) then
+                return 0
+            end
+            redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+            return 1
+            """, Long.class);
+
+    /**
+     * 有序集合分数为双精度浮点数，超过该绝对值的整数不能精确表示
+     */
+    static final long MAX_EXACT_SCORE = 1L << 53;
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+
+    public RedisRankingStore(StringRedisTemplate redisTemplate, String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public boolean offer(RankingMetric metric, String problemId, String userId, long value) {
+        Long updated = redisTemplate.execute(KEEP_MIN_SCRIPT, List.of(key(metric, problemId)), userId,
+                String.valueOf((long) encode(value)));
+        return updated != null && updated == 1L;
+    }
+
+    @Override
+    public List<RankingEntry> top(RankingMetric metric, String problemId, int limit) {
+        return toEntries(redisTemplate.opsForZSet().rangeWithScores(key(metric, problemId), 0, limit - 1L));
+    }
+
+    @Override
+    public RankingEntry rankOf(RankingMetric metric, String problemId, String userId) {
+        String key = key(metric, problemId);
+        Long rank = redisTemplate.opsForZSet().rank(key, userId);
+        Double score = redisTemplate.opsForZSet().score(key, userId);
+        if (rank == null || score == null) {
+            return null;
+        }
+        return new RankingEntry(rank + 1, userId, decode(score));
+    }
+
+    @Override
+    public void replace(String problemId, Map<RankingMetric, Map<String, Long>> scores) {
+        for (RankingMetric metric : RankingMetric.values()) {
+            String key = key(metric, problemId);
+            Map<String, Long> metricScores = scores.getOrDefault(metric, Map.of());
+            if (metricScores.isEmpty()) {
+                redisTemplate.delete(key);
+                continue;
+            }
+
+            // 先写入临时键再重命名，读取方不会看到写了一半的排行榜
+            String tempKey = key + ":rebuild:" + UUID.randomUUID();
+            Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+            metricScores.forEach((userId, value) -> tuples.add(ZSetOperations.TypedTuple.of(userId, encode(value))));
+            redisTemplate.opsForZSet().add(tempKey, tuples);
+            redisTemplate.rename(tempKey, key);
+        }
+        redisTemplate.opsForValue().set(readyKey(problemId), "1");
+    }
+
+    @Override
+    public boolean isInitialized(String problemId) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(readyKey(problemId)));
+    }
+
+    /**
+     * 成绩转换为有序集合分数，超出精确范围的成绩截断到边界，保证分数的顺序与成绩一致
+     */
+    static double encode(long value) {
+        return Math.max(-MAX_EXACT_SCORE, Math.min(MAX_EXACT_SCORE, value));
+    }
+
+    /**
+     * 有序集合分数转换为成绩
+     */
+    static long decode(Double score) {
+        return score != null ? Math.round(score) : 0;
+    }
+
+    /**
+     * 将 ZRANGE 的结果转换为排行榜条目，名次从1开始，顺序与 Redis 返回的一致
+     */
+    static List<RankingEntry> toEntries(Collection<ZSetOperations.TypedTuple<String>> tuples) {
+        List<RankingEntry> entries = new ArrayList<>();
+        if (tuples == null) {
+            return entries;
+        }
+        long rank = 1;
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            entries.add(new RankingEntry(rank++, tuple.getValue(), decode(tuple.getScore())));
+        }
+        return entries;
+    }
+
+    private String key(RankingMetric metric, String problemId) {
+        return keyPrefix + ":" + problemId + ":" + metric.name().toLowerCase(Locale.ROOT);
+    }
+
+    private String readyKey(String problemId) {
+        return keyPrefix + ":" + problemId + ":ready";
+    }
+}
@@ -0,0 +1,474 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.JudgeConfig;
+import com.dong.judge.model.dto.code.RejudgeRequest;
+import com.dong.judge.model.dto.code.TestCaseSetResult;
+import com.dong.judge.model.enums.ExecutionStatus;
+import com.dong.judge.model.enums.RejudgeStatus;
+import com.dong.judge.model.pojo.judge.RejudgeJob;
+import com.dong.judge.model.pojo.judge.Submission;
+import com.dong.judge.service.CodeService;
+import com.dong.judge.service.JudgeQueue;
+import com.dong.judge.service.RankingService;
+import com.dong.judge.service.RejudgeService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * 批量重测服务实现
+ * <p>
+ * 任务按提交ID升序分批读取提交，每批查询进度点之后的最多 batchSize 条，不跨批持有数据库游标，
+ * 评测队列积压导致的长时间暂停不会使游标超时。批内提交在本实例的并发数和速率限制下
+ * 通过批量任务通道评测，调度器保证正常提交优先获得沙箱名额；评测队列积压时暂停读取下一批。
+ * 每批完成后批量写入提交结果、批量修正题目计数，再保存进度点。
+ * </p>
+ * <p>
+ * 执行中的任务由实例定期续约，实例退出后租约过期，任意实例（包括重启后的本实例）接管任务并从进度点继续。
+ * 进度点之前的提交已经写入新结果，重复评测同一批提交时按新旧状态计算的计数增量为0，不会重复计数。
+ * </p>
+ */
+@Slf4j
+@Service
+public class RejudgeServiceImpl implements RejudgeService {
+
+    /**
+     * 任务文档中的字段
+     */
+    private static final String STATUS = "status";
+    private static final String OWNER = "owner";
+    private static final String HEARTBEAT_AT = "heartbeatAt";
+
+    private final MongoTemplate mongoTemplate;
+    private final CodeService codeService;
+    private final JudgeQueue judgeQueue;
+    private final ProblemStatisticsWriter problemStatisticsWriter;
+    private final RankingService rankingService;
+    private final JudgeConfig.Rejudge config;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /**
+     * 本实例正在执行的任务：任务ID -> 停止标记
+     */
+    private final Map<String, AtomicBoolean> running = new ConcurrentHashMap<>();
+
+    /**
+     * 本实例所有任务共享的并发名额
+     */
+    private final Semaphore permits;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final long startIntervalNanos;
+    private long nextStartAt = System.nanoTime();
+
+    public RejudgeServiceImpl(MongoTemplate mongoTemplate, CodeService codeService, JudgeQueue judgeQueue,
+                              ProblemStatisticsWriter problemStatisticsWriter, RankingService rankingService,
+                              JudgeConfig judgeConfig) {
+        this.mongoTemplate = mongoTemplate;
+        this.codeService = codeService;
+        this.judgeQueue = judgeQueue;
+        this.problemStatisticsWriter = problemStatisticsWriter;
+        this.rankingService = rankingService;
+        this.config = judgeConfig.getRejudge();
+        this.permits = new Semaphore(Math.max(1, config.getConcurrency()));
+        this.startIntervalNanos = config.getRate() > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / config.getRate()) : 0;
+    }
+
+    @Override
+    public RejudgeJob createJob(RejudgeRequest request, String userId) {
+        boolean hasIds = request.getSubmissionIds() != null && !request.getSubmissionIds().isEmpty();
+        if (request.getProblemId() == null && !hasIds && request.getStartTime() == null && request.getEndTime() == null) {
+            throw new IllegalArgumentException("请指定题目、提交ID或提交时间范围");
+        }
+        if (request.getStartTime() != null && request.getEndTime() != null
+                && !request.getStartTime().isBefore(request.getEndTime())) {
+            throw new IllegalArgumentException("提交时间范围无效");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        RejudgeJob job = RejudgeJob.builder()
+                .problemId(request.getProblemId())
+                .submissionIds(hasIds ? List.copyOf(new LinkedHashSet<>(request.getSubmissionIds())) : null)
+                .startTime(request.getStartTime())
+                .endTime(request.getEndTime())
+                .status(RejudgeStatus.RUNNING)
+                .processed(0L)
+                .changed(0L)
+                .failed(0L)
+                .createdBy(userId)
+                .createdAt(now)
+                .owner(instanceId)
+                .heartbeatAt(now)
+                .build();
+        job.setTotal(mongoTemplate.count(submissionQuery(job), Submission.class));
+        job = mongoTemplate.insert(job);
+
+        log.info("创建重测任务: jobId={}, problemId={}, submissions={}, total={}",
+                job.getId(), job.getProblemId(), hasIds ? job.getSubmissionIds().size() : null, job.getTotal());
+        start(job);
+        return job;
+    }
+
+    @Override
+    public RejudgeJob getJob(String jobId) {
+        return mongoTemplate.findById(jobId, RejudgeJob.class);
+    }
+
+    @Override
+    public List<RejudgeJob> listJobs(int limit) {
+        return mongoTemplate.find(new Query().with(Sort.by(Sort.Direction.DESC, "createdAt"))
+                .limit(Math.max(1, Math.min(limit, 100))), RejudgeJob.class);
+    }
+
+    @Override
+    public RejudgeJob cancelJob(String jobId) {
+        RejudgeJob job = mongoTemplate.findAndModify(
+                query(where("_id").is(jobId).and(STATUS).is(RejudgeStatus.RUNNING)),
+                new Update().set(STATUS, RejudgeStatus.CANCELLED).set("finishedAt", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true), RejudgeJob.class);
+        if (job == null) {
+            return null;
+        }
+        // 其他实例上的任务在保存下一个进度点时发现已取消
+        AtomicBoolean stopped = running.get(jobId);
+        if (stopped != null) {
+            stopped.set(true);
+        }
+        log.info("取消重测任务: jobId={}, processed={}", jobId, job.getProcessed());
+        return job;
+    }
+
+    /**
+     * 为本实例执行的任务续约，并接管租约过期的任务
+     */
+    @Scheduled(fixedDelayString = "${judge.rejudge.poll-interval:10s}")
+    public void pollJobs() {
+        try {
+            renewAndClaim();
+        } catch (Exception e) {
+            log.error("检查重测任务失败", e);
+        }
+    }
+
+    private void renewAndClaim() {
+        LocalDateTime now = LocalDateTime.now();
+        if (!running.isEmpty()) {
+            mongoTemplate.updateMulti(
+                    query(where("_id").in(running.keySet()).and(STATUS).is(RejudgeStatus.RUNNING).and(OWNER).is(instanceId)),
+                    new Update().set(HEARTBEAT_AT, now), RejudgeJob.class);
+        }
+
+        Criteria expired = new Criteria().orOperator(
+                where(HEARTBEAT_AT).is(null),
+                where(HEARTBEAT_AT).lt(now.minus(config.getLeaseTimeout())));
+        RejudgeJob job;
+        while ((job = mongoTemplate.findAndModify(
+                new Query(new Criteria().andOperator(where(STATUS).is(RejudgeStatus.RUNNING), expired)),
+                new Update().set(OWNER, instanceId).set(HEARTBEAT_AT, now),
+                FindAndModifyOptions.options().returnNew(true), RejudgeJob.class)) != null) {
+            log.info("接管重测任务: jobId={}, lastSubmissionId={}, processed={}",
+                    job.getId(), job.getLastSubmissionId(), job.getProcessed());
+            start(job);
+        }
+    }
+
+    /**
+     * 停止本实例的任务并释放租约，由其他实例或重启后的本实例继续执行
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running.values().forEach(stopped -> stopped.set(true));
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+        mongoTemplate.updateMulti(query(where(STATUS).is(RejudgeStatus.RUNNING).and(OWNER).is(instanceId)),
+                new Update().unset(HEARTBEAT_AT), RejudgeJob.class);
+    }
+
+    private void start(RejudgeJob job) {
+        AtomicBoolean stopped = new AtomicBoolean();
+        if (running.putIfAbsent(job.getId(), stopped) != null) {
+            return;
+        }
+        executor.submit(() -> {
+            try {
+                run(job, stopped);
+            } finally {
+                running.remove(job.getId());
+            }
+        });
+    }
+
+    /**
+     * 从进度点之后逐批读取提交并重测，每批重新查询，进度点在每批完成后前移
+     */
+    void run(RejudgeJob job, AtomicBoolean stopped) {
+        int batchSize = Math.max(1, config.getBatchSize());
+        try {
+            while (true) {
+                awaitQueueDrained(stopped);
+                if (stopped.get()) {
+                    log.info("重测任务已停止: jobId={}, lastSubmissionId={}", job.getId(), job.getLastSubmissionId());
+                    return;
+                }
+                List<Submission> batch = mongoTemplate.find(
+                        submissionQuery(job).with(Sort.by(Sort.Direction.ASC, "_id")).limit(batchSize), Submission.class);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                if (!rejudgeBatch(job, batch, stopped)) {
+                    log.info("重测任务已停止: jobId={}, lastSubmissionId={}", job.getId(), job.getLastSubmissionId());
+                    return;
+                }
+                if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            log.error("重测任务失败: jobId={}", job.getId(), e);
+            finish(job, RejudgeStatus.FAILED, e.getMessage());
+            return;
+        }
+        finish(job, RejudgeStatus.COMPLETED, null);
+    }
+
+    /**
+     * 重测一批提交并保存进度点
+     *
+     * @return 是否继续执行，任务被取消、租约丢失或实例退出时返回false
+     */
+    private boolean rejudgeBatch(RejudgeJob job, List<Submission> batch, AtomicBoolean stopped) throws InterruptedException {
+        // 按顺序开始评测，停止时已开始的提交构成连续的前缀，进度点不会跳过未评测的提交
+        List<CompletableFuture<Outcome>> futures = new ArrayList<>(batch.size());
+        for (Submission submission : batch) {
+            if (stopped.get()) {
+                break;
+            }
+            pace();
+            permits.acquire();
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return rejudge(submission);
+                } finally {
+                    permits.release();
+                }
+            }, executor));
+        }
+        if (futures.isEmpty()) {
+            return false;
+        }
+        List<Outcome> outcomes = futures.stream().map(CompletableFuture::join).toList();
+
+        writeResults(outcomes);
+        return checkpoint(job, outcomes) && futures.size() == batch.size();
+    }
+
+    /**
+     * 单个提交的重测结果
+     *
+     * @param submission 写入新结果后的提交记录
+     * @param previousStatus 重测前的状态
+     * @param previousPassedCount 重测前的通过用例数
+     * @param result 评测结果，评测异常时为null
+     */
+    private record Outcome(Submission submission, String previousStatus, Integer previousPassedCount,
+                           TestCaseSetResult result) {
+
+        boolean isFailed() {
+            return result == null;
+        }
+
+        boolean isChanged() {
+            return !isFailed() && (!Objects.equals(previousStatus, submission.getStatus())
+                    || !Objects.equals(previousPassedCount, submission.getPassedCount()));
+        }
+    }
+
+    private Outcome rejudge(Submission submission) {
+        String previousStatus = submission.getStatus();
+        Integer previousPassedCount = submission.getPassedCount();
+        try {
+            TestCaseSetResult result = codeService.rejudge(submission);
+            return new Outcome(submission, previousStatus, previousPassedCount, result);
+        } catch (Exception e) {
+            log.error("重测提交失败，保留原结果: submissionId={}", submission.getId(), e);
+            return new Outcome(submission, previousStatus, previousPassedCount, null);
+        }
+    }
+
+    /**
+     * 批量写入提交结果，修正题目计数，重建结果变化涉及通过提交的题目排行榜
+     */
+    private void writeResults(List<Outcome> outcomes) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Submission.class);
+        Map<String, Map<String, Integer>> deltas = new LinkedHashMap<>();
+        Set<String> rankingProblems = new LinkedHashSet<>();
+        int updates = 0;
+        for (Outcome outcome : outcomes) {
+            if (outcome.isFailed()) {
+                continue;
+            }
+            Submission submission = outcome.submission();
+            bulk.updateOne(query(where("_id").is(submission.getId())), new Update()
+                    .set(STATUS, submission.getStatus())
+                    .set("passedCount", submission.getPassedCount())
+                    .set("totalCount", submission.getTotalCount())
+                    .set("executionTime", submission.getExecutionTime())
+                    .set("memoryUsed", submission.getMemoryUsed())
+                    .set("compileError", submission.getCompileError())
+                    .set("score", submission.getScore())
+                    .set("firstInput", submission.getFirstInput())
+                    .set("firstExpectedOutput", submission.getFirstExpectedOutput())
+                    .set("firstOutput", submission.getFirstOutput()));
+            updates++;
+
+            String previousCounter = ProblemStatisticsWriter.counterOfStatus(outcome.previousStatus());
+            String counter = ProblemStatisticsWriter.counterOfStatus(submission.getStatus());
+            if (!Objects.equals(previousCounter, counter)) {
+                Map<String, Integer> delta = deltas.computeIfAbsent(submission.getProblemId(), k -> new LinkedHashMap<>());
+                if (previousCounter != null) {
+                    delta.merge(previousCounter, -1, Integer::sum);
+                }
+                if (counter != null) {
+                    delta.merge(counter, 1, Integer::sum);
+                }
+            }
+            if (ExecutionStatus.ACCEPTED.getCode().equals(outcome.previousStatus())
+                    || ExecutionStatus.ACCEPTED.getCode().equals(submission.getStatus())) {
+                rankingProblems.add(submission.getProblemId());
+            }
+        }
+        if (updates == 0) {
+            return;
+        }
+        bulk.execute();
+        problemStatisticsWriter.apply(deltas);
+        for (String problemId : rankingProblems) {
+            try {
+                rankingService.rebuild(problemId);
+            } catch (Exception e) {
+                log.error("重测后重建排行榜失败: problemId={}", problemId, e);
+            }
+        }
+    }
+
+    /**
+     * 保存进度点，只有仍由本实例执行且未取消的任务才会更新
+     *
+     * @return 是否保存成功
+     */
+    private boolean checkpoint(RejudgeJob job, List<Outcome> outcomes) {
+        String lastSubmissionId = outcomes.get(outcomes.size() - 1).submission().getId();
+        long changed = outcomes.stream().filter(Outcome::isChanged).count();
+        long failed = outcomes.stream().filter(Outcome::isFailed).count();
+        boolean saved = mongoTemplate.updateFirst(
+                query(where("_id").is(job.getId()).and(STATUS).is(RejudgeStatus.RUNNING).and(OWNER).is(instanceId)),
+                new Update()
+                        .set("lastSubmissionId", lastSubmissionId)
+                        .set(HEARTBEAT_AT, LocalDateTime.now())
+                        .inc("processed", outcomes.size())
+                        .inc("changed", changed)
+                        .inc("failed", failed),
+                RejudgeJob.class).getMatchedCount() > 0;
+        job.setLastSubmissionId(lastSubmissionId);
+        log.debug("重测进度: jobId={}, lastSubmissionId={}, batch={}, changed={}, failed={}",
+                job.getId(), lastSubmissionId, outcomes.size(), changed, failed);
+        return saved;
+    }
+
+    private void finish(RejudgeJob job, RejudgeStatus status, String error) {
+        Update update = new Update().set(STATUS, status).set("finishedAt", LocalDateTime.now());
+        if (error != null) {
+            update.set("error", error);
+        }
+        mongoTemplate.updateFirst(
+                query(where("_id").is(job.getId()).and(STATUS).is(RejudgeStatus.RUNNING).and(OWNER).is(instanceId)),
+                update, RejudgeJob.class);
+        log.info("重测任务结束: jobId={}, status={}", job.getId(), status);
+    }
+
+    /**
+     * 评测队列积压时在读取下一批之前等待，正常提交优先
+     */
+    private void awaitQueueDrained(AtomicBoolean stopped) throws InterruptedException {
+        int threshold = config.getPauseQueueSize();
+        while (threshold > 0 && !stopped.get() && judgeQueue.size() >= threshold) {
+            Thread.sleep(config.getPollInterval().toMillis());
+        }
+    }
+
+    /**
+     * 按配置的速率限制开始评测的间隔，所有任务共享
+     */
+    private void pace() throws InterruptedException {
+        if (startIntervalNanos <= 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long startAt = Math.max(now, nextStartAt);
+            nextStartAt = startAt + startIntervalNanos;
+            waitNanos = startAt - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * 任务的提交筛选条件，已保存进度点时只读取进度点之后的提交；待评测和评测中的提交由评测队列处理，不参与重测
+     */
+    private static Query submissionQuery(RejudgeJob job) {
+        List<Criteria> criteria = new ArrayList<>();
+        criteria.add(where(STATUS).nin(ExecutionStatus.PENDING.getCode(), ExecutionStatus.JUDGING.getCode()));
+        if (job.getProblemId() != null) {
+            criteria.add(where("problemId").is(job.getProblemId()));
+        }
+        if (job.getSubmissionIds() != null && !job.getSubmissionIds().isEmpty()) {
+            criteria.add(where("_id").in(job.getSubmissionIds()));
+        }
+        if (job.getStartTime() != null) {
+            criteria.add(where("submissionTime").gte(job.getStartTime()));
+        }
+        if (job.getEndTime() != null) {
+            criteria.add(where("submissionTime").lt(job.getEndTime()));
+        }
+        if (job.getLastSubmissionId() != null) {
+            criteria.add(where("_id").gt(job.getLastSubmissionId()));
+        }
+        return new Query(new Criteria().andOperator(criteria));
+    }
+}
@@ -0,0 +1,331 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.SandboxConfig;
+import com.dong.judge.model.dto.sandbox.RunRequest;
+import com.dong.judge.model.enums.StatusEnum;
+import com.dong.judge.model.vo.sandbox.RunResult;
+import com.dong.judge.util.HashUtil;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * 运行结果缓存
+ * <p>
+ * 以（程序摘要, 输入摘要, 资源限制）为键缓存沙箱运行结果，相同程序在相同输入下重复运行时直接返回上次的结果。
+ * 程序摘要由源代码、编译或运行命令、命令行参数和额外文件组成，编译型语言视编译结果由源代码和编译命令唯一确定。
+ * 本地按条目数和输出大小做 LRU 淘汰；启用 Redis 二级缓存时本地未命中再查询 Redis，命中后放入本地。
+ * 只缓存沙箱正常返回的结果，可选跳过时间超限和沙箱内部错误。
+ * </p>
+ */
+@Slf4j
+public class RunResultCache {
+
+    /**
+     * 缓存键
+     *
+     * @param hash 程序、输入和资源限制的SHA-256
+     */
+    public record Key(String hash) {
+
+        /**
+         * 计算运行请求的缓存键
+         *
+         * @param request    运行请求
+         * @param langConfig 语言配置
+         * @param compiled   是否运行编译产物
+         * @return 缓存键，请求不带源代码（无法确定运行的程序）时返回null
+         */
+        public static Key of(RunRequest request, SandboxConfig.LanguageConfig langConfig, boolean compiled) {
+            if (request.getCode() == null) {
+                return null;
+            }
+            StringBuilder key = new StringBuilder();
+            if (compiled) {
+                key.append("compiled|").append(join(langConfig.getCompileCommand()))
+                        .append('|').append(langConfig.getCompileOutFile());
+            } else {
+                key.append("interpreted|").append(join(langConfig.getRunCommand()))
+                        .append('|').append(langConfig.getSourceFile());
+            }
+            key.append('|').append(HashUtil.sha256Hex(request.getCode()));
+            key.append('|').append(request.getInput() != null || request.getInputHash() == null
+                    ? HashUtil.sha256Hex(request.getInput()) : request.getInputHash());
+            key.append('|').append(langConfig.getCpuLimit())
+                    .append('|').append(langConfig.getMemoryLimit())
+                    .append('|').append(langConfig.getProcLimit());
+            if (request.getArgs() != null) {
+                key.append("|args");
+                request.getArgs().forEach(arg -> key.append('\0').append(arg));
+            }
+            if (request.getFiles() != null) {
+                key.append("|files");
+                new TreeMap<>(request.getFiles()).forEach((name, content) ->
+                        key.append('\0').append(name).append('=').append(HashUtil.sha256Hex(content)));
+            }
+            if (request.isBatched() && langConfig.getBatchRunCommand() != null) {
+                // 批量运行的时间和内存与单独运行不同
+                key.append("|batched");
+            }
+            return new Key(HashUtil.sha256Hex(key.toString()));
+        }
+
+        private static String join(List<String> command) {
+            return command != null ? String.join(" ", command) : "";
+        }
+    }
+
+    private record Entry(RunResult result, long weight, long createdAt) {
+    }
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final boolean skipUnstable;
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader resultReader;
+    private final Clock clock;
+
+    /**
+     * 按访问顺序排列，最久未使用的在最前
+     */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final Counter localHitCounter;
+    private final Counter redisHitCounter;
+    private final Counter missCounter;
+    private final Counter evictionCounter;
+
+    /**
+     * @param config        缓存配置
+     * @param redisTemplate Redis 客户端，为null时不使用二级缓存
+     * @param objectMapper  二级缓存中运行结果的序列化
+     * @param meterRegistry 指标注册表
+     */
+    public RunResultCache(SandboxConfig.ResultCache config, StringRedisTemplate redisTemplate,
+                          ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this(config, redisTemplate, objectMapper, meterRegistry, Clock.systemUTC());
+    }
+
+    RunResultCache(SandboxConfig.ResultCache config, StringRedisTemplate redisTemplate,
+                   ObjectMapper objectMapper, MeterRegistry meterRegistry, Clock clock) {
+        this.maxEntries = Math.max(1, config.getMaxEntries());
+        this.maxBytes = config.getMaxSize().toBytes();
+        this.ttlMillis = config.getTtl().toMillis();
+        this.skipUnstable = config.isSkipUnstable();
+        this.redisTemplate = config.isRedisEnabled() ? redisTemplate : null;
+        this.keyPrefix = config.getKeyPrefix();
+        this.objectMapper = objectMapper;
+        this.resultReader = objectMapper.readerFor(RunResult.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.clock = clock;
+        this.localHitCounter = Counter.builder("sandbox.result.cache.requests")
+                .tag("result", "hit").tag("level", "local").register(meterRegistry);
+        this.redisHitCounter = Counter.builder("sandbox.result.cache.requests")
+                .tag("result", "hit").tag("level", "redis").register(meterRegistry);
+        this.missCounter = Counter.builder("sandbox.result.cache.requests")
+                .tag("result", "miss").tag("level", "none").register(meterRegistry);
+        this.evictionCounter = Counter.builder("sandbox.result.cache.evictions").register(meterRegistry);
+        Gauge.builder("sandbox.result.cache.size", this, RunResultCache::size).register(meterRegistry);
+        Gauge.builder("sandbox.result.cache.bytes", this, RunResultCache::bytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 批量查询运行结果
+     * <p>
+     * 本地未命中的键合并为一次 Redis MGET 查询，Redis 不可用时视为未命中
+     * </p>
+     *
+     * @param keys 缓存键，元素可以为null（不可缓存的请求）
+     * @return 与键顺序一致的结果副本，未命中的位置为null
+     */
+    public List<RunResult> getAll(List<Key> keys) {
+        List<RunResult> results = new ArrayList<>(keys.size());
+        List<Integer> remote = new ArrayList<>();
+        synchronized (this) {
+            for (int i = 0; i < keys.size(); i++) {
+                Entry entry = keys.get(i) != null ? entries.get(keys.get(i)) : null;
+                if (entry != null && isExpired(entry)) {
+                    remove(keys.get(i));
+                    entry = null;
+                }
+                results.add(entry != null ? copy(entry.result()) : null);
+                if (entry == null && keys.get(i) != null) {
+                    remote.add(i);
+                }
+            }
+        }
+        localHitCounter.increment(keys.stream().filter(Objects::nonNull).count() - remote.size());
+
+        int redisHits = 0;
+        if (redisTemplate != null && !remote.isEmpty()) {
+            List<String> values = multiGet(remote.stream().map(i -> keyPrefix + keys.get(i).hash()).toList());
+            for (int j = 0; j < remote.size() && j < values.size(); j++) {
+                RunResult result = parse(values.get(j));
+                // 旧版本实例可能写入过现在不缓存的结果
+                if (result != null && isCacheable(result)) {
+                    int index = remote.get(j);
+                    putLocal(keys.get(index), result);
+                    results.set(index, copy(result));
+                    redisHits++;
+                }
+            }
+        }
+        redisHitCounter.increment(redisHits);
+        missCounter.increment(remote.size() - redisHits);
+        return results;
+    }
+
+    /**
+     * 查询单个运行结果
+     *
+     * @param key 缓存键，为null时直接返回null
+     * @return 结果副本，未命中返回null
+     */
+    public RunResult get(Key key) {
+        if (key == null) {
+            return null;
+        }
+        return getAll(List.of(key)).get(0);
+    }
+
+    /**
+     * 缓存运行结果，不可缓存的结果直接忽略
+     *
+     * @param key    缓存键，为null时忽略
+     * @param result 沙箱返回的运行结果
+     */
+    public void put(Key key, RunResult result) {
+        if (key == null || !isCacheable(result)) {
+            return;
+        }
+        RunResult stored = copy(result);
+        putLocal(key, stored);
+        if (redisTemplate != null) {
+            try {
+                redisTemplate.opsForValue().set(keyPrefix + key.hash(), objectMapper.writeValueAsString(stored),
+                        Duration.ofMillis(ttlMillis));
+            } catch (Exception e) {
+                log.warn("写入运行结果二级缓存失败: key={}", key.hash(), e);
+            }
+        }
+    }
+
+    /**
+     * 运行结果是否可以缓存：只缓存沙箱正常返回的结果，本服务产生的错误不缓存。
+     * 文件错误（如引用的编译产物已从沙箱中删除）和被沙箱信号终止取决于沙箱环境而不是程序，同样不缓存
+     */
+    boolean isCacheable(RunResult result) {
+        if (result == null || result.getStatus() == null || result.getErrorMessage() != null) {
+            return false;
+        }
+        StatusEnum status = StatusEnum.fromValue(result.getStatus());
+        if (status == StatusEnum.ERROR || status == StatusEnum.COMPILE_ERROR
+                || status == StatusEnum.FILE_ERROR || status == StatusEnum.SIGNALLED) {
+            return false;
+        }
+        return !skipUnstable || (status != StatusEnum.TIME_LIMIT_EXCEEDED && status != StatusEnum.INTERNAL_ERROR);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long bytes() {
+        return totalBytes;
+    }
+
+    private synchronized void putLocal(Key key, RunResult result) {
+        long weight = weigh(result);
+        if (weight > maxBytes) {
+            return;
+        }
+        remove(key);
+        entries.put(key, new Entry(result, weight, clock.millis()));
+        totalBytes += weight;
+        Iterator<Entry> it = entries.values().iterator();
+        while ((entries.size() > maxEntries || totalBytes > maxBytes) && it.hasNext()) {
+            totalBytes -= it.next().weight();
+            it.remove();
+            evictionCounter.increment();
+        }
+    }
+
+    private void remove(Key key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            totalBytes -= removed.weight();
+        }
+    }
+
+    private boolean isExpired(Entry entry) {
+        return ttlMillis > 0 && clock.millis() - entry.createdAt() > ttlMillis;
+    }
+
+    private List<String> multiGet(List<String> redisKeys) {
+        try {
+            List<String> values = redisTemplate.opsForValue().multiGet(redisKeys);
+            return values != null ? values : List.of();
+        } catch (Exception e) {
+            log.warn("查询运行结果二级缓存失败: keys={}", redisKeys.size(), e);
+            return List.of();
+        }
+    }
+
+    private RunResult parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return resultReader.readValue(value);
+        } catch (Exception e) {
+            log.warn("解析运行结果二级缓存失败", e);
+            return null;
+        }
+    }
+
+    /**
+     * 估算结果占用的内存：输出按每字符2字节计算，加上对象本身的固定开销
+     */
+    private static long weigh(RunResult result) {
+        long chars = (result.getStdout() != null ? result.getStdout().length() : 0)
+                + (result.getStderr() != null ? result.getStderr().length() : 0)
+                + (result.getStatus() != null ? result.getStatus().length() : 0);
+        return 128 + chars * 2;
+    }
+
+    /**
+     * 缓存中的结果与调用方互不共享，避免调用方修改影响后续命中
+     */
+    private static RunResult copy(RunResult result) {
+        return RunResult.builder()
+                .status(result.getStatus())
+                .exitStatus(result.getExitStatus())
+                .time(result.getTime())
+                .memory(result.getMemory())
+                .runTime(result.getRunTime())
+                .stdout(result.getStdout())
+                .stderr(result.getStderr())
+                .errorMessage(result.getErrorMessage())
+                .build();
+    }
+}
@@ -0,0 +1,168 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.SandboxConfig;
+import com.dong.judge.service.TestDataStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 沙箱预上传文件缓存
+ * <p>
+ * 以（节点, 测试数据摘要）为键缓存已通过 go-judge /file 上传的文件ID，
+ * 同一份测试输入在每个节点上只上传一次，运行时以 fileId 引用而不是在请求体中内联传输。
+ * 超出容量时按最久未使用从沙箱中删除。
+ * </p>
+ */
+@Slf4j
+@Component
+public class SandboxFileCache {
+
+    private record Key(String node, String hash) {
+    }
+
+    private final SandboxHttpClient httpClient;
+    private final TestDataStore testDataStore;
+    private final int maxEntries;
+
+    /**
+     * 按访问顺序排列，最久未使用的在最前
+     */
+    private final LinkedHashMap<Key, String> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 正在上传的文件，并发请求同一文件时等待同一次上传
+     */
+    private final Map<Key, CompletableFuture<String>> uploading = new ConcurrentHashMap<>();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public SandboxFileCache(SandboxHttpClient httpClient,
+                            TestDataStore testDataStore,
+                            SandboxConfig sandboxConfig,
+                            MeterRegistry meterRegistry) {
+        this.httpClient = httpClient;
+        this.testDataStore = testDataStore;
+        this.maxEntries = Math.max(1, sandboxConfig.getPreload().getMaxEntries());
+        this.hitCounter = Counter.builder("sandbox.file.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder("sandbox.file.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("sandbox.file.cache.size", this, SandboxFileCache::size)
+                .description("已预上传到沙箱的测试数据文件数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 查询已上传的文件，不触发上传
+     *
+     * @return 文件ID，未上传时返回null
+     */
+    public synchronized String peek(SandboxNode node, String hash) {
+        return entries.get(new Key(node.getUrl(), hash));
+    }
+
+    /**
+     * 获取测试数据在节点上的文件ID，未上传时从测试数据存储读取并上传
+     *
+     * @param node 沙箱节点
+     * @param hash 测试数据摘要
+     * @return 文件ID
+     */
+    public String fileIdOf(SandboxNode node, String hash) {
+        Key key = new Key(node.getUrl(), hash);
+        synchronized (this) {
+            String fileId = entries.get(key);
+            if (fileId != null) {
+                hitCounter.increment();
+                return fileId;
+            }
+        }
+
+        CompletableFuture<String> upload = new CompletableFuture<>();
+        CompletableFuture<String> existing = uploading.putIfAbsent(key, upload);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw new IllegalStateException("上传测试数据失败: " + hash, e.getCause());
+            }
+        }
+
+        missCounter.increment();
+        try {
+            byte[] content = testDataStore.get(hash).getBytes(StandardCharsets.UTF_8);
+            String fileId = httpClient.upload(node.getUrl(), "/file", hash, content);
+            log.debug("预上传测试数据: hash={}, size={}, node={}, fileId={}", hash, content.length, node, fileId);
+
+            List<Map.Entry<Key, String>> evicted = new ArrayList<>();
+            synchronized (this) {
+                entries.put(key, fileId);
+                Iterator<Map.Entry<Key, String>> it = entries.entrySet().iterator();
+                while (entries.size() > maxEntries && it.hasNext()) {
+                    Map.Entry<Key, String> eldest = it.next();
+                    evicted.add(Map.entry(eldest.getKey(), eldest.getValue()));
+                    it.remove();
+                }
+            }
+            evicted.forEach(entry -> delete(entry.getKey(), entry.getValue()));
+            upload.complete(fileId);
+            return fileId;
+        } catch (Exception e) {
+            upload.completeExceptionally(e);
+            throw new IllegalStateException("上传测试数据失败: " + hash, e);
+        } finally {
+            uploading.remove(key, upload);
+        }
+    }
+
+    /**
+     * 移除失效的文件，例如沙箱重启后文件已不存在
+     */
+    public void invalidate(SandboxNode node, String hash) {
+        String fileId;
+        synchronized (this) {
+            fileId = entries.remove(new Key(node.getUrl(), hash));
+        }
+        if (fileId != null) {
+            log.info("预上传文件失效: hash={}, node={}, fileId={}", hash, node, fileId);
+        }
+    }
+
+    /**
+     * 退出时删除所有预上传的文件
+     */
+    @PreDestroy
+    public void clear() {
+        List<Map.Entry<Key, String>> all;
+        synchronized (this) {
+            all = new ArrayList<>(entries.entrySet());
+            entries.clear();
+        }
+        all.forEach(entry -> delete(entry.getKey(), entry.getValue()));
+    }
+
+    private void delete(Key key, String fileId) {
+        try {
+            httpClient.delete(key.node(), "/file/{fileId}", fileId);
+        } catch (Exception e) {
+            log.warn("删除预上传文件失败: node={}, fileId={}", key.node(), fileId, e);
+        }
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+}
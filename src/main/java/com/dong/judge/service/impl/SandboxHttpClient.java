@@ -0,0 +1,262 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.SandboxConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 沙箱HTTP调用层
+ * <p>
+ * 统一封装对 go-judge 的同步（连接池 RestTemplate）和异步（JDK HttpClient）调用，
+ * 并记录每次请求的耗时指标 sandbox.http.requests{method, path, outcome}
+ * </p>
+ */
+@Slf4j
+@Component
+public class SandboxHttpClient {
+
+    private final RestTemplate restTemplate;
+    private final HttpClient asyncClient;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Duration readTimeout;
+    private final AtomicInteger asyncInFlight = new AtomicInteger();
+
+    public SandboxHttpClient(RestTemplate restTemplate,
+                             @Qualifier("sandboxAsyncHttpClient") HttpClient asyncClient,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             SandboxConfig sandboxConfig) {
+        this.restTemplate = restTemplate;
+        this.asyncClient = asyncClient;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.readTimeout = sandboxConfig.resolveReadTimeout();
+        Gauge.builder("sandbox.http.async.in-flight", asyncInFlight, AtomicInteger::get)
+                .description("正在进行的沙箱异步请求数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 同步POST请求
+     *
+     * @param baseUrl 沙箱地址
+     * @param path 请求路径，如 /run
+     * @param body 请求体
+     * @return 响应体
+     */
+    public JsonNode post(String baseUrl, String path, JsonNode body) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        byte[] requestBytes = objectMapper.writeValueAsBytes(body);
+        HttpEntity<byte[]> entity = new HttpEntity<>(requestBytes, headers);
+
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            recordBytes("sent", path, requestBytes.length);
+            ResponseEntity<byte[]> response = restTemplate.exchange(baseUrl + path, HttpMethod.POST, entity, byte[].class);
+            byte[] responseBytes = response.getBody();
+            if (responseBytes == null) {
+                return null;
+            }
+            recordBytes("received", path, responseBytes.length);
+            return objectMapper.readTree(responseBytes);
+        } catch (RuntimeException | IOException e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            record("POST", path, outcome, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 异步POST请求，等待响应期间不占用调用线程
+     *
+     * @param baseUrl 沙箱地址
+     * @param path 请求路径，如 /run
+     * @param body 请求体
+     * @return 响应体
+     */
+    public CompletableFuture<JsonNode> postAsync(String baseUrl, String path, JsonNode body) {
+        HttpRequest request;
+        try {
+            byte[] requestBytes = objectMapper.writeValueAsBytes(body);
+            request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(readTimeout)
+                    .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(requestBytes))
+                    .build();
+            recordBytes("sent", path, requestBytes.length);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        long start = System.nanoTime();
+        asyncInFlight.incrementAndGet();
+        return asyncClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    recordBytes("received", path, response.body().length);
+                    if (response.statusCode() >= 400) {
+                        throw new IllegalStateException("沙箱返回错误状态码: " + response.statusCode());
+                    }
+                    try {
+                        return objectMapper.readTree(response.body());
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                })
+                .whenComplete((result, error) -> {
+                    asyncInFlight.decrementAndGet();
+                    record("POST", path, error == null ? "success" : outcomeOf(error), System.nanoTime() - start);
+                });
+    }
+
+    /**
+     * 上传文件到沙箱（go-judge 的 POST /file）
+     *
+     * @param baseUrl 沙箱地址
+     * @param path 请求路径，如 /file
+     * @param fileName 文件名
+     * @param content 文件内容
+     * @return 沙箱返回的 fileId
+     */
+    public String upload(String baseUrl, String path, String fileName, byte[] content) throws IOException {
+        MultiValueMap<String, Object> form = new LinkedMultiValueMap<>();
+        form.add("file", new ByteArrayResource(content) {
+            @Override
+            public String getFilename() {
+                return fileName;
+            }
+        });
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            recordBytes("sent", path, content.length);
+            String response = restTemplate.postForObject(baseUrl + path, new HttpEntity<>(form, headers), String.class);
+            if (response == null || response.isBlank()) {
+                throw new IOException("沙箱未返回文件ID");
+            }
+            // go-judge 返回 JSON 字符串形式的 fileId
+            return response.trim().startsWith("\"") ? objectMapper.readValue(response, String.class) : response.trim();
+        } catch (RuntimeException | IOException e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            record("POST", path, outcome, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 同步DELETE请求
+     *
+     * @param baseUrl 沙箱地址
+     * @param pathTemplate 路径模板，如 /file/{fileId}
+     * @param uriVariables 路径变量
+     */
+    public void delete(String baseUrl, String pathTemplate, Object... uriVariables) {
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            restTemplate.delete(baseUrl + pathTemplate, uriVariables);
+        } catch (RuntimeException e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            record("DELETE", pathTemplate, outcome, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 健康检查GET请求
+     *
+     * @param baseUrl 沙箱地址
+     * @param path 请求路径，如 /version
+     * @param timeout 超时时间
+     * @return 返回2xx时为true
+     */
+    public boolean probe(String baseUrl, String path, Duration timeout) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .GET()
+                .build();
+
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            HttpResponse<Void> response = asyncClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() / 100 == 2) {
+                outcome = "success";
+            }
+        } catch (IOException e) {
+            outcome = outcomeOf(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            record("GET", path, outcome, System.nanoTime() - start);
+        }
+        return "success".equals(outcome);
+    }
+
+    private void record(String method, String path, String outcome, long nanos) {
+        Timer.builder("sandbox.http.requests")
+                .description("沙箱HTTP请求耗时")
+                .tag("method", method)
+                .tag("path", path)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(Duration.ofNanos(nanos));
+    }
+
+    private void recordBytes(String direction, String path, long bytes) {
+        DistributionSummary.builder("sandbox.http.bytes")
+                .description("沙箱HTTP请求和响应的字节数")
+                .baseUnit("bytes")
+                .tag("direction", direction)
+                .tag("path", path)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    private static String outcomeOf(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof HttpTimeoutException || t instanceof SocketTimeoutException) {
+                return "timeout";
+            }
+        }
+        return "error";
+    }
+}
@@ -0,0 +1,95 @@
+package com.dong.judge.service.impl;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 沙箱节点
+ * <p>
+ * 记录节点的在途请求数、健康检查结果和因连续失败被移出轮换的截止时间
+ * </p>
+ */
+public class SandboxNode {
+
+    @Getter
+    private final String url;
+
+    @Getter
+    private final int weight;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    /**
+     * 最近一次健康检查是否通过
+     */
+    @Getter
+    private volatile boolean healthy = true;
+
+    /**
+     * 移出轮换的截止时间（毫秒），0表示未被移出
+     */
+    private volatile long ejectedUntil;
+
+    public SandboxNode(String url, int weight) {
+        this.url = url;
+        this.weight = Math.max(1, weight);
+    }
+
+    /**
+     * 当前在途请求数
+     */
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    /**
+     * 节点在指定时间是否可以接收新请求
+     *
+     * @param now 当前时间（毫秒）
+     * @return 健康且未被移出轮换时为true
+     */
+    public boolean isAvailable(long now) {
+        return healthy && now >= ejectedUntil;
+    }
+
+    /**
+     * 按权重归一化的负载，越小越空闲
+     */
+    double load() {
+        return (outstanding.get() + 1) / (double) weight;
+    }
+
+    void begin() {
+        outstanding.incrementAndGet();
+    }
+
+    /**
+     * 请求结束
+     *
+     * @return 当前连续失败次数
+     */
+    int complete(boolean success) {
+        outstanding.decrementAndGet();
+        if (success) {
+            consecutiveFailures.set(0);
+            return 0;
+        }
+        return consecutiveFailures.incrementAndGet();
+    }
+
+    void setHealthy(boolean healthy) {
+        this.healthy = healthy;
+    }
+
+    void eject(long until) {
+        this.ejectedUntil = until;
+        consecutiveFailures.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+}
@@ -0,0 +1,191 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.SandboxConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 沙箱节点负载均衡器
+ * <p>
+ * 按权重归一化的最少在途请求选择节点，负载相同时轮询；
+ * 定期探测 /version，连续失败达到阈值的节点在一段时间内移出轮换。
+ * go-judge 的 fileId 只在产生它的节点上有效，因此编译产物会固定在编译节点上。
+ * </p>
+ */
+@Slf4j
+@Component
+public class SandboxNodeBalancer {
+
+    private final List<SandboxNode> nodes;
+    private final SandboxHttpClient httpClient;
+    private final SandboxConfig.Balancer config;
+    private final Clock clock;
+
+    /**
+     * fileId -> 产生该文件的节点
+     */
+    private final Map<String, SandboxNode> pinnedFiles = new ConcurrentHashMap<>();
+
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    @Autowired
+    public SandboxNodeBalancer(SandboxConfig sandboxConfig,
+                               SandboxHttpClient httpClient,
+                               MeterRegistry meterRegistry,
+                               @Value("${sandbox.api.url:}") String defaultUrl) {
+        this(sandboxConfig, httpClient, meterRegistry, defaultUrl, Clock.systemUTC());
+    }
+
+    SandboxNodeBalancer(SandboxConfig sandboxConfig,
+                        SandboxHttpClient httpClient,
+                        MeterRegistry meterRegistry,
+                        String defaultUrl,
+                        Clock clock) {
+        this.httpClient = httpClient;
+        this.config = sandboxConfig.getBalancer();
+        this.clock = clock;
+
+        List<SandboxNode> configured = new ArrayList<>();
+        for (SandboxConfig.Node node : sandboxConfig.getNodes()) {
+            configured.add(new SandboxNode(node.getUrl(), node.getWeight()));
+        }
+        if (configured.isEmpty()) {
+            if (defaultUrl == null || defaultUrl.isEmpty()) {
+                throw new IllegalStateException("未配置沙箱节点: sandbox.nodes 或 sandbox.api.url");
+            }
+            configured.add(new SandboxNode(defaultUrl, 1));
+        }
+        this.nodes = Collections.unmodifiableList(configured);
+
+        for (SandboxNode node : nodes) {
+            Gauge.builder("sandbox.node.outstanding", node, SandboxNode::getOutstanding)
+                    .tag("node", node.getUrl())
+                    .register(meterRegistry);
+            Gauge.builder("sandbox.node.available", node, n -> n.isAvailable(clock.millis()) ? 1 : 0)
+                    .tag("node", node.getUrl())
+                    .register(meterRegistry);
+        }
+        log.info("沙箱节点: {}", nodes);
+    }
+
+    /**
+     * 选择负载最低的可用节点
+     * <p>
+     * 所有节点都不可用时退化为在全部节点中选择，避免因探测误判导致评测全部失败
+     * </p>
+     *
+     * @return 沙箱节点
+     */
+    public SandboxNode select() {
+        long now = clock.millis();
+        List<SandboxNode> candidates = new ArrayList<>(nodes.size());
+        for (SandboxNode node : nodes) {
+            if (node.isAvailable(now)) {
+                candidates.add(node);
+            }
+        }
+        if (candidates.isEmpty()) {
+            candidates = nodes;
+        }
+
+        int size = candidates.size();
+        int start = Math.floorMod(cursor.getAndIncrement(), size);
+        SandboxNode best = null;
+        for (int i = 0; i < size; i++) {
+            SandboxNode node = candidates.get((start + i) % size);
+            if (best == null || node.load() < best.load()) {
+                best = node;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 获取文件所在节点
+     *
+     * @param fileId 文件ID
+     * @return 产生该文件的节点，未知文件按 {@link #select()} 选择
+     */
+    public SandboxNode nodeOf(String fileId) {
+        SandboxNode node = fileId != null ? pinnedFiles.get(fileId) : null;
+        return node != null ? node : select();
+    }
+
+    /**
+     * 节点当前是否可用
+     */
+    public boolean isAvailable(SandboxNode node) {
+        return node.isAvailable(clock.millis());
+    }
+
+    /**
+     * 将文件固定到产生它的节点
+     */
+    public void pin(String fileId, SandboxNode node) {
+        pinnedFiles.put(fileId, node);
+    }
+
+    /**
+     * 取消文件固定
+     *
+     * @return 文件原所在节点，未知文件返回null
+     */
+    public SandboxNode unpin(String fileId) {
+        return pinnedFiles.remove(fileId);
+    }
+
+    /**
+     * 请求开始，增加节点在途请求数
+     */
+    public void begin(SandboxNode node) {
+        node.begin();
+    }
+
+    /**
+     * 请求结束，连续失败达到阈值时将节点移出轮换
+     *
+     * @param node 节点
+     * @param success 请求是否成功
+     */
+    public void complete(SandboxNode node, boolean success) {
+        int failures = node.complete(success);
+        if (failures >= config.getFailureThreshold()) {
+            node.eject(clock.millis() + config.getEjectDuration().toMillis());
+            log.warn("沙箱节点连续失败 {} 次，移出轮换 {}: {}", failures, config.getEjectDuration(), node);
+        }
+    }
+
+    /**
+     * 定期探测所有节点的 /version
+     */
+    @Scheduled(fixedDelayString = "${sandbox.balancer.probe-interval:10s}")
+    public void probe() {
+        for (SandboxNode node : nodes) {
+            boolean healthy = httpClient.probe(node.getUrl(), "/version", config.getProbeTimeout());
+            if (healthy != node.isHealthy()) {
+                log.warn("沙箱节点健康状态变化: {} -> {}", node, healthy ? "健康" : "不健康");
+            }
+            node.setHealthy(healthy);
+        }
+    }
+
+    /**
+     * 所有节点
+     */
+    public List<SandboxNode> getNodes() {
+        return nodes;
+    }
+}
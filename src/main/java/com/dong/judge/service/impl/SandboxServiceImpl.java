@@ -9,29 +9,41 @@ package com.dong.judge.service.impl;
     import com.dong.judge.model.vo.sandbox.CompileResult;
     import com.dong.judge.model.vo.sandbox.RunResult;
     import com.dong.judge.service.SandboxService;
+    import com.dong.judge.service.TestDataStore;
     import com.fasterxml.jackson.databind.JsonNode;
     import com.fasterxml.jackson.databind.ObjectMapper;
     import com.fasterxml.jackson.databind.node.ArrayNode;
     import com.fasterxml.jackson.databind.node.ObjectNode;
+    import io.micrometer.core.instrument.MeterRegistry;
+    import jakarta.annotation.PostConstruct;
+    import jakarta.annotation.PreDestroy;
     import lombok.extern.slf4j.Slf4j;
     import org.springframework.beans.factory.annotation.Autowired;
-    import org.springframework.beans.factory.annotation.Value;
-    import org.springframework.http.HttpEntity;
-    import org.springframework.http.HttpHeaders;
-    import org.springframework.http.HttpMethod;
-    import org.springframework.http.ResponseEntity;
+    import org.springframework.data.redis.core.StringRedisTemplate;
     import org.springframework.stereotype.Service;
-    import org.springframework.web.client.RestTemplate;
+
+    import java.util.ArrayList;
+    import java.util.Arrays;
+    import java.util.Collection;
+    import java.util.Collections;
+    import java.util.HashMap;
+    import java.util.LinkedHashMap;
+    import java.util.List;
+    import java.util.Map;
+    import java.util.Objects;
+    import java.util.concurrent.CompletableFuture;
+    import java.util.concurrent.ExecutorService;
+    import java.util.concurrent.Executors;
 
     @Service
     @Slf4j
     public class SandboxServiceImpl implements SandboxService {
 
-        @Value("${sandbox.api.url}")
-        private String sandboxApiUrl;
+        @Autowired
+        private SandboxHttpClient sandboxHttpClient;
 
         @Autowired
-        private RestTemplate restTemplate;
+        private SandboxNodeBalancer nodeBalancer;
 
         @Autowired
         private ObjectMapper objectMapper;
@@ -39,6 +51,54 @@ package com.dong.judge.service.impl;
         @Autowired
         private SandboxConfig sandboxConfig;
 
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @Autowired
+        private SandboxFileCache fileCache;
+
+        @Autowired
+        private TestDataStore testDataStore;
+
+        @Autowired
+        private JudgeMetrics judgeMetrics;
+
+        @Autowired
+        private StringRedisTemplate redisTemplate;
+
+        private CompileArtifactCache compileCache;
+
+        private RunResultCache resultCache;
+
+        private BatchedRunner batchedRunner;
+
+        /**
+         * 未启用异步HTTP客户端时，异步批量运行退化为虚拟线程上的同步调用
+         */
+        private final ExecutorService runExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+        @PostConstruct
+        public void initCaches() {
+            SandboxConfig.CompileCache cacheConfig = sandboxConfig.getCompileCache();
+            if (cacheConfig.isEnabled()) {
+                compileCache = new CompileArtifactCache(cacheConfig.getMaxEntries(), cacheConfig.getTtl(),
+                        this::removeSandboxFile, meterRegistry);
+            }
+            SandboxConfig.ResultCache resultCacheConfig = sandboxConfig.getResultCache();
+            if (resultCacheConfig.isEnabled()) {
+                resultCache = new RunResultCache(resultCacheConfig, redisTemplate, objectMapper, meterRegistry);
+            }
+            batchedRunner = new BatchedRunner(objectMapper, sandboxConfig.resolveReadTimeout());
+        }
+
+        @PreDestroy
+        public void clearCompileCache() {
+            if (compileCache != null) {
+                compileCache.clear();
+            }
+            runExecutor.shutdown();
+        }
+
         @Override
         public CodeExecuteResult executeCode(CodeExecuteRequest request) {
             try {
@@ -48,7 +108,19 @@ package com.dong.judge.service.impl;
                     return buildErrorResult("不支持的语言: " + request.getLanguage());
                 }
 
-                // 2. 编译代码（如果需要）
+                // 2. 查询运行结果缓存，相同程序和输入直接返回上次的结果，不需要编译
+                RunRequest runRequest = RunRequest.builder()
+                        .code(request.getCode())
+                        .language(request.getLanguage())
+                        .input(request.getInput())
+                        .build();
+                RunResultCache.Key resultKey = resultKey(runRequest, langConfig, langConfig.isNeedCompile());
+                RunResult cached = resultCache != null ? resultCache.get(resultKey) : null;
+                if (cached != null) {
+                    return toExecuteResult(cached);
+                }
+
+                // 3. 编译代码（如果需要）
                 String fileId = null;
                 if (langConfig.isNeedCompile()) {
                     CompileRequest compileRequest = CompileRequest.builder()
@@ -71,28 +143,17 @@ package com.dong.judge.service.impl;
                     fileId = compileResult.getFileId();
                 }
 
-                // 3. 运行代码
-                RunRequest runRequest = RunRequest.builder()
-                        .code(request.getCode())
-                        .language(request.getLanguage())
-                        .input(request.getInput())
-                        .fileId(fileId)
-                        .build();
+                // 4. 运行代码
+                runRequest.setFileId(fileId);
+                RunResult runResult = runUncached(runRequest, langConfig);
+                if (resultCache != null) {
+                    resultCache.put(resultKey, runResult);
+                }
 
-                RunResult runResult = runCode(runRequest);
-
-                // 4. 处理运行结果
-                CodeExecuteResult result = CodeExecuteResult.builder()
-                        .status(runResult.getStatus())
-                        .exitStatus(runResult.getExitStatus())
-                        .time(runResult.getTime())
-                        .memory(runResult.getMemory())
-                        .runTime(runResult.getRunTime())
-                        .stdout(runResult.getStdout())
-                        .stderr(runResult.getStderr())
-                        .build();
+                // 5. 处理运行结果
+                CodeExecuteResult result = toExecuteResult(runResult);
 
-                // 5. 清理资源
+                // 6. 清理资源
                 if (fileId != null) {
                     deleteFile(fileId);
                 }
@@ -126,10 +187,39 @@ package com.dong.judge.service.impl;
                             .build();
                 }
 
-                // 3. 发送编译请求
-                JsonNode compileResponse = sendCompileRequest(request.getCode(), langConfig);
+                // 3. 查询编译缓存，相同源代码直接复用已编译的文件
+                CompileArtifactCache.Key cacheKey = null;
+                if (compileCache != null) {
+                    cacheKey = CompileArtifactCache.Key.of(langConfig, request.getCode());
+                    String cachedFileId = compileCache.acquire(cacheKey);
+                    if (cachedFileId != null && !nodeBalancer.isAvailable(nodeBalancer.nodeOf(cachedFileId))) {
+                        // 产物所在节点不可用，淘汰后重新编译
+                        compileCache.discard(cachedFileId);
+                        cachedFileId = null;
+                    }
+                    if (cachedFileId != null) {
+                        return CompileResult.builder()
+                                .isCompile(true)
+                                .success(true)
+                                .fileId(cachedFileId)
+                                .status(StatusEnum.ACCEPTED.getValue())
+                                .build();
+                    }
+                }
+
+                // 4. 发送编译请求
+                SandboxNode node = nodeBalancer.select();
+                long start = System.nanoTime();
+                JsonNode compileResponse;
+                try {
+                    compileResponse = sendCompileRequest(node, request.getCode(), langConfig);
+                } catch (Exception e) {
+                    judgeMetrics.recordCompile(request.getLanguage(), "error", System.nanoTime() - start);
+                    throw e;
+                }
+                judgeMetrics.recordCompile(request.getLanguage(), compileOutcome(compileResponse), System.nanoTime() - start);
 
-                // 4. 处理编译结果
+                // 5. 处理编译结果
                 if (compileResponse == null || !compileResponse.isArray() || compileResponse.isEmpty()) {
                     return CompileResult.builder()
                             .isCompile(true)
@@ -152,6 +242,10 @@ package com.dong.judge.service.impl;
 
                 // 获取编译后的文件ID
                 String fileId = firstResult.path("fileIds").path(langConfig.getCompileOutFile()).asText();
+                nodeBalancer.pin(fileId, node);
+                if (cacheKey != null) {
+                    fileId = compileCache.put(cacheKey, fileId);
+                }
 
                 return CompileResult.builder()
                         .isCompile(true)
@@ -172,21 +266,51 @@ package com.dong.judge.service.impl;
 
         @Override
         public RunResult runCode(RunRequest request) {
-            try {
-                // 1. 获取语言配置（支持别名）
-                SandboxConfig.LanguageConfig langConfig = sandboxConfig.getLanguageConfig(request.getLanguage());
-                if (langConfig == null) {
-                    return RunResult.builder()
-                            .status("Error")
-                            .stderr("不支持的语言: " + request.getLanguage())
-                            .build();
-                }
+            // 1. 获取语言配置（支持别名）
+            SandboxConfig.LanguageConfig langConfig = sandboxConfig.getLanguageConfig(request.getLanguage());
+            if (langConfig == null) {
+                return RunResult.builder()
+                        .status(StatusEnum.ERROR.getValue())
+                        .stderr("不支持的语言: " + request.getLanguage())
+                        .build();
+            }
+
+            // 2. 查询运行结果缓存
+            RunResultCache.Key key = resultKey(request, langConfig, request.getFileId() != null);
+            RunResult cached = resultCache != null ? resultCache.get(key) : null;
+            if (cached != null) {
+                return cached;
+            }
+
+            // 3. 运行并缓存结果
+            RunResult result = runUncached(request, langConfig);
+            if (resultCache != null) {
+                resultCache.put(key, result);
+            }
+            return result;
+        }
+
+        /**
+         * 不经过缓存，直接在沙箱中运行，缓存的编译产物已不在沙箱中时重新编译并重试一次
+         */
+        private RunResult runUncached(RunRequest request, SandboxConfig.LanguageConfig langConfig) {
+            RunResult result = runOnce(request, langConfig);
+            ArtifactRetry retry = rebuildMissingArtifacts(List.of(request), List.of(result));
+            if (retry == null) {
+                return result;
+            }
+            return completeRetry(retry, new ArrayList<>(List.of(result)),
+                    List.of(runOnce(retry.requests().get(0), langConfig))).get(0);
+        }
 
-                // 2. 发送运行请求
-                JsonNode runResponse = sendRunRequest(request.getInput(), request.getFileId(),
-                        request.getCode(), langConfig);
+        private RunResult runOnce(RunRequest request, SandboxConfig.LanguageConfig langConfig) {
+            try {
+                // 发送运行请求
+                SandboxNode node = nodeFor(request);
+                JsonNode runResponse = sendRunRequest(node, List.of(request), List.of(langConfig),
+                        preloadInputs(node, List.of(request)));
 
-                // 3. 处理运行结果
+                // 处理运行结果
                 if (runResponse == null || !runResponse.isArray() || runResponse.isEmpty()) {
                     return RunResult.builder()
                             .status(StatusEnum.ERROR.getValue())
@@ -194,63 +318,7 @@ package com.dong.judge.service.impl;
                             .build();
                 }
 
-                JsonNode firstResult = runResponse.get(0);
-                String status = firstResult.path("status").asText();
-                String stdout = firstResult.path("files").path("stdout").asText();
-                String stderr = firstResult.path("files").path("stderr").asText();
-                int exitStatus = firstResult.path("exitStatus").asInt();
-                long time = firstResult.path("time").asLong();
-                long memory = firstResult.path("memory").asLong();
-                long runTime = firstResult.path("runTime").asLong();
-                
-                // 根据状态码处理不同的错误情况
-                StatusEnum statusEnum = StatusEnum.fromValue(status);
-                String statusMessage = "";
-                
-                switch (statusEnum) {
-                    case ACCEPTED:
-                        // 正常情况，不需要额外处理
-                        break;
-                    case MEMORY_LIMIT_EXCEEDED:
-                        statusMessage = "内存超限: 程序使用内存超过限制 (" + memory + " KB)";
-                        break;
-                    case TIME_LIMIT_EXCEEDED:
-                        statusMessage = "时间超限: 程序运行时间超过限制 (" + time + " ms)";
-                        break;
-                    case OUTPUT_LIMIT_EXCEEDED:
-                        statusMessage = "输出超限: 程序输出超过限制";
-                        break;
-                    case FILE_ERROR:
-                        statusMessage = "文件错误: 程序操作文件时发生错误";
-                        break;
-                    case NONZERO_EXIT_STATUS:
-                        statusMessage = "非0退出值: 程序异常退出，退出码为 " + exitStatus;
-                        break;
-                    case SIGNALLED:
-                        statusMessage = "进程被信号终止: 程序被系统信号终止";
-                        break;
-                    case INTERNAL_ERROR:
-                        statusMessage = "内部错误: 沙盒内部发生错误";
-                        break;
-                    default:
-                        statusMessage = "未知错误: " + status;
-                        break;
-                }
-                
-                // 如果有错误信息，添加到stderr
-                if (!statusMessage.isEmpty()) {
-                    stderr = stderr.isEmpty() ? statusMessage : stderr + "\n" + statusMessage;
-                }
-
-                return RunResult.builder()
-                        .status(status)
-                        .exitStatus(exitStatus)
-                        .time(time)
-                        .memory(memory)
-                        .runTime(runTime)
-                        .stdout(stdout)
-                        .stderr(stderr)
-                        .build();
+                return parseRunResult(runResponse.get(0));
 
             } catch (Exception e) {
                 log.error("运行代码时发生错误", e);
@@ -261,7 +329,676 @@ package com.dong.judge.service.impl;
             }
         }
 
-        private JsonNode sendCompileRequest(String code, SandboxConfig.LanguageConfig langConfig) throws Exception {
+        @Override
+        public List<RunResult> runBatch(List<RunRequest> requests) {
+            CachedBatch batch = lookupCached(requests);
+            if (batch.pendingRequests.isEmpty()) {
+                return batch.complete(List.of());
+            }
+            return batch.complete(runBatchUncached(batch.pendingRequests));
+        }
+
+        @Override
+        public CompletableFuture<List<RunResult>> runBatchAsync(List<RunRequest> requests) {
+            CachedBatch batch = lookupCached(requests);
+            if (batch.pendingRequests.isEmpty()) {
+                return CompletableFuture.completedFuture(batch.complete(List.of()));
+            }
+            return runBatchAsyncUncached(batch.pendingRequests).thenApply(batch::complete);
+        }
+
+        private List<RunResult> runBatchUncached(List<RunRequest> requests) {
+            List<RunResult> results = runRouted(requests);
+            ArtifactRetry retry = rebuildMissingArtifacts(requests, results);
+            return retry == null ? results : completeRetry(retry, results, runRouted(retry.requests()));
+        }
+
+        private CompletableFuture<List<RunResult>> runBatchAsyncUncached(List<RunRequest> requests) {
+            return runRoutedAsync(requests).thenCompose(results -> {
+                if (!hasMissingArtifact(requests, results)) {
+                    return CompletableFuture.completedFuture(results);
+                }
+                // 重新编译是同步调用，在虚拟线程上完成
+                return CompletableFuture.supplyAsync(() -> rebuildMissingArtifacts(requests, results), runExecutor)
+                        .thenCompose(retry -> retry == null ? CompletableFuture.completedFuture(results)
+                                : runRoutedAsync(retry.requests()).thenApply(rerun -> completeRetry(retry, results, rerun)));
+            });
+        }
+
+        private List<RunResult> runRouted(List<RunRequest> requests) {
+            RunResult[] results = new RunResult[requests.size()];
+
+            // 按节点和批大小分块，每块合并为一次 /run 请求
+            for (RoutedChunk routed : route(requests)) {
+                SandboxNode node = routed.node() != null ? routed.node() : nodeBalancer.select();
+                List<RunResult> chunkResults = runChunk(node, routed.requests());
+                for (int i = 0; i < chunkResults.size(); i++) {
+                    results[routed.indices().get(i)] = chunkResults.get(i);
+                }
+            }
+            return new ArrayList<>(Arrays.asList(results));
+        }
+
+        private CompletableFuture<List<RunResult>> runRoutedAsync(List<RunRequest> requests) {
+            List<RoutedChunk> routedChunks = route(requests);
+            List<CompletableFuture<List<RunResult>>> futures = new ArrayList<>();
+            for (RoutedChunk routed : routedChunks) {
+                if (sandboxConfig.getHttp().isAsyncEnabled()) {
+                    SandboxNode node = routed.node() != null ? routed.node() : nodeBalancer.select();
+                    futures.add(runChunkAsync(node, routed.requests()));
+                } else {
+                    futures.add(CompletableFuture.supplyAsync(() -> runChunk(
+                            routed.node() != null ? routed.node() : nodeBalancer.select(), routed.requests()), runExecutor));
+                }
+            }
+
+            return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                    .thenApply(ignored -> {
+                        RunResult[] results = new RunResult[requests.size()];
+                        for (int c = 0; c < routedChunks.size(); c++) {
+                            List<Integer> indices = routedChunks.get(c).indices();
+                            List<RunResult> chunkResults = futures.get(c).join();
+                            for (int i = 0; i < chunkResults.size(); i++) {
+                                results[indices.get(i)] = chunkResults.get(i);
+                            }
+                        }
+                        return new ArrayList<>(Arrays.asList(results));
+                    });
+        }
+
+        /**
+         * 换用重新编译的产物再运行一次的请求
+         *
+         * @param indices 各请求在原列表中的位置
+         * @param requests 引用新产物的运行请求
+         * @param fileIds 新产物的 fileId，重试后归还
+         */
+        private record ArtifactRetry(List<Integer> indices, List<RunRequest> requests, Collection<String> fileIds) {
+        }
+
+        /**
+         * 是否有用例因引用的缓存编译产物已不在沙箱中而失败
+         * <p>
+         * 沙箱重启后节点恢复健康，但 copyOutCached 的文件全部丢失，引用这些产物的运行都返回文件错误
+         * </p>
+         */
+        private boolean hasMissingArtifact(List<RunRequest> requests, List<RunResult> results) {
+            if (compileCache == null) {
+                return false;
+            }
+            for (int i = 0; i < requests.size(); i++) {
+                if (requests.get(i).getFileId() != null && requests.get(i).getCode() != null
+                        && StatusEnum.FILE_ERROR.getValue().equals(results.get(i).getStatus())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 淘汰已不在沙箱中的缓存编译产物并重新编译，对应的用例改用新产物
+         *
+         * @return 需要重新运行的请求，没有可重新编译的产物时返回null
+         */
+        private ArtifactRetry rebuildMissingArtifacts(List<RunRequest> requests, List<RunResult> results) {
+            if (!hasMissingArtifact(requests, results)) {
+                return null;
+            }
+            // 缓存的 fileId -> 新产物的 fileId，重新编译失败的为null
+            Map<String, String> rebuilt = new HashMap<>();
+            List<Integer> indices = new ArrayList<>();
+            List<RunRequest> retried = new ArrayList<>();
+            for (int i = 0; i < requests.size(); i++) {
+                RunRequest request = requests.get(i);
+                String fileId = request.getFileId();
+                if (fileId == null || request.getCode() == null
+                        || !StatusEnum.FILE_ERROR.getValue().equals(results.get(i).getStatus())) {
+                    continue;
+                }
+                if (!rebuilt.containsKey(fileId)) {
+                    rebuilt.put(fileId, compileCache.invalidate(fileId) ? recompile(request, fileId) : null);
+                }
+                String newFileId = rebuilt.get(fileId);
+                if (newFileId != null) {
+                    indices.add(i);
+                    retried.add(request.toBuilder().fileId(newFileId).build());
+                }
+            }
+            List<String> fileIds = rebuilt.values().stream().filter(Objects::nonNull).toList();
+            return indices.isEmpty() ? null : new ArtifactRetry(indices, retried, fileIds);
+        }
+
+        private String recompile(RunRequest request, String fileId) {
+            CompileResult compileResult = compileCode(CompileRequest.builder()
+                    .code(request.getCode())
+                    .language(request.getLanguage())
+                    .build());
+            if (!compileResult.isSuccess() || compileResult.getFileId() == null) {
+                log.warn("缓存的编译产物已不在沙箱中，重新编译失败: fileId={}, error={}", fileId, compileResult.getErrorMessage());
+                return null;
+            }
+            log.warn("缓存的编译产物已不在沙箱中，已重新编译: {} -> {}", fileId, compileResult.getFileId());
+            return compileResult.getFileId();
+        }
+
+        /**
+         * 用重试的结果替换原结果，并归还重新编译的产物（产物留在缓存中供后续使用）
+         */
+        private List<RunResult> completeRetry(ArtifactRetry retry, List<RunResult> results, List<RunResult> rerun) {
+            for (int i = 0; i < retry.indices().size(); i++) {
+                results.set(retry.indices().get(i), rerun.get(i));
+            }
+            retry.fileIds().forEach(this::deleteFile);
+            return results;
+        }
+
+        /**
+         * 查询批量运行请求中已缓存的结果，剩余的请求需要发送到沙箱
+         */
+        private CachedBatch lookupCached(List<RunRequest> requests) {
+            List<RunResultCache.Key> keys = new ArrayList<>(requests.size());
+            for (RunRequest request : requests) {
+                SandboxConfig.LanguageConfig langConfig = resultCache != null
+                        ? sandboxConfig.getLanguageConfig(request.getLanguage()) : null;
+                keys.add(langConfig != null ? resultKey(request, langConfig, request.getFileId() != null) : null);
+            }
+            List<RunResult> cached = resultCache != null
+                    ? resultCache.getAll(keys) : new ArrayList<>(Collections.nCopies(requests.size(), null));
+
+            CachedBatch batch = new CachedBatch(cached);
+            for (int i = 0; i < requests.size(); i++) {
+                if (cached.get(i) == null) {
+                    batch.pendingIndices.add(i);
+                    batch.pendingKeys.add(keys.get(i));
+                    batch.pendingRequests.add(requests.get(i));
+                }
+            }
+            return batch;
+        }
+
+        /**
+         * 批量运行请求中缓存命中的结果和需要运行的请求
+         */
+        private final class CachedBatch {
+            private final List<RunResult> results;
+            private final List<Integer> pendingIndices = new ArrayList<>();
+            private final List<RunResultCache.Key> pendingKeys = new ArrayList<>();
+            private final List<RunRequest> pendingRequests = new ArrayList<>();
+
+            private CachedBatch(List<RunResult> results) {
+                this.results = results;
+            }
+
+            /**
+             * 合并沙箱返回的结果并写入缓存
+             *
+             * @param executed 与 pendingRequests 顺序一致的运行结果
+             * @return 与原请求顺序一致的结果
+             */
+            private List<RunResult> complete(List<RunResult> executed) {
+                for (int i = 0; i < executed.size(); i++) {
+                    results.set(pendingIndices.get(i), executed.get(i));
+                    if (resultCache != null) {
+                        resultCache.put(pendingKeys.get(i), executed.get(i));
+                    }
+                }
+                return results;
+            }
+        }
+
+        private RunResultCache.Key resultKey(RunRequest request, SandboxConfig.LanguageConfig langConfig, boolean compiled) {
+            return resultCache != null ? RunResultCache.Key.of(request, langConfig, compiled) : null;
+        }
+
+        /**
+         * 路由到同一节点的一块运行请求
+         *
+         * @param node 目标节点，为null时发送前再选择
+         * @param indices 各请求在原列表中的位置
+         * @param requests 运行请求
+         */
+        private record RoutedChunk(SandboxNode node, List<Integer> indices, List<RunRequest> requests) {
+        }
+
+        /**
+         * 按节点分组后再按批大小分块
+         * <p>
+         * 引用编译产物的请求必须发往产物所在节点，解释型语言的请求可以发往任意节点。
+         * 批量运行的请求依次运行，块大小不超过读超时内能运行完的用例数
+         * </p>
+         */
+        private List<RoutedChunk> route(List<RunRequest> requests) {
+            Map<SandboxNode, List<Integer>> groups = new LinkedHashMap<>();
+            for (int i = 0; i < requests.size(); i++) {
+                String fileId = requests.get(i).getFileId();
+                SandboxNode node = fileId != null ? nodeBalancer.nodeOf(fileId) : null;
+                groups.computeIfAbsent(node, k -> new ArrayList<>()).add(i);
+            }
+
+            int batchSize = Math.max(1, sandboxConfig.getRun().getBatchSize());
+            List<RoutedChunk> chunks = new ArrayList<>();
+            for (Map.Entry<SandboxNode, List<Integer>> group : groups.entrySet()) {
+                List<Integer> indices = group.getValue();
+                int chunkSize = chunkSize(requests.get(indices.get(0)), batchSize);
+                for (int start = 0; start < indices.size(); start += chunkSize) {
+                    List<Integer> chunkIndices = indices.subList(start, Math.min(start + chunkSize, indices.size()));
+                    chunks.add(new RoutedChunk(group.getKey(), chunkIndices,
+                            chunkIndices.stream().map(requests::get).toList()));
+                }
+            }
+            return chunks;
+        }
+
+        private int chunkSize(RunRequest first, int batchSize) {
+            SandboxConfig.LanguageConfig langConfig = sandboxConfig.getLanguageConfig(first.getLanguage());
+            if (!first.isBatched() || langConfig == null) {
+                return batchSize;
+            }
+            int maxCases = batchedRunner.maxCases(langConfig);
+            return maxCases >= 2 ? Math.min(batchSize, maxCases) : batchSize;
+        }
+
+        private SandboxNode nodeFor(RunRequest request) {
+            return request.getFileId() != null ? nodeBalancer.nodeOf(request.getFileId()) : nodeBalancer.select();
+        }
+
+        /**
+         * 一次 /run 调用的请求分组
+         *
+         * @param chunk 原始运行请求
+         * @param chunkConfigs 与 chunk 对齐的语言配置，不支持的语言为null
+         * @param valid 需要发送的运行请求
+         * @param validConfigs 与 valid 对齐的语言配置
+         */
+        private record RunChunk(List<RunRequest> chunk,
+                                List<SandboxConfig.LanguageConfig> chunkConfigs,
+                                List<RunRequest> valid,
+                                List<SandboxConfig.LanguageConfig> validConfigs) {
+        }
+
+        /**
+         * 获取语言配置，不支持的语言直接返回错误且不发送
+         */
+        private RunChunk prepareChunk(List<RunRequest> chunk) {
+            List<SandboxConfig.LanguageConfig> chunkConfigs = new ArrayList<>(chunk.size());
+            List<RunRequest> valid = new ArrayList<>(chunk.size());
+            List<SandboxConfig.LanguageConfig> validConfigs = new ArrayList<>(chunk.size());
+            for (RunRequest request : chunk) {
+                SandboxConfig.LanguageConfig langConfig = sandboxConfig.getLanguageConfig(request.getLanguage());
+                chunkConfigs.add(langConfig);
+                if (langConfig != null) {
+                    valid.add(request);
+                    validConfigs.add(langConfig);
+                }
+            }
+            return new RunChunk(chunk, chunkConfigs, valid, validConfigs);
+        }
+
+        /**
+         * 将一组运行请求合并为一次 /run 调用
+         *
+         * @param chunk 运行请求
+         * @return 与请求顺序一致的运行结果
+         */
+        private List<RunResult> runChunk(SandboxNode node, List<RunRequest> chunk) {
+            RunChunk runChunk = prepareChunk(chunk);
+            Map<String, String> preloaded = preloadInputs(node, runChunk.valid());
+            List<RunResult> results = runChunk(node, runChunk, preloaded);
+
+            // 预上传文件已失效的用例改为内联输入重新运行
+            List<Integer> retry = invalidateMissingFiles(node, chunk, results, preloaded);
+            if (!retry.isEmpty()) {
+                List<RunResult> retried = runChunk(node, prepareChunk(retry.stream().map(chunk::get).toList()), Map.of());
+                for (int i = 0; i < retry.size(); i++) {
+                    results.set(retry.get(i), retried.get(i));
+                }
+            }
+            return results;
+        }
+
+        private List<RunResult> runChunk(SandboxNode node, RunChunk runChunk, Map<String, String> preloaded) {
+            if (batchedRunner.accepts(runChunk.chunk(), runChunk.chunkConfigs())) {
+                return runBatched(node, runChunk, preloaded);
+            }
+            JsonNode runResponse = null;
+            String error = "运行服务返回无效响应";
+            if (!runChunk.valid().isEmpty()) {
+                long start = System.nanoTime();
+                String outcome = "success";
+                try {
+                    runResponse = sendRunRequest(node, runChunk.valid(), runChunk.validConfigs(), preloaded);
+                } catch (Exception e) {
+                    log.error("批量运行代码时发生错误: size={}", runChunk.valid().size(), e);
+                    error = "运行代码时发生错误: " + e.getMessage();
+                    outcome = "error";
+                }
+                judgeMetrics.recordRun(runChunk.valid().get(0).getLanguage(), outcome, System.nanoTime() - start);
+            }
+            return mapChunkResults(runChunk, runResponse, error);
+        }
+
+        /**
+         * 使用异步HTTP客户端发送一次 /run 调用
+         *
+         * @param chunk 运行请求
+         * @return 与请求顺序一致的运行结果
+         */
+        private CompletableFuture<List<RunResult>> runChunkAsync(SandboxNode node, List<RunRequest> chunk) {
+            RunChunk runChunk = prepareChunk(chunk);
+            if (runChunk.valid().isEmpty()) {
+                return CompletableFuture.completedFuture(mapChunkResults(runChunk, null, "运行服务返回无效响应"));
+            }
+
+            // 需要上传测试数据时在虚拟线程上完成，避免阻塞调用线程
+            CompletableFuture<Map<String, String>> preloadFuture = isPreloaded(node, runChunk.valid())
+                    ? CompletableFuture.completedFuture(preloadInputs(node, runChunk.valid()))
+                    : CompletableFuture.supplyAsync(() -> preloadInputs(node, runChunk.valid()), runExecutor);
+
+            return preloadFuture.thenCompose(preloaded -> runChunkAsync(node, runChunk, preloaded)
+                    .thenCompose(results -> {
+                        // 预上传文件已失效的用例改为内联输入重新运行
+                        List<Integer> retry = invalidateMissingFiles(node, chunk, results, preloaded);
+                        if (retry.isEmpty()) {
+                            return CompletableFuture.completedFuture(results);
+                        }
+                        return runChunkAsync(node, prepareChunk(retry.stream().map(chunk::get).toList()), Map.of())
+                                .thenApply(retried -> {
+                                    for (int i = 0; i < retry.size(); i++) {
+                                        results.set(retry.get(i), retried.get(i));
+                                    }
+                                    return results;
+                                });
+                    }));
+        }
+
+        private CompletableFuture<List<RunResult>> runChunkAsync(SandboxNode node, RunChunk runChunk, Map<String, String> preloaded) {
+            if (batchedRunner.accepts(runChunk.chunk(), runChunk.chunkConfigs())) {
+                return runBatchedAsync(node, runChunk, preloaded);
+            }
+            JsonNode requestBody = buildRunRequestBody(runChunk.valid(), runChunk.validConfigs(), preloaded);
+            String language = runChunk.valid().get(0).getLanguage();
+            long start = System.nanoTime();
+            return postAsync(node, "/run", requestBody)
+                    .handle((runResponse, e) -> {
+                        judgeMetrics.recordRun(language, e == null ? "success" : "error", System.nanoTime() - start);
+                        if (e == null) {
+                            return mapChunkResults(runChunk, runResponse, "运行服务返回无效响应");
+                        }
+                        Throwable cause = e.getCause() != null ? e.getCause() : e;
+                        log.error("批量运行代码时发生错误: size={}", runChunk.valid().size(), cause);
+                        return mapChunkResults(runChunk, null, "运行代码时发生错误: " + cause.getMessage());
+                    });
+        }
+
+        /**
+         * 由批量运行器在一条命令中运行整块请求，运行器没有报告结果的用例逐个重新运行
+         */
+        private List<RunResult> runBatched(SandboxNode node, RunChunk runChunk, Map<String, String> preloaded) {
+            List<RunRequest> chunk = runChunk.chunk();
+            SandboxConfig.LanguageConfig langConfig = runChunk.chunkConfigs().get(0);
+            String token = BatchedRunner.newToken();
+            JsonNode runResponse = null;
+            long start = System.nanoTime();
+            String outcome = "success";
+            try {
+                runResponse = post(node, "/run", batchedRunner.buildRequestBody(chunk, langConfig, token,
+                        preloaded, this::resolveInput));
+            } catch (Exception e) {
+                log.warn("批量运行失败，改为逐个运行: size={}", chunk.size(), e);
+                outcome = "error";
+            }
+            judgeMetrics.recordRun(chunk.get(0).getLanguage(), outcome, System.nanoTime() - start);
+
+            List<RunResult> results = parseBatched(batchedRunner.split(runResponse, chunk.size(), token, langConfig));
+            List<Integer> missing = missingIndices(results);
+            if (!missing.isEmpty()) {
+                List<RunResult> rerun = runChunk(node, prepareChunk(unbatched(chunk, missing)), preloaded);
+                for (int i = 0; i < missing.size(); i++) {
+                    results.set(missing.get(i), rerun.get(i));
+                }
+            }
+            return results;
+        }
+
+        private CompletableFuture<List<RunResult>> runBatchedAsync(SandboxNode node, RunChunk runChunk,
+                                                                   Map<String, String> preloaded) {
+            List<RunRequest> chunk = runChunk.chunk();
+            String language = chunk.get(0).getLanguage();
+            SandboxConfig.LanguageConfig langConfig = runChunk.chunkConfigs().get(0);
+            String token = BatchedRunner.newToken();
+            CompletableFuture<JsonNode> responseFuture;
+            long start = System.nanoTime();
+            try {
+                responseFuture = postAsync(node, "/run", batchedRunner.buildRequestBody(chunk, langConfig, token,
+                        preloaded, this::resolveInput));
+            } catch (RuntimeException e) {
+                responseFuture = CompletableFuture.failedFuture(e);
+            }
+
+            return responseFuture
+                    .handle((runResponse, e) -> {
+                        judgeMetrics.recordRun(language, e == null ? "success" : "error", System.nanoTime() - start);
+                        if (e != null) {
+                            log.warn("批量运行失败，改为逐个运行: size={}", chunk.size(), e.getCause() != null ? e.getCause() : e);
+                        }
+                        return parseBatched(batchedRunner.split(e == null ? runResponse : null, chunk.size(), token, langConfig));
+                    })
+                    .thenCompose(results -> {
+                        List<Integer> missing = missingIndices(results);
+                        if (missing.isEmpty()) {
+                            return CompletableFuture.completedFuture(results);
+                        }
+                        return runChunkAsync(node, prepareChunk(unbatched(chunk, missing)), preloaded)
+                                .thenApply(rerun -> {
+                                    for (int i = 0; i < missing.size(); i++) {
+                                        results.set(missing.get(i), rerun.get(i));
+                                    }
+                                    return results;
+                                });
+                    });
+        }
+
+        private List<RunResult> parseBatched(List<JsonNode> caseResults) {
+            List<RunResult> results = new ArrayList<>(caseResults.size());
+            for (JsonNode caseResult : caseResults) {
+                results.add(caseResult != null ? parseRunResult(caseResult) : null);
+            }
+            return results;
+        }
+
+        private static List<Integer> missingIndices(List<RunResult> results) {
+            List<Integer> missing = new ArrayList<>();
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i) == null) {
+                    missing.add(i);
+                }
+            }
+            return missing;
+        }
+
+        /**
+         * 需要逐个重新运行的请求，不再合并运行
+         */
+        private static List<RunRequest> unbatched(List<RunRequest> chunk, List<Integer> indices) {
+            return indices.stream()
+                    .map(i -> chunk.get(i).toBuilder().batched(false).build())
+                    .toList();
+        }
+
+        /**
+         * 将引用测试数据存储的输入预先上传到节点
+         * <p>
+         * 上传失败的输入在请求体中内联传输
+         * </p>
+         *
+         * @return 测试数据摘要 -> 节点上的文件ID
+         */
+        private Map<String, String> preloadInputs(SandboxNode node, List<RunRequest> requests) {
+            if (!sandboxConfig.getPreload().isEnabled()) {
+                return Map.of();
+            }
+            Map<String, String> preloaded = new HashMap<>();
+            for (RunRequest request : requests) {
+                String hash = request.getInputHash();
+                if (hash == null || request.getInput() != null || preloaded.containsKey(hash)) {
+                    continue;
+                }
+                try {
+                    preloaded.put(hash, fileCache.fileIdOf(node, hash));
+                } catch (Exception e) {
+                    log.warn("预上传测试数据失败，改为内联传输: hash={}, node={}", hash, node, e);
+                }
+            }
+            return preloaded;
+        }
+
+        /**
+         * 请求引用的测试数据是否都已上传到节点
+         */
+        private boolean isPreloaded(SandboxNode node, List<RunRequest> requests) {
+            if (!sandboxConfig.getPreload().isEnabled()) {
+                return true;
+            }
+            for (RunRequest request : requests) {
+                if (request.getInputHash() != null && request.getInput() == null
+                        && fileCache.peek(node, request.getInputHash()) == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 找出因预上传文件不存在（如沙箱重启）而失败的用例，并将对应文件移出缓存
+         *
+         * @return 需要重新运行的用例下标
+         */
+        private List<Integer> invalidateMissingFiles(SandboxNode node, List<RunRequest> chunk, List<RunResult> results,
+                                                     Map<String, String> preloaded) {
+            if (preloaded.isEmpty()) {
+                return List.of();
+            }
+            List<Integer> retry = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                String hash = chunk.get(i).getInputHash();
+                if (hash != null && preloaded.containsKey(hash)
+                        && StatusEnum.FILE_ERROR.getValue().equals(results.get(i).getStatus())) {
+                    fileCache.invalidate(node, hash);
+                    retry.add(i);
+                }
+            }
+            return retry;
+        }
+
+        /**
+         * 按顺序映射运行结果，缺失的结果以错误填充
+         */
+        private List<RunResult> mapChunkResults(RunChunk runChunk, JsonNode runResponse, String error) {
+            List<RunRequest> chunk = runChunk.chunk();
+            List<RunResult> results = new ArrayList<>(chunk.size());
+            int responseIndex = 0;
+            for (int i = 0; i < chunk.size(); i++) {
+                if (runChunk.chunkConfigs().get(i) == null) {
+                    results.add(RunResult.builder()
+                            .status(StatusEnum.ERROR.getValue())
+                            .stderr("不支持的语言: " + chunk.get(i).getLanguage())
+                            .build());
+                    continue;
+                }
+                if (runResponse != null && runResponse.isArray() && responseIndex < runResponse.size()) {
+                    results.add(parseRunResult(runResponse.get(responseIndex)));
+                } else {
+                    results.add(RunResult.builder()
+                            .status(StatusEnum.ERROR.getValue())
+                            .stderr(error)
+                            .build());
+                }
+                responseIndex++;
+            }
+            return results;
+        }
+
+        /**
+         * 编译请求的结果标签
+         */
+        private static String compileOutcome(JsonNode compileResponse) {
+            if (compileResponse == null || !compileResponse.isArray() || compileResponse.isEmpty()) {
+                return "error";
+            }
+            return "Accepted".equals(compileResponse.get(0).path("status").asText()) ? "success" : "compile_error";
+        }
+
+        /**
+         * 解析 go-judge 返回的单个命令结果
+         *
+         * @param result 命令结果节点
+         * @return 运行结果
+         */
+        RunResult parseRunResult(JsonNode result) {
+            String status = result.path("status").asText();
+            String stdout = result.path("files").path("stdout").asText();
+            String stderr = result.path("files").path("stderr").asText();
+            int exitStatus = result.path("exitStatus").asInt();
+            long time = result.path("time").asLong();
+            long memory = result.path("memory").asLong();
+            long runTime = result.path("runTime").asLong();
+
+            // 根据状态码处理不同的错误情况
+            StatusEnum statusEnum = StatusEnum.fromValue(status);
+            String statusMessage = "";
+
+            switch (statusEnum) {
+                case ACCEPTED:
+                    // 正常情况，不需要额外处理
+                    break;
+                case MEMORY_LIMIT_EXCEEDED:
+                    statusMessage = "内存超限: 程序使用内存超过限制 (" + memory + " KB)";
+                    break;
+                case TIME_LIMIT_EXCEEDED:
+                    statusMessage = "时间超限: 程序运行时间超过限制 (" + time + " ms)";
+                    break;
+                case OUTPUT_LIMIT_EXCEEDED:
+                    statusMessage = "输出超限: 程序输出超过限制";
+                    break;
+                case FILE_ERROR:
+                    statusMessage = "文件错误: 程序操作文件时发生错误";
+                    break;
+                case NONZERO_EXIT_STATUS:
+                    statusMessage = "非0退出值: 程序异常退出，退出码为 " + exitStatus;
+                    break;
+                case SIGNALLED:
+                    statusMessage = "进程被信号终止: 程序被系统信号终止";
+                    break;
+                case INTERNAL_ERROR:
+                    statusMessage = "内部错误: 沙盒内部发生错误";
+                    break;
+                default:
+                    statusMessage = "未知错误: " + status;
+                    break;
+            }
+
+            // 如果有错误信息，添加到stderr
+            if (!statusMessage.isEmpty()) {
+                stderr = stderr.isEmpty() ? statusMessage : stderr + "\n" + statusMessage;
+            }
+
+            return RunResult.builder()
+                    .status(status)
+                    .exitStatus(exitStatus)
+                    .time(time)
+                    .memory(memory)
+                    .runTime(runTime)
+                    .stdout(stdout)
+                    .stderr(stderr)
+                    .build();
+        }
+
+        private JsonNode sendCompileRequest(SandboxNode node, String code, SandboxConfig.LanguageConfig langConfig) throws Exception {
+            // 发送编译请求
+            return post(node, "/run", buildCompileRequestBody(code, langConfig));
+        }
+
+        ObjectNode buildCompileRequestBody(String code, SandboxConfig.LanguageConfig langConfig) {
             // 构建编译请求
             ObjectNode requestBody = objectMapper.createObjectNode();
             ArrayNode cmdArray = requestBody.putArray("cmd");
@@ -311,26 +1048,55 @@ package com.dong.judge.service.impl;
 
             ArrayNode copyOutCached = cmd.putArray("copyOutCached");
             copyOutCached.add(langConfig.getCompileOutFile());
+            return requestBody;
+        }
 
-            // 发送编译请求
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Content-Type", "application/json");
-            HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(requestBody), headers);
+        private JsonNode sendRunRequest(SandboxNode node, List<RunRequest> requests, List<SandboxConfig.LanguageConfig> langConfigs,
+                                        Map<String, String> preloaded) throws Exception {
+            // 发送运行请求
+            return post(node, "/run", buildRunRequestBody(requests, langConfigs, preloaded));
+        }
 
-            ResponseEntity<JsonNode> response = restTemplate.exchange(
-                    sandboxApiUrl + "/run",
-                    HttpMethod.POST,
-                    entity,
-                    JsonNode.class);
+        /**
+         * 向指定节点发送同步请求，并记录节点的在途请求数和失败次数
+         */
+        private JsonNode post(SandboxNode node, String path, JsonNode body) throws Exception {
+            nodeBalancer.begin(node);
+            boolean success = false;
+            try {
+                JsonNode response = sandboxHttpClient.post(node.getUrl(), path, body);
+                success = true;
+                return response;
+            } finally {
+                nodeBalancer.complete(node, success);
+            }
+        }
 
-            return response.getBody();
+        /**
+         * 向指定节点发送异步请求，并记录节点的在途请求数和失败次数
+         */
+        private CompletableFuture<JsonNode> postAsync(SandboxNode node, String path, JsonNode body) {
+            nodeBalancer.begin(node);
+            return sandboxHttpClient.postAsync(node.getUrl(), path, body)
+                    .whenComplete((response, e) -> nodeBalancer.complete(node, e == null));
         }
 
-        private JsonNode sendRunRequest(String input, String fileId, String code, SandboxConfig.LanguageConfig langConfig) throws Exception {
-            // 构建运行请求
+        ObjectNode buildRunRequestBody(List<RunRequest> requests, List<SandboxConfig.LanguageConfig> langConfigs,
+                                       Map<String, String> preloaded) {
+            // 构建运行请求，每个测试用例对应一个 cmd
             ObjectNode requestBody = objectMapper.createObjectNode();
             ArrayNode cmdArray = requestBody.putArray("cmd");
 
+            for (int i = 0; i < requests.size(); i++) {
+                appendRunCmd(cmdArray, requests.get(i), langConfigs.get(i), preloaded);
+            }
+            return requestBody;
+        }
+
+        private void appendRunCmd(ArrayNode cmdArray, RunRequest request, SandboxConfig.LanguageConfig langConfig,
+                                  Map<String, String> preloaded) {
+            String fileId = request.getFileId();
+            String code = request.getCode();
             ObjectNode cmd = cmdArray.addObject();
 
             // 设置运行命令
@@ -344,6 +1110,9 @@ package com.dong.judge.service.impl;
                     args.add(arg);
                 }
             }
+            if (request.getArgs() != null) {
+                request.getArgs().forEach(args::add);
+            }
 
             // 设置环境变量
             ArrayNode env = cmd.putArray("env");
@@ -352,8 +1121,13 @@ package com.dong.judge.service.impl;
             // 设置文件
             ArrayNode files = cmd.putArray("files");
 
-            // 标准输入
-            files.addObject().put("content", input != null ? input : "");
+            // 标准输入，已预上传的测试数据通过 fileId 引用
+            String inputFileId = request.getInputHash() != null ? preloaded.get(request.getInputHash()) : null;
+            if (inputFileId != null) {
+                files.addObject().put("fileId", inputFileId);
+            } else {
+                files.addObject().put("content", resolveInput(request));
+            }
 
             // 标准输出
             ObjectNode stdout = files.addObject();
@@ -383,32 +1157,68 @@ package com.dong.judge.service.impl;
                 sourceFile.put("content", code);
             }
 
-            // 发送运行请求
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Content-Type", "application/json");
-            HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(requestBody), headers);
-
-            ResponseEntity<JsonNode> response = restTemplate.exchange(
-                    sandboxApiUrl + "/run",
-                    HttpMethod.POST,
-                    entity,
-                    JsonNode.class);
+            // 额外文件（如特殊评测的输入、答案和选手输出）
+            if (request.getFiles() != null) {
+                request.getFiles().forEach((name, content) ->
+                        copyIn.putObject(name).put("content", content != null ? content : ""));
+            }
+        }
 
-            return response.getBody();
+        /**
+         * 内联传输的输入内容，输入只保存在测试数据存储中时从存储读取
+         */
+        private String resolveInput(RunRequest request) {
+            if (request.getInput() != null) {
+                return request.getInput();
+            }
+            return request.getInputHash() != null ? testDataStore.get(request.getInputHash()) : "";
         }
 
         @Override
         public void deleteFile(String fileId) {
+            if (fileId == null || fileId.isEmpty()) {
+                return;
+            }
+            // 缓存的编译产物只归还引用，由缓存负责淘汰时删除
+            if (compileCache != null && compileCache.release(fileId)) {
+                return;
+            }
+            removeSandboxFile(fileId);
+        }
+
+        /**
+         * 从沙箱中删除文件
+         *
+         * @param fileId 文件ID
+         */
+        private void removeSandboxFile(String fileId) {
             try {
                 if (fileId != null && !fileId.isEmpty()) {
-                    restTemplate.delete(sandboxApiUrl + "/file/" + fileId);
-                    log.debug("删除文件成功: {}", fileId);
+                    // 文件只存在于产生它的节点上
+                    SandboxNode node = nodeBalancer.unpin(fileId);
+                    if (node == null) {
+                        node = nodeBalancer.select();
+                    }
+                    sandboxHttpClient.delete(node.getUrl(), "/file/{fileId}", fileId);
+                    log.debug("删除文件成功: {} @ {}", fileId, node);
                 }
             } catch (Exception e) {
                 log.error("删除文件失败: {}", fileId, e);
             }
         }
 
+        private static CodeExecuteResult toExecuteResult(RunResult runResult) {
+            return CodeExecuteResult.builder()
+                    .status(runResult.getStatus())
+                    .exitStatus(runResult.getExitStatus())
+                    .time(runResult.getTime())
+                    .memory(runResult.getMemory())
+                    .runTime(runResult.getRunTime())
+                    .stdout(runResult.getStdout())
+                    .stderr(runResult.getStderr())
+                    .build();
+        }
+
         private CodeExecuteResult buildErrorResult(String message) {
             return CodeExecuteResult.builder()
                     .status(StatusEnum.ERROR.getValue())
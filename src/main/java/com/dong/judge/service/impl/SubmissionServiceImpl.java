@@ -3,22 +3,28 @@ package com.dong.judge.service.impl;
 import com.dong.judge.dao.repository.SubmissionRepository;
 import com.dong.judge.model.dto.code.TestCaseResult;
 import com.dong.judge.model.dto.code.TestCaseSetResult;
+import com.dong.judge.model.enums.CountMode;
 import com.dong.judge.model.enums.ExecutionStatus;
 import com.dong.judge.model.pojo.judge.Submission;
+import com.dong.judge.model.vo.judge.SubmissionSummary;
 import com.dong.judge.service.SubmissionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 @Service
 @RequiredArgsConstructor
@@ -26,6 +32,7 @@ public class SubmissionServiceImpl implements SubmissionService {
     
     private final SubmissionRepository submissionRepository;
     private final MongoTemplate mongoTemplate;
+
     
     @Override
     public Submission saveSubmission(String userId, String problemId, String code, String language, TestCaseSetResult result) {
@@ -68,57 +75,113 @@ public class SubmissionServiceImpl implements SubmissionService {
     }
     
     @Override
-    public List<Submission> getUserSubmissions(String userId, String problemId) {
-        return submissionRepository.findByUserIdAndProblemIdOrderBySubmissionTimeDesc(userId, problemId);
+    public List<SubmissionSummary> getUserSubmissions(String userId, String problemId) {
+        Query query = new Query(Criteria.where("userId").is(userId));
+        if (StringUtils.hasText(problemId)) {
+            query.addCriteria(Criteria.where("problemId").is(problemId));
+        }
+        query.with(Sort.by(Sort.Direction.DESC, "submissionTime"));
+        return findSummaries(query);
     }
     
     @Override
-    public List<Submission> getProblemTimeRanking(String problemId) {
-        return submissionRepository.findByProblemIdOrderByExecutionTimeAsc(problemId);
+    public Submission getSubmissionById(String submissionId) {
+        return submissionRepository.findById(submissionId).orElse(null);
     }
     
     @Override
-    public List<Submission> getProblemMemoryRanking(String problemId) {
-        return submissionRepository.findByProblemIdOrderByMemoryUsedAsc(problemId);
+    public Slice<SubmissionSummary> getAllSubmissionsPage(PageRequest pageRequest, String problemId, String userId, String status,
+                                                          String language, CountMode countMode) {
+        Query filter = buildFilterQuery(problemId, userId, status, language);
+        Query query = Query.of(filter).with(pageRequest.withSort(withIdTiebreaker(pageRequest.getSort())));
+
+        if (countMode == CountMode.NONE) {
+            // 多取一条用于判断是否还有下一页
+            List<SubmissionSummary> content = new ArrayList<>(findSummaries(query.limit(pageRequest.getPageSize() + 1)));
+            boolean hasNext = content.size() > pageRequest.getPageSize();
+            if (hasNext) {
+                content.remove(pageRequest.getPageSize());
+            }
+            return new SliceImpl<>(content, pageRequest, hasNext);
+        }
+
+        List<SubmissionSummary> content = findSummaries(query);
+        // 没有筛选条件时总数就是集合文档数，可以直接读取集合元数据，不需要扫描索引
+        boolean estimate = countMode == CountMode.ESTIMATED && filter.getQueryObject().isEmpty();
+        return PageableExecutionUtils.getPage(content, pageRequest, () -> estimate
+                ? mongoTemplate.estimatedCount(Submission.class)
+                : mongoTemplate.count(filter, Submission.class));
     }
-    
+
     @Override
-    public Submission getSubmissionById(String submissionId) {
-        return submissionRepository.findById(submissionId).orElse(null);
+    public Slice<SubmissionSummary> getSubmissionsAfter(String cursor, int pageSize, String problemId, String userId, String status,
+                                                        String language) {
+        Query query = buildFilterQuery(problemId, userId, status, language);
+        if (StringUtils.hasText(cursor)) {
+            Query cursorQuery = new Query(Criteria.where("id").is(cursor));
+            cursorQuery.fields().include("submissionTime");
+            Submission last = mongoTemplate.findOne(cursorQuery, Submission.class);
+            if (last == null) {
+                throw new NoSuchElementException("提交记录不存在: " + cursor);
+            }
+            query.addCriteria(new Criteria().orOperator(
+                    Criteria.where("submissionTime").lt(last.getSubmissionTime()),
+                    Criteria.where("submissionTime").is(last.getSubmissionTime()).and("id").lt(last.getId())));
+        }
+        query.with(withIdTiebreaker(Sort.by(Sort.Direction.DESC, "submissionTime"))).limit(pageSize + 1);
+
+        // 多取一条用于判断是否还有下一页
+        List<SubmissionSummary> content = new ArrayList<>(findSummaries(query));
+        boolean hasNext = content.size() > pageSize;
+        if (hasNext) {
+            content.remove(pageSize);
+        }
+        return new SliceImpl<>(content, PageRequest.of(0, pageSize), hasNext);
     }
-    
-    @Override
-    public Page<Submission> getAllSubmissionsPage(PageRequest pageRequest, String problemId, String userId, String status, String language) {
+
+    /**
+     * 追加按ID排序，保证排序字段相同时翻页顺序稳定
+     * <p>
+     * ID与最后一个排序字段方向相同，这样正序和倒序都能由 {@code {字段: -1, _id: -1}} 形式的索引正向或反向扫描完成。
+     * </p>
+     */
+    private static Sort withIdTiebreaker(Sort sort) {
+        Sort.Direction direction = Sort.Direction.DESC;
+        for (Sort.Order order : sort) {
+            direction = order.getDirection();
+        }
+        return sort.and(Sort.by(direction, "id"));
+    }
+
+    /**
+     * 构造提交记录筛选条件，常用组合都有 Submission 上声明的复合索引
+     */
+    private Query buildFilterQuery(String problemId, String userId, String status, String language) {
         Query query = new Query();
-        
-        // 添加查询条件
         if (StringUtils.hasText(problemId)) {
             query.addCriteria(Criteria.where("problemId").is(problemId));
         }
-        
         if (StringUtils.hasText(userId)) {
             query.addCriteria(Criteria.where("userId").is(userId));
         }
-        
         if (StringUtils.hasText(status)) {
             query.addCriteria(Criteria.where("status").is(status));
         }
-        
         if (StringUtils.hasText(language)) {
             query.addCriteria(Criteria.where("language").is(language));
         }
-        
-        // 获取总记录数
-        long total = mongoTemplate.count(query, Submission.class);
-        
-        // 添加分页和排序
-        query.with(pageRequest);
-        
-        // 执行查询
-        List<Submission> submissions = mongoTemplate.find(query, Submission.class);
-        
-        // 返回分页结果
-        return new PageImpl<>(submissions, pageRequest, total);
+        return query;
+    }
+    
+    /**
+     * 只读取摘要字段，代码、错误用例输入输出等大字段不从数据库传输
+     *
+     * @param query 查询条件
+     * @return 提交记录摘要
+     */
+    private List<SubmissionSummary> findSummaries(Query query) {
+        query.fields().include(SubmissionSummary.FIELDS);
+        return mongoTemplate.find(query, SubmissionSummary.class, mongoTemplate.getCollectionName(Submission.class));
     }
     
     /**
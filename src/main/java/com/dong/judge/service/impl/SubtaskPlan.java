@@ -0,0 +1,221 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.model.dto.code.Subtask;
+import com.dong.judge.model.dto.code.SubtaskResult;
+import com.dong.judge.model.dto.code.TestCase;
+import com.dong.judge.model.dto.code.TestCaseResult;
+import com.dong.judge.model.enums.ExecutionStatus;
+import com.dong.judge.model.enums.SubtaskScoring;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 子任务评测计划
+ * <p>
+ * 校验子任务定义并按依赖关系排序：依赖的子任务排在前面，没有依赖关系的子任务保持定义顺序。
+ * 评测时按该顺序执行，依赖的子任务未得满分时本子任务的用例不再执行。
+ * </p>
+ */
+public final class SubtaskPlan {
+
+    private final List<Subtask> order;
+    private final Map<Integer, Subtask> subtasks;
+
+    private SubtaskPlan(List<Subtask> order, Map<Integer, Subtask> subtasks) {
+        this.order = order;
+        this.subtasks = subtasks;
+    }
+
+    /**
+     * 校验子任务定义并生成评测计划
+     *
+     * @param subtasks  子任务列表
+     * @param testCases 测试用例列表
+     * @return 评测计划，没有子任务时返回null
+     * @throws IllegalArgumentException 子任务ID重复、分值为负、引用了不存在的测试用例或子任务、存在循环依赖，
+     *                                  或有测试用例不属于任何子任务
+     */
+    public static SubtaskPlan of(List<Subtask> subtasks, List<TestCase> testCases) {
+        if (subtasks == null || subtasks.isEmpty()) {
+            return null;
+        }
+        Set<Long> caseIds = new HashSet<>();
+        if (testCases != null) {
+            testCases.forEach(testCase -> caseIds.add(testCase.getId()));
+        }
+
+        Map<Integer, Subtask> byId = new LinkedHashMap<>();
+        Set<Long> covered = new HashSet<>();
+        for (Subtask subtask : subtasks) {
+            if (subtask.getId() == null || byId.putIfAbsent(subtask.getId(), subtask) != null) {
+                throw new IllegalArgumentException("子任务ID为空或重复: " + subtask.getId());
+            }
+            if (subtask.getScore() == null || subtask.getScore() < 0) {
+                throw new IllegalArgumentException("子任务分值无效: " + subtask.getId());
+            }
+            if (subtask.getCaseIds() == null || subtask.getCaseIds().isEmpty()) {
+                throw new IllegalArgumentException("子任务没有测试用例: " + subtask.getId());
+            }
+            for (Long caseId : subtask.getCaseIds()) {
+                if (!caseIds.contains(caseId)) {
+                    throw new IllegalArgumentException("子任务 " + subtask.getId() + " 引用了不存在的测试用例: " + caseId);
+                }
+                covered.add(caseId);
+            }
+        }
+        if (!covered.containsAll(caseIds)) {
+            Set<Long> missing = new HashSet<>(caseIds);
+            missing.removeAll(covered);
+            throw new IllegalArgumentException("测试用例不属于任何子任务: " + missing);
+        }
+
+        List<Subtask> order = new ArrayList<>(byId.size());
+        Set<Integer> visiting = new HashSet<>();
+        Set<Integer> visited = new HashSet<>();
+        for (Subtask subtask : byId.values()) {
+            visit(subtask, byId, visiting, visited, order);
+        }
+        return new SubtaskPlan(List.copyOf(order), byId);
+    }
+
+    /**
+     * 深度优先排序，依赖先于被依赖的子任务加入
+     */
+    private static void visit(Subtask subtask, Map<Integer, Subtask> byId, Set<Integer> visiting, Set<Integer> visited,
+                              List<Subtask> order) {
+        if (visited.contains(subtask.getId())) {
+            return;
+        }
+        if (!visiting.add(subtask.getId())) {
+            throw new IllegalArgumentException("子任务存在循环依赖: " + subtask.getId());
+        }
+        if (subtask.getDependencies() != null) {
+            for (Integer dependency : subtask.getDependencies()) {
+                Subtask target = byId.get(dependency);
+                if (target == null) {
+                    throw new IllegalArgumentException("子任务 " + subtask.getId() + " 依赖了不存在的子任务: " + dependency);
+                }
+                visit(target, byId, visiting, visited, order);
+            }
+        }
+        visiting.remove(subtask.getId());
+        visited.add(subtask.getId());
+        order.add(subtask);
+    }
+
+    /**
+     * 按依赖关系排序后的子任务
+     */
+    public List<Subtask> order() {
+        return order;
+    }
+
+    /**
+     * 子任务是否全部通过才得分
+     */
+    public static boolean isMin(Subtask subtask) {
+        return subtask.getScoring() != SubtaskScoring.SUM;
+    }
+
+    /**
+     * 子任务的依赖是否都已得满分，依赖需要先于本子任务评测
+     *
+     * @param subtask 子任务
+     * @param results 已得到的测试用例结果，键为测试用例ID
+     */
+    public boolean isReady(Subtask subtask, Map<Long, TestCaseResult> results) {
+        if (subtask.getDependencies() == null) {
+            return true;
+        }
+        for (Integer dependency : subtask.getDependencies()) {
+            Subtask target = subtasks.get(dependency);
+            if (!isReady(target, results) || countPassed(target, results) < target.getCaseIds().size()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 子任务是否已经不可能得满分：全部通过才得分的子任务中已有用例未通过
+     */
+    public boolean isFailed(Subtask subtask, Map<Long, TestCaseResult> results) {
+        for (Long caseId : subtask.getCaseIds()) {
+            TestCaseResult result = results.get(caseId);
+            if (result != null && isFailure(result)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 计算各子任务的得分
+     *
+     * @param results 测试用例结果，键为测试用例ID，未执行的用例可以没有结果
+     * @return 按子任务定义顺序排列的结果
+     */
+    public List<SubtaskResult> score(Map<Long, TestCaseResult> results) {
+        List<SubtaskResult> subtaskResults = new ArrayList<>(subtasks.size());
+        for (Subtask subtask : subtasks.values()) {
+            int total = subtask.getCaseIds().size();
+            int passed = countPassed(subtask, results);
+            int maxScore = subtask.getScore();
+            boolean ready = isReady(subtask, results);
+
+            int score = 0;
+            if (ready) {
+                score = isMin(subtask)
+                        ? (passed == total ? maxScore : 0)
+                        : (int) ((long) maxScore * passed / total);
+            }
+            subtaskResults.add(SubtaskResult.builder()
+                    .id(subtask.getId())
+                    .name(subtask.getName())
+                    .status(ready ? statusOf(subtask, results, passed == total) : ExecutionStatus.SKIPPED.getCode())
+                    .score(score)
+                    .maxScore(maxScore)
+                    .passedCount(passed)
+                    .totalCount(total)
+                    .build());
+        }
+        return subtaskResults;
+    }
+
+    /**
+     * 子任务的状态：全部通过为Accepted，否则为首个未通过用例的状态
+     */
+    private static String statusOf(Subtask subtask, Map<Long, TestCaseResult> results, boolean allPassed) {
+        if (allPassed) {
+            return ExecutionStatus.ACCEPTED.getCode();
+        }
+        for (Long caseId : subtask.getCaseIds()) {
+            TestCaseResult result = results.get(caseId);
+            if (result != null && isFailure(result)) {
+                return result.getStatus();
+            }
+        }
+        return ExecutionStatus.SKIPPED.getCode();
+    }
+
+    private static int countPassed(Subtask subtask, Map<Long, TestCaseResult> results) {
+        int passed = 0;
+        for (Long caseId : subtask.getCaseIds()) {
+            TestCaseResult result = results.get(caseId);
+            if (result != null && ExecutionStatus.ACCEPTED.getCode().equals(result.getStatus())) {
+                passed++;
+            }
+        }
+        return passed;
+    }
+
+    private static boolean isFailure(TestCaseResult result) {
+        return !ExecutionStatus.ACCEPTED.getCode().equals(result.getStatus())
+                && !ExecutionStatus.SKIPPED.getCode().equals(result.getStatus());
+    }
+}
@@ -1,28 +1,41 @@
 package com.dong.judge.service.impl;
 
+import com.dong.judge.config.JudgeConfig;
+import com.dong.judge.config.SandboxConfig;
 import com.dong.judge.dao.repository.TestGroupRepository;
+import com.dong.judge.model.dto.code.Subtask;
 import com.dong.judge.model.dto.code.TestCase;
 import com.dong.judge.model.dto.code.TestCaseResult;
 import com.dong.judge.model.dto.sandbox.CodeExecuteRequest;
 import com.dong.judge.model.dto.sandbox.CompileRequest;
 import com.dong.judge.model.dto.sandbox.RunRequest;
+import com.dong.judge.model.enums.JudgeLane;
+import com.dong.judge.model.enums.StatusEnum;
 import com.dong.judge.model.pojo.judge.TestGroup;
 import com.dong.judge.model.vo.judge.TestGroupResult;
 import com.dong.judge.model.vo.sandbox.CodeExecuteResult;
 import com.dong.judge.model.vo.sandbox.CompileResult;
 import com.dong.judge.model.vo.sandbox.RunResult;
 import com.dong.judge.service.SandboxService;
+import com.dong.judge.service.TestDataStore;
 import com.dong.judge.service.TestGroupService;
+import com.dong.judge.util.HashUtil;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 测试集服务实现类
@@ -37,6 +50,21 @@ public class TestGroupServiceImpl implements TestGroupService {
     @Autowired
     private SandboxService sandboxService;
 
+    @Autowired
+    private SandboxConfig sandboxConfig;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private JudgeScheduler judgeScheduler;
+
+    @Autowired
+    private TestDataStore testDataStore;
+
+    @Autowired
+    private JudgeConfig judgeConfig;
+
     @Override
     public TestGroupResult createTestGroup(TestGroup testGroup, String userId) {
         // 设置创建者ID和创建时间
@@ -45,11 +73,14 @@ public class TestGroupServiceImpl implements TestGroupService {
         testGroup.setCreatedAt(now);
         testGroup.setUpdatedAt(now);
 
-        // 保存测试集
-        TestGroup savedTestGroup = testGroupRepository.save(testGroup);
+        // 校验子任务定义
+        SubtaskPlan.of(testGroup.getSubtasks(), testGroup.getTestCases());
 
-        // 执行测试集并返回结果
-        return executeTestGroup(savedTestGroup);
+        // 较大的输入移入测试数据存储
+        externalizeInputs(testGroup.getTestCases());
+
+        // 执行测试集，测试集和执行结果一起保存
+        return executeTestGroup(testGroup, Map.of());
     }
 
     @Override
@@ -77,16 +108,23 @@ public class TestGroupServiceImpl implements TestGroupService {
             needRerunAll = true;
         }
 
+        // 代码和语言都未变化时，输入未变化的测试用例复用上次的执行结果
+        Map<String, PreviousResult> previous = needRerunAll ? Map.of() : previousResults(existingTestGroup);
+
+        // 校验子任务定义，未提供的部分沿用原测试集
+        List<TestCase> testCases = testGroup.getTestCases() != null ? testGroup.getTestCases() : existingTestGroup.getTestCases();
+        List<Subtask> subtasks = testGroup.getSubtasks() != null ? testGroup.getSubtasks() : existingTestGroup.getSubtasks();
+        SubtaskPlan.of(subtasks, testCases);
+        existingTestGroup.setSubtasks(subtasks);
+
         // 更新测试用例
         if (testGroup.getTestCases() != null) {
+            externalizeInputs(testGroup.getTestCases());
             existingTestGroup.setTestCases(testGroup.getTestCases());
         }
 
-        // 保存更新后的测试集
-        TestGroup updatedTestGroup = testGroupRepository.save(existingTestGroup);
-
-        // 执行测试集并返回结果
-        return executeTestGroup(updatedTestGroup);
+        // 执行新增或修改的测试用例，测试集和执行结果一起保存
+        return executeTestGroup(existingTestGroup, previous);
     }
 
     @Override
@@ -100,6 +138,20 @@ public class TestGroupServiceImpl implements TestGroupService {
         return testGroupRepository.findByCreatorIdOrderByCreatedAtDesc(userId);
     }
 
+    @Override
+    public void recordTestCaseFailure(String testGroupId, Long testCaseId) {
+        if (testGroupId == null || testCaseId == null) {
+            return;
+        }
+        try {
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(testGroupId)),
+                    new Update().inc("caseFailureCounts." + testCaseId, 1),
+                    TestGroup.class);
+        } catch (Exception e) {
+            log.warn("记录测试用例失败次数失败: testGroupId={}, testCaseId={}", testGroupId, testCaseId, e);
+        }
+    }
+
     @Override
     public boolean deleteTestGroup(String id, String userId) {
         TestGroup testGroup = testGroupRepository.findById(id)
@@ -120,30 +172,89 @@ public class TestGroupServiceImpl implements TestGroupService {
     }
 
     /**
-     * 执行测试集
+     * 执行测试集并保存
+     * <p>
+     * 输入摘要在 previous 中的测试用例直接复用上次的结果，只有新增或修改的测试用例发送到沙箱；
+     * 没有需要执行的测试用例时不编译参考代码。
+     * </p>
      *
      * @param testGroup 测试集
+     * @param previous  可复用的上次执行结果，键为测试用例的输入摘要
      * @return 测试集执行结果
      */
-    private TestGroupResult executeTestGroup(TestGroup testGroup) {
-        // 1. 准备结果对象
+    private TestGroupResult executeTestGroup(TestGroup testGroup, Map<String, PreviousResult> previous) {
+        List<TestCase> testCases = testGroup.getTestCases() != null ? testGroup.getTestCases() : List.of();
+
+        // 1. 复用未变化测试用例的结果，记录需要执行的测试用例下标
+        List<TestCaseResult> results = new ArrayList<>(Collections.nCopies(testCases.size(), null));
+        List<TestCaseResult> storedResults = new ArrayList<>(Collections.nCopies(testCases.size(), null));
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < testCases.size(); i++) {
+            TestCase testCase = testCases.get(i);
+            if (testCase.getContentHash() == null) {
+                testCase.setContentHash(contentHashOf(testCase));
+            }
+            PreviousResult prior = previous.get(testCase.getContentHash());
+            if (prior == null) {
+                pending.add(i);
+                continue;
+            }
+            TestCaseResult reused = new TestCaseResult();
+            BeanUtils.copyProperties(prior.result(), reused);
+            reused.setId(testCase.getId());
+            testCase.setOutputHash(prior.outputHash());
+            results.set(i, reused);
+            storedResults.set(i, reused);
+        }
+
+        // 2. 执行新增或修改的测试用例，较大的预期输出移入测试数据存储
+        if (!pending.isEmpty()) {
+            List<TestCaseResult> executed = runTestCases(testGroup, pending.stream().map(testCases::get).toList());
+            for (int j = 0; j < pending.size(); j++) {
+                int index = pending.get(j);
+                results.set(index, executed.get(j));
+                storedResults.set(index, externalizeOutput(testCases.get(index), executed.get(j)));
+            }
+        }
+        log.info("测试集执行完成: id={}, total={}, executed={}", testGroup.getId(), testCases.size(), pending.size());
+
+        // 3. 设置结果并计算统计信息
         TestGroupResult result = TestGroupResult.builder()
-                .id(testGroup.getId())
+                .testCaseResults(results)
                 .build();
+        result.calculateStatistics();
 
-        // 如果没有测试用例，直接返回空结果
-        if (testGroup.getTestCases() == null || testGroup.getTestCases().isEmpty()) {
-            result.setTestCaseResults(new ArrayList<>());
-            result.calculateStatistics();
-            // 保存测试集（即使没有测试用例）
-            testGroupRepository.save(testGroup);
-            return result;
-        }
+        // 4. 将测试结果保存到TestGroup对象中
+        testGroup.setTestCaseResults(storedResults);
+        testGroup.setTotalCount(result.getTotalCount());
+        testGroup.setPassedCount(result.getPassedCount());
+        testGroup.setTotalTime(result.getTotalTime());
+        testGroup.setAvgTime(result.getAvgTime());
+        testGroup.setTotalMemory(result.getTotalMemory());
+        testGroup.setAvgMemory(result.getAvgMemory());
+        testGroup.setTotalRunTime(result.getTotalRunTime());
+        testGroup.setAvgRunTime(result.getAvgRunTime());
+        testGroup.setCompileError(result.getCompileError());
+        testGroup.setAllPassed(result.isAllPassed());
+
+        // 5. 一次保存测试集和执行结果，新建的测试集在保存时生成ID
+        testGroupRepository.save(testGroup);
+        result.setId(testGroup.getId());
+        return result;
+    }
 
-        // 2. 编译代码（如果需要）
+    /**
+     * 编译参考代码并执行测试用例
+     *
+     * @param testGroup 测试集
+     * @param testCases 需要执行的测试用例
+     * @return 与测试用例顺序一致的结果
+     */
+    private List<TestCaseResult> runTestCases(TestGroup testGroup, List<TestCase> testCases) {
+        // 1. 编译代码（如果需要）
         String fileId = null;
         CompileResult compileResult = null;
-        try {
+        try (JudgeScheduler.Permit ignored = judgeScheduler.acquire(testGroup.getCreatorId(), JudgeLane.NORMAL, 1)) {
             CompileRequest compileRequest = CompileRequest.builder()
                     .code(testGroup.getCode())
                     .language(testGroup.getLanguage())
@@ -164,31 +275,34 @@ public class TestGroupServiceImpl implements TestGroupService {
             throw new RuntimeException("编译服务异常: " + e.getMessage(), e);
         }
 
-        // 3. 使用虚拟线程并行执行所有测试用例
-        List<TestCaseResult> testCaseResults = new ArrayList<>();
+        // 2. 异步并发执行测试用例，每批合并为一次沙箱调用
+        List<TestCaseResult> testCaseResults = new ArrayList<>(testCases.size());
         try {
-            // 使用Java 21的虚拟线程执行器
-            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
-                List<Future<TestCaseResult>> futures = new ArrayList<>();
-
-                // 提交所有测试用例任务
-                for (TestCase testCase : testGroup.getTestCases()) {
-                    String finalFileId = fileId;
-                    futures.add(executor.submit(() -> executeTestCase(testGroup, testCase, finalFileId)));
-                }
+            // 每批不超过调度器的名额上限，避免一批用例占满所有名额
+            int batchSize = Math.max(1, Math.min(sandboxConfig.getRun().getBatchSize(), judgeScheduler.getMaxInFlight()));
+            List<List<TestCase>> batches = new ArrayList<>();
+            List<CompletableFuture<List<TestCaseResult>>> futures = new ArrayList<>();
+
+            // 按批提交测试用例任务
+            for (int start = 0; start < testCases.size(); start += batchSize) {
+                List<TestCase> batch = testCases.subList(start, Math.min(start + batchSize, testCases.size()));
+                batches.add(batch);
+                futures.add(executeTestCaseBatch(testGroup, batch, fileId));
+            }
 
-                // 收集所有测试结果
-                for (Future<TestCaseResult> future : futures) {
-                    try {
-                        testCaseResults.add(future.get());
-                    } catch (Exception e) {
-                        log.error("执行测试用例失败", e);
-                        testCaseResults.add(createErrorTestCaseResult(testGroup.getTestCases().get(0), "执行异常: " + e.getMessage()));
+            // 按顺序收集所有测试结果
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    testCaseResults.addAll(futures.get(i).join());
+                } catch (Exception e) {
+                    log.error("执行测试用例失败", e);
+                    for (TestCase testCase : batches.get(i)) {
+                        testCaseResults.add(createErrorTestCaseResult(testCase, "执行异常: " + e.getMessage()));
                     }
                 }
             }
         } finally {
-            // 4. 清理资源
+            // 3. 清理资源
             if (fileId != null) {
                 try {
                     sandboxService.deleteFile(fileId);
@@ -197,75 +311,162 @@ public class TestGroupServiceImpl implements TestGroupService {
                 }
             }
         }
+        return testCaseResults;
+    }
 
-        // 5. 设置结果并计算统计信息
-        result.setTestCaseResults(testCaseResults);
-        result.calculateStatistics();
-        
-        // 6. 将测试结果保存到TestGroup对象中
-        testGroup.setTestCaseResults(result.getTestCaseResults());
-        testGroup.setTotalCount(result.getTotalCount());
-        testGroup.setPassedCount(result.getPassedCount());
-        testGroup.setTotalTime(result.getTotalTime());
-        testGroup.setAvgTime(result.getAvgTime());
-        testGroup.setTotalMemory(result.getTotalMemory());
-        testGroup.setAvgMemory(result.getAvgMemory());
-        testGroup.setTotalRunTime(result.getTotalRunTime());
-        testGroup.setAvgRunTime(result.getAvgRunTime());
-        testGroup.setCompileError(result.getCompileError());
-        testGroup.setAllPassed(result.isAllPassed());
-        
-        // 7. 保存测试集结果到数据库
-        testGroupRepository.save(testGroup);
-        
-        return result;
+    /**
+     * 收集测试集中可以复用的执行结果
+     * <p>
+     * 只复用运行成功的结果；运行失败、执行异常和旧版本没有状态的结果都重新执行。
+     * </p>
+     *
+     * @param testGroup 更新前的测试集
+     * @return 输入摘要 -> 上次的执行结果
+     */
+    private Map<String, PreviousResult> previousResults(TestGroup testGroup) {
+        Map<String, PreviousResult> previous = new HashMap<>();
+        List<TestCase> testCases = testGroup.getTestCases();
+        List<TestCaseResult> results = testGroup.getTestCaseResults();
+        if (testCases == null || results == null) {
+            return previous;
+        }
+        for (int i = 0; i < Math.min(testCases.size(), results.size()); i++) {
+            TestCaseResult result = results.get(i);
+            if (result == null || !StatusEnum.ACCEPTED.getValue().equals(result.getStatus())) {
+                continue;
+            }
+            TestCase testCase = testCases.get(i);
+            String contentHash = testCase.getContentHash() != null ? testCase.getContentHash() : contentHashOf(testCase);
+            previous.putIfAbsent(contentHash, new PreviousResult(result, testCase.getOutputHash()));
+        }
+        return previous;
+    }
+
+    /**
+     * 上次的执行结果以及对应的预期输出摘要
+     */
+    private record PreviousResult(TestCaseResult result, String outputHash) {
+    }
+
+    /**
+     * 将超过内联长度的测试输入存入测试数据存储，测试用例中只保留摘要
+     *
+     * @param testCases 测试用例
+     */
+    private void externalizeInputs(List<TestCase> testCases) {
+        if (testCases == null) {
+            return;
+        }
+        int threshold = judgeConfig.getTestData().getInlineThreshold();
+        for (TestCase testCase : testCases) {
+            String input = testCase.getInput();
+            if (input != null && input.length() > threshold) {
+                testCase.setInputHash(testDataStore.put(input));
+                testCase.setInputSize(input.length());
+                testCase.setInput(null);
+            } else if (input != null) {
+                testCase.setInputHash(null);
+                testCase.setInputSize(null);
+            }
+            testCase.setContentHash(contentHashOf(testCase));
+        }
+    }
+
+    /**
+     * 计算测试用例输入的摘要，已存入测试数据存储的输入直接使用存储的摘要
+     */
+    private static String contentHashOf(TestCase testCase) {
+        if (testCase.getInput() == null && testCase.getInputHash() != null) {
+            return testCase.getInputHash();
+        }
+        return HashUtil.sha256Hex(testCase.getInput());
     }
 
     /**
-     * 执行单个测试用例
+     * 将超过内联长度的预期输出存入测试数据存储
+     *
+     * @param testCase 测试用例，记录预期输出的摘要
+     * @param result   执行结果
+     * @return 用于保存到测试集的结果，已存储的预期输出不再内联
+     */
+    private TestCaseResult externalizeOutput(TestCase testCase, TestCaseResult result) {
+        String stdout = result.getStdout();
+        if (stdout == null || stdout.length() <= judgeConfig.getTestData().getInlineThreshold()) {
+            testCase.setOutputHash(null);
+            return result;
+        }
+        testCase.setOutputHash(testDataStore.put(stdout));
+        TestCaseResult copy = new TestCaseResult();
+        BeanUtils.copyProperties(result, copy);
+        copy.setStdout(null);
+        return copy;
+    }
+
+    /**
+     * 批量执行一组测试用例
      *
      * @param testGroup 测试集
-     * @param testCase  测试用例
+     * @param batch     测试用例
      * @param fileId    编译后的文件ID（如果有）
-     * @return 测试用例结果
+     * @return 与测试用例顺序一致的结果
      */
-    private TestCaseResult executeTestCase(TestGroup testGroup, TestCase testCase, String fileId) {
-        try {
-            // 创建运行请求
-            RunRequest runRequest = RunRequest.builder()
-                    .code(testGroup.getCode())
-                    .language(testGroup.getLanguage())
-                    .input(testCase.getInput())
-                    .fileId(fileId)
-                    .build();
-
-            // 运行代码
-            RunResult runResult = sandboxService.runCode(runRequest);
-            
-            // 检查运行结果是否有错误
-            if (!runResult.isSuccess()) {
-                // 如果运行失败，直接返回错误结果
-                return TestCaseResult.builder()
-                        .id(testCase.getId())
-                        .time(0L)
-                        .memory(0L)
-                        .runTime(0L)
-                        .stdout("Runtime Error: " + runResult.getErrorMessage())
-                        .build();
+    private CompletableFuture<List<TestCaseResult>> executeTestCaseBatch(TestGroup testGroup, List<TestCase> batch, String fileId) {
+        List<RunRequest> runRequests = batch.stream()
+                .map(testCase -> RunRequest.builder()
+                        .code(testGroup.getCode())
+                        .language(testGroup.getLanguage())
+                        .input(testCase.getInput())
+                        .inputHash(testCase.getInputHash())
+                        .fileId(fileId)
+                        .build())
+                .toList();
+
+        return judgeScheduler.acquireAsync(testGroup.getCreatorId(), JudgeLane.NORMAL, batch.size()).thenCompose(permit -> {
+            try {
+                return sandboxService.runBatchAsync(runRequests).whenComplete((runResults, e) -> permit.close());
+            } catch (RuntimeException e) {
+                permit.close();
+                throw e;
             }
+        }).thenApply(runResults -> {
+            List<TestCaseResult> results = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                results.add(buildTestCaseResult(batch.get(i), runResults.get(i)));
+            }
+            return results;
+        });
+    }
 
-            // 构建测试用例结果，只保留必要字段
+    /**
+     * 根据运行结果构建测试用例结果
+     *
+     * @param testCase  测试用例
+     * @param runResult 运行结果
+     * @return 测试用例结果
+     */
+    private TestCaseResult buildTestCaseResult(TestCase testCase, RunResult runResult) {
+        // 检查运行结果是否有错误
+        if (!runResult.isSuccess()) {
+            // 如果运行失败，直接返回错误结果
             return TestCaseResult.builder()
                     .id(testCase.getId())
-                    .time(runResult.getTime())
-                    .memory(runResult.getMemory())
-                    .runTime(runResult.getRunTime())
-                    .stdout(runResult.getStdout())
+                    .status(runResult.getStatus())
+                    .time(0L)
+                    .memory(0L)
+                    .runTime(0L)
+                    .stdout("Runtime Error: " + runResult.getErrorMessage())
                     .build();
-        } catch (Exception e) {
-            log.error("执行测试用例失败: {}", testCase.getId(), e);
-            return createErrorTestCaseResult(testCase, "执行异常: " + e.getMessage());
         }
+
+        // 构建测试用例结果，只保留必要字段
+        return TestCaseResult.builder()
+                .id(testCase.getId())
+                .status(runResult.getStatus())
+                .time(runResult.getTime())
+                .memory(runResult.getMemory())
+                .runTime(runResult.getRunTime())
+                .stdout(runResult.getStdout())
+                .build();
     }
 
     /**
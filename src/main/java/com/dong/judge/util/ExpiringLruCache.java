@@ -0,0 +1,116 @@
+package com.dong.judge.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 带过期时间的 LRU 读穿缓存
+ * <p>
+ * 超过条目上限时淘汰最久未使用的条目，超过 TTL 的条目在下次读取时重新加载。
+ * 加载在锁外进行；加载期间如果发生失效，加载结果不会写入缓存，避免把旧数据放回去。
+ * 指标沿用 Micrometer 缓存指标的命名：cache.gets、cache.evictions、cache.size，按 cache 标签区分。
+ * </p>
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class ExpiringLruCache<K, V> {
+
+    private record Entry<V>(V value, long loadedAt) {
+    }
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    /**
+     * 按访问顺序排列，最久未使用的在最前
+     */
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 每次失效加1，加载开始和结束时不一致说明期间发生过失效
+     */
+    private long generation;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter evictionCounter;
+
+    public ExpiringLruCache(String name, int maxEntries, Duration ttl, MeterRegistry meterRegistry) {
+        this(name, maxEntries, ttl, meterRegistry, Clock.systemUTC());
+    }
+
+    public ExpiringLruCache(String name, int maxEntries, Duration ttl, MeterRegistry meterRegistry, Clock clock) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+        this.hitCounter = Counter.builder("cache.gets").tag("cache", name).tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder("cache.gets").tag("cache", name).tag("result", "miss").register(meterRegistry);
+        this.evictionCounter = Counter.builder("cache.evictions").tag("cache", name).register(meterRegistry);
+        Gauge.builder("cache.size", this, ExpiringLruCache::size).tag("cache", name).register(meterRegistry);
+    }
+
+    /**
+     * 读取缓存，未命中或已过期时调用 loader 加载并写入缓存
+     *
+     * @param key    键
+     * @param loader 加载函数，返回null时不缓存；抛出的异常直接传给调用方
+     * @return 缓存或新加载的值
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && clock.millis() - entry.loadedAt() < ttlMillis) {
+                hitCounter.increment();
+                return entry.value();
+            }
+            loadGeneration = generation;
+        }
+        missCounter.increment();
+
+        V value = loader.apply(key);
+        if (value == null) {
+            return null;
+        }
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                entries.put(key, new Entry<>(value, clock.millis()));
+                while (entries.size() > maxEntries) {
+                    Map.Entry<K, Entry<V>> eldest = entries.entrySet().iterator().next();
+                    entries.remove(eldest.getKey());
+                    evictionCounter.increment();
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 使单个条目失效
+     */
+    public synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,43 @@
+package com.dong.judge.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 哈希工具类
+ * <p>
+ * 提供内容寻址所需的摘要计算方法
+ * </p>
+ */
+public final class HashUtil {
+
+    private HashUtil() {
+    }
+
+    /**
+     * 计算字符串的SHA-256摘要
+     *
+     * @param content 字符串内容，null视为空字符串
+     * @return 十六进制小写摘要
+     */
+    public static String sha256Hex(String content) {
+        return sha256Hex((content != null ? content : "").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 计算字节数组的SHA-256摘要
+     *
+     * @param content 字节内容
+     * @return 十六进制小写摘要
+     */
+    public static String sha256Hex(byte[] content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前JVM不支持SHA-256", e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.dong.judge.util;
+
+import com.dong.judge.model.enums.OutputCheckMode;
+
+/**
+ * 输出检查器
+ * <p>
+ * 判断用户输出是否与预期输出一致。实现直接在原始字符序列上比较，不生成规范化后的副本
+ * </p>
+ */
+@FunctionalInterface
+public interface OutputChecker {
+
+    /**
+     * 比较用户输出与预期输出
+     *
+     * @param expected 预期输出，null视为空
+     * @param actual   用户输出，null视为空
+     * @return 一致时为true
+     */
+    boolean check(CharSequence expected, CharSequence actual);
+
+    /**
+     * 获取指定比较方式的检查器
+     *
+     * @param mode    比较方式，为null时按逐行比较
+     * @param epsilon 浮点比较的允许误差，仅 {@link OutputCheckMode#FLOAT} 使用
+     * @return 输出检查器
+     */
+    static OutputChecker of(OutputCheckMode mode, double epsilon) {
+        if (mode == null) {
+            return OutputCheckers.LINE;
+        }
+        return switch (mode) {
+            case EXACT -> OutputCheckers.EXACT;
+            // 特殊评测由沙箱中的评测程序判定，未配置评测程序时按逐行比较
+            case LINE, SPECIAL -> OutputCheckers.LINE;
+            case TOKEN -> OutputCheckers.TOKEN;
+            case FLOAT -> OutputCheckers.floating(epsilon);
+        };
+    }
+}
@@ -0,0 +1,174 @@
+package com.dong.judge.util;
+
+/**
+ * 内置输出检查器
+ * <p>
+ * 所有比较都是单次扫描：在两个字符序列上同步移动下标，跳过需要忽略的空白后按区间比较，
+ * 不会复制或拆分输出。空白字符与 {@link String#trim()} 一致，指不大于空格的字符。
+ * </p>
+ */
+public final class OutputCheckers {
+
+    /**
+     * 逐字符完全一致
+     */
+    public static final OutputChecker EXACT = (expected, actual) -> {
+        CharSequence a = nullToEmpty(expected);
+        CharSequence b = nullToEmpty(actual);
+        return a.length() == b.length() && regionEquals(a, 0, a.length(), b, 0, b.length());
+    };
+
+    /**
+     * 逐行比较，忽略每行首尾空白（含 \r）以及输出首尾的空行，与原有的输出规范化规则一致
+     */
+    public static final OutputChecker LINE = (expected, actual) -> compareLines(nullToEmpty(expected), nullToEmpty(actual));
+
+    /**
+     * 按空白分隔的记号逐个比较
+     */
+    public static final OutputChecker TOKEN = (expected, actual) -> compareTokens(nullToEmpty(expected), nullToEmpty(actual), -1);
+
+    private OutputCheckers() {
+    }
+
+    /**
+     * 浮点误差比较：两个记号均为数字时，绝对误差或相对误差不超过 epsilon 即视为一致，其余记号按原文比较
+     *
+     * @param epsilon 允许误差
+     * @return 输出检查器
+     */
+    public static OutputChecker floating(double epsilon) {
+        double eps = Math.max(0, epsilon);
+        return (expected, actual) -> compareTokens(nullToEmpty(expected), nullToEmpty(actual), eps);
+    }
+
+    private static boolean compareLines(CharSequence a, CharSequence b) {
+        int aEnd = trimEnd(a, 0, a.length());
+        int bEnd = trimEnd(b, 0, b.length());
+        int i = skipWhitespace(a, 0, aEnd);
+        int j = skipWhitespace(b, 0, bEnd);
+
+        while (true) {
+            int aLineEnd = lineEnd(a, i, aEnd);
+            int bLineEnd = lineEnd(b, j, bEnd);
+            int aStart = skipWhitespace(a, i, aLineEnd);
+            int bStart = skipWhitespace(b, j, bLineEnd);
+            if (!regionEquals(a, aStart, trimEnd(a, aStart, aLineEnd), b, bStart, trimEnd(b, bStart, bLineEnd))) {
+                return false;
+            }
+
+            boolean aDone = aLineEnd >= aEnd;
+            boolean bDone = bLineEnd >= bEnd;
+            if (aDone || bDone) {
+                return aDone && bDone;
+            }
+            i = aLineEnd + 1;
+            j = bLineEnd + 1;
+        }
+    }
+
+    /**
+     * @param epsilon 小于0时按原文比较记号
+     */
+    private static boolean compareTokens(CharSequence a, CharSequence b, double epsilon) {
+        int n = a.length();
+        int m = b.length();
+        int i = 0;
+        int j = 0;
+
+        while (true) {
+            i = skipWhitespace(a, i, n);
+            j = skipWhitespace(b, j, m);
+            if (i >= n || j >= m) {
+                return i >= n && j >= m;
+            }
+
+            int aTokenEnd = tokenEnd(a, i, n);
+            int bTokenEnd = tokenEnd(b, j, m);
+            if (!regionEquals(a, i, aTokenEnd, b, j, bTokenEnd)
+                    && (epsilon < 0 || !numbersClose(a, i, aTokenEnd, b, j, bTokenEnd, epsilon))) {
+                return false;
+            }
+            i = aTokenEnd;
+            j = bTokenEnd;
+        }
+    }
+
+    /**
+     * 两个记号都是十进制数字且误差在允许范围内；只在记号原文不一致时才会解析
+     */
+    private static boolean numbersClose(CharSequence a, int aStart, int aEnd,
+                                        CharSequence b, int bStart, int bEnd, double epsilon) {
+        if (!isDecimal(a, aStart, aEnd) || !isDecimal(b, bStart, bEnd)) {
+            return false;
+        }
+        try {
+            double expected = Double.parseDouble(a.subSequence(aStart, aEnd).toString());
+            double actual = Double.parseDouble(b.subSequence(bStart, bEnd).toString());
+            double diff = Math.abs(expected - actual);
+            return diff <= epsilon || diff <= epsilon * Math.abs(expected);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 只接受由数字、符号、小数点和指数组成的记号，排除 NaN、Infinity、十六进制等 Java 特有写法
+     */
+    private static boolean isDecimal(CharSequence s, int start, int end) {
+        boolean digit = false;
+        for (int k = start; k < end; k++) {
+            char c = s.charAt(k);
+            if (c >= '0' && c <= '9') {
+                digit = true;
+            } else if (c != '+' && c != '-' && c != '.' && c != 'e' && c != 'E') {
+                return false;
+            }
+        }
+        return digit;
+    }
+
+    private static boolean regionEquals(CharSequence a, int aStart, int aEnd, CharSequence b, int bStart, int bEnd) {
+        if (aEnd - aStart != bEnd - bStart) {
+            return false;
+        }
+        for (int i = aStart, j = bStart; i < aEnd; i++, j++) {
+            if (a.charAt(i) != b.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipWhitespace(CharSequence s, int start, int end) {
+        while (start < end && s.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(CharSequence s, int start, int end) {
+        while (end > start && s.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private static int lineEnd(CharSequence s, int start, int end) {
+        while (start < end && s.charAt(start) != '\n') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int tokenEnd(CharSequence s, int start, int end) {
+        while (start < end && s.charAt(start) > ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static CharSequence nullToEmpty(CharSequence s) {
+        return s != null ? s : "";
+    }
+}
@@ -0,0 +1,381 @@
+import java.io.BufferedInputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 批量运行器（Java）
+ * <p>
+ * 在一个虚拟机中依次运行同一个程序的多个测试用例，省去每个用例的虚拟机启动开销。
+ * 每个用例使用新的类加载器加载 Main，静态状态互不影响。每个用例运行前通过 dup2 将 case{i}.in、case{i}.out 和
+ * case{i}.err 放到文件描述符 0、1、2 上，程序无论使用 System.in/out/err 还是 FileDescriptor.in/out/err
+ * 读写的都是当前用例的文件；用例结束后这三个描述符指向 /dev/null。
+ * </p>
+ * <p>
+ * 结果写在启动时复制出的私有描述符上，每个用例一行，以制表符分隔：运行令牌、用例下标、状态、退出码、
+ * CPU时间（纳秒）、堆内存峰值（字节）、墙钟时间（纳秒），状态与 go-judge 一致。运行令牌由调用方每次随机生成，
+ * 从标准输入传入，读取后标准输入即被替换；调用方另外用沙箱统计的CPU时间核对结果，见 BatchedRunner。
+ * 用例超时后无法安全终止，运行器直接退出，其余用例由调用方逐个重新运行；程序调用 System.exit 时同理。
+ * </p>
+ * <p>
+ * dup2 通过外部函数接口调用，需要 JDK 22 及以上；更早的版本上运行器编译失败，没有任何结果，所有用例由调用方逐个运行。
+ * </p>
+ * 参数：用例数、每个用例的CPU时间限制（纳秒）、每个用例的输出限制（字节）
+ */
+public class JudgeHarness {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Linux 的 open 标志
+     */
+    private static final int O_RDONLY = 0;
+    private static final int O_WRONLY = 1;
+    private static final int O_RDWR = 2;
+    private static final int O_CREAT = 0100;
+    private static final int O_TRUNC = 01000;
+
+    private static final Linker LINKER = Linker.nativeLinker();
+    private static final MethodHandle OPEN = libc("open", FunctionDescriptor.of(ValueLayout.JAVA_INT,
+            ValueLayout.ADDRESS, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT), Linker.Option.firstVariadicArg(2));
+    private static final MethodHandle DUP = libc("dup", FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT));
+    private static final MethodHandle DUP2 = libc("dup2", FunctionDescriptor.of(ValueLayout.JAVA_INT,
+            ValueLayout.JAVA_INT, ValueLayout.JAVA_INT));
+    private static final MethodHandle CLOSE = libc("close", FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT));
+    private static final MethodHandle WRITE = libc("write", FunctionDescriptor.of(ValueLayout.JAVA_LONG,
+            ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG));
+
+    public static void main(String[] args) throws Exception {
+        int count = Integer.parseInt(args[0]);
+        long cpuLimit = Long.parseLong(args[1]);
+        long outputLimit = Long.parseLong(args[2]);
+        String token = new String(System.in.readAllBytes(), StandardCharsets.UTF_8).trim();
+        int report = dup(1);
+        URL[] classpath = {Path.of("").toAbsolutePath().toUri().toURL()};
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .collect(Collectors.toList());
+
+        for (int i = 0; i < count; i++) {
+            System.gc();
+            heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+            Case result = runCase(i, classpath, cpuLimit, outputLimit);
+            long memory = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+            write(report, token + "\t" + i + "\t" + result.status + "\t" + result.exitStatus + "\t" + result.time
+                    + "\t" + memory + "\t" + result.runTime + "\n");
+            if (result.abandoned) {
+                // 超时的线程仍在运行，后续用例的计时和内存都不可信
+                Runtime.getRuntime().halt(0);
+            }
+        }
+        Runtime.getRuntime().halt(0);
+    }
+
+    private static Case runCase(int index, URL[] classpath, long cpuLimit, long outputLimit) throws IOException {
+        Case result = new Case();
+        redirect(index);
+        // 描述符 0、1、2 在用例之间复用，这里的流不关闭
+        LimitedOutputStream stdout = new LimitedOutputStream(new FileOutputStream(FileDescriptor.out), outputLimit);
+        LimitedOutputStream stderr = new LimitedOutputStream(new FileOutputStream(FileDescriptor.err), outputLimit);
+        PrintStream out = new PrintStream(stdout, false);
+        PrintStream err = new PrintStream(stderr, true);
+        try (URLClassLoader loader = new URLClassLoader(classpath, ClassLoader.getPlatformClassLoader())) {
+            System.setIn(new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+            System.setOut(out);
+            System.setErr(err);
+
+            Throwable[] failure = new Throwable[1];
+            Map<Thread, Long> cpu = new ConcurrentHashMap<>();
+            ThreadGroup group = new ThreadGroup("case-" + index);
+            Thread main = new Thread(group, () -> {
+                try {
+                    Method entry = loader.loadClass("Main").getMethod("main", String[].class);
+                    entry.invoke(null, (Object) new String[0]);
+                } catch (InvocationTargetException e) {
+                    failure[0] = e.getCause();
+                } catch (Throwable e) {
+                    failure[0] = e;
+                } finally {
+                    // 线程结束后无法再查询它的CPU时间
+                    cpu.put(Thread.currentThread(), THREADS.getCurrentThreadCpuTime());
+                }
+            }, "main");
+            main.setContextClassLoader(loader);
+
+            long start = System.nanoTime();
+            main.start();
+            result.abandoned = !await(main, group, cpu, cpuLimit);
+            result.time = sample(group, cpu);
+            result.runTime = System.nanoTime() - start;
+
+            out.flush();
+            if (result.abandoned) {
+                result.status = "Time Limit Exceeded";
+                result.exitStatus = -1;
+            } else if (failure[0] instanceof OutOfMemoryError) {
+                result.status = "Memory Limit Exceeded";
+                result.exitStatus = 1;
+            } else if (failure[0] != null) {
+                err.print("Exception in thread \"main\" ");
+                failure[0].printStackTrace(err);
+                result.status = "Nonzero Exit Status";
+                result.exitStatus = 1;
+            } else {
+                result.status = "Accepted";
+            }
+        } finally {
+            out.flush();
+            err.flush();
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+            System.setIn(InputStream.nullInputStream());
+            detach();
+        }
+        // 程序直接写描述符时不经过 LimitedOutputStream，按文件大小检查
+        if (truncate(Path.of("case" + index + ".out"), outputLimit) | truncate(Path.of("case" + index + ".err"), outputLimit)
+                || stdout.exceeded || stderr.exceeded) {
+            result.status = "Output Limit Exceeded";
+        }
+        return result;
+    }
+
+    /**
+     * 将用例的输入、输出和错误文件放到描述符 0、1、2 上
+     */
+    private static void redirect(int index) {
+        int[] fds = {
+                open("case" + index + ".in", O_RDONLY),
+                open("case" + index + ".out", O_WRONLY | O_CREAT | O_TRUNC),
+                open("case" + index + ".err", O_WRONLY | O_CREAT | O_TRUNC)
+        };
+        for (int target = 0; target < fds.length; target++) {
+            // 程序关闭了标准描述符时新打开的文件可能正好占用它
+            if (fds[target] != target) {
+                dup2(fds[target], target);
+                close(fds[target]);
+            }
+        }
+    }
+
+    /**
+     * 描述符 0、1、2 指向 /dev/null，残留的输出不会写入下一个用例或结果
+     */
+    private static void detach() {
+        int devNull = open("/dev/null", O_RDWR);
+        for (int target = 0; target < 3; target++) {
+            dup2(devNull, target);
+        }
+        if (devNull > 2) {
+            close(devNull);
+        }
+    }
+
+    /**
+     * 截断超过限制的输出文件
+     *
+     * @return 是否超过限制
+     */
+    private static boolean truncate(Path file, long limit) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            if (channel.size() > limit) {
+                channel.truncate(limit);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 等待主线程和它创建的非守护线程结束
+     *
+     * @return 是否在CPU时间限制内结束
+     */
+    private static boolean await(Thread main, ThreadGroup group, Map<Thread, Long> cpu, long cpuLimit) {
+        // 线程可能阻塞在读取输入上，墙钟时间以CPU时间限制的3倍为上限
+        long deadline = System.nanoTime() + cpuLimit * 3;
+        while (true) {
+            boolean alive = false;
+            for (Thread thread : threadsOf(group)) {
+                alive |= thread == main || !thread.isDaemon();
+            }
+            if (!alive && !main.isAlive()) {
+                return true;
+            }
+            if (sample(group, cpu) > cpuLimit || System.nanoTime() > deadline) {
+                return false;
+            }
+            try {
+                main.join(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 记录用例各线程的CPU时间，已结束的线程保留最后一次记录的值
+     *
+     * @return 各线程CPU时间之和
+     */
+    @SuppressWarnings("deprecation")
+    private static long sample(ThreadGroup group, Map<Thread, Long> cpu) {
+        for (Thread thread : threadsOf(group)) {
+            long time = THREADS.getThreadCpuTime(thread.getId());
+            if (time > 0) {
+                cpu.merge(thread, time, Math::max);
+            }
+        }
+        return cpu.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private static Thread[] threadsOf(ThreadGroup group) {
+        Thread[] threads = new Thread[group.activeCount() + 8];
+        int n = group.enumerate(threads, true);
+        return Arrays.copyOf(threads, n);
+    }
+
+    private static MethodHandle libc(String name, FunctionDescriptor descriptor, Linker.Option... options) {
+        return LINKER.downcallHandle(LINKER.defaultLookup().find(name).orElseThrow(), descriptor, options);
+    }
+
+    private static int open(String path, int flags) {
+        try (Arena arena = Arena.ofConfined()) {
+            byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+            MemorySegment name = arena.allocate(bytes.length + 1L);
+            name.copyFrom(MemorySegment.ofArray(bytes));
+            name.set(ValueLayout.JAVA_BYTE, bytes.length, (byte) 0);
+            return check((int) OPEN.invokeExact(name, flags, 0644), "open " + path);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static int dup(int fd) {
+        try {
+            return check((int) DUP.invokeExact(fd), "dup");
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static void dup2(int fd, int target) {
+        try {
+            check((int) DUP2.invokeExact(fd, target), "dup2");
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static void close(int fd) {
+        try {
+            int ignored = (int) CLOSE.invokeExact(fd);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static void write(int fd, String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment buffer = arena.allocate(bytes.length);
+            buffer.copyFrom(MemorySegment.ofArray(bytes));
+            long offset = 0;
+            while (offset < bytes.length) {
+                long written = (long) WRITE.invokeExact(fd, buffer.asSlice(offset), bytes.length - offset);
+                if (written < 0) {
+                    throw new IllegalStateException("write failed");
+                }
+                offset += written;
+            }
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static int check(int result, String call) {
+        if (result < 0) {
+            throw new IllegalStateException(call + " failed");
+        }
+        return result;
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        return e instanceof RuntimeException runtime ? runtime : new IllegalStateException(e);
+    }
+
+    private static final class Case {
+        private String status;
+        private int exitStatus;
+        private long time;
+        private long runTime;
+        private boolean abandoned;
+    }
+
+    /**
+     * 超过限制后丢弃多余的输出并记录超限
+     */
+    private static final class LimitedOutputStream extends OutputStream {
+        private final OutputStream target;
+        private final long limit;
+        private long size;
+        private boolean exceeded;
+
+        private LimitedOutputStream(OutputStream target, long limit) {
+            this.target = target;
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (size + len > limit) {
+                exceeded = true;
+                len = (int) Math.max(0, limit - size);
+            }
+            target.write(b, off, len);
+            size += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            target.close();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+"""批量运行器（Python）
+
+在一个解释器中依次运行同一个程序的多个测试用例，省去每个用例的解释器启动和模块导入开销。
+源代码只编译一次，每个用例使用新的全局命名空间执行。每个用例运行前用 dup2 将 case{i}.in、case{i}.out 和
+case{i}.err 放到文件描述符 0、1、2 上，程序无论通过 sys.stdin、open(0)、sys.__stdout__ 还是 os.write(1, ...)
+读写的都是当前用例的文件；用例结束后这三个描述符指向 /dev/null。
+
+结果写在启动时复制出的私有描述符上，每个用例一行，以制表符分隔：运行令牌、用例下标、状态、退出码、
+CPU时间（纳秒）、内存峰值（字节）、墙钟时间（纳秒），状态与 go-judge 一致。运行令牌由调用方每次随机生成，
+从标准输入传入，读取后标准输入即被替换，不出现在命令行和工作目录中。程序与运行器在同一进程内，
+仍可能从内存中找到令牌，调用方另外用沙箱统计的CPU时间核对结果，见 BatchedRunner。
+内存为进程到当前用例为止的峰值，是该用例内存的上界。
+
+参数：用例数、每个用例的CPU时间限制（纳秒）、每个用例的输出限制（字节）
+"""
+import gc
+import io
+import os
+import resource
+import signal
+import sys
+import time
+import traceback
+
+
+class TimeLimitExceeded(BaseException):
+    pass
+
+
+class OutputLimitExceeded(BaseException):
+    pass
+
+
+class LimitedWriter(io.RawIOBase):
+    """超过限制后抛出 OutputLimitExceeded，只保留限制以内的输出"""
+
+    def __init__(self, target, limit):
+        self.target = target
+        self.limit = limit
+        self.size = 0
+        self.exceeded = False
+
+    def writable(self):
+        return True
+
+    def write(self, b):
+        n = len(b)
+        if self.size + n > self.limit:
+            self.exceeded = True
+            self.target.write(bytes(b[:max(0, self.limit - self.size)]))
+            self.size = self.limit
+            raise OutputLimitExceeded()
+        self.target.write(b)
+        self.size += n
+        return n
+
+    def close(self):
+        if not self.closed:
+            self.target.close()
+        super().close()
+
+
+def on_timeout(signum, frame):
+    raise TimeLimitExceeded()
+
+
+def cpu_time():
+    usage = resource.getrusage(resource.RUSAGE_SELF)
+    return int((usage.ru_utime + usage.ru_stime) * 1e9)
+
+
+def redirect(index):
+    """将用例的输入、输出和错误文件放到描述符 0、1、2 上"""
+    fds = (os.open("case%d.in" % index, os.O_RDONLY),
+           os.open("case%d.out" % index, os.O_WRONLY | os.O_CREAT | os.O_TRUNC, 0o644),
+           os.open("case%d.err" % index, os.O_WRONLY | os.O_CREAT | os.O_TRUNC, 0o644))
+    for target, fd in enumerate(fds):
+        # 程序关闭了标准描述符时新打开的文件可能正好占用它
+        if fd != target:
+            os.dup2(fd, target)
+            os.close(fd)
+
+
+def detach():
+    """描述符 0、1、2 指向 /dev/null，残留的输出不会写入下一个用例或结果"""
+    null = os.open(os.devnull, os.O_RDWR)
+    for target in (0, 1, 2):
+        os.dup2(null, target)
+    if null > 2:
+        os.close(null)
+
+
+def truncate(index, limit):
+    """截断超过限制的输出文件，程序直接写描述符时不经过 LimitedWriter
+
+    :return: 是否超过限制
+    """
+    exceeded = False
+    for name in ("case%d.out" % index, "case%d.err" % index):
+        if os.path.getsize(name) > limit:
+            os.truncate(name, limit)
+            exceeded = True
+    return exceeded
+
+
+def run_case(index, code, cpu_limit, output_limit, originals, null):
+    redirect(index)
+    stdin = io.TextIOWrapper(io.FileIO(0, "r", closefd=False), encoding="utf-8")
+    stdout_raw = LimitedWriter(io.FileIO(1, "w", closefd=False), output_limit)
+    stderr_raw = LimitedWriter(io.FileIO(2, "w", closefd=False), output_limit)
+    stdout = io.TextIOWrapper(io.BufferedWriter(stdout_raw), encoding="utf-8")
+    stderr = io.TextIOWrapper(stderr_raw, encoding="utf-8", write_through=True)
+    recursion_limit = sys.getrecursionlimit()
+    sys.stdin, sys.stdout, sys.stderr = stdin, stdout, stderr
+    sys.__stdin__, sys.__stdout__, sys.__stderr__ = stdin, stdout, stderr
+
+    status, exit_status = "Accepted", 0
+    start_cpu, start = cpu_time(), time.monotonic_ns()
+    signal.setitimer(signal.ITIMER_PROF, cpu_limit / 1e9)
+    try:
+        exec(code, {"__name__": "__main__", "__file__": "main.py", "__builtins__": __builtins__})
+    except TimeLimitExceeded:
+        status, exit_status = "Time Limit Exceeded", -1
+    except SystemExit as e:
+        if e.code is None:
+            exit_status = 0
+        elif isinstance(e.code, int):
+            exit_status = e.code
+        else:
+            print(e.code, file=sys.stderr)
+            exit_status = 1
+        if exit_status != 0:
+            status = "Nonzero Exit Status"
+    except MemoryError:
+        status, exit_status = "Memory Limit Exceeded", 1
+    except OutputLimitExceeded:
+        status, exit_status = "Output Limit Exceeded", 1
+    except BaseException:
+        try:
+            traceback.print_exc()
+        except OutputLimitExceeded:
+            pass
+        status, exit_status = "Nonzero Exit Status", 1
+    finally:
+        signal.setitimer(signal.ITIMER_PROF, 0)
+    elapsed_cpu, elapsed = cpu_time() - start_cpu, time.monotonic_ns() - start
+
+    # 解释器原有的标准流仍指向描述符 0、1、2，缓冲的输出在切换前写入当前用例
+    for stream in (stdin, stdout, stderr) + originals:
+        try:
+            stream.flush()
+        except BaseException:
+            pass
+    detach()
+    sys.stdin = sys.stdout = sys.stderr = null
+    sys.__stdin__ = sys.__stdout__ = sys.__stderr__ = null
+    sys.setrecursionlimit(recursion_limit)
+    for stream in (stdin, stdout, stderr):
+        try:
+            stream.close()
+        except BaseException:
+            pass
+    if truncate(index, output_limit) or stdout_raw.exceeded or stderr_raw.exceeded:
+        status = "Output Limit Exceeded"
+    memory = resource.getrusage(resource.RUSAGE_SELF).ru_maxrss * 1024
+    return status, exit_status, elapsed_cpu, memory, elapsed
+
+
+def main():
+    count, cpu_limit, output_limit = int(sys.argv[1]), int(sys.argv[2]), int(sys.argv[3])
+    token = sys.stdin.read().strip()
+    report = os.fdopen(os.dup(1), "w")
+    originals = (sys.__stdin__, sys.__stdout__, sys.__stderr__)
+    null = open(os.devnull, "r+")
+    with open("main.py", "r", encoding="utf-8") as f:
+        code = compile(f.read(), "main.py", "exec")
+    signal.signal(signal.SIGPROF, on_timeout)
+    for index in range(count):
+        result = run_case(index, code, cpu_limit, output_limit, originals, null)
+        report.write("\t".join(str(value) for value in (token, index) + result) + "\n")
+        report.flush()
+        gc.collect()
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,188 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.SandboxConfig;
+import com.dong.judge.model.dto.sandbox.RunRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchedRunnerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BatchedRunner batchedRunner = new BatchedRunner(objectMapper, Duration.ofSeconds(13));
+    private SandboxConfig.LanguageConfig python;
+
+    @BeforeEach
+    public void setUp() {
+        python = new SandboxConfig.LanguageConfig();
+        python.setSourceFile("main.py");
+        python.setRunCommand(List.of("python3", "main.py"));
+        python.setNeedCompile(false);
+        python.setCpuLimit(1_000_000_000L);
+        python.setBatchRunCommand(List.of("python3", "judge_harness.py"));
+        python.setBatchRunner("sandbox/harness/judge_harness.py");
+    }
+
+    @Test
+    public void acceptsOnlyBatchedRequestsForTheSameProgram() {
+        assertTrue(batchedRunner.accepts(List.of(request("print(1)", "1"), request("print(1)", "2")), configs(2)));
+        assertFalse(batchedRunner.accepts(List.of(request("print(1)", "1")), configs(1)));
+        assertFalse(batchedRunner.accepts(List.of(request("print(1)", "1"), request("print(2)", "2")), configs(2)));
+        assertFalse(batchedRunner.accepts(List.of(request("print(1)", "1"),
+                request("print(1)", "2").toBuilder().batched(false).build()), configs(2)));
+        assertFalse(batchedRunner.accepts(List.of(request("print(1)", "1"),
+                request("print(1)", "2").toBuilder().args(List.of("-v")).build()), configs(2)));
+
+        python.setBatchRunCommand(null);
+        assertFalse(batchedRunner.accepts(List.of(request("print(1)", "1"), request("print(1)", "2")), configs(2)));
+    }
+
+    @Test
+    public void capsBatchSizeSoTheRunnerFinishesWithinTheReadTimeout() {
+        // 13秒读超时：1秒限制、0.3秒启动余量最多11个用例，(11 + 1) × 1 + 0.3 <= 13
+        python.setBatchStartupCpu(300_000_000L);
+        assertEquals(11, batchedRunner.maxCases(python));
+        assertTrue(batchedRunner.accepts(Collections.nCopies(11, request("print(1)", "1")), configs(11)));
+        assertFalse(batchedRunner.accepts(Collections.nCopies(12, request("print(1)", "1")), configs(12)));
+
+        python.setBatchStartupCpu(3_000_000_000L);
+        assertEquals(9, batchedRunner.maxCases(python));
+        python.setCpuLimit(10_000_000_000L);
+        assertEquals(0, batchedRunner.maxCases(python));
+        assertFalse(batchedRunner.accepts(List.of(request("print(1)", "1"), request("print(1)", "2")), configs(2)));
+    }
+
+    @Test
+    public void buildsOneRunnerCommandForAllCases() {
+        List<RunRequest> requests = List.of(request("print(1)", "1"),
+                RunRequest.builder().code("print(1)").language("python").inputHash("h2").batched(true).build());
+
+        JsonNode cmd = batchedRunner.buildRequestBody(requests, python, "t0k3n", Map.of("h2", "file-2"), RunRequest::getInput)
+                .get("cmd");
+
+        assertEquals(1, cmd.size());
+        assertEquals(List.of("python3", "judge_harness.py", "2", "1000000000", "10240"), texts(cmd.get(0).get("args")));
+        // 运行令牌只经标准输入传入
+        assertEquals("t0k3n\n", cmd.get(0).get("files").get(0).get("content").asText());
+        assertEquals(3_000_000_000L, cmd.get(0).get("cpuLimit").asLong());
+        JsonNode copyIn = cmd.get(0).get("copyIn");
+        assertEquals("print(1)", copyIn.get("main.py").get("content").asText());
+        assertTrue(copyIn.get("judge_harness.py").get("content").asText().contains("def run_case"));
+        assertEquals("1", copyIn.get("case0.in").get("content").asText());
+        assertEquals("file-2", copyIn.get("case1.in").get("fileId").asText());
+        assertTrue(texts(cmd.get(0).get("copyOut")).containsAll(List.of("stdout", "case1.out?", "case1.err?")));
+    }
+
+    @Test
+    public void splitsRunnerReportIntoCaseResults() {
+        JsonNode response = runnerResponse(4000, "t0k3n\t0\tAccepted\t0\t1000\t2048\t1500\nnot a report\n"
+                + "t0k3n\t1\tNonzero Exit Status\t1\t2000\t4096\t2500\n");
+
+        List<JsonNode> results = batchedRunner.split(response, 3, "t0k3n", limit(1000));
+
+        assertEquals("Accepted", results.get(0).get("status").asText());
+        assertEquals("2\n", results.get(0).get("files").get("stdout").asText());
+        assertEquals(1000, results.get(0).get("time").asLong());
+        assertEquals(1, results.get(1).get("exitStatus").asInt());
+        assertEquals("ValueError: boom", results.get(1).get("files").get("stderr").asText());
+        // 运行器没有报告的用例留给调用方逐个重新运行
+        assertNull(results.get(2));
+        assertEquals(Collections.nCopies(2, null), batchedRunner.split(null, 2, "t0k3n", limit(1000)));
+    }
+
+    @Test
+    public void ignoresReportLinesWithoutTheRunToken() {
+        // 程序伪造的结果行没有本次的运行令牌
+        JsonNode response = runnerResponse(1500, "t0k3n\t0\tAccepted\t0\t1000\t2048\t1500\n"
+                + "guess\t1\tAccepted\t0\t1\t1\t1\n1\tAccepted\t0\t1\t1\t1\n");
+
+        List<JsonNode> results = batchedRunner.split(response, 2, "t0k3n", limit(1000));
+
+        assertNotNull(results.get(0));
+        assertNull(results.get(1));
+    }
+
+    @Test
+    public void distrustsReportsThatDisagreeWithTheSandbox() {
+        String report = "t0k3n\t0\tAccepted\t0\t100\t2048\t150\nt0k3n\t1\tAccepted\t0\t100\t2048\t150\n";
+        assertNotNull(batchedRunner.split(runnerResponse(1200, report), 2, "t0k3n", limit(1000)).get(0));
+
+        // 沙箱统计的CPU时间远多于报告的用例时间，有用例的时间没有如实报告
+        assertEquals(Collections.nCopies(2, null), batchedRunner.split(runnerResponse(5000, report), 2, "t0k3n", limit(1000)));
+        // 同一用例有两行结果
+        assertEquals(Collections.nCopies(2, null), batchedRunner.split(runnerResponse(1200,
+                report + "t0k3n\t1\tAccepted\t0\t100\t2048\t150\n"), 2, "t0k3n", limit(1000)));
+        // 报告为通过的用例超过了时间限制
+        assertEquals(Collections.nCopies(2, null), batchedRunner.split(runnerResponse(3000,
+                "t0k3n\t0\tAccepted\t0\t2000\t2048\t2500\n"), 2, "t0k3n", limit(1000)));
+    }
+
+    @Test
+    public void excludesJvmStartupFromTheSandboxTimeCheck() {
+        SandboxConfig.LanguageConfig java = new SandboxConfig.LanguageConfig();
+        java.setSourceFile("Main.java");
+        java.setCpuLimit(1_000_000_000L);
+        java.setBatchRunCommand(List.of("java", "JudgeHarness.java"));
+        java.setBatchRunner("sandbox/harness/JudgeHarness.java");
+        java.setBatchStartupCpu(3_000_000_000L);
+        StringBuilder report = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            report.append("t0k3n\t").append(i).append("\tAccepted\t0\t50000000\t65536000\t60000000\n");
+        }
+
+        // 10个用例共0.5秒，源文件启动器编译运行器、JIT 和 GC 另外消耗约2.2秒
+        List<JsonNode> results = batchedRunner.split(runnerResponse(2_700_000_000L, report.toString()), 10, "t0k3n", java);
+        assertTrue(results.stream().allMatch(Objects::nonNull));
+        // 超出启动余量和一个用例限制的部分仍然作废整批
+        assertEquals(Collections.nCopies(10, null),
+                batchedRunner.split(runnerResponse(4_600_000_000L, report.toString()), 10, "t0k3n", java));
+
+        // 运行器的CPU时间限制包含启动余量
+        JsonNode cmd = batchedRunner.buildRequestBody(List.of(request("1", "1"), request("1", "2")), java, "t0k3n",
+                Map.of(), RunRequest::getInput).get("cmd").get(0);
+        assertEquals(6_000_000_000L, cmd.get("cpuLimit").asLong());
+    }
+
+    private JsonNode runnerResponse(long time, String report) {
+        ObjectNode runner = objectMapper.createObjectNode();
+        runner.put("status", "Accepted");
+        runner.put("time", time);
+        ObjectNode files = runner.putObject("files");
+        files.put("stdout", report);
+        files.put("case0.out", "2\n");
+        files.put("case1.err", "ValueError: boom");
+        return objectMapper.createArrayNode().add(runner);
+    }
+
+    private RunRequest request(String code, String input) {
+        return RunRequest.builder().code(code).language("python").input(input).batched(true).build();
+    }
+
+    private SandboxConfig.LanguageConfig limit(long cpuLimit) {
+        SandboxConfig.LanguageConfig langConfig = new SandboxConfig.LanguageConfig();
+        langConfig.setCpuLimit(cpuLimit);
+        return langConfig;
+    }
+
+    private List<SandboxConfig.LanguageConfig> configs(int count) {
+        return Collections.nCopies(count, python);
+    }
+
+    private static List<String> texts(JsonNode array) {
+        List<String> texts = new ArrayList<>();
+        array.forEach(node -> texts.add(node.asText()));
+        return texts;
+    }
+}
@@ -0,0 +1,125 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.ProblemCacheConfig;
+import com.dong.judge.model.pojo.judge.Problem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CachingProblemServiceTest {
+
+    private ProblemServiceImpl delegate;
+    private StringRedisTemplate redisTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private CachingProblemService cachingService;
+
+    @BeforeEach
+    public void setUp() {
+        delegate = mock(ProblemServiceImpl.class);
+        redisTemplate = mock(StringRedisTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(delegate.getProblemById(anyString()))
+                .thenAnswer(invocation -> Problem.builder().id(invocation.getArgument(0)).build());
+        when(delegate.getAllTags()).thenReturn(List.of("dp", "math"));
+        cachingService = new CachingProblemService(delegate, new ProblemCacheConfig(), redisTemplate,
+                mock(RedisMessageListenerContainer.class), meterRegistry);
+    }
+
+    @Test
+    public void readsAreServedFromCache() {
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        when(delegate.searchProblemsWithConditions(pageRequest, null, null, List.of("dp"), false))
+                .thenReturn(new PageImpl<>(List.of()));
+
+        Problem first = cachingService.getProblemById("p1");
+        assertEquals(first, cachingService.getProblemById("p1"));
+        cachingService.getAllTags();
+        cachingService.getAllTags();
+        cachingService.searchProblemsWithConditions(pageRequest, null, null, List.of("dp"), false);
+        cachingService.searchProblemsWithConditions(pageRequest, null, null, List.of("dp"), false);
+
+        verify(delegate, times(1)).getProblemById("p1");
+        verify(delegate, times(1)).getAllTags();
+        verify(delegate, times(1)).searchProblemsWithConditions(pageRequest, null, null, List.of("dp"), false);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "problem.by-id").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "problem.by-id").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    public void callersGetCopiesThatDoNotAffectTheCache() {
+        when(delegate.getProblemById("p1"))
+                .thenReturn(Problem.builder().id("p1").title("A+B").tags(new ArrayList<>(List.of("math"))).build());
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        when(delegate.searchProblemsWithConditions(pageRequest, null, null, null, false))
+                .thenReturn(new PageImpl<>(List.of(Problem.builder().id("p1").title("A+B").build())));
+
+        Problem first = cachingService.getProblemById("p1");
+        first.setTitle("changed");
+        first.getTags().add("dp");
+        cachingService.searchProblemsWithConditions(pageRequest, null, null, null, false).getContent().get(0).setTitle("changed");
+
+        Problem second = cachingService.getProblemById("p1");
+        assertNotSame(first, second);
+        assertEquals("A+B", second.getTitle());
+        assertEquals(List.of("math"), second.getTags());
+        assertEquals("A+B", cachingService.searchProblemsWithConditions(pageRequest, null, null, null, false)
+                .getContent().get(0).getTitle());
+        verify(delegate, times(1)).getProblemById("p1");
+    }
+
+    @Test
+    public void updateInvalidatesAndBroadcasts() {
+        Problem problem = Problem.builder().id("p1").build();
+        when(delegate.updateProblem(problem, "u1")).thenReturn(problem);
+        cachingService.getProblemById("p1");
+        cachingService.getProblemById("p2");
+        cachingService.getAllTags();
+
+        cachingService.updateProblem(problem, "u1");
+        cachingService.getProblemById("p1");
+        cachingService.getProblemById("p2");
+        cachingService.getAllTags();
+
+        verify(delegate, times(2)).getProblemById("p1");
+        verify(delegate, times(1)).getProblemById("p2");
+        verify(delegate, times(2)).getAllTags();
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq("judge:problem:changed"), message.capture());
+        assertTrue(message.getValue().endsWith("|p1"));
+    }
+
+    @Test
+    public void remoteMessagesInvalidateButOwnMessagesAreIgnored() {
+        Problem problem = Problem.builder().id("p1").build();
+        when(delegate.createProblem(problem, "u1")).thenReturn(problem);
+        cachingService.createProblem(problem, "u1");
+        ArgumentCaptor<String> ownMessage = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(anyString(), ownMessage.capture());
+
+        cachingService.getProblemById("p1");
+        cachingService.onMessage(message(ownMessage.getValue()), null);
+        cachingService.getProblemById("p1");
+        verify(delegate, times(1)).getProblemById("p1");
+
+        cachingService.onMessage(message("other-instance|p1"), null);
+        cachingService.getProblemById("p1");
+        verify(delegate, times(2)).getProblemById("p1");
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage("judge:problem:changed".getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,238 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.JudgeConfig;
+import com.dong.judge.config.SandboxConfig;
+import com.dong.judge.dao.repository.SubmissionRepository;
+import com.dong.judge.model.dto.code.CodeSubmitRequest;
+import com.dong.judge.model.dto.code.Subtask;
+import com.dong.judge.model.dto.code.SubtaskResult;
+import com.dong.judge.model.dto.code.TestCase;
+import com.dong.judge.model.dto.code.TestCaseResult;
+import com.dong.judge.model.dto.code.TestCaseSetResult;
+import com.dong.judge.model.dto.sandbox.RunRequest;
+import com.dong.judge.model.enums.ExecutionStatus;
+import com.dong.judge.model.enums.JudgePolicy;
+import com.dong.judge.model.enums.OutputCheckMode;
+import com.dong.judge.model.enums.SubtaskScoring;
+import com.dong.judge.model.pojo.judge.Problem;
+import com.dong.judge.model.pojo.judge.TestGroup;
+import com.dong.judge.model.vo.sandbox.RunResult;
+import com.dong.judge.service.JudgeProgressService;
+import com.dong.judge.service.JudgeQueue;
+import com.dong.judge.service.ProblemService;
+import com.dong.judge.service.RankingService;
+import com.dong.judge.service.SandboxService;
+import com.dong.judge.service.TestDataStore;
+import com.dong.judge.service.TestGroupService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class CodeServiceImplTest {
+
+    private SandboxService sandboxService;
+    private TestGroupService testGroupService;
+    private JudgeConfig judgeConfig;
+    private CodeServiceImpl codeService;
+    private SimpleMeterRegistry meterRegistry;
+    private Problem problem;
+    private TestGroup testGroup;
+    private final List<String> executedInputs = new ArrayList<>();
+    private final List<Integer> checkerBatchSizes = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        sandboxService = mock(SandboxService.class);
+        ProblemService problemService = mock(ProblemService.class);
+        testGroupService = mock(TestGroupService.class);
+        judgeConfig = new JudgeConfig();
+        meterRegistry = new SimpleMeterRegistry();
+
+        SandboxConfig sandboxConfig = new SandboxConfig();
+        SandboxConfig.LanguageConfig python = new SandboxConfig.LanguageConfig();
+        python.setNeedCompile(false);
+        sandboxConfig.getLanguages().put("python", python);
+        sandboxConfig.getRun().setBatchSize(2);
+
+        List<TestCase> testCases = new ArrayList<>();
+        List<TestCaseResult> expected = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            testCases.add(TestCase.builder().id(id).input("in-" + id + "x".repeat((int) id)).build());
+            expected.add(TestCaseResult.builder().id(id).stdout("ok").build());
+        }
+        testGroup = TestGroup.builder().id("group-1").testCases(testCases).testCaseResults(expected).build();
+        problem = Problem.builder().id("problem-1").title("A+B").testGroupId("group-1").build();
+
+        when(problemService.getProblemById("problem-1")).thenReturn(problem);
+        when(testGroupService.getTestGroupById("group-1")).thenReturn(testGroup);
+
+        // 输入中包含 "in-3" 的用例输出错误，其余用例通过；特殊评测程序只接受输出 "ok"
+        when(sandboxService.runBatchAsync(anyList())).thenAnswer(invocation -> {
+            List<RunRequest> requests = invocation.getArgument(0);
+            List<RunResult> results = new ArrayList<>();
+            if (requests.get(0).getArgs() != null) {
+                checkerBatchSizes.add(requests.size());
+                for (RunRequest request : requests) {
+                    boolean ok = "ok".equals(request.getFiles().get("output.txt"));
+                    results.add(RunResult.builder()
+                            .status(ok ? "Accepted" : "Nonzero Exit Status")
+                            .exitStatus(ok ? 0 : 1)
+                            .stderr(ok ? "ok" : "wrong answer")
+                            .build());
+                }
+                return CompletableFuture.completedFuture(results);
+            }
+            for (RunRequest request : requests) {
+                executedInputs.add(request.getInput());
+                results.add(RunResult.builder()
+                        .status("Accepted")
+                        .stdout(request.getInput().startsWith("in-3") ? "wrong" : "ok")
+                        .build());
+            }
+            return CompletableFuture.completedFuture(results);
+        });
+
+        codeService = new CodeServiceImpl(sandboxService, problemService, testGroupService,
+                mock(SubmissionRepository.class), sandboxConfig, mock(JudgeQueue.class), judgeConfig,
+                new JudgeScheduler(judgeConfig, new SimpleMeterRegistry()), mock(TestDataStore.class),
+                mock(ProblemStatisticsWriter.class), mock(RankingService.class),
+                mock(JudgeProgressService.class), new JudgeMetrics(meterRegistry, sandboxConfig));
+    }
+
+    @Test
+    public void runAllExecutesEveryTestCase() {
+        judgeConfig.setPolicy(JudgePolicy.RUN_ALL);
+
+        TestCaseSetResult result = codeService.submitCode(request(), "user-1");
+
+        assertEquals(5, executedInputs.size());
+        assertEquals(4, result.getPassedCount());
+        assertEquals(ExecutionStatus.WRONG_ANSWER.getCode(), result.getFirstFailedTestCase().getStatus());
+        verify(testGroupService).recordTestCaseFailure("group-1", 3L);
+    }
+
+    @Test
+    public void judgeRecordsVerdictAndCaseMetrics() {
+        codeService.submitCode(request(), "user-1");
+
+        assertEquals(1.0, meterRegistry.get("judge.verdicts")
+                .tag("language", "python").tag("verdict", ExecutionStatus.WRONG_ANSWER.getCode()).counter().count());
+        assertEquals(5.0, meterRegistry.get("judge.submission.cases").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("judge.submission.phase").tag("phase", "judge").timer().count());
+        assertEquals(0.0, meterRegistry.get("judge.submissions.in-flight").gauge().value());
+    }
+
+    @Test
+    public void stopOnFirstFailureRunsHistoricallyFailingCaseFirstAndSkipsTheRest() {
+        problem.setJudgePolicy(JudgePolicy.STOP_ON_FIRST_FAILURE);
+        testGroup.setCaseFailureCounts(Map.of("3", 7L));
+
+        TestCaseSetResult result = codeService.submitCode(request(), "user-1");
+
+        assertEquals(List.of("in-3xxx"), executedInputs);
+        List<TestCaseResult> results = result.getTestCaseResults();
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), results.stream().map(TestCaseResult::getId).toList());
+        assertEquals(ExecutionStatus.WRONG_ANSWER.getCode(), results.get(2).getStatus());
+        assertEquals(4, results.stream().filter(r -> ExecutionStatus.SKIPPED.getCode().equals(r.getStatus())).count());
+        assertEquals(3L, result.getFirstFailedTestCase().getId());
+        assertFalse(result.isAllPassed());
+    }
+
+    @Test
+    public void stopOnFirstFailureRunsSmallInputsFirstInGrowingBatches() {
+        judgeConfig.setPolicy(JudgePolicy.STOP_ON_FIRST_FAILURE);
+
+        TestCaseSetResult result = codeService.submitCode(request(), "user-1");
+
+        // 批大小依次为1、2，第二批中的用例3失败后不再发送后续批次
+        assertEquals(List.of("in-1x", "in-2xx", "in-3xxx"), executedInputs);
+        verify(sandboxService, times(2)).runBatchAsync(anyList());
+        assertEquals(2, result.getPassedCount());
+        assertEquals(ExecutionStatus.WRONG_ANSWER.getCode(), result.getFirstFailedTestCase().getStatus());
+    }
+
+    @Test
+    public void specialJudgeChecksEachBatchWithOneSandboxCall() {
+        judgeConfig.setPolicy(JudgePolicy.RUN_ALL);
+        problem.setOutputCheckMode(OutputCheckMode.SPECIAL);
+        problem.setCheckerLanguage("python");
+        problem.setCheckerCode("import sys");
+
+        TestCaseSetResult result = codeService.submitCode(request(), "user-1");
+
+        // 5个用例分为3批，每批的评测程序调用合并为一次
+        assertEquals(List.of(2, 2, 1), checkerBatchSizes);
+        assertEquals(4, result.getPassedCount());
+        TestCaseResult failed = result.getFirstFailedTestCase();
+        assertEquals(3L, failed.getId());
+        assertEquals(ExecutionStatus.WRONG_ANSWER.getCode(), failed.getStatus());
+        assertEquals("wrong answer", failed.getCheckerMessage());
+    }
+
+    @Test
+    public void specialJudgeWithoutCheckerIsSystemError() {
+        problem.setOutputCheckMode(OutputCheckMode.SPECIAL);
+
+        TestCaseSetResult result = codeService.submitCode(request(), "user-1");
+
+        assertTrue(executedInputs.isEmpty());
+        assertEquals(ExecutionStatus.SYSTEM_ERROR.getCode(), result.getTestCaseResults().get(0).getStatus());
+    }
+
+    @Test
+    public void subtaskFailureSkipsRestOfSubtaskAndDependents() {
+        judgeConfig.setPolicy(JudgePolicy.RUN_ALL);
+        testGroup.setSubtasks(List.of(
+                subtask(1, 20, SubtaskScoring.MIN, List.of(1L, 2L)),
+                subtask(2, 30, SubtaskScoring.MIN, List.of(3L, 4L)),
+                subtask(3, 50, SubtaskScoring.MIN, List.of(5L), 1, 2)));
+
+        TestCaseSetResult result = codeService.submitCode(request(), "user-1");
+
+        // 子任务2的用例3失败后用例4不执行，依赖子任务2的子任务3整体跳过
+        assertEquals(List.of("in-1x", "in-2xx", "in-3xxx"), executedInputs);
+        assertEquals(List.of("Accepted", "Accepted", "Wrong Answer", "Skipped", "Skipped"),
+                result.getTestCaseResults().stream().map(TestCaseResult::getStatus).toList());
+        assertEquals(List.of("Accepted", "Wrong Answer", "Skipped"),
+                result.getSubtaskResults().stream().map(SubtaskResult::getStatus).toList());
+        assertEquals(20, result.getScore());
+        assertEquals(100, result.getTotalScore());
+    }
+
+    @Test
+    public void sumSubtaskRunsAllCasesForPartialScore() {
+        testGroup.setSubtasks(List.of(
+                subtask(1, 40, SubtaskScoring.SUM, List.of(1L, 2L, 3L, 4L)),
+                subtask(2, 60, SubtaskScoring.MIN, List.of(4L, 5L), 1)));
+
+        TestCaseSetResult result = codeService.submitCode(request(), "user-1");
+
+        // 按比例得分的子任务忽略遇错即停策略，共享的用例4只执行一次
+        assertEquals(List.of("in-1x", "in-2xx", "in-3xxx", "in-4xxxx"), executedInputs);
+        assertEquals(List.of(30, 0), result.getSubtaskResults().stream().map(SubtaskResult::getScore).toList());
+        assertEquals(30, result.getScore());
+        assertEquals(ExecutionStatus.SKIPPED.getCode(), result.getTestCaseResults().get(4).getStatus());
+    }
+
+    private static Subtask subtask(int id, int score, SubtaskScoring scoring, List<Long> caseIds, Integer... dependencies) {
+        return Subtask.builder().id(id).score(score).scoring(scoring).caseIds(caseIds)
+                .dependencies(List.of(dependencies)).build();
+    }
+
+    private CodeSubmitRequest request() {
+        return CodeSubmitRequest.builder()
+                .problemId("problem-1")
+                .language("python")
+                .code("print('ok')")
+                .build();
+    }
+}
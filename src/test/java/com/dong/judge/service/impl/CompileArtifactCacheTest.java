@@ -0,0 +1,131 @@
+package com.dong.judge.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CompileArtifactCacheTest {
+
+    private final List<String> deleted = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MutableClock clock;
+
+    @BeforeEach
+    public void setUp() {
+        deleted.clear();
+        clock = new MutableClock();
+    }
+
+    @Test
+    public void testAcquireAfterPutShouldHit() {
+        CompileArtifactCache cache = new CompileArtifactCache(10, Duration.ofMinutes(1), deleted::add, meterRegistry, clock);
+        CompileArtifactCache.Key key = new CompileArtifactCache.Key("g++", "hash");
+
+        assertNull(cache.acquire(key));
+        assertEquals("f1", cache.put(key, "f1"));
+        assertEquals("f1", cache.acquire(key));
+
+        assertEquals(1.0, meterRegistry.get("sandbox.compile.cache.requests").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("sandbox.compile.cache.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    public void testConcurrentPutShouldKeepFirstArtifactAndDeleteDuplicate() {
+        CompileArtifactCache cache = new CompileArtifactCache(10, Duration.ofMinutes(1), deleted::add, meterRegistry, clock);
+        CompileArtifactCache.Key key = new CompileArtifactCache.Key("g++", "hash");
+
+        assertEquals("f1", cache.put(key, "f1"));
+        assertEquals("f1", cache.put(key, "f2"));
+        assertEquals(List.of("f2"), deleted);
+    }
+
+    @Test
+    public void testEvictionShouldWaitUntilArtifactReleased() {
+        CompileArtifactCache cache = new CompileArtifactCache(1, Duration.ofMinutes(1), deleted::add, meterRegistry, clock);
+        CompileArtifactCache.Key first = new CompileArtifactCache.Key("g++", "a");
+        CompileArtifactCache.Key second = new CompileArtifactCache.Key("g++", "b");
+
+        cache.put(first, "f1");
+        cache.put(second, "f2");
+        assertTrue(deleted.isEmpty(), "正在使用的产物不应被删除");
+
+        assertTrue(cache.release("f1"));
+        assertEquals(List.of("f1"), deleted);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testExpiredArtifactShouldMissAndBeDeletedOnRelease() {
+        CompileArtifactCache cache = new CompileArtifactCache(10, Duration.ofSeconds(10), deleted::add, meterRegistry, clock);
+        CompileArtifactCache.Key key = new CompileArtifactCache.Key("g++", "hash");
+
+        cache.put(key, "f1");
+        clock.advance(Duration.ofSeconds(11));
+
+        assertNull(cache.acquire(key));
+        assertTrue(deleted.isEmpty());
+        assertTrue(cache.release("f1"));
+        assertEquals(List.of("f1"), deleted);
+    }
+
+    @Test
+    public void testInvalidatedArtifactShouldMissButKeepHoldersReferences() {
+        CompileArtifactCache cache = new CompileArtifactCache(10, Duration.ofMinutes(1), deleted::add, meterRegistry, clock);
+        CompileArtifactCache.Key key = new CompileArtifactCache.Key("g++", "hash");
+
+        cache.put(key, "f1");
+        assertEquals("f1", cache.acquire(key));
+        assertTrue(cache.invalidate("f1"));
+        assertFalse(cache.invalidate("unknown"));
+
+        // 重新编译的产物替换失效的产物
+        assertNull(cache.acquire(key));
+        assertEquals("f2", cache.put(key, "f2"));
+
+        // 两个持有者归还后失效的产物才删除
+        assertTrue(cache.release("f1"));
+        assertTrue(deleted.isEmpty());
+        assertTrue(cache.release("f1"));
+        assertEquals(List.of("f1"), deleted);
+        assertEquals("f2", cache.acquire(key));
+    }
+
+    @Test
+    public void testReleaseUnknownFileShouldReturnFalse() {
+        CompileArtifactCache cache = new CompileArtifactCache(10, Duration.ofMinutes(1), deleted::add, meterRegistry, clock);
+
+        assertFalse(cache.release("unknown"));
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.util.HashUtil;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsResource;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class GridFsTestDataStoreTest {
+
+    private GridFsTemplate gridFsTemplate;
+    private SimpleMeterRegistry meterRegistry;
+
+    /**
+     * 文件名 -> 内容，模拟 test_data 存储桶
+     */
+    private final Map<String, byte[]> bucket = new HashMap<>();
+
+    @BeforeEach
+    public void setUp() {
+        gridFsTemplate = mock(GridFsTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(gridFsTemplate.findOne(any(Query.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            String filename = query.getQueryObject().getString("filename");
+            byte[] content = bucket.get(filename);
+            return content == null ? null
+                    : new GridFSFile(new BsonObjectId(new ObjectId()), filename, content.length, 255 * 1024, new Date(), new Document());
+        });
+        when(gridFsTemplate.store(any(InputStream.class), anyString())).thenAnswer(invocation -> {
+            InputStream in = invocation.getArgument(0);
+            bucket.put(invocation.getArgument(1), in.readAllBytes());
+            return new ObjectId();
+        });
+        when(gridFsTemplate.getResource(any(GridFSFile.class))).thenAnswer(invocation -> {
+            GridFSFile file = invocation.getArgument(0);
+            return new GridFsResource(file, new ByteArrayInputStream(bucket.get(file.getFilename())));
+        });
+    }
+
+    @Test
+    public void putStoresContentOnceUnderItsHash() {
+        GridFsTestDataStore store = new GridFsTestDataStore(gridFsTemplate, 1024, meterRegistry);
+
+        String hash = store.put("1 2\n");
+        assertEquals(hash, store.put("1 2\n"));
+
+        assertEquals(HashUtil.sha256Hex("1 2\n"), hash);
+        assertArrayEquals("1 2\n".getBytes(StandardCharsets.UTF_8), bucket.get(hash));
+        verify(gridFsTemplate, times(1)).store(any(InputStream.class), anyString());
+    }
+
+    @Test
+    public void getReadsFromGridFsOnceThenFromCache() {
+        bucket.put("h1", "测试数据".getBytes(StandardCharsets.UTF_8));
+        GridFsTestDataStore store = new GridFsTestDataStore(gridFsTemplate, 1024, meterRegistry);
+
+        assertEquals("测试数据", store.get("h1"));
+        assertEquals("测试数据", store.get("h1"));
+
+        verify(gridFsTemplate, times(1)).getResource(any(GridFSFile.class));
+        assertEquals(1, meterRegistry.counter("judge.test-data.cache.requests", "result", "hit").count());
+        assertEquals(1, meterRegistry.counter("judge.test-data.cache.requests", "result", "miss").count());
+        assertThrows(IllegalStateException.class, () -> store.get("missing"));
+    }
+
+    @Test
+    public void cacheCapacityCountsUtf8Bytes() {
+        // 4个字符，12个字节
+        bucket.put("wide", "一二三四".getBytes(StandardCharsets.UTF_8));
+        GridFsTestDataStore store = new GridFsTestDataStore(gridFsTemplate, 10, meterRegistry);
+
+        store.get("wide");
+        store.get("wide");
+
+        assertEquals(0, store.cachedBytes());
+        verify(gridFsTemplate, times(2)).getResource(any(GridFSFile.class));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvictedByBytes() {
+        bucket.put("a", "一二".getBytes(StandardCharsets.UTF_8));
+        bucket.put("b", "abc".getBytes(StandardCharsets.UTF_8));
+        bucket.put("c", "de".getBytes(StandardCharsets.UTF_8));
+        GridFsTestDataStore store = new GridFsTestDataStore(gridFsTemplate, 9, meterRegistry);
+
+        store.get("a");
+        store.get("b");
+        assertEquals(9, store.cachedBytes());
+
+        // 超出上限，淘汰最久未使用的 a
+        store.get("c");
+        assertEquals(5, store.cachedBytes());
+        assertEquals(5, meterRegistry.get("judge.test-data.cache.size").gauge().value());
+
+        clearInvocations(gridFsTemplate);
+        store.get("b");
+        store.get("c");
+        verify(gridFsTemplate, never()).getResource(any(GridFSFile.class));
+        store.get("a");
+        verify(gridFsTemplate, times(1)).getResource(any(GridFSFile.class));
+    }
+}
@@ -0,0 +1,40 @@
+package com.dong.judge.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+public class InMemoryJudgeQueueTest {
+
+    @Test
+    public void testOfferAndTakeShouldKeepFifoOrder() throws Exception {
+        InMemoryJudgeQueue queue = new InMemoryJudgeQueue(10);
+
+        assertTrue(queue.offer("s1", Duration.ZERO));
+        assertTrue(queue.offer("s2", Duration.ZERO));
+
+        assertEquals(2, queue.size());
+        assertEquals("s1", queue.take(Duration.ofMillis(10)));
+        assertEquals("s2", queue.take(Duration.ofMillis(10)));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testOfferWhenFullShouldReject() {
+        InMemoryJudgeQueue queue = new InMemoryJudgeQueue(1);
+
+        assertTrue(queue.offer("s1", Duration.ZERO));
+        assertFalse(queue.offer("s2", Duration.ofMillis(20)));
+        assertEquals(1, queue.size());
+        assertEquals(1, queue.capacity());
+    }
+
+    @Test
+    public void testTakeWhenEmptyShouldReturnNullAfterTimeout() throws Exception {
+        InMemoryJudgeQueue queue = new InMemoryJudgeQueue(1);
+
+        assertNull(queue.take(Duration.ofMillis(20)));
+    }
+}
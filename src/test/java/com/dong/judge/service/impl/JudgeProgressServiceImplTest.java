@@ -0,0 +1,138 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.JudgeConfig;
+import com.dong.judge.dao.repository.SubmissionRepository;
+import com.dong.judge.model.dto.code.TestCaseResult;
+import com.dong.judge.model.enums.ExecutionStatus;
+import com.dong.judge.model.enums.JudgeProgressType;
+import com.dong.judge.model.pojo.judge.Submission;
+import com.dong.judge.model.vo.judge.JudgeProgressEvent;
+import com.dong.judge.service.JudgeProgressListener;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class JudgeProgressServiceImplTest {
+
+    private SubmissionRepository submissionRepository;
+    private StringRedisTemplate redisTemplate;
+    private ObjectMapper objectMapper;
+    private RecordingEmitter emitter;
+    private JudgeProgressServiceImpl progressService;
+
+    @BeforeEach
+    public void setUp() {
+        submissionRepository = mock(SubmissionRepository.class);
+        redisTemplate = mock(StringRedisTemplate.class);
+        objectMapper = new ObjectMapper();
+        emitter = new RecordingEmitter();
+        progressService = new JudgeProgressServiceImpl(submissionRepository, redisTemplate,
+                mock(RedisMessageListenerContainer.class), objectMapper, new JudgeConfig()) {
+            @Override
+            SseEmitter newEmitter(long timeoutMillis) {
+                return emitter;
+            }
+        };
+    }
+
+    @AfterEach
+    public void tearDown() {
+        progressService.close();
+    }
+
+    @Test
+    public void subscriberReceivesCaseEventsThenFinished() throws Exception {
+        Submission submission = submission("s1", ExecutionStatus.JUDGING);
+        when(submissionRepository.findById("s1")).thenReturn(Optional.of(submission));
+        progressService.subscribe("s1");
+
+        JudgeProgressListener listener = progressService.listener("s1");
+        listener.compiling(2);
+        listener.caseFinished(TestCaseResult.builder().id(2L).status("Accepted").timeInMs(3.0).build());
+        listener.caseFinished(TestCaseResult.builder().id(1L).status("Wrong Answer").timeInMs(5.0).build());
+        submission.setStatus(ExecutionStatus.WRONG_ANSWER.getCode());
+        submission.setPassedCount(1);
+        progressService.finished(submission);
+
+        assertTrue(emitter.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(JudgeProgressType.COMPILING, JudgeProgressType.CASE, JudgeProgressType.CASE, JudgeProgressType.FINISHED),
+                emitter.events.stream().map(JudgeProgressEvent::getType).toList());
+        assertEquals(List.of(0, 1, 2, 2), emitter.events.stream().map(JudgeProgressEvent::getCompletedCount).toList());
+        assertEquals(2L, emitter.events.get(1).getCaseId());
+        assertEquals("Wrong Answer", emitter.events.get(3).getStatus());
+        verify(redisTemplate, timeout(5000).times(4)).convertAndSend(eq("judge:progress"), anyString());
+    }
+
+    @Test
+    public void finishedSubmissionIsSentImmediately() throws Exception {
+        when(submissionRepository.findById("s1")).thenReturn(Optional.of(submission("s1", ExecutionStatus.ACCEPTED)));
+
+        progressService.subscribe("s1");
+
+        assertTrue(emitter.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(1, emitter.events.size());
+        assertEquals(JudgeProgressType.FINISHED, emitter.events.get(0).getType());
+        assertThrows(NoSuchElementException.class, () -> progressService.subscribe("missing"));
+    }
+
+    @Test
+    public void remoteEventsAreDeliveredAndOwnEventsIgnored() throws Exception {
+        when(submissionRepository.findById("s1")).thenReturn(Optional.of(submission("s1", ExecutionStatus.PENDING)));
+        progressService.subscribe("s1");
+        JudgeProgressEvent finished = JudgeProgressEvent.builder()
+                .submissionId("s1")
+                .type(JudgeProgressType.FINISHED)
+                .status("Accepted")
+                .build();
+
+        progressService.onMessage(message("other-instance|" + objectMapper.writeValueAsString(finished)), null);
+
+        assertTrue(emitter.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(finished), emitter.events);
+    }
+
+    private static Submission submission(String id, ExecutionStatus status) {
+        return Submission.builder().id(id).status(status.getCode()).totalCount(2).build();
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage("judge:progress".getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 记录写出的事件，不需要真实的 HTTP 连接
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<JudgeProgressEvent> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            builder.build().stream()
+                    .map(DataWithMediaType::getData)
+                    .filter(JudgeProgressEvent.class::isInstance)
+                    .forEach(data -> events.add((JudgeProgressEvent) data));
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.JudgeConfig;
+import com.dong.judge.model.enums.JudgeLane;
+import com.dong.judge.model.vo.judge.JudgeSchedulerStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JudgeSchedulerTest {
+
+    private JudgeConfig judgeConfig;
+
+    @BeforeEach
+    public void setUp() {
+        judgeConfig = new JudgeConfig();
+        judgeConfig.getScheduler().setMaxInFlight(4);
+    }
+
+    @Test
+    public void neverExceedsMaxInFlight() {
+        JudgeScheduler scheduler = newScheduler();
+
+        CompletableFuture<JudgeScheduler.Permit> first = scheduler.acquireAsync("a", JudgeLane.NORMAL, 3);
+        CompletableFuture<JudgeScheduler.Permit> second = scheduler.acquireAsync("b", JudgeLane.NORMAL, 2);
+
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+        assertEquals(3, scheduler.getInFlight());
+
+        first.join().close();
+        assertTrue(second.isDone());
+        assertEquals(2, scheduler.getInFlight());
+
+        // 重复关闭不会多归还名额
+        first.join().close();
+        assertEquals(2, scheduler.getInFlight());
+    }
+
+    @Test
+    public void oversizedRequestIsCappedAtMaxInFlight() {
+        JudgeScheduler scheduler = newScheduler();
+
+        JudgeScheduler.Permit permit = scheduler.acquireAsync("a", JudgeLane.BULK, 100).join();
+
+        assertEquals(4, permit.getPermits());
+        assertEquals(4, scheduler.getInFlight());
+    }
+
+    @Test
+    public void tenantsTakeTurnsWithinLane() {
+        judgeConfig.getScheduler().setMaxInFlight(1);
+        JudgeScheduler scheduler = newScheduler();
+        JudgeScheduler.Permit blocker = scheduler.acquireAsync("blocker", JudgeLane.NORMAL, 1).join();
+
+        List<JudgeScheduler.Permit> granted = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            scheduler.acquireAsync("heavy", JudgeLane.NORMAL, 1).thenAccept(granted::add);
+        }
+        scheduler.acquireAsync("light", JudgeLane.NORMAL, 1).thenAccept(granted::add);
+
+        blocker.close();
+        while (granted.size() < 4) {
+            granted.get(granted.size() - 1).close();
+        }
+
+        // light 不必等待 heavy 的全部请求执行完毕
+        assertEquals(List.of("heavy", "light", "heavy", "heavy"),
+                granted.stream().map(JudgeScheduler.Permit::getTenant).toList());
+    }
+
+    @Test
+    public void interactiveLaneGoesBeforeBulk() {
+        JudgeScheduler scheduler = newScheduler();
+        JudgeScheduler.Permit blocker = scheduler.acquireAsync("blocker", JudgeLane.NORMAL, 4).join();
+
+        CompletableFuture<JudgeScheduler.Permit> bulk = scheduler.acquireAsync("admin", JudgeLane.BULK, 4);
+        CompletableFuture<JudgeScheduler.Permit> interactive = scheduler.acquireAsync("user", JudgeLane.INTERACTIVE, 1);
+
+        blocker.close();
+
+        assertTrue(interactive.isDone());
+        assertFalse(bulk.isDone());
+
+        interactive.join().close();
+        assertTrue(bulk.isDone());
+    }
+
+    @Test
+    public void smallRequestPassesBigBulkRequestThatDoesNotFit() {
+        judgeConfig.getScheduler().setInteractiveWeight(1);
+        JudgeScheduler scheduler = newScheduler();
+        JudgeScheduler.Permit normal = scheduler.acquireAsync("a", JudgeLane.NORMAL, 2).join();
+        CompletableFuture<JudgeScheduler.Permit> bulk = scheduler.acquireAsync("admin", JudgeLane.BULK, 4);
+        // 用完交互通道本轮的权重，下一次轮到批量通道
+        JudgeScheduler.Permit first = scheduler.acquireAsync("b", JudgeLane.INTERACTIVE, 1).join();
+
+        CompletableFuture<JudgeScheduler.Permit> interactive = scheduler.acquireAsync("c", JudgeLane.INTERACTIVE, 1);
+
+        // 批量请求放不下，交互请求越过它先执行
+        assertFalse(bulk.isDone());
+        assertTrue(interactive.isDone());
+        assertEquals(4, scheduler.getInFlight());
+
+        normal.close();
+        first.close();
+        interactive.join().close();
+        assertTrue(bulk.isDone());
+    }
+
+    @Test
+    public void agedRequestIsNoLongerPassed() {
+        judgeConfig.getScheduler().setInteractiveWeight(1);
+        judgeConfig.getScheduler().setAgingTimeout(Duration.ZERO);
+        JudgeScheduler scheduler = newScheduler();
+        JudgeScheduler.Permit normal = scheduler.acquireAsync("a", JudgeLane.NORMAL, 2).join();
+        CompletableFuture<JudgeScheduler.Permit> bulk = scheduler.acquireAsync("admin", JudgeLane.BULK, 4);
+        JudgeScheduler.Permit first = scheduler.acquireAsync("b", JudgeLane.INTERACTIVE, 1).join();
+
+        CompletableFuture<JudgeScheduler.Permit> interactive = scheduler.acquireAsync("c", JudgeLane.INTERACTIVE, 1);
+
+        // 批量请求已超过老化时间，名额留给它
+        assertFalse(interactive.isDone());
+        normal.close();
+        first.close();
+        assertTrue(bulk.isDone());
+        assertFalse(interactive.isDone());
+        bulk.join().close();
+        assertTrue(interactive.isDone());
+    }
+
+    @Test
+    public void bulkLaneIsNotStarved() {
+        judgeConfig.getScheduler().setMaxInFlight(1);
+        judgeConfig.getScheduler().setInteractiveWeight(2);
+        judgeConfig.getScheduler().setNormalWeight(1);
+        judgeConfig.getScheduler().setBulkWeight(1);
+        JudgeScheduler scheduler = newScheduler();
+        JudgeScheduler.Permit blocker = scheduler.acquireAsync("blocker", JudgeLane.NORMAL, 1).join();
+
+        List<JudgeScheduler.Permit> granted = new ArrayList<>();
+        scheduler.acquireAsync("admin", JudgeLane.BULK, 1).thenAccept(granted::add);
+        for (int i = 0; i < 5; i++) {
+            scheduler.acquireAsync("user-" + i, JudgeLane.INTERACTIVE, 1).thenAccept(granted::add);
+        }
+
+        blocker.close();
+        while (granted.size() < 6) {
+            granted.get(granted.size() - 1).close();
+        }
+
+        // 交互通道每轮最多连续获得2个名额，随后轮到批量通道
+        assertEquals(List.of(JudgeLane.INTERACTIVE, JudgeLane.INTERACTIVE, JudgeLane.BULK,
+                        JudgeLane.INTERACTIVE, JudgeLane.INTERACTIVE, JudgeLane.INTERACTIVE),
+                granted.stream().map(JudgeScheduler.Permit::getLane).toList());
+    }
+
+    @Test
+    public void statusReportsTenantShares() {
+        JudgeScheduler scheduler = newScheduler();
+        scheduler.acquireAsync("a", JudgeLane.NORMAL, 3);
+        scheduler.acquireAsync(null, JudgeLane.INTERACTIVE, 1);
+        scheduler.acquireAsync("a", JudgeLane.NORMAL, 2);
+
+        JudgeSchedulerStatus status = scheduler.getStatus();
+
+        assertEquals(4, status.getInFlight());
+        assertEquals(1, status.getQueued().get(JudgeLane.NORMAL));
+        JudgeSchedulerStatus.TenantShare top = status.getTenants().get(0);
+        assertEquals("a", top.getTenant());
+        assertEquals(3, top.getInFlight());
+        assertEquals(1, top.getQueued());
+        assertEquals(0.75, top.getShare(), 1e-9);
+        assertEquals(JudgeScheduler.ANONYMOUS_TENANT, status.getTenants().get(1).getTenant());
+    }
+
+    private JudgeScheduler newScheduler() {
+        return new JudgeScheduler(judgeConfig, new SimpleMeterRegistry());
+    }
+}
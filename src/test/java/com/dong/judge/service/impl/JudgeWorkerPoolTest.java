@@ -0,0 +1,65 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.JudgeConfig;
+import com.dong.judge.service.CodeService;
+import com.dong.judge.service.JudgeQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class JudgeWorkerPoolTest {
+
+    private final CodeService codeService = mock(CodeService.class);
+    private final JudgeQueue judgeQueue = spy(new InMemoryJudgeQueue(10));
+    private JudgeWorkerPool workerPool;
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (workerPool != null) {
+            workerPool.shutdown();
+        }
+    }
+
+    @Test
+    public void workersJudgeAndAckQueuedSubmissions() {
+        doThrow(new IllegalStateException("沙箱不可用")).when(codeService).judgeSubmission("s1");
+        workerPool = start(2);
+
+        judgeQueue.offer("s1", Duration.ZERO);
+        judgeQueue.offer("s2", Duration.ZERO);
+
+        // 评测异常的提交同样确认，不会阻塞队列
+        verify(codeService, timeout(2000)).judgeSubmission("s1");
+        verify(codeService, timeout(2000)).judgeSubmission("s2");
+        verify(judgeQueue, timeout(2000)).ack("s1");
+        verify(judgeQueue, timeout(2000)).ack("s2");
+        assertEquals(0, judgeQueue.size());
+    }
+
+    @Test
+    public void recoversOnStartupAndPeriodically() {
+        workerPool = new JudgeWorkerPool(judgeQueue, codeService, new JudgeConfig());
+        // 启动前的定时触发不执行恢复
+        workerPool.recover();
+        verify(judgeQueue, never()).recover();
+
+        workerPool.onApplicationEvent(null);
+        verify(judgeQueue, times(1)).recover();
+
+        doThrow(new IllegalStateException("连接中断")).when(judgeQueue).recover();
+        assertDoesNotThrow(workerPool::recover);
+        verify(judgeQueue, times(2)).recover();
+    }
+
+    private JudgeWorkerPool start(int poolSize) {
+        JudgeConfig judgeConfig = new JudgeConfig();
+        judgeConfig.getWorker().setPoolSize(poolSize);
+        JudgeWorkerPool pool = new JudgeWorkerPool(judgeQueue, codeService, judgeConfig);
+        pool.onApplicationEvent(null);
+        return pool;
+    }
+}
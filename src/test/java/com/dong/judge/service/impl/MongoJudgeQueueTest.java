@@ -0,0 +1,114 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.model.pojo.judge.JudgeTask;
+import com.dong.judge.model.pojo.judge.Submission;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class MongoJudgeQueueTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final MongoJudgeQueue queue = new MongoJudgeQueue(mongoTemplate, 2, Duration.ofMinutes(10), Duration.ofMillis(1));
+
+    @Test
+    public void offerKeepsTaskWithinCapacity() {
+        ObjectId id = new ObjectId();
+        when(mongoTemplate.insert(any(JudgeTask.class))).thenAnswer(invocation -> {
+            JudgeTask task = invocation.getArgument(0);
+            task.setId(id.toHexString());
+            return task;
+        });
+        // 入队前队列中有1个任务，插入后排在前面的也只有1个
+        when(mongoTemplate.count(any(Query.class), eq(JudgeTask.class))).thenReturn(1L);
+
+        assertTrue(queue.offer("s1", Duration.ZERO));
+
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(JudgeTask.class));
+    }
+
+    @Test
+    public void offerRevertsTaskWhenConcurrentOffersFilledQueue() {
+        ObjectId id = new ObjectId();
+        when(mongoTemplate.insert(any(JudgeTask.class))).thenAnswer(invocation -> {
+            JudgeTask task = invocation.getArgument(0);
+            task.setId(id.toHexString());
+            return task;
+        });
+        when(mongoTemplate.remove(any(Query.class), eq(JudgeTask.class))).thenReturn(DeleteResult.acknowledged(1));
+        // 检查时还有空位，但插入后已有2个任务排在前面
+        when(mongoTemplate.count(any(Query.class), eq(JudgeTask.class))).thenReturn(1L, 2L);
+
+        assertFalse(queue.offer("s1", Duration.ZERO));
+
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(removed.capture(), eq(JudgeTask.class));
+        assertEquals(new Document("_id", id), removed.getValue().getQueryObject());
+    }
+
+    @Test
+    public void offerWhenFullDoesNotInsert() {
+        when(mongoTemplate.count(any(Query.class), eq(JudgeTask.class))).thenReturn(2L);
+
+        assertFalse(queue.offer("s1", Duration.ofMillis(5)));
+
+        verify(mongoTemplate, never()).insert(any(JudgeTask.class));
+    }
+
+    @Test
+    public void takeClaimsOldestUnclaimedTaskAndAckRemovesIt() throws Exception {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(JudgeTask.class))).thenReturn(JudgeTask.builder().submissionId("s1").build());
+
+        assertEquals("s1", queue.take(Duration.ZERO));
+        queue.ack("s1");
+
+        ArgumentCaptor<Query> claimed = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(claimed.capture(), update.capture(), any(FindAndModifyOptions.class),
+                eq(JudgeTask.class));
+        assertEquals(new Document("claimedAt", null), claimed.getValue().getQueryObject());
+        assertEquals(new Document("enqueuedAt", 1), claimed.getValue().getSortObject());
+        assertNotNull(update.getValue().getUpdateObject().get("$set", Document.class).get("claimedAt"));
+        verify(mongoTemplate).remove(eq(new Query(Criteria.where("submissionId").is("s1"))), eq(JudgeTask.class));
+    }
+
+    @Test
+    public void recoverResetsSubmissionAndRequeuesExpiredTask() {
+        LocalDateTime claimedAt = LocalDateTime.now().minusMinutes(30);
+        when(mongoTemplate.find(any(Query.class), eq(JudgeTask.class))).thenReturn(List.of(
+                JudgeTask.builder().id("t1").submissionId("s1").claimedAt(claimedAt).build()));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), any(Class.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        queue.recover();
+
+        // 提交从评测中恢复为待评测，重新领取后 judgeSubmission 不会跳过
+        ArgumentCaptor<Query> submission = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> reset = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(submission.capture(), reset.capture(), eq(Submission.class));
+        assertEquals(new Document("_id", "s1").append("status", "Judging"), submission.getValue().getQueryObject());
+        assertEquals(new Document("status", "Pending"), reset.getValue().getUpdateObject().get("$set"));
+
+        ArgumentCaptor<Query> task = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(task.capture(), eq(new Update().unset("claimedAt")), eq(JudgeTask.class));
+        assertEquals(new Document("_id", "t1").append("claimedAt", claimedAt), task.getValue().getQueryObject());
+    }
+}
@@ -0,0 +1,138 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.dao.repository.ProblemRepository;
+import com.dong.judge.model.enums.DifficultyLevel;
+import com.dong.judge.model.pojo.judge.Problem;
+import com.dong.judge.service.ProblemTagService;
+import com.dong.judge.service.TestGroupService;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProblemServiceImplTest {
+
+    @Mock
+    private ProblemRepository problemRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private TestGroupService testGroupService;
+
+    @Mock
+    private ProblemTagService problemTagService;
+
+    @InjectMocks
+    private ProblemServiceImpl problemService;
+
+    @Test
+    public void filtersAndPagesInDatabase() {
+        when(mongoTemplate.find(any(Query.class), eq(Problem.class))).thenReturn(problems(10));
+        when(mongoTemplate.count(any(Query.class), eq(Problem.class))).thenReturn(95L);
+        PageRequest pageRequest = PageRequest.of(3, 10, Sort.by(Sort.Direction.DESC, "createdAt"));
+
+        Page<Problem> page = problemService.searchProblemsWithConditions(pageRequest, "简单", "a+b", List.of("dp"), false);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Problem.class));
+        verify(problemRepository, never()).findAll();
+        Document filter = query.getValue().getQueryObject();
+        assertEquals(new Document("$in", List.of(DifficultyLevel.EASY_1, DifficultyLevel.EASY_2)), filter.get("difficultyLevel"));
+        assertEquals("\\Qa+b\\E", filter.get("title", Pattern.class).pattern());
+        assertEquals(new Document("$in", List.of("dp")), filter.get("tags"));
+        assertEquals(30, query.getValue().getSkip());
+        assertEquals(10, query.getValue().getLimit());
+        assertEquals(new Document("createdAt", -1).append("id", -1), query.getValue().getSortObject());
+        assertEquals(95, page.getTotalElements());
+
+        // 计数只使用筛选条件，不带分页参数
+        ArgumentCaptor<Query> countQuery = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).count(countQuery.capture(), eq(Problem.class));
+        assertEquals(filter, countQuery.getValue().getQueryObject());
+        assertEquals(0, countQuery.getValue().getSkip());
+    }
+
+    @Test
+    public void keysetPageStartsAfterCursor() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(mongoTemplate.findOne(any(Query.class), eq(Problem.class)))
+                .thenReturn(Problem.builder().id("p9").createdAt(createdAt).build());
+        when(mongoTemplate.find(any(Query.class), eq(Problem.class))).thenReturn(problems(6));
+
+        Slice<Problem> slice = problemService.searchProblemsAfter("p9", 5, null, null, null, false);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Problem.class));
+        assertEquals(0, query.getValue().getSkip());
+        assertEquals(6, query.getValue().getLimit());
+        assertEquals(List.of(new Document("createdAt", new Document("$lt", createdAt)),
+                        new Document("createdAt", createdAt).append("id", new Document("$lt", "p9"))),
+                query.getValue().getQueryObject().get("$or"));
+        assertEquals(5, slice.getContent().size());
+        assertTrue(slice.hasNext());
+    }
+
+    @Test
+    public void updateWritesOnlyEditableFieldsAndKeepsCounters() {
+        Problem existing = Problem.builder().id("p1").creatorId("u1").title("旧标题").tags(List.of("dp"))
+                .submissionCount(10).acceptedCount(3).build();
+        // 更新期间评测结果通过 $inc 累加了计数
+        Problem updated = Problem.builder().id("p1").creatorId("u1").title("新标题").tags(List.of("dp", "greedy"))
+                .submissionCount(11).acceptedCount(4).build();
+        when(problemRepository.findById("p1")).thenReturn(Optional.of(existing), Optional.of(updated));
+
+        Problem saved = problemService.updateProblem(Problem.builder().id("p1").title("新标题")
+                .tags(List.of("dp", "greedy")).difficulty(3).build(), "u1");
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(Problem.class));
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertEquals("新标题", set.get("title"));
+        assertEquals(List.of("dp", "greedy"), set.get("tags"));
+        assertEquals(DifficultyLevel.getByLevel(3), set.get("difficultyLevel"));
+        assertTrue(set.containsKey("updatedAt"));
+        assertFalse(set.containsKey("submissionCount"));
+        assertFalse(set.containsKey("acceptedCount"));
+        assertFalse(set.containsKey("content"));
+        verify(problemRepository, never()).save(any());
+
+        assertEquals(11, saved.getSubmissionCount());
+        verify(problemTagService).applyChange(List.of("dp"), List.of("dp", "greedy"));
+        // 非创建者不能修改
+        assertThrows(IllegalArgumentException.class,
+                () -> problemService.updateProblem(Problem.builder().id("p1").title("x").build(), "u2"));
+        verifyNoMoreInteractions(mongoTemplate);
+    }
+
+    private static List<Problem> problems(int count) {
+        List<Problem> problems = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            problems.add(Problem.builder().id("p" + i).build());
+        }
+        return problems;
+    }
+}
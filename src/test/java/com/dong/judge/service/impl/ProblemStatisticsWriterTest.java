@@ -0,0 +1,110 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.JudgeConfig;
+import com.dong.judge.model.dto.code.TestCaseResult;
+import com.dong.judge.model.dto.code.TestCaseSetResult;
+import com.dong.judge.model.enums.ExecutionStatus;
+import com.dong.judge.model.pojo.judge.Problem;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ProblemStatisticsWriterTest {
+
+    private MongoTemplate mongoTemplate;
+    private JudgeConfig judgeConfig;
+
+    @BeforeEach
+    public void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Problem.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        judgeConfig = new JudgeConfig();
+    }
+
+    @Test
+    public void writesSingleIncrementPerSubmission() {
+        ProblemStatisticsWriter writer = new ProblemStatisticsWriter(mongoTemplate, judgeConfig);
+
+        writer.record("p1", result(false, ExecutionStatus.ACCEPTED, ExecutionStatus.WRONG_ANSWER));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(Problem.class));
+        verify(mongoTemplate, never()).findById(any(), any());
+        assertEquals("p1", query.getValue().getQueryObject().get("_id"));
+        assertEquals(new Document("submissionCount", 1).append("wrongAnswerCount", 1),
+                update.getValue().getUpdateObject().get("$inc"));
+    }
+
+    @Test
+    public void classifiesResultsByPriority() {
+        TestCaseSetResult compileError = result(false);
+        compileError.setCompileError("error");
+
+        assertEquals("compileErrorCount", ProblemStatisticsWriter.counterOf(compileError));
+        assertEquals("acceptedCount", ProblemStatisticsWriter.counterOf(result(true, ExecutionStatus.ACCEPTED)));
+        assertEquals("timeExceededCount", ProblemStatisticsWriter.counterOf(
+                result(false, ExecutionStatus.WRONG_ANSWER, ExecutionStatus.TIME_LIMIT_EXCEEDED)));
+        assertEquals("memoryExceededCount", ProblemStatisticsWriter.counterOf(
+                result(false, ExecutionStatus.MEMORY_LIMIT_EXCEEDED, ExecutionStatus.TIME_LIMIT_EXCEEDED)));
+        assertEquals("wrongAnswerCount", ProblemStatisticsWriter.counterOf(
+                result(false, ExecutionStatus.NONZERO_EXIT_STATUS, ExecutionStatus.SKIPPED)));
+        assertNull(ProblemStatisticsWriter.counterOf(result(false, ExecutionStatus.SKIPPED)));
+    }
+
+    @Test
+    public void coalescedIncrementsAreFlushedInOneBatch() {
+        judgeConfig.getStatistics().setCoalesce(true);
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Problem.class)).thenReturn(bulk);
+        ProblemStatisticsWriter writer = new ProblemStatisticsWriter(mongoTemplate, judgeConfig);
+
+        writer.record("p1", result(true, ExecutionStatus.ACCEPTED));
+        writer.record("p1", result(true, ExecutionStatus.ACCEPTED));
+        writer.record("p1", result(false, ExecutionStatus.WRONG_ANSWER));
+        writer.record("p2", result(false, ExecutionStatus.TIME_LIMIT_EXCEEDED));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(Problem.class));
+
+        writer.flush();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(2)).updateOne(query.capture(), update.capture());
+        verify(bulk).execute();
+        int p1 = "p1".equals(query.getAllValues().get(0).getQueryObject().get("_id")) ? 0 : 1;
+        assertEquals(new Document("submissionCount", 3).append("acceptedCount", 2).append("wrongAnswerCount", 1),
+                update.getAllValues().get(p1).getUpdateObject().get("$inc"));
+        assertEquals(new Document("submissionCount", 1).append("timeExceededCount", 1),
+                update.getAllValues().get(1 - p1).getUpdateObject().get("$inc"));
+
+        // 已写入的增量不会重复写入
+        writer.flush();
+        verify(mongoTemplate, times(1)).bulkOps(BulkOperations.BulkMode.UNORDERED, Problem.class);
+    }
+
+    @Test
+    public void acceptedRateIsComputedFromCounters() {
+        assertEquals(0.0, Problem.builder().build().getAcceptedRate());
+        assertEquals(33.33, Problem.builder().submissionCount(3).acceptedCount(1).build().getAcceptedRate());
+    }
+
+    private static TestCaseSetResult result(boolean allPassed, ExecutionStatus... statuses) {
+        List<TestCaseResult> testCaseResults = Arrays.stream(statuses)
+                .map(status -> TestCaseResult.builder().status(status.getCode()).build())
+                .toList();
+        return TestCaseSetResult.builder().allPassed(allPassed).testCaseResults(testCaseResults).build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.model.pojo.judge.ProblemTag;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ProblemTagServiceImplTest {
+
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulk;
+    private ProblemTagServiceImpl tagService;
+
+    @BeforeEach
+    public void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ProblemTag.class)).thenReturn(bulk);
+        tagService = new ProblemTagServiceImpl(mongoTemplate);
+    }
+
+    @Test
+    public void updateOnlyTouchesChangedTags() {
+        tagService.applyChange(List.of("dp", "math", "greedy"), List.of("dp", "graph", "greedy"));
+
+        assertEquals(Map.of("math", -1, "graph", 1), upserts(2));
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(removed.capture(), eq(ProblemTag.class));
+        assertEquals(List.of("math"), removed.getValue().getQueryObject().get("tag", Document.class).get("$in"));
+    }
+
+    @Test
+    public void createAndDeleteCountEveryTag() {
+        tagService.applyChange(null, List.of("dp", "math"));
+        assertEquals(Map.of("dp", 1, "math", 1), upserts(2));
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(ProblemTag.class));
+
+        reset(bulk);
+        tagService.applyChange(List.of("dp"), null);
+        assertEquals(Map.of("dp", -1), upserts(1));
+    }
+
+    @Test
+    public void unchangedTagsWriteNothing() {
+        tagService.applyChange(List.of("dp", "math"), List.of("math", "dp"));
+        tagService.applyChange(null, null);
+
+        verifyNoInteractions(bulk);
+    }
+
+    private Map<String, Integer> upserts(int count) {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(count)).upsert(query.capture(), update.capture());
+        verify(bulk).execute();
+        Map<String, Integer> changes = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            changes.put(query.getAllValues().get(i).getQueryObject().getString("tag"),
+                    update.getAllValues().get(i).getUpdateObject().get("$inc", Document.class).getInteger("count"));
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,93 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.JudgeConfig;
+import com.dong.judge.model.enums.ExecutionStatus;
+import com.dong.judge.model.enums.RankingMetric;
+import com.dong.judge.model.pojo.judge.Submission;
+import com.dong.judge.model.vo.judge.RankingEntry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class RankingServiceImplTest {
+
+    private MongoTemplate mongoTemplate;
+    private InMemoryRankingStore store;
+    private RankingServiceImpl rankingService;
+
+    @BeforeEach
+    public void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        store = new InMemoryRankingStore();
+        JudgeConfig judgeConfig = new JudgeConfig();
+        judgeConfig.getRanking().setMaxLimit(3);
+        rankingService = new RankingServiceImpl(store, mongoTemplate, judgeConfig);
+        aggregationReturns(List.of());
+    }
+
+    @Test
+    public void keepsBestScorePerUserAndOrdersTies() {
+        rankingService.rebuild("p1");
+        rankingService.record(accepted("u2", 30, 500));
+        rankingService.record(accepted("u1", 50, 100));
+        rankingService.record(accepted("u1", 20, 900));
+        rankingService.record(accepted("u3", 20, 200));
+        rankingService.record(accepted("u2", 40, 300));
+
+        assertEquals(List.of(new RankingEntry(1, "u1", 20), new RankingEntry(2, "u3", 20), new RankingEntry(3, "u2", 30)),
+                rankingService.getTop("p1", RankingMetric.TIME, 10));
+        assertEquals(List.of(new RankingEntry(1, "u1", 100), new RankingEntry(2, "u3", 200)),
+                rankingService.getTop("p1", RankingMetric.MEMORY, 2));
+        assertEquals(new RankingEntry(3, "u2", 300), rankingService.getRank("p1", RankingMetric.MEMORY, "u2"));
+        assertNull(rankingService.getRank("p1", RankingMetric.TIME, "nobody"));
+    }
+
+    @Test
+    public void onlyAcceptedSubmissionsAreRanked() {
+        rankingService.rebuild("p1");
+        Submission wrong = accepted("u1", 10, 10);
+        wrong.setStatus(ExecutionStatus.WRONG_ANSWER.getCode());
+        rankingService.record(wrong);
+        rankingService.record(accepted(null, 10, 10));
+
+        assertTrue(rankingService.getTop("p1", RankingMetric.TIME, 10).isEmpty());
+    }
+
+    @Test
+    public void boardIsBuiltFromSubmissionsOnFirstRead() {
+        aggregationReturns(List.of(
+                new Document("_id", "u1").append("TIME", 40L).append("MEMORY", 100L),
+                new Document("_id", "u2").append("TIME", 10L).append("MEMORY", 300L)));
+
+        List<RankingEntry> top = rankingService.getTop("p1", RankingMetric.TIME, 100);
+        rankingService.record(accepted("u3", 5, 50));
+
+        assertEquals(List.of(new RankingEntry(1, "u2", 10), new RankingEntry(2, "u1", 40)), top);
+        assertEquals(List.of("u3", "u2", "u1"),
+                rankingService.getTop("p1", RankingMetric.TIME, 100).stream().map(RankingEntry::getUserId).toList());
+        verify(mongoTemplate, times(1)).aggregate(any(Aggregation.class), eq(Submission.class), eq(Document.class));
+    }
+
+    private void aggregationReturns(List<Document> documents) {
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Submission.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(documents, new Document()));
+    }
+
+    private static Submission accepted(String userId, long time, long memory) {
+        return Submission.builder()
+                .userId(userId)
+                .problemId("p1")
+                .status(ExecutionStatus.ACCEPTED.getCode())
+                .executionTime(time)
+                .memoryUsed(memory)
+                .build();
+    }
+}
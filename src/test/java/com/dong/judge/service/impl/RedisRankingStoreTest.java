@@ -0,0 +1,114 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.model.enums.RankingMetric;
+import com.dong.judge.model.vo.judge.RankingEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class RedisRankingStoreTest {
+
+    private StringRedisTemplate redisTemplate;
+    private ZSetOperations<String, String> zSetOperations;
+    private ValueOperations<String, String> valueOperations;
+    private RedisRankingStore store;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        zSetOperations = mock(ZSetOperations.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        store = new RedisRankingStore(redisTemplate, "judge:ranking");
+    }
+
+    @Test
+    public void encodingKeepsScoreOrderAndRoundTrips() {
+        assertEquals(20, RedisRankingStore.decode(RedisRankingStore.encode(20)));
+        assertEquals(0, RedisRankingStore.decode(null));
+        assertTrue(RedisRankingStore.encode(19) < RedisRankingStore.encode(20));
+
+        // 超出双精度精确范围的成绩截断到边界，仍然排在较小成绩之后
+        long max = RedisRankingStore.MAX_EXACT_SCORE;
+        assertEquals(max, RedisRankingStore.decode(RedisRankingStore.encode(Long.MAX_VALUE)));
+        assertEquals(max - 1, RedisRankingStore.decode(RedisRankingStore.encode(max - 1)));
+        assertTrue(RedisRankingStore.encode(max - 1) < RedisRankingStore.encode(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void entriesFollowRedisOrderWithOneBasedRanks() {
+        Set<ZSetOperations.TypedTuple<String>> tuples = new LinkedHashSet<>();
+        // 成绩相同时 Redis 已按用户ID排好序
+        tuples.add(ZSetOperations.TypedTuple.of("u1", 20.0));
+        tuples.add(ZSetOperations.TypedTuple.of("u3", 20.0));
+        tuples.add(ZSetOperations.TypedTuple.of("u2", 30.0));
+        when(zSetOperations.rangeWithScores("judge:ranking:p1:time", 0, 9)).thenReturn(tuples);
+
+        assertEquals(List.of(new RankingEntry(1, "u1", 20), new RankingEntry(2, "u3", 20), new RankingEntry(3, "u2", 30)),
+                store.top(RankingMetric.TIME, "p1", 10));
+        assertEquals(List.of(), RedisRankingStore.toEntries(null));
+    }
+
+    @Test
+    public void rankOfConvertsZeroBasedRank() {
+        when(zSetOperations.rank("judge:ranking:p1:memory", "u2")).thenReturn(2L);
+        when(zSetOperations.score("judge:ranking:p1:memory", "u2")).thenReturn(300.0);
+        when(zSetOperations.rank("judge:ranking:p1:memory", "nobody")).thenReturn(null);
+        when(zSetOperations.score("judge:ranking:p1:memory", "nobody")).thenReturn(null);
+
+        assertEquals(new RankingEntry(3, "u2", 300), store.rankOf(RankingMetric.MEMORY, "p1", "u2"));
+        assertNull(store.rankOf(RankingMetric.MEMORY, "p1", "nobody"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void offerRunsKeepMinScriptOnTheMetricKey() {
+        when(redisTemplate.execute(eq(RedisRankingStore.KEEP_MIN_SCRIPT), anyList(), any(Object[].class)))
+                .thenReturn(1L, 0L);
+
+        assertTrue(store.offer(RankingMetric.TIME, "p1", "u1", 20));
+        assertFalse(store.offer(RankingMetric.TIME, "p1", "u1", 30));
+
+        verify(redisTemplate).execute(RedisRankingStore.KEEP_MIN_SCRIPT, List.of("judge:ranking:p1:time"), "u1", "20");
+        verify(redisTemplate).execute(RedisRankingStore.KEEP_MIN_SCRIPT, List.of("judge:ranking:p1:time"), "u1", "30");
+        String script = RedisRankingStore.KEEP_MIN_SCRIPT.getScriptAsString();
+        assertTrue(script.contains("tonumber(current) <= tonumber(ARGV[2])"));
+        assertTrue(script.contains("redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void replaceWritesTemporaryKeyThenRenamesAndMarksReady() {
+        store.replace("p1", Map.of(RankingMetric.TIME, Map.of("u1", 20L, "u2", 30L)));
+
+        ArgumentCaptor<String> tempKey = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Set<ZSetOperations.TypedTuple<String>>> tuples = ArgumentCaptor.forClass(Set.class);
+        InOrder inOrder = inOrder(zSetOperations, redisTemplate, valueOperations);
+        inOrder.verify(zSetOperations).add(tempKey.capture(), tuples.capture());
+        inOrder.verify(redisTemplate).rename(tempKey.getValue(), "judge:ranking:p1:time");
+        inOrder.verify(valueOperations).set("judge:ranking:p1:ready", "1");
+
+        assertTrue(tempKey.getValue().startsWith("judge:ranking:p1:time:rebuild:"));
+        assertEquals(Set.of(ZSetOperations.TypedTuple.of("u1", 20.0), ZSetOperations.TypedTuple.of("u2", 30.0)),
+                tuples.getValue());
+        // 没有成绩的指标直接删除，不留下空的临时键
+        verify(redisTemplate).delete("judge:ranking:p1:memory");
+        verify(redisTemplate, never()).rename(anyString(), eq("judge:ranking:p1:memory"));
+    }
+}
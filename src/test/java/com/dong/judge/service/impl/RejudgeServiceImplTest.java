@@ -0,0 +1,161 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.JudgeConfig;
+import com.dong.judge.model.dto.code.TestCaseSetResult;
+import com.dong.judge.model.enums.RejudgeStatus;
+import com.dong.judge.model.pojo.judge.RejudgeJob;
+import com.dong.judge.model.pojo.judge.Submission;
+import com.dong.judge.service.CodeService;
+import com.dong.judge.service.JudgeQueue;
+import com.dong.judge.service.RankingService;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class RejudgeServiceImplTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final CodeService codeService = mock(CodeService.class);
+    private final ProblemStatisticsWriter problemStatisticsWriter = mock(ProblemStatisticsWriter.class);
+    private final RankingService rankingService = mock(RankingService.class);
+    private final BulkOperations bulk = mock(BulkOperations.class);
+    private RejudgeServiceImpl rejudgeService;
+
+    @BeforeEach
+    public void setUp() {
+        JudgeConfig judgeConfig = new JudgeConfig();
+        judgeConfig.getRejudge().setBatchSize(2);
+        judgeConfig.getRejudge().setRate(0);
+        rejudgeService = new RejudgeServiceImpl(mongoTemplate, codeService, mock(JudgeQueue.class),
+                problemStatisticsWriter, rankingService, judgeConfig);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Submission.class)).thenReturn(bulk);
+        // 重测后 s1 从系统错误变为通过，s2 仍为答案错误，s3 评测异常
+        when(codeService.rejudge(any())).thenAnswer(invocation -> {
+            Submission submission = invocation.getArgument(0);
+            if ("s3".equals(submission.getId())) {
+                throw new IllegalStateException("沙箱不可用");
+            }
+            submission.setStatus("s1".equals(submission.getId()) ? "Accepted" : "Wrong Answer");
+            return TestCaseSetResult.builder().build();
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void rejudgesInBatchesAndMovesCounters() {
+        when(mongoTemplate.find(any(Query.class), eq(Submission.class))).thenReturn(
+                List.of(submission("s1", "System Error"), submission("s2", "Wrong Answer")),
+                List.of(submission("s3", "Accepted")));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(RejudgeJob.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        RejudgeJob job = RejudgeJob.builder().id("j1").problemId("p1").status(RejudgeStatus.RUNNING).build();
+
+        rejudgeService.run(job, new AtomicBoolean());
+
+        // 评测异常的 s3 不写入，保留原结果和计数
+        verify(bulk, times(2)).updateOne(any(Query.class), any(Update.class));
+        verify(bulk, times(1)).execute();
+        ArgumentCaptor<Map<String, Map<String, Integer>>> deltas = ArgumentCaptor.forClass(Map.class);
+        verify(problemStatisticsWriter, times(1)).apply(deltas.capture());
+        assertEquals(Map.of("p1", Map.of("acceptedCount", 1)), deltas.getValue());
+        verify(rankingService).rebuild("p1");
+
+        // 两个进度点和结束状态
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(3)).updateFirst(any(Query.class), updates.capture(), eq(RejudgeJob.class));
+        Document first = updates.getAllValues().get(0).getUpdateObject();
+        assertEquals("s2", first.get("$set", Document.class).get("lastSubmissionId"));
+        assertEquals(new Document("processed", 2).append("changed", 1L).append("failed", 0L), first.get("$inc"));
+        Document second = updates.getAllValues().get(1).getUpdateObject();
+        assertEquals("s3", second.get("$set", Document.class).get("lastSubmissionId"));
+        assertEquals(1L, second.get("$inc", Document.class).get("failed"));
+        assertEquals(RejudgeStatus.COMPLETED, updates.getAllValues().get(2).getUpdateObject()
+                .get("$set", Document.class).get("status"));
+
+        // 每批重新查询上一批最后一个提交之后的提交，不持有游标
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(queries.capture(), eq(Submission.class));
+        assertFalse(queries.getAllValues().get(0).getQueryObject().getList("$and", Object.class)
+                .contains(new Document("_id", new Document("$gt", "s2"))));
+        assertTrue(queries.getAllValues().get(1).getQueryObject().getList("$and", Object.class)
+                .contains(new Document("_id", new Document("$gt", "s2"))));
+        assertEquals(new Document("_id", 1), queries.getAllValues().get(1).getSortObject());
+        verify(mongoTemplate, never()).stream(any(Query.class), eq(Submission.class));
+    }
+
+    @Test
+    public void pausesBeforeReadingWhileQueueIsBusy() {
+        JudgeConfig judgeConfig = new JudgeConfig();
+        judgeConfig.getRejudge().setBatchSize(2);
+        judgeConfig.getRejudge().setRate(0);
+        judgeConfig.getRejudge().setPauseQueueSize(1);
+        judgeConfig.getRejudge().setPollInterval(Duration.ofMillis(1));
+        JudgeQueue judgeQueue = mock(JudgeQueue.class);
+        when(judgeQueue.size()).thenReturn(5, 5, 0);
+        when(mongoTemplate.find(any(Query.class), eq(Submission.class))).thenReturn(List.of());
+        RejudgeServiceImpl service = new RejudgeServiceImpl(mongoTemplate, codeService, judgeQueue,
+                problemStatisticsWriter, rankingService, judgeConfig);
+
+        service.run(RejudgeJob.builder().id("j1").problemId("p1").status(RejudgeStatus.RUNNING).build(), new AtomicBoolean());
+
+        // 积压解除后才读取提交
+        InOrder inOrder = inOrder(judgeQueue, mongoTemplate);
+        inOrder.verify(judgeQueue, times(3)).size();
+        inOrder.verify(mongoTemplate).find(any(Query.class), eq(Submission.class));
+    }
+
+    @Test
+    public void stopsWhenCheckpointIsRejected() {
+        when(mongoTemplate.find(any(Query.class), eq(Submission.class))).thenReturn(
+                List.of(submission("s1", "System Error"), submission("s2", "Wrong Answer")),
+                List.of(submission("s3", "Accepted")));
+        // 任务已被取消，进度点不再保存
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(RejudgeJob.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        RejudgeJob job = RejudgeJob.builder().id("j1").problemId("p1").status(RejudgeStatus.RUNNING).build();
+
+        rejudgeService.run(job, new AtomicBoolean());
+
+        verify(codeService, times(2)).rejudge(any());
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(Update.class), eq(RejudgeJob.class));
+    }
+
+    @Test
+    public void resumesAfterCheckpoint() {
+        when(mongoTemplate.find(any(Query.class), eq(Submission.class))).thenReturn(List.of());
+        RejudgeJob job = RejudgeJob.builder().id("j1").problemId("p1").lastSubmissionId("s2")
+                .status(RejudgeStatus.RUNNING).build();
+
+        rejudgeService.run(job, new AtomicBoolean());
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Submission.class));
+        List<?> criteria = query.getValue().getQueryObject().getList("$and", Object.class);
+        assertTrue(criteria.contains(new Document("_id", new Document("$gt", "s2"))));
+        assertTrue(criteria.contains(new Document("problemId", "p1")));
+        assertEquals(2, query.getValue().getLimit());
+        verifyNoInteractions(codeService);
+    }
+
+    private static Submission submission(String id, String status) {
+        return Submission.builder().id(id).problemId("p1").userId("u1").code("print(1)").language("python")
+                .status(status).build();
+    }
+}
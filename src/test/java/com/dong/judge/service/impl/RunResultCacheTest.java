@@ -0,0 +1,122 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.SandboxConfig;
+import com.dong.judge.model.dto.sandbox.RunRequest;
+import com.dong.judge.model.vo.sandbox.RunResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class RunResultCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SandboxConfig.ResultCache config;
+    private SandboxConfig.LanguageConfig python;
+
+    @BeforeEach
+    public void setUp() {
+        config = new SandboxConfig.ResultCache();
+        python = new SandboxConfig.LanguageConfig();
+        python.setSourceFile("main.py");
+        python.setRunCommand(List.of("python3", "main.py"));
+        python.setNeedCompile(false);
+    }
+
+    @Test
+    public void keyCoversProgramInputAndLimits() {
+        RunRequest request = request("print(input())", "1");
+        RunResultCache.Key key = RunResultCache.Key.of(request, python, false);
+
+        assertEquals(key, RunResultCache.Key.of(request("print(input())", "1"), python, false));
+        assertNotEquals(key, RunResultCache.Key.of(request("print(input())", "2"), python, false));
+        assertNotEquals(key, RunResultCache.Key.of(request("print(1)", "1"), python, false));
+        python.setMemoryLimit(python.getMemoryLimit() * 2);
+        assertNotEquals(key, RunResultCache.Key.of(request, python, false));
+        assertNull(RunResultCache.Key.of(RunRequest.builder().fileId("f1").input("1").build(), python, true));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedByEntriesAndBytes() {
+        config.setMaxEntries(2);
+        config.setMaxSize(DataSize.ofKilobytes(4));
+        RunResultCache cache = new RunResultCache(config, null, objectMapper, meterRegistry);
+        RunResultCache.Key a = new RunResultCache.Key("a");
+        RunResultCache.Key b = new RunResultCache.Key("b");
+        RunResultCache.Key c = new RunResultCache.Key("c");
+
+        cache.put(a, accepted("a"));
+        cache.put(b, accepted("b"));
+        assertNotNull(cache.get(a));
+        cache.put(c, accepted("c"));
+        assertEquals(Arrays.asList(accepted("a"), null, accepted("c")), cache.getAll(List.of(a, b, c)));
+
+        // 单个大结果挤出其余条目
+        cache.put(b, accepted("x".repeat(1950)));
+        assertEquals(1, cache.size());
+        assertTrue(cache.bytes() <= DataSize.ofKilobytes(4).toBytes());
+        assertEquals(3.0, meterRegistry.get("sandbox.result.cache.requests").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("sandbox.result.cache.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    public void skipsUnstableAndServiceErrors() {
+        RunResultCache cache = new RunResultCache(config, null, objectMapper, meterRegistry);
+
+        assertTrue(cache.isCacheable(RunResult.builder().status("Nonzero Exit Status").exitStatus(1).build()));
+        assertFalse(cache.isCacheable(RunResult.builder().status("Time Limit Exceeded").build()));
+        assertFalse(cache.isCacheable(RunResult.builder().status("Internal Error").build()));
+        assertFalse(cache.isCacheable(RunResult.builder().status("File Error").build()));
+        assertFalse(cache.isCacheable(RunResult.builder().status("Error").stderr("运行服务返回无效响应").build()));
+
+        config.setSkipUnstable(false);
+        RunResultCache keepUnstable = new RunResultCache(config, null, objectMapper, new SimpleMeterRegistry());
+        assertTrue(keepUnstable.isCacheable(RunResult.builder().status("Time Limit Exceeded").build()));
+        // 沙箱环境造成的结果无论是否跳过不稳定结果都不缓存
+        assertFalse(keepUnstable.isCacheable(RunResult.builder().status("File Error").exitStatus(0).build()));
+        assertFalse(keepUnstable.isCacheable(RunResult.builder().status("Signalled").exitStatus(9).build()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void localMissFallsBackToRedis() throws Exception {
+        config.setRedisEnabled(true);
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(values.multiGet(anyList())).thenReturn(Arrays.asList(objectMapper.writeValueAsString(accepted("remote")), null));
+        RunResultCache cache = new RunResultCache(config, redisTemplate, objectMapper, meterRegistry);
+        RunResultCache.Key remote = new RunResultCache.Key("remote");
+        RunResultCache.Key missing = new RunResultCache.Key("missing");
+
+        assertEquals(Arrays.asList(accepted("remote"), null), cache.getAll(List.of(remote, missing)));
+        verify(values).multiGet(List.of("judge:run-result:remote", "judge:run-result:missing"));
+
+        // Redis 命中的结果放入本地，再次查询不访问 Redis
+        assertEquals(accepted("remote"), cache.get(remote));
+        verify(values, times(1)).multiGet(anyList());
+
+        cache.put(missing, accepted("new"));
+        verify(values).set(eq("judge:run-result:missing"), anyString(), eq(Duration.ofMinutes(30)));
+    }
+
+    private static RunRequest request(String code, String input) {
+        return RunRequest.builder().code(code).language("python").input(input).build();
+    }
+
+    private static RunResult accepted(String stdout) {
+        return RunResult.builder().status("Accepted").stdout(stdout).stderr("").build();
+    }
+}
@@ -0,0 +1,120 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.SandboxConfig;
+import com.dong.judge.service.TestDataStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class SandboxFileCacheTest {
+
+    private HttpServer server;
+    private final AtomicInteger uploads = new AtomicInteger();
+    private final List<String> deleted = new CopyOnWriteArrayList<>();
+    private SandboxConfig sandboxConfig;
+    private SandboxHttpClient httpClient;
+    private TestDataStore testDataStore;
+    private SandboxNode node;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/file", exchange -> {
+            if ("POST".equals(exchange.getRequestMethod())) {
+                exchange.getRequestBody().readAllBytes();
+                byte[] body = ("\"file-" + uploads.incrementAndGet() + "\"").getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            } else {
+                deleted.add(exchange.getRequestURI().getPath().substring("/file/".length()));
+                exchange.sendResponseHeaders(200, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+
+        sandboxConfig = new SandboxConfig();
+        httpClient = new SandboxHttpClient(new RestTemplate(), HttpClient.newHttpClient(), new ObjectMapper(),
+                new SimpleMeterRegistry(), sandboxConfig);
+        testDataStore = mock(TestDataStore.class);
+        when(testDataStore.get(anyString())).thenAnswer(invocation -> "data of " + invocation.getArgument(0));
+        node = new SandboxNode("http://127.0.0.1:" + server.getAddress().getPort(), 1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void uploadsEachInputOncePerNode() {
+        SandboxFileCache cache = newCache();
+
+        assertNull(cache.peek(node, "hash-1"));
+        String fileId = cache.fileIdOf(node, "hash-1");
+
+        assertEquals("file-1", fileId);
+        assertEquals(fileId, cache.fileIdOf(node, "hash-1"));
+        assertEquals(fileId, cache.peek(node, "hash-1"));
+        assertEquals(1, uploads.get());
+        verify(testDataStore, times(1)).get("hash-1");
+    }
+
+    @Test
+    public void concurrentRequestsShareOneUpload() {
+        SandboxFileCache cache = newCache();
+
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> cache.fileIdOf(node, "hash-1")));
+        }
+
+        assertEquals(1, futures.stream().map(CompletableFuture::join).distinct().count());
+        assertEquals(1, uploads.get());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedFileFromSandbox() {
+        sandboxConfig.getPreload().setMaxEntries(2);
+        SandboxFileCache cache = newCache();
+
+        String first = cache.fileIdOf(node, "hash-1");
+        cache.fileIdOf(node, "hash-2");
+        cache.fileIdOf(node, "hash-1");
+        cache.fileIdOf(node, "hash-3");
+
+        assertEquals(List.of("file-2"), deleted);
+        assertEquals(first, cache.peek(node, "hash-1"));
+        assertNull(cache.peek(node, "hash-2"));
+    }
+
+    @Test
+    public void invalidatedFileIsUploadedAgain() {
+        SandboxFileCache cache = newCache();
+        cache.fileIdOf(node, "hash-1");
+
+        cache.invalidate(node, "hash-1");
+
+        assertEquals("file-2", cache.fileIdOf(node, "hash-1"));
+    }
+
+    private SandboxFileCache newCache() {
+        return new SandboxFileCache(httpClient, testDataStore, sandboxConfig, new SimpleMeterRegistry());
+    }
+}
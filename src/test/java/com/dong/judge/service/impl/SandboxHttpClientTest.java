@@ -0,0 +1,100 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.SandboxConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SandboxHttpClientTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private SimpleMeterRegistry meterRegistry;
+    private SandboxHttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/run", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException ignored) {
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        SandboxConfig sandboxConfig = new SandboxConfig();
+        sandboxConfig.getHttp().setReadTimeoutCpuMultiplier(0);
+        sandboxConfig.getHttp().setReadTimeoutMargin(Duration.ofMillis(300));
+
+        meterRegistry = new SimpleMeterRegistry();
+        client = new SandboxHttpClient(new RestTemplate(), HttpClient.newHttpClient(), objectMapper,
+                meterRegistry, sandboxConfig);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void readTimeoutIsDerivedFromCpuLimit() {
+        SandboxConfig sandboxConfig = new SandboxConfig();
+        SandboxConfig.LanguageConfig langConfig = new SandboxConfig.LanguageConfig();
+        langConfig.setCpuLimit(Duration.ofSeconds(4).toNanos());
+        sandboxConfig.getLanguages().put("cpp", langConfig);
+
+        assertEquals(Duration.ofSeconds(22), sandboxConfig.resolveReadTimeout());
+    }
+
+    @Test
+    void postAndPostAsyncReturnResponseBody() throws Exception {
+        JsonNode body = objectMapper.readTree("{\"cmd\":[{\"args\":[\"a\"]}]}");
+
+        assertEquals(body, client.post(baseUrl, "/run", body));
+        assertEquals(body, client.postAsync(baseUrl, "/run", body).join());
+
+        assertEquals(2, meterRegistry.get("sandbox.http.requests")
+                .tag("path", "/run").tag("outcome", "success").timer().count());
+        int size = objectMapper.writeValueAsBytes(body).length;
+        assertEquals(2.0 * size, meterRegistry.get("sandbox.http.bytes")
+                .tag("path", "/run").tag("direction", "sent").summary().totalAmount());
+        assertEquals(2.0 * size, meterRegistry.get("sandbox.http.bytes")
+                .tag("path", "/run").tag("direction", "received").summary().totalAmount());
+    }
+
+    @Test
+    void asyncRequestTimesOut() {
+        JsonNode body = objectMapper.createObjectNode();
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> client.postAsync(baseUrl, "/slow", body).join());
+        assertNotNull(e.getCause());
+        assertEquals(1, meterRegistry.get("sandbox.http.requests")
+                .tag("path", "/slow").tag("outcome", "timeout").timer().count());
+        assertEquals(0, meterRegistry.get("sandbox.http.async.in-flight").gauge().value());
+    }
+}
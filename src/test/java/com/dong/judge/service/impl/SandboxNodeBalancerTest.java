@@ -0,0 +1,206 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.SandboxConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SandboxNodeBalancerTest {
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private SandboxConfig sandboxConfig;
+    private SandboxHttpClient httpClient;
+    private MutableClock clock;
+
+    @BeforeEach
+    public void setUp() {
+        sandboxConfig = new SandboxConfig();
+        sandboxConfig.getBalancer().setFailureThreshold(2);
+        sandboxConfig.getBalancer().setEjectDuration(Duration.ofSeconds(30));
+        sandboxConfig.getBalancer().setProbeTimeout(Duration.ofSeconds(1));
+        httpClient = new SandboxHttpClient(new RestTemplate(), HttpClient.newHttpClient(), new ObjectMapper(),
+                new SimpleMeterRegistry(), sandboxConfig);
+        clock = new MutableClock();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    public void fallsBackToApiUrlWhenNoNodesConfigured() {
+        SandboxNodeBalancer balancer = newBalancer();
+
+        assertEquals(1, balancer.getNodes().size());
+        assertEquals("http://sandbox:5050", balancer.select().getUrl());
+    }
+
+    @Test
+    public void routesToLeastOutstandingNode() {
+        addNode("http://a", 1);
+        addNode("http://b", 1);
+        SandboxNodeBalancer balancer = newBalancer();
+        SandboxNode a = balancer.getNodes().get(0);
+        SandboxNode b = balancer.getNodes().get(1);
+
+        balancer.begin(a);
+        assertSame(b, balancer.select());
+        balancer.begin(b);
+        balancer.begin(b);
+        assertSame(a, balancer.select());
+    }
+
+    @Test
+    public void spreadsIdleLoadAndHonoursWeight() {
+        addNode("http://a", 1);
+        addNode("http://b", 1);
+        addNode("http://heavy", 4);
+        SandboxNodeBalancer balancer = newBalancer();
+        SandboxNode heavy = balancer.getNodes().get(2);
+
+        // 权重为4的节点在3个在途请求内仍比空闲的权重1节点更空闲
+        for (int i = 0; i < 3; i++) {
+            SandboxNode selected = balancer.select();
+            assertSame(heavy, selected);
+            balancer.begin(selected);
+        }
+
+        Set<String> selected = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            selected.add(balancer.select().getUrl());
+        }
+        assertTrue(selected.contains("http://a"));
+        assertTrue(selected.contains("http://b"));
+    }
+
+    @Test
+    public void ejectsNodeAfterConsecutiveFailures() {
+        addNode("http://a", 1);
+        addNode("http://b", 1);
+        SandboxNodeBalancer balancer = newBalancer();
+        SandboxNode a = balancer.getNodes().get(0);
+        SandboxNode b = balancer.getNodes().get(1);
+
+        for (int i = 0; i < 2; i++) {
+            balancer.begin(a);
+            balancer.complete(a, false);
+        }
+        assertFalse(balancer.isAvailable(a));
+        for (int i = 0; i < 5; i++) {
+            assertSame(b, balancer.select());
+        }
+
+        clock.advance(Duration.ofSeconds(31));
+        assertTrue(balancer.isAvailable(a));
+    }
+
+    @Test
+    public void probeTakesUnhealthyNodeOutOfRotation() throws Exception {
+        String healthy = startStub(200);
+        String broken = startStub(500);
+        addNode(healthy, 1);
+        addNode(broken, 1);
+        SandboxNodeBalancer balancer = newBalancer();
+
+        balancer.probe();
+
+        assertTrue(balancer.getNodes().get(0).isHealthy());
+        assertFalse(balancer.getNodes().get(1).isHealthy());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(healthy, balancer.select().getUrl());
+        }
+    }
+
+    @Test
+    public void pinnedFileStaysOnItsNode() {
+        addNode("http://a", 1);
+        addNode("http://b", 1);
+        SandboxNodeBalancer balancer = newBalancer();
+        SandboxNode b = balancer.getNodes().get(1);
+
+        balancer.pin("file-1", b);
+        balancer.begin(b);
+        balancer.begin(b);
+
+        assertSame(b, balancer.nodeOf("file-1"));
+        assertSame(b, balancer.unpin("file-1"));
+        assertNull(balancer.unpin("file-1"));
+    }
+
+    @Test
+    public void selectsSomeNodeWhenAllUnavailable() {
+        addNode("http://a", 1);
+        SandboxNodeBalancer balancer = newBalancer();
+        SandboxNode a = balancer.getNodes().get(0);
+        for (int i = 0; i < 2; i++) {
+            balancer.begin(a);
+            balancer.complete(a, false);
+        }
+
+        assertSame(a, balancer.select());
+    }
+
+    private SandboxNodeBalancer newBalancer() {
+        return new SandboxNodeBalancer(sandboxConfig, httpClient, new SimpleMeterRegistry(), "http://sandbox:5050", clock);
+    }
+
+    private void addNode(String url, int weight) {
+        SandboxConfig.Node node = new SandboxConfig.Node();
+        node.setUrl(url);
+        node.setWeight(weight);
+        sandboxConfig.getNodes().add(node);
+    }
+
+    private String startStub(int versionStatus) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/version", exchange -> {
+            exchange.sendResponseHeaders(versionStatus, -1);
+            exchange.close();
+        });
+        server.start();
+        servers.add(server);
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.SandboxConfig;
+import com.dong.judge.model.dto.sandbox.CompileRequest;
+import com.dong.judge.model.dto.sandbox.RunRequest;
+import com.dong.judge.model.vo.sandbox.RunResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SandboxServiceImplTest {
+
+    @Mock
+    private SandboxHttpClient sandboxHttpClient;
+
+    @Mock
+    private SandboxNodeBalancer nodeBalancer;
+
+    @Mock
+    private JudgeMetrics judgeMetrics;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private SandboxConfig sandboxConfig = new SandboxConfig();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private SandboxServiceImpl sandboxService;
+
+    private final SandboxNode node = new SandboxNode("http://sandbox:5050", 1);
+
+    @BeforeEach
+    public void setUp() {
+        SandboxConfig.LanguageConfig python = new SandboxConfig.LanguageConfig();
+        python.setSourceFile("main.py");
+        python.setRunCommand(List.of("python3", "main.py"));
+        python.setNeedCompile(false);
+        sandboxConfig.getLanguages().put("python", python);
+        sandboxConfig.initLanguageAliasMap();
+        sandboxConfig.getCompileCache().setEnabled(false);
+        sandboxConfig.getResultCache().setEnabled(false);
+        sandboxService.initCaches();
+        when(nodeBalancer.select()).thenReturn(node);
+    }
+
+    @Test
+    public void runBatchMapsResultsBackToRequestsInOrder() throws Exception {
+        ArrayNode response = objectMapper.createArrayNode();
+        response.addObject().put("status", "Accepted").put("exitStatus", 0)
+                .putObject("files").put("stdout", "1\n").put("stderr", "");
+        response.addObject().put("status", "Nonzero Exit Status").put("exitStatus", 1)
+                .putObject("files").put("stdout", "").put("stderr", "boom");
+        when(sandboxHttpClient.post(eq(node.getUrl()), eq("/run"), any())).thenReturn(response);
+
+        List<RunResult> results = sandboxService.runBatch(List.of(
+                request("python", "1"), request("cobol", "2"), request("python", "3")));
+
+        // 不支持的语言不发送，其余请求合并为一次调用且结果按原顺序返回
+        ArgumentCaptor<JsonNode> body = ArgumentCaptor.forClass(JsonNode.class);
+        verify(sandboxHttpClient).post(eq(node.getUrl()), eq("/run"), body.capture());
+        JsonNode cmds = body.getValue().get("cmd");
+        assertEquals(2, cmds.size());
+        assertEquals("1", cmds.get(0).get("files").get(0).get("content").asText());
+        assertEquals("3", cmds.get(1).get("files").get(0).get("content").asText());
+
+        assertEquals(3, results.size());
+        assertEquals("Accepted", results.get(0).getStatus());
+        assertEquals("1\n", results.get(0).getStdout());
+        assertEquals("Error", results.get(1).getStatus());
+        assertTrue(results.get(1).getStderr().contains("不支持的语言"));
+        assertEquals("Nonzero Exit Status", results.get(2).getStatus());
+        assertEquals(1, results.get(2).getExitStatus());
+        verify(judgeMetrics).recordRun(eq("python"), eq("success"), anyLong());
+    }
+
+    @Test
+    public void runBatchFillsMissingAndFailedResultsWithErrors() throws Exception {
+        ArrayNode response = objectMapper.createArrayNode();
+        response.addObject().put("status", "Accepted").putObject("files").put("stdout", "ok");
+        when(sandboxHttpClient.post(eq(node.getUrl()), eq("/run"), any())).thenReturn(response);
+
+        // 沙箱少返回一个结果时，缺失的用例以错误填充
+        List<RunResult> results = sandboxService.runBatch(List.of(request("python", "1"), request("python", "2")));
+        assertEquals("Accepted", results.get(0).getStatus());
+        assertEquals("Error", results.get(1).getStatus());
+        assertEquals("运行服务返回无效响应", results.get(1).getStderr());
+
+        // 请求失败时整块都返回错误
+        when(sandboxHttpClient.post(anyString(), anyString(), any())).thenThrow(new IOException("connection reset"));
+        results = sandboxService.runBatch(List.of(request("python", "1"), request("python", "2")));
+        assertEquals(2, results.size());
+        results.forEach(result -> {
+            assertEquals("Error", result.getStatus());
+            assertTrue(result.getStderr().contains("connection reset"));
+        });
+    }
+
+    @Test
+    public void recompilesCachedArtifactLostBySandboxRestartAndRetriesOnce() throws Exception {
+        SandboxConfig.LanguageConfig cpp = new SandboxConfig.LanguageConfig();
+        cpp.setSourceFile("main.cpp");
+        cpp.setCompileOutFile("main");
+        cpp.setCompileCommand(List.of("g++", "main.cpp", "-o", "main"));
+        cpp.setRunCommand(List.of("./main"));
+        sandboxConfig.getLanguages().put("cpp", cpp);
+        sandboxConfig.initLanguageAliasMap();
+        sandboxConfig.getCompileCache().setEnabled(true);
+        sandboxService.initCaches();
+        when(nodeBalancer.nodeOf(anyString())).thenReturn(node);
+        when(nodeBalancer.isAvailable(node)).thenReturn(true);
+
+        // 编译返回 f1、f2……；沙箱重启后 f1 已不存在，引用它的运行返回文件错误
+        AtomicInteger compiles = new AtomicInteger();
+        when(sandboxHttpClient.post(eq(node.getUrl()), eq("/run"), any())).thenAnswer(invocation -> {
+            JsonNode cmds = invocation.<JsonNode>getArgument(2).get("cmd");
+            ArrayNode response = objectMapper.createArrayNode();
+            if (cmds.get(0).has("copyOutCached")) {
+                response.addObject().put("status", "Accepted")
+                        .putObject("fileIds").put("main", "f" + compiles.incrementAndGet());
+                return response;
+            }
+            for (JsonNode cmd : cmds) {
+                boolean lost = "f1".equals(cmd.get("copyIn").get("main").get("fileId").asText());
+                response.addObject().put("status", lost ? "File Error" : "Accepted").put("exitStatus", 0)
+                        .putObject("files").put("stdout", lost ? "" : "ok").put("stderr", "");
+            }
+            return response;
+        });
+
+        String code = "int main() {}";
+        String fileId = sandboxService.compileCode(CompileRequest.builder().code(code).language("cpp").build()).getFileId();
+        assertEquals("f1", fileId);
+        RunRequest run = RunRequest.builder().code(code).language("cpp").fileId(fileId).input("1").build();
+
+        List<RunResult> results = sandboxService.runBatch(List.of(run, run));
+
+        // 两个用例共用一次重新编译，重试后都通过
+        assertEquals(2, compiles.get());
+        results.forEach(result -> assertEquals("Accepted", result.getStatus()));
+        // 后续相同源代码直接使用新产物
+        assertEquals("f2", sandboxService.compileCode(CompileRequest.builder().code(code).language("cpp").build()).getFileId());
+
+        // 新产物也丢失时只重试一次，返回文件错误
+        reset(sandboxHttpClient);
+        ArrayNode lost = objectMapper.createArrayNode();
+        lost.addObject().put("status", "File Error").put("exitStatus", 0);
+        when(sandboxHttpClient.post(eq(node.getUrl()), eq("/run"), any())).thenAnswer(invocation ->
+                invocation.<JsonNode>getArgument(2).get("cmd").get(0).has("copyOutCached")
+                        ? objectMapper.createArrayNode().add(objectMapper.createObjectNode().put("status", "Accepted")
+                                .set("fileIds", objectMapper.createObjectNode().put("main", "f3")))
+                        : lost);
+        RunRequest rebuilt = run.toBuilder().fileId("f2").build();
+        assertEquals("File Error", sandboxService.runCode(rebuilt).getStatus());
+        verify(sandboxHttpClient, times(3)).post(eq(node.getUrl()), eq("/run"), any());
+    }
+
+    private static RunRequest request(String language, String input) {
+        return RunRequest.builder().code("print(input())").language(language).input(input).build();
+    }
+}
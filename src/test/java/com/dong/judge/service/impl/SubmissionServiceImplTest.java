@@ -0,0 +1,135 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.dao.repository.SubmissionRepository;
+import com.dong.judge.model.enums.CountMode;
+import com.dong.judge.model.pojo.judge.Submission;
+import com.dong.judge.model.vo.judge.SubmissionSummary;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class SubmissionServiceImplTest {
+
+    private MongoTemplate mongoTemplate;
+    private SubmissionServiceImpl submissionService;
+
+    @BeforeEach
+    public void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getCollectionName(Submission.class)).thenReturn("submissions");
+        submissionService = new SubmissionServiceImpl(mock(SubmissionRepository.class), mongoTemplate);
+    }
+
+    @Test
+    public void userSubmissionsReadOnlySummaryFields() {
+        submissionService.getUserSubmissions("u1", null);
+
+        Query query = captureSummaryQuery();
+        assertEquals(new Document("userId", "u1"), query.getQueryObject());
+        assertEquals(new Document("submissionTime", -1), query.getSortObject());
+        assertProjectionExcludesLargeFields(query);
+    }
+
+    @Test
+    public void pageReadsOnlySummaryFields() {
+        submissionService.getAllSubmissionsPage(PageRequest.of(1, 20), "p1", null, "Accepted", null, CountMode.EXACT);
+
+        Query query = captureSummaryQuery();
+        assertEquals(new Document("problemId", "p1").append("status", "Accepted"), query.getQueryObject());
+        assertEquals(20, query.getSkip());
+        assertEquals(20, query.getLimit());
+        assertProjectionExcludesLargeFields(query);
+    }
+
+    @Test
+    public void idTiebreakerFollowsSortDirection() {
+        submissionService.getAllSubmissionsPage(PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "executionTime")),
+                "p1", null, null, null, CountMode.NONE);
+        assertEquals(new Document("executionTime", 1).append("id", 1), captureSummaryQuery().getSortObject());
+
+        clearInvocations(mongoTemplate);
+        submissionService.getAllSubmissionsPage(PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "memoryUsed")),
+                "p1", null, null, null, CountMode.NONE);
+        assertEquals(new Document("memoryUsed", -1).append("id", -1), captureSummaryQuery().getSortObject());
+    }
+
+    @Test
+    public void countModesControlHowTotalIsComputed() {
+        List<SubmissionSummary> fullPage = summaries("s1", "s2");
+        when(mongoTemplate.find(any(Query.class), eq(SubmissionSummary.class), eq("submissions"))).thenReturn(fullPage);
+        when(mongoTemplate.estimatedCount(Submission.class)).thenReturn(1000L);
+        when(mongoTemplate.count(any(Query.class), eq(Submission.class))).thenReturn(7L);
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "submissionTime"));
+
+        Slice<SubmissionSummary> estimated = submissionService.getAllSubmissionsPage(pageRequest, null, null, null, null, CountMode.ESTIMATED);
+        Slice<SubmissionSummary> filtered = submissionService.getAllSubmissionsPage(pageRequest, "p1", null, null, null, CountMode.ESTIMATED);
+
+        assertEquals(1000L, ((Page<SubmissionSummary>) estimated).getTotalElements());
+        assertEquals(7L, ((Page<SubmissionSummary>) filtered).getTotalElements());
+        verify(mongoTemplate, times(1)).estimatedCount(Submission.class);
+
+        reset(mongoTemplate);
+        when(mongoTemplate.getCollectionName(Submission.class)).thenReturn("submissions");
+        when(mongoTemplate.find(any(Query.class), eq(SubmissionSummary.class), eq("submissions")))
+                .thenReturn(summaries("s1", "s2", "s3"));
+        Slice<SubmissionSummary> uncounted = submissionService.getAllSubmissionsPage(pageRequest, null, null, null, null, CountMode.NONE);
+
+        assertFalse(uncounted instanceof Page);
+        assertTrue(uncounted.hasNext());
+        assertEquals(2, uncounted.getNumberOfElements());
+        assertEquals(3, captureSummaryQuery().getLimit());
+        verify(mongoTemplate, never()).count(any(Query.class), eq(Submission.class));
+        verify(mongoTemplate, never()).estimatedCount(Submission.class);
+    }
+
+    @Test
+    public void cursorPageSeeksPastLastSubmission() {
+        LocalDateTime time = LocalDateTime.of(2025, 1, 1, 12, 0);
+        when(mongoTemplate.findOne(any(Query.class), eq(Submission.class)))
+                .thenReturn(Submission.builder().id("s9").submissionTime(time).build());
+
+        submissionService.getSubmissionsAfter("s9", 10, null, "u1", null, null);
+
+        Query query = captureSummaryQuery();
+        Document expected = new Document("userId", "u1").append("$or", List.of(
+                new Document("submissionTime", new Document("$lt", time)),
+                new Document("submissionTime", time).append("id", new Document("$lt", "s9"))));
+        assertEquals(expected, query.getQueryObject());
+        assertEquals(new Document("submissionTime", -1).append("id", -1), query.getSortObject());
+        assertEquals(11, query.getLimit());
+        assertEquals(0, query.getSkip());
+    }
+
+    private Query captureSummaryQuery() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(SubmissionSummary.class), eq("submissions"));
+        return query.getValue();
+    }
+
+    private static List<SubmissionSummary> summaries(String... ids) {
+        return Arrays.stream(ids).map(id -> SubmissionSummary.builder().id(id).build()).toList();
+    }
+
+    private static void assertProjectionExcludesLargeFields(Query query) {
+        Document fields = query.getFieldsObject();
+        assertEquals(Set.of(SubmissionSummary.FIELDS), fields.keySet());
+        for (String large : List.of("code", "firstInput", "firstExpectedOutput", "firstOutput", "compileError")) {
+            assertFalse(fields.containsKey(large), large);
+        }
+    }
+}
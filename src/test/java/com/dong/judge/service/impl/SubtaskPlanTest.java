@@ -0,0 +1,44 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.model.dto.code.Subtask;
+import com.dong.judge.model.dto.code.TestCase;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SubtaskPlanTest {
+
+    private final List<TestCase> testCases = List.of(
+            TestCase.builder().id(1L).build(), TestCase.builder().id(2L).build(), TestCase.builder().id(3L).build());
+
+    @Test
+    public void ordersDependenciesFirst() {
+        SubtaskPlan plan = SubtaskPlan.of(List.of(
+                subtask(3, List.of(3L), List.of(1, 2)),
+                subtask(1, List.of(1L), null),
+                subtask(2, List.of(2L), List.of(1))), testCases);
+
+        assertEquals(List.of(1, 2, 3), plan.order().stream().map(Subtask::getId).toList());
+        assertNull(SubtaskPlan.of(List.of(), testCases));
+    }
+
+    @Test
+    public void rejectsInvalidDefinitions() {
+        assertThrows(IllegalArgumentException.class, () -> SubtaskPlan.of(List.of(
+                subtask(1, List.of(1L, 2L), List.of(2)),
+                subtask(2, List.of(3L), List.of(1))), testCases));
+        assertThrows(IllegalArgumentException.class, () -> SubtaskPlan.of(List.of(
+                subtask(1, List.of(1L, 2L, 3L), List.of(9))), testCases));
+        assertThrows(IllegalArgumentException.class, () -> SubtaskPlan.of(List.of(
+                subtask(1, List.of(1L, 4L), null)), testCases));
+        // 用例3不属于任何子任务
+        assertThrows(IllegalArgumentException.class, () -> SubtaskPlan.of(List.of(
+                subtask(1, List.of(1L, 2L), null)), testCases));
+    }
+
+    private static Subtask subtask(int id, List<Long> caseIds, List<Integer> dependencies) {
+        return Subtask.builder().id(id).score(10).caseIds(caseIds).dependencies(dependencies).build();
+    }
+}
@@ -0,0 +1,174 @@
+package com.dong.judge.service.impl;
+
+import com.dong.judge.config.JudgeConfig;
+import com.dong.judge.config.SandboxConfig;
+import com.dong.judge.dao.repository.TestGroupRepository;
+import com.dong.judge.model.dto.code.TestCase;
+import com.dong.judge.model.dto.code.TestCaseResult;
+import com.dong.judge.model.dto.sandbox.RunRequest;
+import com.dong.judge.model.pojo.judge.TestGroup;
+import com.dong.judge.model.vo.judge.TestGroupResult;
+import com.dong.judge.model.vo.sandbox.CompileResult;
+import com.dong.judge.model.vo.sandbox.RunResult;
+import com.dong.judge.service.SandboxService;
+import com.dong.judge.service.TestDataStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TestGroupServiceImplTest {
+
+    @Mock
+    private TestGroupRepository testGroupRepository;
+
+    @Mock
+    private SandboxService sandboxService;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private TestDataStore testDataStore;
+
+    @Spy
+    private SandboxConfig sandboxConfig = new SandboxConfig();
+
+    @Spy
+    private JudgeConfig judgeConfig = new JudgeConfig();
+
+    @Spy
+    private JudgeScheduler judgeScheduler = new JudgeScheduler(new JudgeConfig(), new SimpleMeterRegistry());
+
+    @InjectMocks
+    private TestGroupServiceImpl testGroupService;
+
+    private final List<String> executedInputs = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        lenient().when(sandboxService.compileCode(any())).thenReturn(CompileResult.builder().success(true).build());
+        lenient().when(sandboxService.runBatchAsync(anyList())).thenAnswer(invocation -> {
+            List<RunRequest> requests = invocation.getArgument(0);
+            List<RunResult> results = new ArrayList<>();
+            for (RunRequest request : requests) {
+                String input = request.getInput() != null ? request.getInput() : request.getInputHash();
+                executedInputs.add(input);
+                results.add(RunResult.builder().status("Accepted").exitStatus(0).stdout("out:" + input).build());
+            }
+            return CompletableFuture.completedFuture(results);
+        });
+    }
+
+    @Test
+    public void updateRerunsOnlyNewAndModifiedCases() {
+        TestGroup existing = createdGroup("a", "b", "c");
+        executedInputs.clear();
+        when(testGroupRepository.findById("g1")).thenReturn(Optional.of(existing));
+
+        TestGroupResult result = testGroupService.updateTestGroup(
+                TestGroup.builder().id("g1").testCases(testCases("a", "b2", "c", "d")).build(), "u1");
+
+        assertEquals(List.of("b2", "d"), executedInputs);
+        assertEquals(List.of(1L, 2L, 3L, 4L), result.getTestCaseResults().stream().map(TestCaseResult::getId).toList());
+        assertEquals(List.of("out:a", "out:b2", "out:c", "out:d"),
+                existing.getTestCaseResults().stream().map(TestCaseResult::getStdout).toList());
+        assertEquals("g1", result.getId());
+        verify(testGroupRepository, times(2)).save(existing);
+    }
+
+    @Test
+    public void unchangedGroupSkipsSandboxAndCodeChangeRerunsAll() {
+        TestGroup existing = createdGroup("a", "b");
+        when(testGroupRepository.findById("g1")).thenReturn(Optional.of(existing));
+        clearInvocations(sandboxService);
+
+        testGroupService.updateTestGroup(TestGroup.builder().id("g1").build(), "u1");
+        verifyNoInteractions(sandboxService);
+
+        executedInputs.clear();
+        testGroupService.updateTestGroup(TestGroup.builder().id("g1").code("print(2)").build(), "u1");
+        assertEquals(List.of("a", "b"), executedInputs);
+    }
+
+    @Test
+    public void largeInputsAndOutputsAreExternalizedAndReused() {
+        judgeConfig.getTestData().setInlineThreshold(5);
+        when(testDataStore.put(anyString())).thenAnswer(invocation -> "h:" + invocation.getArgument(0));
+        executedInputs.clear();
+        when(testGroupRepository.save(any(TestGroup.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        TestGroup testGroup = TestGroup.builder().id("g1").creatorId("u1").code("print(1)").language("python")
+                .testCases(testCases("a", "abcdef")).build();
+
+        TestGroupResult result = testGroupService.createTestGroup(testGroup, "u1");
+
+        // 较大的输入只保留摘要，运行时按摘要传给沙箱
+        TestCase large = testGroup.getTestCases().get(1);
+        assertNull(large.getInput());
+        assertEquals("h:abcdef", large.getInputHash());
+        assertEquals(6, large.getInputSize());
+        assertEquals("h:abcdef", large.getContentHash());
+        assertEquals("a", testGroup.getTestCases().get(0).getInput());
+        assertEquals(List.of("a", "h:abcdef"), executedInputs);
+
+        // 较大的预期输出存入测试数据存储，返回的结果仍包含完整输出
+        assertEquals("out:a", testGroup.getTestCaseResults().get(0).getStdout());
+        assertNull(testGroup.getTestCaseResults().get(1).getStdout());
+        assertNull(testGroup.getTestCases().get(0).getOutputHash());
+        assertEquals("h:out:h:abcdef", large.getOutputHash());
+        assertEquals("out:h:abcdef", result.getTestCaseResults().get(1).getStdout());
+
+        // 重新提交相同的输入时复用结果和预期输出的摘要
+        executedInputs.clear();
+        when(testGroupRepository.findById("g1")).thenReturn(Optional.of(testGroup));
+        testGroupService.updateTestGroup(TestGroup.builder().id("g1").testCases(testCases("a", "abcdef")).build(), "u1");
+
+        assertEquals(List.of(), executedInputs);
+        assertEquals("h:out:h:abcdef", testGroup.getTestCases().get(1).getOutputHash());
+        assertNull(testGroup.getTestCaseResults().get(1).getStdout());
+    }
+
+    /**
+     * 创建测试集并执行一次，保存时生成ID
+     */
+    private TestGroup createdGroup(String... inputs) {
+        when(testGroupRepository.save(any(TestGroup.class))).thenAnswer(invocation -> {
+            TestGroup saved = invocation.getArgument(0);
+            if (saved.getId() == null) {
+                saved.setId("g1");
+            }
+            return saved;
+        });
+        TestGroup testGroup = TestGroup.builder().code("print(1)").language("python").testCases(testCases(inputs)).build();
+        TestGroupResult result = testGroupService.createTestGroup(testGroup, "u1");
+
+        assertEquals("g1", result.getId());
+        assertEquals(List.of(inputs), executedInputs);
+        verify(testGroupRepository, times(1)).save(testGroup);
+        return testGroup;
+    }
+
+    private static List<TestCase> testCases(String... inputs) {
+        List<TestCase> testCases = new ArrayList<>();
+        for (int i = 0; i < inputs.length; i++) {
+            testCases.add(TestCase.builder().id((long) i + 1).input(inputs[i]).build());
+        }
+        return testCases;
+    }
+}
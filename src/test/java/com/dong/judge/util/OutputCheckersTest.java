@@ -0,0 +1,108 @@
+package com.dong.judge.util;
+
+import com.dong.judge.model.enums.OutputCheckMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutputCheckersTest {
+
+    @Test
+    public void exactComparesEveryCharacter() {
+        OutputChecker checker = OutputChecker.of(OutputCheckMode.EXACT, 0);
+
+        assertTrue(checker.check("1 2\n", "1 2\n"));
+        assertFalse(checker.check("1 2\n", "1 2"));
+        assertFalse(checker.check("1 2\n", "1 2\r\n"));
+        assertTrue(checker.check(null, ""));
+    }
+
+    @Test
+    public void lineIgnoresSurroundingWhitespaceAndLineEndings() {
+        OutputChecker checker = OutputChecker.of(null, 0);
+
+        assertTrue(checker.check("1 2\n3\n", "\n1 2  \r\n  3\r\n\n"));
+        assertTrue(checker.check("", "  \n\t"));
+        assertFalse(checker.check("1 2\n3", "1  2\n3"));
+        assertFalse(checker.check("1\n\n2", "1\n2"));
+        assertFalse(checker.check("1\n2", "1\n2\n3"));
+    }
+
+    @Test
+    public void lineMatchesLegacyNormalization() {
+        Random random = new Random(7);
+        char[] alphabet = {'a', '1', ' ', '\t', '\n', '\r'};
+        for (int round = 0; round < 5000; round++) {
+            String expected = randomText(random, alphabet);
+            String actual = random.nextBoolean() ? mutateWhitespace(random, expected) : randomText(random, alphabet);
+            assertEquals(normalizeOutput(expected).equals(normalizeOutput(actual)),
+                    OutputCheckers.LINE.check(expected, actual),
+                    () -> "expected=" + escape(expected) + " actual=" + escape(actual));
+        }
+    }
+
+    @Test
+    public void tokenIgnoresWhitespaceLayout() {
+        assertTrue(OutputCheckers.TOKEN.check("1 2 3", "1\n2\t\t3\n"));
+        assertFalse(OutputCheckers.TOKEN.check("1 2 3", "1 23"));
+        assertFalse(OutputCheckers.TOKEN.check("1 2", "1 2 3"));
+    }
+
+    @Test
+    public void floatingAllowsAbsoluteOrRelativeError() {
+        OutputChecker checker = OutputChecker.of(OutputCheckMode.FLOAT, 1e-6);
+
+        assertTrue(checker.check("0.333333 yes", "0.3333334 yes"));
+        assertTrue(checker.check("1000000000", "1000000500"));
+        assertTrue(checker.check("1.5", "1.50000"));
+        assertFalse(checker.check("0.3333", "0.3334"));
+        assertFalse(checker.check("yes", "YES"));
+        assertFalse(checker.check("1", "NaN"));
+        assertFalse(checker.check("1", "0x1p0"));
+    }
+
+    private static String randomText(Random random, char[] alphabet) {
+        StringBuilder sb = new StringBuilder();
+        int length = random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet[random.nextInt(alphabet.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static String mutateWhitespace(Random random, String text) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : text.split("\n", -1)) {
+            if (!sb.isEmpty()) {
+                sb.append(random.nextBoolean() ? "\n" : "\r\n");
+            }
+            sb.append(random.nextBoolean() ? " " : "").append(line.strip()).append(random.nextBoolean() ? "\t" : "");
+        }
+        return sb.toString();
+    }
+
+    private static String escape(String s) {
+        return s.replace("\r", "\\r").replace("\n", "\\n").replace("\t", "\\t");
+    }
+
+    /**
+     * 原有的输出规范化实现，作为逐行比较的参照
+     */
+    private static String normalizeOutput(String output) {
+        String normalized = output.replace("\r\n", "\n").trim();
+        if (normalized.contains("\n")) {
+            String[] lines = normalized.split("\n");
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < lines.length; i++) {
+                sb.append(lines[i].trim());
+                if (i < lines.length - 1) {
+                    sb.append("\n");
+                }
+            }
+            normalized = sb.toString();
+        }
+        return normalized;
+    }
+}